@@ -0,0 +1,24 @@
+-- ================================================
+--  Rating listings: Keyset-Pagination
+-- ================================================
+-- GET /media/{id}/ratings und /users/{id}/ratings liefern nur noch Seiten
+-- (sort = newest | most_liked | highest_stars, cursor = (sortKey, id)).
+-- Jede Sortierung bekommt einen eigenen Index, dessen Spalten genau dem
+-- ORDER BY ... DESC, id DESC der Repository-Queries entsprechen. Damit ist
+-- jede Seite ein Index-Range-Scan ohne Sort-Node.
+
+-- newest: bestehende Indizes um den Tie-Breaker "id" erweitern
+DROP INDEX IF EXISTS idx_ratings_media_created;
+DROP INDEX IF EXISTS idx_ratings_user_created;
+CREATE INDEX IF NOT EXISTS idx_ratings_media_created ON ratings(media_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_ratings_user_created  ON ratings(user_id,  created_at DESC, id DESC);
+
+-- most_liked
+-- Hinweis: like_count im Index verhindert HOT-Updates bei Likes; bewusst in Kauf genommen,
+-- weil die Detailseite nach Likes sortiert deutlich häufiger gelesen als geliked wird.
+CREATE INDEX IF NOT EXISTS idx_ratings_media_likes ON ratings(media_id, like_count DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_ratings_user_likes  ON ratings(user_id,  like_count DESC, id DESC);
+
+-- highest_stars
+CREATE INDEX IF NOT EXISTS idx_ratings_media_stars ON ratings(media_id, stars DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_ratings_user_stars  ON ratings(user_id,  stars DESC, id DESC);
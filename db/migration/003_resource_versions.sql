@@ -0,0 +1,61 @@
+-- ================================================
+--  Resource versions für ETags / Conditional GET
+-- ================================================
+-- Listen (Katalog, Ratings einer Media, Leaderboard) bekommen eine
+-- Versionsnummer, die per Trigger bei jeder relevanten Änderung erhöht wird.
+-- Der Server kann dadurch If-None-Match mit einem einzigen PK-Lookup
+-- beantworten, ohne die eigentliche Liste zu laden oder zu serialisieren.
+
+CREATE TABLE IF NOT EXISTS resource_versions (
+    name    TEXT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO resource_versions (name) VALUES ('catalog'), ('leaderboard')
+ON CONFLICT (name) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_resource_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE resource_versions SET version = version + 1 WHERE name = TG_ARGV[0];
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+-- Katalog: nur Spalten, die in GET /media sichtbar sind (ratings_version absichtlich nicht)
+DROP TRIGGER IF EXISTS trg_media_catalog_version ON media_entries;
+CREATE TRIGGER trg_media_catalog_version
+    AFTER INSERT OR DELETE OR UPDATE OF title, description, media_type, release_year,
+        genres, age_restriction, average_score, updated_at
+    ON media_entries
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_resource_version('catalog');
+
+-- Leaderboard: Anzahl Ratings pro User + Username
+DROP TRIGGER IF EXISTS trg_ratings_leaderboard_version ON ratings;
+CREATE TRIGGER trg_ratings_leaderboard_version
+    AFTER INSERT OR DELETE ON ratings
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_resource_version('leaderboard');
+
+DROP TRIGGER IF EXISTS trg_users_leaderboard_version ON users;
+CREATE TRIGGER trg_users_leaderboard_version
+    AFTER INSERT OR DELETE OR UPDATE OF username ON users
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_resource_version('leaderboard');
+
+-- Ratings einer Media: Version direkt an der Media-Zeile (jede Änderung inkl. Likes/Confirm)
+ALTER TABLE media_entries ADD COLUMN IF NOT EXISTS ratings_version BIGINT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION bump_media_ratings_version() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        UPDATE media_entries SET ratings_version = ratings_version + 1 WHERE id = OLD.media_id;
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.media_id <> OLD.media_id) THEN
+        UPDATE media_entries SET ratings_version = ratings_version + 1 WHERE id = NEW.media_id;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_ratings_media_version ON ratings;
+CREATE TRIGGER trg_ratings_media_version
+    AFTER INSERT OR UPDATE OR DELETE ON ratings
+    FOR EACH ROW EXECUTE FUNCTION bump_media_ratings_version();
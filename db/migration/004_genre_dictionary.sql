@@ -0,0 +1,43 @@
+-- ================================================
+--  Genres: Dictionary + int[] statt TEXT[]
+-- ================================================
+-- Genre-Namen stehen nur noch einmal in "genres"; media_entries speichert
+-- die kleinen Integer-IDs. Der Filter "genre=..." wird zu genre_ids @> ARRAY[id],
+-- was der intarray-GIN-Index (gin__int_ops) direkt bedienen kann.
+
+CREATE EXTENSION IF NOT EXISTS intarray;
+
+CREATE TABLE IF NOT EXISTS genres (
+    id   INT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    name VARCHAR(64) NOT NULL UNIQUE
+);
+
+-- bestehende Werte übernehmen
+INSERT INTO genres (name)
+SELECT DISTINCT trim(g)
+FROM media_entries m, unnest(m.genres) AS g
+WHERE g IS NOT NULL AND trim(g) <> ''
+ON CONFLICT (name) DO NOTHING;
+
+ALTER TABLE media_entries ADD COLUMN IF NOT EXISTS genre_ids INT[];
+
+UPDATE media_entries m
+SET genre_ids = (
+    SELECT COALESCE(array_agg(g.id ORDER BY u.ord), '{}')
+    FROM unnest(m.genres) WITH ORDINALITY AS u(name, ord)
+    JOIN genres g ON g.name = trim(u.name)
+)
+WHERE m.genres IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_media_genre_ids ON media_entries USING gin (genre_ids gin__int_ops);
+
+-- Katalog-Trigger (003) referenziert die alte Spalte -> neu anlegen
+DROP TRIGGER IF EXISTS trg_media_catalog_version ON media_entries;
+DROP INDEX IF EXISTS idx_media_genres_gin;
+ALTER TABLE media_entries DROP COLUMN IF EXISTS genres;
+
+CREATE TRIGGER trg_media_catalog_version
+    AFTER INSERT OR DELETE OR UPDATE OF title, description, media_type, release_year,
+        genre_ids, age_restriction, average_score, updated_at
+    ON media_entries
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_resource_version('catalog');
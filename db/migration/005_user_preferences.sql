@@ -0,0 +1,23 @@
+-- ================================================
+--  User-Präferenzprofile für Empfehlungen
+-- ================================================
+-- Pro User werden die aus positiven Ratings (>= 4 Sterne) abgeleiteten
+-- Präferenzen gespeichert und bei jedem Rating-Create/Update/Delete per
+-- Delta fortgeschrieben. Eine Empfehlung braucht dadurch nur noch einen
+-- PK-Lookup statt der kompletten Rating-Historie.
+--
+-- genre_names/genre_weights und type_names/type_weights sind parallele Arrays.
+-- age_counts[i] = Anzahl positiv bewerteter Medien mit age_restriction = i - 1
+-- (Postgres-Arrays sind 1-basiert), damit das Maximum auch beim Löschen
+-- ohne Neuberechnung bestimmt werden kann.
+
+CREATE TABLE IF NOT EXISTS user_preferences (
+    user_id        UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    genre_names    TEXT[] NOT NULL DEFAULT '{}',
+    genre_weights  INT[]  NOT NULL DEFAULT '{}',
+    type_names     TEXT[] NOT NULL DEFAULT '{}',
+    type_weights   INT[]  NOT NULL DEFAULT '{}',
+    age_counts     INT[]  NOT NULL DEFAULT '{}',
+    positive_count INT    NOT NULL DEFAULT 0,
+    updated_at     TIMESTAMPTZ NOT NULL DEFAULT now()
+);
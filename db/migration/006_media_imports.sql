@@ -0,0 +1,31 @@
+-- ================================================
+--  Bulk-Import von Katalogen (CSV / NDJSON)
+-- ================================================
+-- Der Import lädt die Datei in Chunks: COPY in eine temporäre Staging-Tabelle,
+-- danach ein mengenbasiertes INSERT ... SELECT nach media_entries. Chunk,
+-- Rejects und Checkpoint werden in derselben Transaktion geschrieben; ein
+-- abgebrochener Import setzt daher exakt nach dem letzten Checkpoint fort.
+
+CREATE TABLE IF NOT EXISTS media_imports (
+    id              UUID PRIMARY KEY,
+    source          TEXT NOT NULL,
+    format          VARCHAR(8) NOT NULL,
+    creator_id      UUID NOT NULL REFERENCES users(id),
+    records_done    BIGINT NOT NULL DEFAULT 0,   -- gelesene Datensätze (inkl. Rejects)
+    rows_loaded     BIGINT NOT NULL DEFAULT 0,
+    rows_rejected   BIGINT NOT NULL DEFAULT 0,
+    status          VARCHAR(16) NOT NULL DEFAULT 'RUNNING',
+    started_at      TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at      TIMESTAMPTZ NOT NULL DEFAULT now(),
+
+    CONSTRAINT ck_media_import_format CHECK (format IN ('CSV','NDJSON')),
+    CONSTRAINT ck_media_import_status CHECK (status IN ('RUNNING','DONE'))
+);
+
+-- Ungültige Datensätze mit Position und Grund, zum Nachbearbeiten
+CREATE TABLE IF NOT EXISTS media_import_rejects (
+    import_id   UUID NOT NULL REFERENCES media_imports(id) ON DELETE CASCADE,
+    record_no   BIGINT NOT NULL,
+    error       TEXT NOT NULL,
+    PRIMARY KEY (import_id, record_no)
+);
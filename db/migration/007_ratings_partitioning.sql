@@ -0,0 +1,194 @@
+-- ================================================
+--  ratings: Range-Partitionierung nach Monat
+-- ================================================
+-- Rating-IDs sind UUIDv7: die ersten 48 Bit sind der Zeitstempel in ms.
+-- Ein Monat ist daher ein zusammenhängender ID-Bereich, und ratings wird
+-- per RANGE (id) in Monats-Partitionen (ratings_yYYYYmMM) aufgeteilt.
+-- Jede Partition hat eigene, kleine Indizes; alte Monate werden nicht mehr
+-- geschrieben, VACUUM und Index-Pflege betreffen praktisch nur den
+-- aktuellen Monat.
+--
+-- Zugriffe per ID (findById, update, delete, Likes) treffen genau eine
+-- Partition. Listen nach created_at (newest, mit Cursor) begrenzen
+-- zusätzlich die ID, damit der Planner neuere Partitionen überspringt
+-- (JdbcRatingRepository.listPage).
+--
+-- Unique-Constraints auf partitionierten Tabellen müssen den
+-- Partitionsschlüssel enthalten; "ein Rating pro User und Media" lebt
+-- deshalb in rating_keys (gleicher Constraint-Name wie bisher).
+--
+-- Kommende Partitionen legt die Anwendung an (RatingPartitionMaintenance
+-- -> ensure_rating_partitions). Zeilen ohne passende Partition (z.B. IDs,
+-- die keine UUIDv7 sind) landen in ratings_default.
+--
+-- Cold Storage: SELECT detach_rating_partition('2024-01-01');
+-- hängt den Monat aus (Likes werden nach <partition>_likes kopiert), danach
+-- z.B. ALTER TABLE ratings_y2024m01 SET TABLESPACE cold;
+-- oder pg_dump -t ratings_y2024m01 -t ratings_y2024m01_likes und DROP TABLE.
+
+-- kleinste UUIDv7 eines Zeitpunkts (= UUIDv7.lowerBound)
+CREATE OR REPLACE FUNCTION uuidv7_floor(ts TIMESTAMPTZ) RETURNS UUID AS $$
+    SELECT (lpad(to_hex(floor(extract(epoch FROM ts) * 1000)::BIGINT), 12, '0') || '00000000000000000000')::UUID
+$$ LANGUAGE sql IMMUTABLE STRICT;
+
+-- Zeitstempel einer UUIDv7
+CREATE OR REPLACE FUNCTION uuidv7_time(id UUID) RETURNS TIMESTAMPTZ AS $$
+    SELECT to_timestamp(('x' || lpad(replace(left(id::TEXT, 13), '-', ''), 16, '0'))::BIT(64)::BIGINT / 1000.0)
+$$ LANGUAGE sql IMMUTABLE STRICT;
+
+CREATE OR REPLACE FUNCTION rating_partition_name(month TIMESTAMPTZ) RETURNS TEXT AS $$
+    SELECT 'ratings_' || to_char(month AT TIME ZONE 'UTC', '"y"YYYY"m"MM')
+$$ LANGUAGE sql IMMUTABLE STRICT;
+
+-- Legt die Partition des Monats an, in dem `month` liegt (UTC); true, wenn neu
+CREATE OR REPLACE FUNCTION create_rating_partition(month TIMESTAMPTZ) RETURNS BOOLEAN AS $$
+DECLARE
+    m_start TIMESTAMPTZ := date_trunc('month', month AT TIME ZONE 'UTC') AT TIME ZONE 'UTC';
+    m_end   TIMESTAMPTZ := (date_trunc('month', month AT TIME ZONE 'UTC') + INTERVAL '1 month') AT TIME ZONE 'UTC';
+    part    TEXT := rating_partition_name(m_start);
+BEGIN
+    IF to_regclass(part) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF ratings FOR VALUES FROM (%L) TO (%L)',
+                   part, uuidv7_floor(m_start), uuidv7_floor(m_end));
+    RETURN TRUE;
+END
+$$ LANGUAGE plpgsql;
+
+-- Aktueller Monat + months_ahead; liefert die Anzahl neu angelegter Partitionen
+CREATE OR REPLACE FUNCTION ensure_rating_partitions(months_ahead INT) RETURNS INT AS $$
+DECLARE
+    created INT := 0;
+BEGIN
+    -- gegen parallele Aufrufe mehrerer Instanzen (bis Transaktionsende)
+    PERFORM pg_advisory_xact_lock(hashtext('ensure_rating_partitions'));
+    FOR i IN 0..months_ahead LOOP
+        IF create_rating_partition(now() + make_interval(months => i)) THEN
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END
+$$ LANGUAGE plpgsql;
+
+-- ================================================
+--  Umbau der bestehenden Tabelle (einmalig)
+-- ================================================
+DO $$
+DECLARE
+    oldest TIMESTAMPTZ;
+    m      TIMESTAMPTZ;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'ratings'::regclass) <> 'r' THEN
+        RETURN; -- bereits partitioniert
+    END IF;
+
+    ALTER TABLE ratings RENAME TO ratings_unpartitioned;
+    ALTER TABLE ratings_unpartitioned RENAME CONSTRAINT ratings_pkey TO ratings_unpartitioned_pkey;
+    ALTER TABLE ratings_unpartitioned DROP CONSTRAINT ux_user_media_unique_rating;
+    ALTER TABLE rating_likes DROP CONSTRAINT IF EXISTS rating_likes_rating_id_fkey;
+    DROP TRIGGER IF EXISTS trg_ratings_leaderboard_version ON ratings_unpartitioned;
+    DROP TRIGGER IF EXISTS trg_ratings_media_version ON ratings_unpartitioned;
+    DROP INDEX IF EXISTS idx_ratings_media_created, idx_ratings_user_created,
+                         idx_ratings_media_likes, idx_ratings_user_likes,
+                         idx_ratings_media_stars, idx_ratings_user_stars;
+
+    CREATE TABLE ratings (
+        id UUID NOT NULL,
+        media_id UUID NOT NULL REFERENCES media_entries(id) ON DELETE CASCADE,
+        user_id  UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+        stars INT NOT NULL CHECK (stars BETWEEN 1 AND 5),
+        comment TEXT,
+        comment_confirmed BOOLEAN NOT NULL DEFAULT FALSE,
+        created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+        like_count INT NOT NULL DEFAULT 0,
+        CONSTRAINT ratings_pkey PRIMARY KEY (id)
+    ) PARTITION BY RANGE (id);
+
+    CREATE TABLE ratings_default PARTITION OF ratings DEFAULT;
+
+    -- Monate der vorhandenen UUIDv7-Ratings, danach die kommenden
+    SELECT min(uuidv7_time(id)) INTO oldest
+    FROM ratings_unpartitioned
+    WHERE substr(id::TEXT, 15, 1) = '7';
+    m := date_trunc('month', oldest AT TIME ZONE 'UTC') AT TIME ZONE 'UTC';
+    WHILE m IS NOT NULL AND m < now() LOOP
+        PERFORM create_rating_partition(m);
+        m := m + INTERVAL '1 month';
+    END LOOP;
+    PERFORM ensure_rating_partitions(3);
+
+    -- Keyset-Pagination (002_rating_pagination.sql), je Partition angelegt
+    CREATE INDEX idx_ratings_media_created ON ratings(media_id, created_at DESC, id DESC);
+    CREATE INDEX idx_ratings_user_created  ON ratings(user_id,  created_at DESC, id DESC);
+    CREATE INDEX idx_ratings_media_likes ON ratings(media_id, like_count DESC, id DESC);
+    CREATE INDEX idx_ratings_user_likes  ON ratings(user_id,  like_count DESC, id DESC);
+    CREATE INDEX idx_ratings_media_stars ON ratings(media_id, stars DESC, id DESC);
+    CREATE INDEX idx_ratings_user_stars  ON ratings(user_id,  stars DESC, id DESC);
+
+    INSERT INTO ratings (id, media_id, user_id, stars, comment, comment_confirmed, created_at, like_count)
+    SELECT id, media_id, user_id, stars, comment, comment_confirmed, created_at, like_count
+    FROM ratings_unpartitioned;
+
+    CREATE TABLE rating_keys (
+        media_id  UUID NOT NULL,
+        user_id   UUID NOT NULL,
+        rating_id UUID NOT NULL REFERENCES ratings(id) ON DELETE CASCADE,
+        CONSTRAINT ux_user_media_unique_rating PRIMARY KEY (media_id, user_id)
+    );
+    CREATE INDEX idx_rating_keys_rating ON rating_keys(rating_id);
+
+    INSERT INTO rating_keys (media_id, user_id, rating_id)
+    SELECT media_id, user_id, id FROM ratings;
+
+    ALTER TABLE rating_likes ADD CONSTRAINT rating_likes_rating_id_fkey
+        FOREIGN KEY (rating_id) REFERENCES ratings(id) ON DELETE CASCADE;
+
+    DROP TABLE ratings_unpartitioned;
+
+    -- Versionen (003_resource_versions.sql), erst nach der Übernahme
+    CREATE TRIGGER trg_ratings_leaderboard_version
+        AFTER INSERT OR DELETE ON ratings
+        FOR EACH STATEMENT EXECUTE FUNCTION bump_resource_version('leaderboard');
+    CREATE TRIGGER trg_ratings_media_version
+        AFTER INSERT OR UPDATE OR DELETE ON ratings
+        FOR EACH ROW EXECUTE FUNCTION bump_media_ratings_version();
+END
+$$;
+
+-- ================================================
+--  Alte Monate auslagern
+-- ================================================
+-- Hängt die Partition des Monats aus ratings aus. Die ausgehängten Ratings
+-- sind danach nicht mehr sichtbar: ihre Likes wandern nach <partition>_likes,
+-- ihre rating_keys werden entfernt, Durchschnitte und Versionen der
+-- betroffenen Medien neu berechnet. Der laufende Monat ist ausgenommen.
+CREATE OR REPLACE FUNCTION detach_rating_partition(month TIMESTAMPTZ) RETURNS TEXT AS $$
+DECLARE
+    part     TEXT := rating_partition_name(month);
+    affected UUID[];
+BEGIN
+    IF to_regclass(part) IS NULL THEN
+        RAISE EXCEPTION 'partition % does not exist', part;
+    END IF;
+    IF date_trunc('month', month AT TIME ZONE 'UTC') >= date_trunc('month', now() AT TIME ZONE 'UTC') THEN
+        RAISE EXCEPTION 'partition % is current or upcoming', part;
+    END IF;
+
+    EXECUTE format('SELECT array_agg(DISTINCT media_id) FROM %I', part) INTO affected;
+    EXECUTE format('CREATE TABLE %I AS SELECT l.* FROM rating_likes l JOIN %I r ON r.id = l.rating_id',
+                   part || '_likes', part);
+    EXECUTE format('DELETE FROM rating_likes WHERE rating_id IN (SELECT id FROM %I)', part);
+    EXECUTE format('DELETE FROM rating_keys WHERE rating_id IN (SELECT id FROM %I)', part);
+    EXECUTE format('ALTER TABLE ratings DETACH PARTITION %I', part);
+
+    UPDATE media_entries m
+    SET average_score = COALESCE((SELECT AVG(r.stars) FROM ratings r WHERE r.media_id = m.id), 0),
+        ratings_version = ratings_version + 1
+    WHERE m.id = ANY(COALESCE(affected, '{}'));
+    UPDATE resource_versions SET version = version + 1 WHERE name = 'leaderboard';
+
+    RETURN part;
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,46 @@
+-- ================================================
+--  Work-Queue für Fan-out-Arbeit
+-- ================================================
+-- Dauerhafte Warteschlange ohne eigenen Broker (WorkQueue / QueueWorkers).
+-- Worker auf allen Knoten holen sich fällige Einträge im Batch per
+-- FOR UPDATE SKIP LOCKED; gleichzeitige Worker überspringen gesperrte
+-- Zeilen, statt aufeinander zu warten.
+--
+-- Ablauf eines Eintrags:
+--   - claim: lease = neue UUID, attempts + 1, run_at = jetzt + Visibility-
+--     Timeout. Stirbt der Worker, wird der Eintrag nach dem Timeout erneut
+--     fällig und von einem anderen Worker übernommen.
+--   - erledigt: DELETE (nur mit passender lease)
+--   - Fehler: run_at = jetzt + Backoff; nach max_attempts Versuchen wird
+--     failed_at gesetzt, die Zeile bleibt zur Analyse stehen.
+--
+-- Idempotency-Key: solange ein Eintrag mit gleichem (kind, key) noch nicht
+-- begonnen wurde (lease IS NULL), ist ein weiteres Enqueue ein No-op - der
+-- wartende Eintrag sieht ohnehin den neuesten Stand. Ist er schon in
+-- Arbeit, wird ein neuer Eintrag angelegt.
+
+CREATE TABLE IF NOT EXISTS work_queue (
+    id              BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    kind            TEXT NOT NULL,
+    payload         TEXT NOT NULL,
+    idempotency_key TEXT,
+    attempts        INT NOT NULL DEFAULT 0,
+    max_attempts    INT NOT NULL DEFAULT 8,
+    run_at          TIMESTAMPTZ NOT NULL DEFAULT now(),   -- fällig ab / sichtbar ab
+    lease           UUID,                                 -- letzter claim
+    last_error      TEXT,
+    failed_at       TIMESTAMPTZ,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT now()
+) WITH (
+    -- viele kurzlebige Zeilen: früh vacuumen, damit claim nicht über tote Tupel läuft
+    autovacuum_vacuum_scale_factor = 0.01,
+    autovacuum_vacuum_threshold = 1000
+);
+
+-- claim: fällige, nicht gescheiterte Einträge nach run_at
+CREATE INDEX IF NOT EXISTS idx_work_queue_due
+    ON work_queue (run_at) WHERE failed_at IS NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_work_queue_pending_key
+    ON work_queue (kind, idempotency_key)
+    WHERE idempotency_key IS NOT NULL AND lease IS NULL;
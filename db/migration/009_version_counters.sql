@@ -0,0 +1,132 @@
+-- ================================================
+--  ETag-Versionen ohne globale Sperrzeile
+-- ================================================
+-- Bisher (003) erhöhte jede Rating-Änderung eine Zeile in resource_versions
+-- ('leaderboard') bzw. die Zeile der Media (ratings_version), und jede
+-- Neuberechnung von average_score zusätzlich 'catalog'. Alle schreibenden
+-- Transaktionen warteten bis zum Commit auf dieselbe Zeilensperre.
+--
+-- Neu:
+--   - resource_versions hat 16 Slots je Name. Der Trigger erhöht den Slot
+--     der eigenen Session (pg_backend_pid() % 16), gelesen wird die Summe.
+--     Gleichzeitige Transaktionen sperren daher praktisch nie dieselbe Zeile;
+--     die Summe wächst weiterhin mit jeder Änderung und ist transaktional.
+--   - 'catalog' wird bei UPDATE nur erhöht, wenn sich eine sichtbare Spalte
+--     tatsächlich geändert hat (unveränderter Durchschnitt = kein Bump).
+--   - Ratings einer Media: keine Version an der Media-Zeile mehr. Jede
+--     Rating-Zeile bekommt bei INSERT/UPDATE eine neue row_version aus einer
+--     Sequenz; die Version der Liste ist count(*) + sum(row_version) über
+--     die Ratings der Media (Index-Only-Scan, JdbcRatingRepository).
+
+-- ---- resource_versions: Slots ----
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_name = 'resource_versions' AND column_name = 'slot') THEN
+        ALTER TABLE resource_versions ADD COLUMN slot INT NOT NULL DEFAULT 0;
+        ALTER TABLE resource_versions DROP CONSTRAINT resource_versions_pkey;
+        ALTER TABLE resource_versions ADD CONSTRAINT resource_versions_pkey PRIMARY KEY (name, slot);
+    END IF;
+END
+$$;
+
+-- bisheriger Stand bleibt in Slot 0, die Summe ändert sich nicht
+INSERT INTO resource_versions (name, slot)
+SELECT n.name, s
+FROM (SELECT DISTINCT name FROM resource_versions) n, generate_series(0, 15) s
+ON CONFLICT (name, slot) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_resource_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE resource_versions SET version = version + 1
+    WHERE name = TG_ARGV[0] AND slot = pg_backend_pid() % 16;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+-- ---- Katalog: nur bei sichtbarer Änderung ----
+CREATE OR REPLACE FUNCTION bump_catalog_version_on_change() RETURNS trigger AS $$
+BEGIN
+    IF EXISTS (
+        SELECT 1
+        FROM old_rows o
+        JOIN new_rows n ON n.id = o.id
+        WHERE (o.title, o.description, o.media_type, o.release_year, o.genre_ids,
+               o.age_restriction, o.average_score, o.updated_at)
+              IS DISTINCT FROM
+              (n.title, n.description, n.media_type, n.release_year, n.genre_ids,
+               n.age_restriction, n.average_score, n.updated_at)
+    ) THEN
+        UPDATE resource_versions SET version = version + 1
+        WHERE name = 'catalog' AND slot = pg_backend_pid() % 16;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_media_catalog_version ON media_entries;
+DROP TRIGGER IF EXISTS trg_media_catalog_version_update ON media_entries;
+
+CREATE TRIGGER trg_media_catalog_version
+    AFTER INSERT OR DELETE ON media_entries
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_resource_version('catalog');
+
+CREATE TRIGGER trg_media_catalog_version_update
+    AFTER UPDATE ON media_entries
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_catalog_version_on_change();
+
+-- ---- Ratings einer Media: aus den Zeilen abgeleitet ----
+CREATE SEQUENCE IF NOT EXISTS rating_row_version_seq;
+
+-- DEFAULT 0 ohne Rewrite; bestehende Zeilen zählen über count(*)
+ALTER TABLE ratings ADD COLUMN IF NOT EXISTS row_version BIGINT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION set_rating_row_version() RETURNS trigger AS $$
+BEGIN
+    NEW.row_version := nextval('rating_row_version_seq');
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_ratings_media_version ON ratings;
+DROP TRIGGER IF EXISTS trg_ratings_row_version ON ratings;
+CREATE TRIGGER trg_ratings_row_version
+    BEFORE INSERT OR UPDATE ON ratings
+    FOR EACH ROW EXECUTE FUNCTION set_rating_row_version();
+
+CREATE INDEX IF NOT EXISTS idx_ratings_media_version ON ratings (media_id) INCLUDE (row_version);
+
+DROP FUNCTION IF EXISTS bump_media_ratings_version();
+ALTER TABLE media_entries DROP COLUMN IF EXISTS ratings_version;
+
+-- ---- detach_rating_partition (007) ohne ratings_version ----
+CREATE OR REPLACE FUNCTION detach_rating_partition(month TIMESTAMPTZ) RETURNS TEXT AS $$
+DECLARE
+    part     TEXT := rating_partition_name(month);
+    affected UUID[];
+BEGIN
+    IF to_regclass(part) IS NULL THEN
+        RAISE EXCEPTION 'partition % does not exist', part;
+    END IF;
+    IF date_trunc('month', month AT TIME ZONE 'UTC') >= date_trunc('month', now() AT TIME ZONE 'UTC') THEN
+        RAISE EXCEPTION 'partition % is current or upcoming', part;
+    END IF;
+
+    EXECUTE format('SELECT array_agg(DISTINCT media_id) FROM %I', part) INTO affected;
+    EXECUTE format('CREATE TABLE %I AS SELECT l.* FROM rating_likes l JOIN %I r ON r.id = l.rating_id',
+                   part || '_likes', part);
+    EXECUTE format('DELETE FROM rating_likes WHERE rating_id IN (SELECT id FROM %I)', part);
+    EXECUTE format('DELETE FROM rating_keys WHERE rating_id IN (SELECT id FROM %I)', part);
+    EXECUTE format('ALTER TABLE ratings DETACH PARTITION %I', part);
+
+    -- die Versionen der Rating-Listen ändern sich über count(*) von selbst
+    UPDATE media_entries m
+    SET average_score = COALESCE((SELECT AVG(r.stars) FROM ratings r WHERE r.media_id = m.id), 0)
+    WHERE m.id = ANY(COALESCE(affected, '{}'));
+    UPDATE resource_versions SET version = version + 1
+    WHERE name = 'leaderboard' AND slot = pg_backend_pid() % 16;
+
+    RETURN part;
+END
+$$ LANGUAGE plpgsql;
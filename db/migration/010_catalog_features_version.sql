@@ -0,0 +1,41 @@
+-- ================================================
+--  Version der Media-Merkmale ohne Bewertungen
+-- ================================================
+-- 'catalog' (003/009) ändert sich auch mit jedem neuen Durchschnitt.
+-- In-Memory-Indizes, die average_score nicht verwenden (Ähnlichkeitssuche),
+-- prüfen stattdessen 'catalog-features': erhöht bei INSERT/DELETE und bei
+-- UPDATEs, die eine Spalte außer average_score/updated_at ändern.
+-- Slots wie in 009_version_counters.sql.
+
+INSERT INTO resource_versions (name, slot)
+SELECT 'catalog-features', s FROM generate_series(0, 15) s
+ON CONFLICT (name, slot) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_catalog_features_on_change() RETURNS trigger AS $$
+BEGIN
+    IF EXISTS (
+        SELECT 1
+        FROM old_rows o
+        JOIN new_rows n ON n.id = o.id
+        WHERE (o.title, o.description, o.media_type, o.release_year, o.genre_ids, o.age_restriction)
+              IS DISTINCT FROM
+              (n.title, n.description, n.media_type, n.release_year, n.genre_ids, n.age_restriction)
+    ) THEN
+        UPDATE resource_versions SET version = version + 1
+        WHERE name = 'catalog-features' AND slot = pg_backend_pid() % 16;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_media_features_version ON media_entries;
+DROP TRIGGER IF EXISTS trg_media_features_version_update ON media_entries;
+
+CREATE TRIGGER trg_media_features_version
+    AFTER INSERT OR DELETE ON media_entries
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_resource_version('catalog-features');
+
+CREATE TRIGGER trg_media_features_version_update
+    AFTER UPDATE ON media_entries
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_catalog_features_on_change();
@@ -0,0 +1,10 @@
+-- ================================================
+--  Version der User-Präferenzprofile
+-- ================================================
+-- Ein Neuaufbau aus der Rating-Historie (UserPreferenceService.recompute)
+-- liest zuerst die Version des Profils, dann die Historie, und ersetzt das
+-- Profil nur, wenn die Version noch stimmt. Ein Delta, das dazwischen
+-- committet (version + 1), geht so nicht durch das Ersetzen verloren;
+-- der Neuaufbau wird stattdessen wiederholt.
+
+ALTER TABLE user_preferences ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
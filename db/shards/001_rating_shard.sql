@@ -0,0 +1,91 @@
+-- ================================================
+--  Rating-Shard (ShardedRatingRepository)
+-- ================================================
+-- Jeder Shard ist eine eigene PostgreSQL-Datenbank und enthält nur ratings
+-- und rating_likes der Medien, die ihm zugeordnet sind (RatingShardMap:
+-- media_id -> bucket -> shard). users und media_entries liegen weiterhin in
+-- der Hauptdatenbank; Fremdschlüssel dorthin gibt es daher nicht. Das
+-- Löschen der Ratings einer gelöschten Media übernimmt die Anwendung.
+
+CREATE TABLE IF NOT EXISTS ratings (
+    id UUID PRIMARY KEY,
+    media_id UUID NOT NULL,
+    user_id  UUID NOT NULL,
+    stars INT NOT NULL CHECK (stars BETWEEN 1 AND 5),
+    comment TEXT,
+    comment_confirmed BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    like_count INT NOT NULL DEFAULT 0,
+    -- untere 10 Bit der media_id, identisch zu RatingShardMap.bucketOf (Einheit beim Rebalancing)
+    bucket INT GENERATED ALWAYS AS (
+        ((get_byte(uuid_send(media_id), 14) & 3) << 8) | get_byte(uuid_send(media_id), 15)
+    ) STORED,
+    CONSTRAINT ux_user_media_unique_rating UNIQUE (media_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_ratings_bucket ON ratings(bucket);
+
+-- Keyset-Pagination, wie 002_rating_pagination.sql
+CREATE INDEX IF NOT EXISTS idx_ratings_media_created ON ratings(media_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_ratings_user_created  ON ratings(user_id,  created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_ratings_media_likes ON ratings(media_id, like_count DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_ratings_user_likes  ON ratings(user_id,  like_count DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_ratings_media_stars ON ratings(media_id, stars DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_ratings_user_stars  ON ratings(user_id,  stars DESC, id DESC);
+
+CREATE TABLE IF NOT EXISTS rating_likes (
+    rating_id UUID NOT NULL REFERENCES ratings(id) ON DELETE CASCADE,
+    user_id   UUID NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (rating_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_rating_likes_user ON rating_likes(user_id);
+
+-- ================================================
+--  Versionen für ETags (vgl. 003_resource_versions.sql)
+-- ================================================
+-- Leaderboard: die Anwendung addiert die Zähler aller Shards und der Hauptdatenbank.
+CREATE TABLE IF NOT EXISTS resource_versions (
+    name    TEXT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO resource_versions (name) VALUES ('leaderboard')
+ON CONFLICT (name) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_resource_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE resource_versions SET version = version + 1 WHERE name = TG_ARGV[0];
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_ratings_leaderboard_version ON ratings;
+CREATE TRIGGER trg_ratings_leaderboard_version
+    AFTER INSERT OR DELETE ON ratings
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_resource_version('leaderboard');
+
+-- Ratings einer Media: ohne media_entries eine eigene Tabelle, Zeile entsteht beim ersten Rating
+CREATE TABLE IF NOT EXISTS media_ratings_versions (
+    media_id UUID PRIMARY KEY,
+    version  BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE OR REPLACE FUNCTION bump_media_ratings_version() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        UPDATE media_ratings_versions SET version = version + 1 WHERE media_id = OLD.media_id;
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.media_id <> OLD.media_id) THEN
+        INSERT INTO media_ratings_versions (media_id, version) VALUES (NEW.media_id, 1)
+        ON CONFLICT (media_id) DO UPDATE SET version = media_ratings_versions.version + 1;
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_ratings_media_version ON ratings;
+CREATE TRIGGER trg_ratings_media_version
+    AFTER INSERT OR UPDATE OR DELETE ON ratings
+    FOR EACH ROW EXECUTE FUNCTION bump_media_ratings_version();
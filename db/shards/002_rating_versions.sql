@@ -0,0 +1,52 @@
+-- ================================================
+--  Versionen ohne globale Sperrzeile (vgl. 009_version_counters.sql)
+-- ================================================
+-- resource_versions: 16 Slots je Name, der Trigger erhöht den Slot der
+-- eigenen Session, gelesen wird die Summe.
+-- Ratings einer Media: count(*) + sum(row_version) statt media_ratings_versions.
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_name = 'resource_versions' AND column_name = 'slot') THEN
+        ALTER TABLE resource_versions ADD COLUMN slot INT NOT NULL DEFAULT 0;
+        ALTER TABLE resource_versions DROP CONSTRAINT resource_versions_pkey;
+        ALTER TABLE resource_versions ADD CONSTRAINT resource_versions_pkey PRIMARY KEY (name, slot);
+    END IF;
+END
+$$;
+
+INSERT INTO resource_versions (name, slot)
+SELECT n.name, s
+FROM (SELECT DISTINCT name FROM resource_versions) n, generate_series(0, 15) s
+ON CONFLICT (name, slot) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_resource_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE resource_versions SET version = version + 1
+    WHERE name = TG_ARGV[0] AND slot = pg_backend_pid() % 16;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE SEQUENCE IF NOT EXISTS rating_row_version_seq;
+
+ALTER TABLE ratings ADD COLUMN IF NOT EXISTS row_version BIGINT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION set_rating_row_version() RETURNS trigger AS $$
+BEGIN
+    NEW.row_version := nextval('rating_row_version_seq');
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_ratings_media_version ON ratings;
+DROP TRIGGER IF EXISTS trg_ratings_row_version ON ratings;
+CREATE TRIGGER trg_ratings_row_version
+    BEFORE INSERT OR UPDATE ON ratings
+    FOR EACH ROW EXECUTE FUNCTION set_rating_row_version();
+
+CREATE INDEX IF NOT EXISTS idx_ratings_media_version ON ratings (media_id) INCLUDE (row_version);
+
+DROP FUNCTION IF EXISTS bump_media_ratings_version();
+DROP TABLE IF EXISTS media_ratings_versions;
@@ -7,6 +7,7 @@ import mrp.infrastructure.http.AppFactory;
 import mrp.infrastructure.http.Router;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
 
 public class Main {
     public static void main(String[] args) throws Exception {
@@ -21,7 +22,8 @@ public class Main {
 
         HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
         server.createContext("/api", router::handle);
-        server.setExecutor(null);
+        // Ein virtueller Thread pro Request; die Begrenzung übernimmt der ConcurrencyLimiter im Router
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
         server.start();
 
 
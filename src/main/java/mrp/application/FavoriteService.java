@@ -1,5 +1,7 @@
 package mrp.application;
 
+import mrp.application.events.FavoriteEventListener;
+import mrp.application.loader.MediaLoader;
 import mrp.dto.MediaResponse;
 import mrp.domain.model.MediaEntry;
 import mrp.domain.ports.FavoriteRepository;
@@ -7,7 +9,9 @@ import mrp.domain.ports.MediaRepository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Application service responsible for managing user favorites.
@@ -17,6 +21,7 @@ import java.util.UUID;
 public class FavoriteService {
     private FavoriteRepository favorites;
     private MediaRepository media;
+    private List<FavoriteEventListener> listeners = new CopyOnWriteArrayList<>();
 
     public FavoriteService(FavoriteRepository favorites, MediaRepository media) {
         if (favorites == null) throw new IllegalArgumentException("favorites null");
@@ -25,6 +30,12 @@ public class FavoriteService {
         this.media = media;
     }
 
+    // Registers an in-process consumer of new favorites (e.g. trending counters).
+    public void addListener(FavoriteEventListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener null");
+        listeners.add(listener);
+    }
+
     // Adds a media entry to the user's favorites.
     // The operation is idempotent: adding an already favorited media is allowed.
     public void add(UUID userId, UUID mediaId) {
@@ -33,7 +44,16 @@ public class FavoriteService {
 
         media.findById(mediaId).orElseThrow(() -> new IllegalArgumentException("media not found"));
 
-        favorites.add(userId, mediaId); // Idempotent operation: repository may ignore duplicates
+        // Idempotent operation: repository may ignore duplicates
+        if (favorites.add(userId, mediaId)) {
+            for (FavoriteEventListener l : listeners) {
+                try {
+                    l.onFavoriteAdded(userId, mediaId);
+                } catch (RuntimeException ignored) {
+                    // a listener must never fail the write
+                }
+            }
+        }
     }
 
     public void remove(UUID userId, UUID mediaId) {
@@ -53,8 +73,10 @@ public class FavoriteService {
         List<UUID> ids = favorites.listMediaIdsByUser(userId);
         List<MediaResponse> out = new ArrayList<>();
 
+        // One query for all favorites; iteration keeps the favorites order
+        Map<UUID, MediaEntry> found = MediaLoader.of(media).loadMany(ids);
         for (UUID id : ids) {
-            MediaEntry e = media.findById(id).orElse(null);
+            MediaEntry e = found.get(id);
             if (e != null) {
                 out.add(new MediaResponse(
                         e.getId(), e.getCreatorId(), e.getTitle(), e.getDescription(),
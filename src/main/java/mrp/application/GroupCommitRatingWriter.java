@@ -0,0 +1,195 @@
+package mrp.application;
+
+import mrp.domain.model.Rating;
+import mrp.domain.ports.MediaRepository;
+import mrp.domain.ports.PartialCreateException;
+import mrp.domain.ports.RatingRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group commit for rating inserts.
+ *
+ * Concurrent RatingService.create calls hand their rating to one writer
+ * thread instead of each running its own transaction. The writer collects
+ * ratings for up to lingerMillis (or maxBatch ratings), then
+ * - inserts all of them with one multi-row INSERT in one transaction
+ *   (RatingRepository.createAll)
+ * - recomputes the average score of every affected media once for the
+ *   whole batch (MediaRepository.updateAverageScores)
+ * and completes each caller's future with its own rating and the new score.
+ *
+ * Errors stay per caller: a rating skipped by ux_user_media_unique_rating
+ * fails only its own future with "rating already exists". If the batch
+ * statement fails as a whole (e.g. a media was deleted meanwhile), the
+ * ratings are retried one by one so the error reaches only its caller;
+ * after a partial failure (PartialCreateException) only the ratings that
+ * were not written are retried.
+ * If only the score update fails, the inserted ratings are still reported
+ * as written (without a score); the stored average stays stale until the
+ * next rating change or the average-score reconciliation job.
+ *
+ * A caller can give up (cancel its future, e.g. when its request deadline
+ * passed) only while its rating waits in the queue. The writer claims every
+ * entry before the insert; from then on cancel() returns false and the
+ * future reports the outcome of the insert, so a stored rating is never
+ * reported as failed.
+ */
+public class GroupCommitRatingWriter implements AutoCloseable {
+
+    /**
+     * @param averageScore new average of the rated media; null if the score update failed
+     */
+    public record Written(Rating rating, Double averageScore) { }
+
+    private record Pending(Rating rating, Submission future) { }
+
+    // Future that can no longer be cancelled once the writer claimed it for an insert
+    private static final class Submission extends CompletableFuture<Written> {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return claim() && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    private final RatingRepository ratings;
+    private final MediaRepository media;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public GroupCommitRatingWriter(RatingRepository ratings, MediaRepository media, int maxBatch, long lingerMillis) {
+        if (ratings == null) throw new IllegalArgumentException("ratings null");
+        if (media == null) throw new IllegalArgumentException("media null");
+        if (maxBatch <= 0) throw new IllegalArgumentException("maxBatch must be positive");
+        if (lingerMillis < 0) throw new IllegalArgumentException("lingerMillis < 0");
+        this.ratings = ratings;
+        this.media = media;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+
+        this.worker = new Thread(this::run, "rating-group-commit");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues a rating (id already assigned) for the next group commit.
+     * cancel() on the returned future succeeds only before the insert started.
+     */
+    public CompletableFuture<Written> submit(Rating rating) {
+        if (rating == null) throw new IllegalArgumentException("rating null");
+        Submission f = new Submission();
+        if (closed) {
+            f.completeExceptionally(new IllegalStateException("writer closed"));
+            return f;
+        }
+        queue.add(new Pending(rating, f));
+        return f;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+                // linger: give concurrent callers a few ms to join the batch
+                long until = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    long left = until - System.nanoTime();
+                    Pending p = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (p == null) break;
+                    batch.add(p);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            flush(batch);
+            batch.clear();
+        }
+
+        // fail whatever is left so no caller waits forever
+        queue.drainTo(batch);
+        for (Pending p : batch) p.future.completeExceptionally(new IllegalStateException("writer closed"));
+    }
+
+    private void flush(List<Pending> batch) {
+        // cancelled entries lose the claim and are not written
+        batch.removeIf(p -> !p.future.claim());
+        if (batch.isEmpty()) return;
+
+        List<Rating> toInsert = new ArrayList<>(batch.size());
+        for (Pending p : batch) toInsert.add(p.rating);
+
+        Map<UUID, Rating> created = new HashMap<>();
+        List<Pending> retry = List.of();
+        try {
+            for (Rating r : ratings.createAll(toInsert)) created.put(r.getId(), r);
+        } catch (PartialCreateException partial) {
+            // committed ratings must not be inserted again (they would count as duplicates)
+            for (Rating r : partial.getCreated()) created.put(r.getId(), r);
+            Set<UUID> failed = new HashSet<>();
+            for (Rating r : partial.getFailed()) failed.add(r.getId());
+            retry = batch.stream().filter(p -> failed.contains(p.rating.getId())).toList();
+        } catch (RuntimeException batchFailure) {
+            retry = batch;
+        }
+        // isolate the failing rating(s): one transaction per rating
+        for (Pending p : retry) {
+            try {
+                Rating saved = ratings.createAll(List.of(p.rating)).stream().findFirst().orElse(null);
+                if (saved != null) created.put(saved.getId(), saved);
+            } catch (RuntimeException e) {
+                p.future.completeExceptionally(e);
+            }
+        }
+
+        Set<UUID> affected = new HashSet<>();
+        for (Rating r : created.values()) affected.add(r.getMediaId());
+
+        Map<UUID, Double> scores;
+        try {
+            scores = affected.isEmpty() ? Map.of() : media.updateAverageScores(affected);
+        } catch (RuntimeException e) {
+            // the ratings are committed; only the aggregate is behind
+            System.err.println("average score update for " + affected.size() + " media failed: " + e);
+            scores = Map.of();
+        }
+
+        for (Pending p : batch) {
+            if (p.future.isDone()) continue;
+            Rating saved = created.get(p.rating.getId());
+            if (saved == null) {
+                p.future.completeExceptionally(new IllegalStateException("rating already exists"));
+            } else {
+                p.future.complete(new Written(saved, scores.get(saved.getMediaId())));
+            }
+        }
+    }
+}
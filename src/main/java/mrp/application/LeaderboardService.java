@@ -19,4 +19,8 @@ public class LeaderboardService {
         if (offset < 0) throw new IllegalArgumentException("offset < 0");
         return userRepo.leaderboardByRatings(limit, offset);
     }
+
+    public long version() {
+        return userRepo.leaderboardVersion();
+    }
 }
@@ -0,0 +1,79 @@
+package mrp.application;
+
+import mrp.application.scoring.AlsModel;
+import mrp.application.scoring.AlsTrainer;
+import mrp.domain.ports.RatingRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collaborative recommendation engine based on matrix factorization (ALS).
+ *
+ * - trains user/item factors from all ratings in-process on a ForkJoinPool
+ * - retrain() is run periodically by the "mf-retrain" job (JobScheduler);
+ *   each run starts from the previous factors (warm start) and therefore
+ *   needs only a few iterations
+ * - requests only read the current immutable model snapshot, scoring is a
+ *   dot product per item plus a bounded top-k heap
+ *
+ * Cold start: users that are unknown to the model or have fewer than
+ * minUserRatings ratings get no collaborative result (empty Optional);
+ * RecommendationService then falls back to the genre heuristic.
+ */
+public class MatrixFactorizationEngine {
+
+    private static final int FIRST_RUN_ITERATIONS = 15;
+    private static final int WARM_ITERATIONS = 4;
+
+    private final RatingRepository ratings;
+    private final AlsTrainer trainer;
+    private final int minUserRatings;
+    private final AtomicBoolean training = new AtomicBoolean();
+
+    private volatile AlsModel model;
+
+    public MatrixFactorizationEngine(RatingRepository ratings, int rank, double lambda, int minUserRatings, ForkJoinPool pool) {
+        if (ratings == null) throw new IllegalArgumentException("ratings null");
+        this.ratings = ratings;
+        this.trainer = new AlsTrainer(rank, lambda, pool);
+        this.minUserRatings = Math.max(1, minUserRatings);
+    }
+
+    /**
+     * Loads all ratings and trains a new model (warm-started from the current one).
+     * Concurrent calls are skipped while a training run is in progress.
+     *
+     * @return true if a new model was published
+     */
+    public boolean retrain() {
+        if (!training.compareAndSet(false, true)) return false;
+        try {
+            AlsTrainer.Data data = new AlsTrainer.Data();
+            ratings.forEachRating(r -> data.add(r.getUserId(), r.getMediaId(), r.getStars()));
+            if (data.size() == 0) return false;
+
+            AlsModel previous = model;
+            int iterations = previous == null ? FIRST_RUN_ITERATIONS : WARM_ITERATIONS;
+            model = trainer.train(data, previous, iterations);
+            return true;
+        } finally {
+            training.set(false);
+        }
+    }
+
+    /**
+     * @return media ids ranked by predicted rating, or empty if the user is cold
+     */
+    public Optional<List<UUID>> recommend(UUID userId, Set<UUID> exclude, int limit) {
+        AlsModel m = model;
+        if (m == null || m.ratingCount(userId) < minUserRatings) return Optional.empty();
+        return Optional.of(m.recommend(userId, exclude, limit));
+    }
+
+    public AlsModel currentModel() { return model; }
+}
@@ -0,0 +1,53 @@
+package mrp.application;
+
+import mrp.domain.model.enums.MediaType;
+import mrp.dto.MediaRequest;
+
+/**
+ * Business rules for media input, shared by MediaService (single create/update)
+ * and the bulk catalog import.
+ */
+public final class MediaRequestValidator {
+
+    private MediaRequestValidator() { }
+
+    // Validates a media request according to business rules.
+    public static void validate(MediaRequest req) {
+        if (req == null){
+            throw new IllegalArgumentException("request null");
+        }
+
+        if (req.getTitle() == null || req.getTitle().trim().isEmpty()){
+            throw new IllegalArgumentException("title blank");
+        }
+
+        MediaType mt = req.getMediaType();
+        if (mt == null){
+            throw new IllegalArgumentException("mediaType null");
+        }
+
+        Integer year = req.getReleaseYear();
+        if (year != null && (year < 1888 || year > 2100)){
+            throw new IllegalArgumentException("releaseYear out of range");
+        }
+
+        Integer age = req.getAgeRestriction();
+        if (age != null && (age < 0 || age > 21)){
+            throw new IllegalArgumentException("ageRestriction out of range");
+        }
+
+        if (age == null){
+            throw new IllegalArgumentException("age null");
+        }
+    }
+
+    // Trims a string safely.
+    // Returns null if the trimmed result is empty.
+    public static String safeTrim(String s) {
+        if (s == null){
+            return null;
+        }
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+}
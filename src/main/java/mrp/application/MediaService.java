@@ -1,9 +1,9 @@
 package mrp.application;
 
+import mrp.application.events.MediaEventListener;
 import mrp.dto.MediaRequest;
 import mrp.dto.MediaResponse;
 import mrp.domain.model.MediaEntry;
-import mrp.domain.model.enums.MediaType;
 import mrp.domain.ports.MediaRepository;
 import mrp.domain.ports.MediaSearch;
 import mrp.infrastructure.util.UUIDv7;
@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Application service responsible for managing media entries.
@@ -22,21 +23,28 @@ import java.util.UUID;
 public class MediaService {
 
     protected MediaRepository repo;
+    private List<MediaEventListener> listeners = new CopyOnWriteArrayList<>();
 
     public MediaService(MediaRepository repo) {
         if (repo == null) throw new IllegalArgumentException("repo null");
         this.repo = repo;
     }
 
+    // Registers an in-process consumer of media changes (e.g. the similarity index).
+    public void addListener(MediaEventListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener null");
+        listeners.add(listener);
+    }
+
     public MediaResponse create(UUID creatorId, MediaRequest req) {
         if (creatorId == null) throw new IllegalArgumentException("creatorId null");
-        validateRequest(req);
+        MediaRequestValidator.validate(req);
 
         Instant now = Instant.now();
         MediaEntry entry = new MediaEntry(
                 UUIDv7.randomUUID(),
                 creatorId,
-                safeTrim(req.getTitle()),
+                MediaRequestValidator.safeTrim(req.getTitle()),
                 req.getDescription(),
                 req.getMediaType(),
                 req.getReleaseYear(),
@@ -48,6 +56,7 @@ public class MediaService {
         );
 
         MediaEntry saved = repo.save(entry);
+        fireSaved(saved);
         return toResponse(saved);
     }
 
@@ -74,7 +83,7 @@ public class MediaService {
         if (requesterId == null) {
             throw new IllegalArgumentException("requesterId null");
         }
-        validateRequest(req);
+        MediaRequestValidator.validate(req);
 
 
         MediaEntry current = repo.findById(id).orElseThrow(() ->
@@ -85,7 +94,7 @@ public class MediaService {
             throw new SecurityException("forbidden: not the creator");
         }
 
-        current.setTitle(safeTrim(req.getTitle()));
+        current.setTitle(MediaRequestValidator.safeTrim(req.getTitle()));
         current.setDescription(req.getDescription());
         current.setMediaType(req.getMediaType());
         current.setReleaseYear(req.getReleaseYear());
@@ -96,6 +105,7 @@ public class MediaService {
         if (!repo.update(current)) {
             throw new IllegalStateException("update failed");
         }
+        fireSaved(current);
         return toResponse(current);
     }
 
@@ -110,9 +120,23 @@ public class MediaService {
             throw new SecurityException("forbidden: not the creator");
         }
 
+        for (MediaEventListener l : listeners) {
+            try {
+                l.beforeMediaDeleted(id);
+            } catch (RuntimeException ignored) {
+                // a listener must never fail the write
+            }
+        }
         if (!repo.delete(id)) {
             throw new IllegalArgumentException("media not found");
         }
+        for (MediaEventListener l : listeners) {
+            try {
+                l.onMediaDeleted(id);
+            } catch (RuntimeException ignored) {
+                // a listener must never fail the write
+            }
+        }
     }
 
     // Searches for media entries using filter and sort criteria.
@@ -140,44 +164,19 @@ public class MediaService {
         return out;
     }
 
-    // Validates a media request according to business rules.
-    private void validateRequest(MediaRequest req) {
-        if (req == null){
-            throw new IllegalArgumentException("request null");
-        }
-
-        if (req.getTitle() == null || req.getTitle().trim().isEmpty()){
-            throw new IllegalArgumentException("title blank");
-        }
-
-        MediaType mt = req.getMediaType();
-        if (mt == null){
-            throw new IllegalArgumentException("mediaType null");
-        }
-
-        Integer year = req.getReleaseYear();
-        if (year != null && (year < 1888 || year > 2100)){
-            throw new IllegalArgumentException("releaseYear out of range");
-        }
-
-        Integer age = req.getAgeRestriction();
-        if (age != null && (age < 0 || age > 21)){
-            throw new IllegalArgumentException("ageRestriction out of range");
-        }
-
-        if (age == null){
-            throw new IllegalArgumentException("age null");
-        }
+    // Version of the data search() serves; used for ETags of search results.
+    public String searchVersion() {
+        return repo.searchVersion();
     }
 
-    // Trims a string safely.
-    // Returns null if the trimmed result is empty.
-    private String safeTrim(String s) {
-        if (s == null){
-            return null;
+    private void fireSaved(MediaEntry entry) {
+        for (MediaEventListener l : listeners) {
+            try {
+                l.onMediaSaved(entry);
+            } catch (RuntimeException ignored) {
+                // a listener must never fail the write
+            }
         }
-        String t = s.trim();
-        return t.isEmpty() ? null : t;
     }
 
     // Converts a MediaEntry domain object into a MediaResponse DTO.
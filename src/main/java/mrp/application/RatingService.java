@@ -1,17 +1,40 @@
 package mrp.application;
 
+import mrp.application.concurrent.Deadline;
+import mrp.application.concurrent.DeadlineExceededException;
+import mrp.application.events.RatingEventListener;
+import mrp.application.loader.BatchLoader;
+import mrp.application.loader.MediaLoader;
 import mrp.domain.model.MediaEntry;
 import mrp.domain.model.Rating;
 import mrp.domain.ports.MediaRepository;
+import mrp.domain.ports.PartialCreateException;
+import mrp.domain.ports.RatingCursor;
+import mrp.domain.ports.RatingPageRequest;
 import mrp.domain.ports.RatingRepository;
+import mrp.dto.BatchRatingRequest;
+import mrp.dto.BatchRatingResponse;
+import mrp.dto.RatingPageResponse;
 import mrp.dto.RatingRequest;
 import mrp.dto.RatingResponse;
 import mrp.infrastructure.util.UUIDv7;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * Application service responsible for managing ratings.
@@ -20,14 +43,35 @@ import java.util.UUID;
 
 public class RatingService {
 
+    // Upper bound for POST /users/me/ratings/batch
+    public static final int MAX_BATCH = 1000;
+
     private RatingRepository ratings;
     private MediaRepository mediaRepo;
+    private GroupCommitRatingWriter groupCommit;
+    private List<RatingEventListener> listeners = new CopyOnWriteArrayList<>();
 
     public RatingService(RatingRepository ratings, MediaRepository mediaRepo) {
+        this(ratings, mediaRepo, null);
+    }
+
+    /**
+     * @param groupCommit optional writer that batches concurrent creates; null = one transaction per rating
+     */
+    public RatingService(RatingRepository ratings, MediaRepository mediaRepo, GroupCommitRatingWriter groupCommit) {
         if (ratings == null) throw new IllegalArgumentException("ratings null");
         if (mediaRepo == null) throw new IllegalArgumentException("mediaRepo null");
         this.ratings = ratings;
         this.mediaRepo = mediaRepo;
+        this.groupCommit = groupCommit;
+    }
+
+    /**
+     * Registers an in-process consumer of rating changes (e.g. preference profiles).
+     */
+    public void addListener(RatingEventListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener null");
+        listeners.add(listener);
     }
 
     /**
@@ -44,7 +88,8 @@ public class RatingService {
         if (mediaId == null) throw new IllegalArgumentException("mediaId null");
         validateRequest(req);
 
-        MediaEntry media = mediaRepo.findById(mediaId)
+        BatchLoader<UUID, MediaEntry> mediaLoader = MediaLoader.of(mediaRepo);
+        MediaEntry media = mediaLoader.load(mediaId)
                 .orElseThrow(() -> new IllegalArgumentException("media not found"));
 
         Rating rating = new Rating(
@@ -58,50 +103,151 @@ public class RatingService {
                 0
         );
 
-        Rating saved = ratings.create(rating);
+        Rating saved;
+        if (groupCommit != null) {
+            // Insert and score update happen in the writer's next batch
+            GroupCommitRatingWriter.Written written = await(groupCommit.submit(rating));
+            saved = written.rating();
+            if (written.averageScore() != null) media.setAverageScore(written.averageScore());
+        } else {
+            saved = ratings.create(rating);
 
-        // Recalculate average score of the media
-        recalcAverageScore(media.getId());
+            // Recalculate average score of the media (reuses the entry loaded above)
+            recalcAverageScore(media.getId(), mediaLoader);
+        }
+        fire(l -> l.onRatingCreated(saved));
 
         // The author can see their own unconfirmed comment
         return toResponse(saved, userId);
     }
 
     /**
-     * Returns all ratings for a media entry.
+     * Creates many ratings of one user at once (e.g. a history import).
+     *
+     * - all entries are validated up front; invalid ones, unknown media and
+     *   duplicates within the batch are rejected individually
+     * - the remaining ratings are inserted together; entries that collide with an
+     *   existing rating of the user (ux_user_media_unique_rating) are reported as conflicts
+     * - every affected media aggregate is recalculated once, in one statement
+     */
+    public BatchRatingResponse createBatch(UUID userId, List<BatchRatingRequest> items) {
+        if (userId == null) throw new IllegalArgumentException("userId null");
+        if (items == null || items.isEmpty()) throw new IllegalArgumentException("no ratings");
+        if (items.size() > MAX_BATCH) throw new IllegalArgumentException("too many ratings (max " + MAX_BATCH + ")");
+
+        List<BatchRatingResponse.Rejected> rejected = new ArrayList<>();
+        Map<UUID, Integer> indexByMedia = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchRatingRequest item = items.get(i);
+            UUID mediaId = item == null ? null : item.getMediaId();
+            if (mediaId == null) {
+                rejected.add(new BatchRatingResponse.Rejected(i, null, 400, "mediaId missing"));
+            } else if (item.getStars() < 1 || item.getStars() > 5) {
+                rejected.add(new BatchRatingResponse.Rejected(i, mediaId, 400, "stars must be 1..5"));
+            } else if (indexByMedia.putIfAbsent(mediaId, i) != null) {
+                rejected.add(new BatchRatingResponse.Rejected(i, mediaId, 400, "duplicate media in batch"));
+            }
+        }
+
+        // One query for all referenced media
+        BatchLoader<UUID, MediaEntry> mediaLoader = MediaLoader.of(mediaRepo);
+        Map<UUID, MediaEntry> found = mediaLoader.loadMany(indexByMedia.keySet());
+
+        List<Rating> toInsert = new ArrayList<>();
+        for (Map.Entry<UUID, Integer> e : indexByMedia.entrySet()) {
+            if (!found.containsKey(e.getKey())) {
+                rejected.add(new BatchRatingResponse.Rejected(e.getValue(), e.getKey(), 404, "media not found"));
+                continue;
+            }
+            BatchRatingRequest item = items.get(e.getValue());
+            toInsert.add(new Rating(UUIDv7.randomUUID(), e.getKey(), userId,
+                    item.getStars(), item.getComment(), false, null, 0));
+        }
+
+        List<Rating> created;
+        Set<UUID> failedMedia = new HashSet<>();
+        try {
+            created = ratings.createAll(toInsert);
+        } catch (PartialCreateException e) {
+            // part of the storage failed: keep what was written, the rest can be sent again
+            created = e.getCreated();
+            for (Rating r : e.getFailed()) {
+                failedMedia.add(r.getMediaId());
+                rejected.add(new BatchRatingResponse.Rejected(indexByMedia.get(r.getMediaId()), r.getMediaId(),
+                        503, "rating not stored, try again"));
+            }
+        }
+
+        Set<UUID> createdMedia = new HashSet<>();
+        for (Rating r : created) createdMedia.add(r.getMediaId());
+        for (Rating r : toInsert) {
+            if (!createdMedia.contains(r.getMediaId()) && !failedMedia.contains(r.getMediaId())) {
+                rejected.add(new BatchRatingResponse.Rejected(indexByMedia.get(r.getMediaId()), r.getMediaId(),
+                        409, "rating already exists"));
+            }
+        }
+
+        if (!createdMedia.isEmpty()) {
+            // Keep the request's loaded entries in line with the stored aggregate (listeners read them)
+            mediaRepo.updateAverageScores(createdMedia).forEach((id, avg) -> {
+                MediaEntry m = found.get(id);
+                if (m != null) m.setAverageScore(avg);
+            });
+        }
+        for (Rating r : created) {
+            fire(l -> l.onRatingCreated(r));
+        }
+
+        rejected.sort(Comparator.comparingInt(r -> r.index));
+        List<RatingResponse> out = new ArrayList<>();
+        for (Rating r : created) {
+            out.add(toResponse(r, userId));
+        }
+        return new BatchRatingResponse(out, rejected);
+    }
+
+    /**
+     * Returns one page of ratings for a media entry.
      *
      * Comment visibility:
      * - confirmed comments are visible to everyone
      * - unconfirmed comments are only visible to the author
      */
-    public List<RatingResponse> listForMedia(UUID mediaId, UUID requesterId) {
+    public RatingPageResponse listForMedia(UUID mediaId, UUID requesterId, RatingPageRequest page) {
         if (mediaId == null) throw new IllegalArgumentException("mediaId null");
         if (requesterId == null) throw new IllegalArgumentException("requesterId null");
+        if (page == null) page = RatingPageRequest.firstPage();
 
         // Ensure media exists
-        mediaRepo.findById(mediaId)
+        MediaLoader.of(mediaRepo).load(mediaId)
                 .orElseThrow(() -> new IllegalArgumentException("media not found"));
 
-        List<Rating> list = ratings.listByMedia(mediaId);
-        List<RatingResponse> out = new ArrayList<>();
-        for (Rating r : list) {
-            out.add(toResponse(r, requesterId));
-        }
-        return out;
+        // Fetch one extra row to find out whether another page exists
+        List<Rating> rows = ratings.listByMedia(mediaId, probe(page));
+        return toPage(rows, page, requesterId);
+    }
+
+    /**
+     * Version of the rating list of a media entry, used for ETags.
+     * Changes with every rating insert/update/delete and every like.
+     *
+     * @return the version, or empty if the media does not exist
+     */
+    public Optional<RatingRepository.ListVersion> mediaRatingsVersion(UUID mediaId) {
+        if (mediaId == null) throw new IllegalArgumentException("mediaId null");
+        return ratings.mediaRatingsVersion(mediaId);
     }
 
     /**
-     * Returns the rating history of a user.
+     * Returns one page of the rating history of a user.
      * The user can always see their full comments.
      */
-    public List<RatingResponse> listForUser(UUID userId) {
+    public RatingPageResponse listForUser(UUID userId, RatingPageRequest page) {
         if (userId == null) throw new IllegalArgumentException("userId null");
-        List<Rating> list = ratings.listByUser(userId);
-        List<RatingResponse> out = new ArrayList<>();
-        for (Rating r : list) {
-            out.add(toResponse(r, userId));
-        }
-        return out;
+        if (page == null) page = RatingPageRequest.firstPage();
+
+        List<Rating> rows = ratings.listByUser(userId, probe(page));
+        return toPage(rows, page, userId);
     }
 
     /**
@@ -120,6 +266,8 @@ public class RatingService {
             throw new SecurityException("forbidden: not the author of rating");
         }
 
+        int previousStars = existing.getStars();
+
         // Update domain object
         existing.setStars(req.getStars());
         existing.setComment(req.getComment());
@@ -130,7 +278,8 @@ public class RatingService {
         ratings.update(ratingId, actorUserId, existing.getStars(), existing.getComment());
 
         // Recalculate media average score
-        recalcAverageScore(existing.getMediaId());
+        recalcAverageScore(existing.getMediaId(), MediaLoader.of(mediaRepo));
+        fire(l -> l.onRatingUpdated(previousStars, existing));
     }
 
     /**
@@ -151,7 +300,48 @@ public class RatingService {
         ratings.delete(ratingId, actorUserId);
 
         // Recalculate media average score
-        recalcAverageScore(existing.getMediaId());
+        recalcAverageScore(existing.getMediaId(), MediaLoader.of(mediaRepo));
+        fire(l -> l.onRatingDeleted(existing));
+    }
+
+    // Waits for a group commit; the caller sees the same exceptions as with a direct insert.
+    // At the request deadline a rating still queued is withdrawn; once the writer took it
+    // into an insert, the outcome of that insert is awaited and returned.
+    private static <T> T await(CompletableFuture<T> future) {
+        long left = Deadline.remainingNanos();
+        if (left != Long.MAX_VALUE) {
+            try {
+                return future.get(Math.max(left, 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (future.cancel(false)) throw new DeadlineExceededException("deadline exceeded");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (future.cancel(false)) throw new IllegalStateException("interrupted", e);
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException re) return re;
+        return new IllegalStateException(cause);
+    }
+
+    private void fire(Consumer<RatingEventListener> event) {
+        for (RatingEventListener l : listeners) {
+            try {
+                event.accept(l);
+            } catch (RuntimeException e) {
+                // a listener must never fail the write
+                System.err.println("rating listener " + l.getClass().getSimpleName() + " failed: " + e);
+            }
+        }
     }
 
     private void validateRequest(RatingRequest req) {
@@ -166,7 +356,7 @@ public class RatingService {
     /**
      * Recalculates and persists the average score of a media entry.
      */
-    private void recalcAverageScore(UUID mediaId) {
+    private void recalcAverageScore(UUID mediaId, BatchLoader<UUID, MediaEntry> mediaLoader) {
         List<Rating> list = ratings.listByMedia(mediaId);
         double avg;
         if (list.isEmpty()) {
@@ -179,7 +369,7 @@ public class RatingService {
             avg = sum / (double) list.size();
         }
 
-        MediaEntry media = mediaRepo.findById(mediaId)
+        MediaEntry media = mediaLoader.load(mediaId)
                 .orElseThrow(() -> new IllegalStateException("media disappeared during rating update"));
 
         media.setAverageScore(avg);
@@ -231,6 +421,7 @@ public class RatingService {
         if (!ok) {
             throw new IllegalStateException("already liked");
         }
+        fire(l -> l.onRatingLiked(r, actorUserId));
 
     }
 
@@ -255,6 +446,30 @@ public class RatingService {
     }
 
 
+    private RatingPageRequest probe(RatingPageRequest page) {
+        return page.withLookahead();
+    }
+
+    /**
+     * Cuts the probe result down to the requested page size and derives the
+     * cursor for the next page from the last returned row.
+     */
+    private RatingPageResponse toPage(List<Rating> rows, RatingPageRequest page, UUID requesterId) {
+        boolean hasMore = rows.size() > page.getLimit();
+        List<Rating> pageRows = hasMore ? rows.subList(0, page.getLimit()) : rows;
+
+        List<RatingResponse> items = new ArrayList<>();
+        for (Rating r : pageRows) {
+            items.add(toResponse(r, requesterId));
+        }
+
+        String next = null;
+        if (hasMore && !pageRows.isEmpty()) {
+            next = RatingCursor.after(pageRows.get(pageRows.size() - 1), page.getSort()).encode();
+        }
+        return new RatingPageResponse(items, next);
+    }
+
     /**
      * Builds a RatingResponse based on comment visibility rules.
      */
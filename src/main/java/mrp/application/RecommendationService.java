@@ -1,7 +1,14 @@
 package mrp.application;
 
+import mrp.application.concurrent.Fanout;
+import mrp.application.loader.MediaLoader;
+import mrp.application.scoring.GenreTopLists;
+import mrp.application.scoring.GenreVectors;
+import mrp.application.similarity.MediaVectors;
+import mrp.application.scoring.TopK;
 import mrp.domain.model.MediaEntry;
 import mrp.domain.model.Rating;
+import mrp.domain.model.UserPreferences;
 import mrp.domain.model.enums.MediaType;
 import mrp.domain.ports.MediaRepository;
 import mrp.domain.ports.MediaSearch;
@@ -9,10 +16,12 @@ import mrp.domain.ports.RatingRepository;
 import mrp.dto.MediaResponse;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
@@ -20,22 +29,56 @@ import java.util.UUID;
  * Application service responsible for generating media recommendations for a user.
  *
  * Recommendation approach (high level):
- * - Uses the user's rating history as preference signal
+ * - Uses the user's preference profile (derived from the rating history) as signal
  * - Only "highly rated" items (>= 4 stars) contribute to preferences
  * - Excludes all already rated media (even 1-star ratings)
  * - Builds candidates via repository search and ranks them by similarity score
+ *
+ * If a MatrixFactorizationEngine is configured, users known to the trained
+ * model are served from its factors (collaborative signal), within the same
+ * age bound as the heuristic; everyone else (or a user whose collaborative
+ * results are all above the bound) falls back to the genre heuristic below.
+ *
+ * Scoring is done in bulk: preferences and candidate genres are encoded as
+ * dense float vectors (GenreVectors) and only the best `limit` candidates
+ * are kept in a bounded heap (TopK) instead of sorting all of them.
  */
 
 public class RecommendationService {
 
+    // Maximum page size of MediaRepository.search
+    private static final int CANDIDATES_PER_GENRE = 100;
+    // Extra collaborative results to make up for media rated after the last retrain
+    private static final int ENGINE_OVERFETCH = 20;
+
     private RatingRepository ratings;
     private MediaRepository media;
+    private MatrixFactorizationEngine engine;
+    private SimilarityService similarity;
+    private UserPreferenceService preferences;
+    private GenreTopLists topLists;
 
     public RecommendationService(RatingRepository ratings, MediaRepository media) {
+        this(ratings, media, null, null, null, null);
+    }
+
+    /**
+     * @param engine      optional collaborative engine; null = genre heuristic only
+     * @param similarity  optional ANN index used as additional candidate source
+     * @param preferences optional persisted preference profiles; null = derive from the history
+     * @param topLists    optional in-memory per-genre rankings; null = one search query per genre
+     */
+    public RecommendationService(RatingRepository ratings, MediaRepository media,
+                                 MatrixFactorizationEngine engine, SimilarityService similarity,
+                                 UserPreferenceService preferences, GenreTopLists topLists) {
         if (ratings == null) throw new IllegalArgumentException("ratings null");
         if (media == null) throw new IllegalArgumentException("media null");
         this.ratings = ratings;
         this.media = media;
+        this.engine = engine;
+        this.similarity = similarity;
+        this.preferences = preferences;
+        this.topLists = topLists;
     }
 
     /**
@@ -53,146 +96,159 @@ public class RecommendationService {
         if (limit <= 0) limit = 10;
         if (limit > 50) limit = 50;
 
-        // Load rating history. No history => no recommendations.
-        List<Rating> history = ratings.listByUser(userId);
-        if (history == null || history.isEmpty()) {
-            return List.of();
-        }
-
-        // Preference signal: only keep "positive" ratings (>= 4 stars).
-        List<Rating> positive = new ArrayList<>();
-        for (Rating r : history) {
-            if (r == null) continue;
-            if (r.getStars() >= 4) positive.add(r);
-        }
-        if (positive.isEmpty()) {
-            return List.of(); // 200 + []
-        }
+        // Preference profile: one lookup if profiles are maintained incrementally,
+        // otherwise derived from the full rating history.
+        UserPreferences prefs;
+        Set<UUID> ratedMediaIds = null; // null = look up candidates against the repository
+        if (preferences != null) {
+            prefs = preferences.profileFor(userId);
+        } else {
+            List<Rating> history = ratings.listByUser(userId);
+            if (history == null || history.isEmpty()) {
+                return List.of();
+            }
 
-        // Exclusion set: all rated media IDs (including negative ratings).
-        Set<UUID> ratedMediaIds = new HashSet<>();
-        for (Rating r : history) {
-            if (r != null && r.getMediaId() != null) ratedMediaIds.add(r.getMediaId());
+            // Exclusion set: all rated media IDs (including negative ratings).
+            ratedMediaIds = new HashSet<>();
+            for (Rating r : history) {
+                if (r != null && r.getMediaId() != null) ratedMediaIds.add(r.getMediaId());
+            }
+            prefs = UserPreferenceService.fromHistory(userId, history, MediaLoader.of(media));
         }
 
-        // Build weighted preferences (genres + media type) from positive ratings.
-        // Weight by stars (4..5) to strengthen stronger likes.
-        Map<String, Integer> genreWeights = new HashMap<>();
-        Map<MediaType, Integer> typeWeights = new HashMap<>();
-
-        for (Rating r : positive) {
-            if (r == null || r.getMediaId() == null) continue;
-
-            MediaEntry rated = media.findById(r.getMediaId()).orElse(null);
-            if (rated == null) continue;
-
-            int w = r.getStars(); // 4..5
-
-            // Collect genre weights
-            List<String> genres = rated.getGenres();
-            if (genres != null) {
-                for (String g : genres) {
-                    if (g == null) continue;
-                    String key = g.trim();
-                    if (key.isEmpty()) continue;
-                    genreWeights.put(key, genreWeights.getOrDefault(key, 0) + w);
+        // Collaborative model first; cold-start users fall through to the heuristic.
+        if (engine != null) {
+            // The model skips media rated at training time; over-fetch a little for newer ratings.
+            Optional<List<UUID>> ranked = engine.recommend(userId,
+                    ratedMediaIds != null ? ratedMediaIds : Set.of(), limit + ENGINE_OVERFETCH);
+            if (ranked.isPresent() && !ranked.get().isEmpty()) {
+                List<UUID> ids = new ArrayList<>(ranked.get());
+                ids.removeAll(ratedAmong(userId, ids, ratedMediaIds));
+
+                // Same age bound as the heuristic: nothing above the highest positively rated age
+                Integer maxAge = prefs.maxAge();
+                List<MediaResponse> out = new ArrayList<>();
+                for (MediaEntry e : MediaLoader.of(media).loadMany(ids).values()) {
+                    if (out.size() == limit) break;
+                    if (maxAge != null && e.getAgeRestriction() != null && e.getAgeRestriction() > maxAge) continue;
+                    out.add(toResponse(e));
                 }
+                if (!out.isEmpty()) return out;
+                // everything was above the age bound: fall through to the heuristic
             }
+        }
 
-            // Collect media type weights
-            MediaType mt = rated.getMediaType();
-            if (mt != null) {
-                typeWeights.put(mt, typeWeights.getOrDefault(mt, 0) + w);
-            }
+        // No positive ratings (>= 4 stars) => no preference signal.
+        if (prefs.getPositiveCount() == 0) {
+            return List.of(); // 200 + []
         }
 
+        // Weighted preferences (stars 4..5 per positively rated media).
+        Map<String, Integer> genreWeights = prefs.getGenreWeights();
+
         // If no genre preferences could be derived, then the service cannot recommend reliably.
         if (genreWeights.isEmpty()) {
             return List.of();
         }
 
         // Determine a single "preferred" media type (highest weight).
-        MediaType preferredType = mostWeightedType(typeWeights);
+        MediaType preferredType = prefs.preferredType();
         String preferredTypeStr = preferredType != null ? preferredType.name() : null;
 
-        // Derive an age preference from positive ratings (used as a max filter).
-        Integer preferredAge = preferredAgeMax(positive);
+        // Age preference: highest age restriction among positively rated media (used as a max filter).
+        Integer preferredAge = prefs.maxAge();
 
         // Candidate generation: search for media per top genres (e.g., top 3).
         List<String> topGenres = topKeysByWeight(genreWeights, 3);
 
         Map<UUID, MediaEntry> candidatesById = new HashMap<>();
+        if (topLists != null) {
+            // Materialized rankings: a few in-memory list reads, no SQL
+            for (String g : topGenres) {
+                for (MediaEntry e : topLists.top(g, preferredType, preferredAge, CANDIDATES_PER_GENRE)) {
+                    candidatesById.putIfAbsent(e.getId(), e);
+                }
+            }
+        } else {
+            // The searches are independent: run them concurrently so latency follows
+            // the slowest query instead of the sum of all.
+            List<Fanout.Subtask<List<MediaEntry>>> searches = new ArrayList<>();
+            try (Fanout scope = Fanout.open()) {
+                for (String g : topGenres) {
+                    MediaSearch search = new MediaSearch(
+                            null,               // title
+                            preferredTypeStr,    // mediaType
+                            g,                  // genre
+                            null,               // releaseYear
+                            preferredAge,       // ageRestriction (als max-Filter)
+                            null,               // rating (min avg-score) - nicht genutzt
+                            "score",            // sortBy
+                            "desc",             // sortDir
+                            CANDIDATES_PER_GENRE,
+                            0
+                    );
+                    searches.add(scope.fork(() -> media.search(search)));
+                }
+                scope.join();
+            }
 
-        for (String g : topGenres) {
-            MediaSearch search = new MediaSearch(
-                    null,               // title
-                    preferredTypeStr,    // mediaType
-                    g,                  // genre
-                    null,               // releaseYear
-                    preferredAge,       // ageRestriction (als max-Filter)
-                    null,               // rating (min avg-score) - nicht genutzt
-                    "score",            // sortBy
-                    "desc",             // sortDir
-                    50,
-                    0
-            );
-
-            List<MediaEntry> found = media.search(search);
-            if (found == null) continue;
-
-            for (MediaEntry e : found) {
-                if (e == null || e.getId() == null) continue;
-                if (ratedMediaIds.contains(e.getId())) continue; // exclude already rated (ALL)
-                candidatesById.putIfAbsent(e.getId(), e);       // avoid duplicates across genres
+            // Merge in genre order (deterministic regardless of completion order)
+            for (Fanout.Subtask<List<MediaEntry>> s : searches) {
+                List<MediaEntry> found = s.get();
+                if (found == null) continue;
+
+                for (MediaEntry e : found) {
+                    if (e == null || e.getId() == null) continue;
+                    candidatesById.putIfAbsent(e.getId(), e);       // avoid duplicates across genres
+                }
             }
         }
 
-        // Score candidates by similarity and sort descending.
-        List<ScoredMedia> scored = new ArrayList<>();
-        for (MediaEntry c : candidatesById.values()) {
-            double s = similarityScore(c, genreWeights, preferredType);
-            if (s > 0.0) scored.add(new ScoredMedia(c, s));
+        // Nearest neighbours of the user's taste profile find candidates beyond the top genres.
+        if (similarity != null) {
+            float[] profile = MediaVectors.ofPreferences(genreWeights, preferredType);
+            for (MediaEntry e : similarity.candidates(profile, CANDIDATES_PER_GENRE, preferredAge, preferredType)) {
+                candidatesById.putIfAbsent(e.getId(), e);
+            }
         }
 
-        scored.sort((a, b) -> Double.compare(b.score, a.score));
+        // Exclude ALL already rated media (including negative ratings).
+        candidatesById.keySet().removeAll(ratedAmong(userId, candidatesById.keySet(), ratedMediaIds));
+
+        // Encode candidates once, then score all of them in one pass.
+        List<MediaEntry> candidates = new ArrayList<>(candidatesById.values());
+        GenreVectors vectors = new GenreVectors(genreWeights);
+        for (MediaEntry c : candidates) {
+            vectors.add(c.getGenres());
+        }
+        float[] overlap = new float[candidates.size()];
+        vectors.overlap(overlap);
+
+        TopK<MediaEntry> best = new TopK<>(limit);
+        for (int i = 0; i < candidates.size(); i++) {
+            MediaEntry c = candidates.get(i);
+            double s = overlap[i] + bonus(c, preferredType);
+            if (s > 0.0) best.offer(c, s);
+        }
 
-        // Limit and map to DTO responses.
+        // Map to DTO responses (best first).
         List<MediaResponse> out = new ArrayList<>();
-        for (int i = 0; i < scored.size() && out.size() < limit; i++) {
-            out.add(toResponse(scored.get(i).media));
+        for (MediaEntry e : best.toList()) {
+            out.add(toResponse(e));
         }
         return out;
     }
 
     /**
-     * Computes a similarity score for a candidate media entry.
+     * Non-genre part of the similarity score of a candidate.
      *
-     * Components:
-     * - Weighted genre overlap: matchedWeight / totalPreferenceWeight  -> 0..1
+     * Full score = weighted genre overlap (0..1, see GenreVectors) + bonus:
      * - Media type match bonus: +0.25 if candidate type equals preferred type
      * - Small quality bonus: avgScore/50 -> max +0.1 (since score max is 5)
      */
-    private double similarityScore(MediaEntry candidate, Map<String, Integer> genreWeights, MediaType preferredType) {
-        if (candidate == null) return 0.0;
-
+    private double bonus(MediaEntry candidate, MediaType preferredType) {
         double s = 0.0;
 
-        // Genre overlap (weighted)
-        List<String> genres = candidate.getGenres();
-        if (genres != null && !genres.isEmpty() && genreWeights != null && !genreWeights.isEmpty()) {
-            int denom = 0;
-            for (Integer w : genreWeights.values()) denom += w;
-
-            int matched = 0;
-            for (String g : genres) {
-                if (g == null) continue;
-                Integer w = genreWeights.get(g.trim());
-                if (w != null) matched += w;
-            }
-
-            if (denom > 0) s += matched / (double) denom;
-        }
-
         // MediaType match bonus
         if (preferredType != null && candidate.getMediaType() != null && preferredType.equals(candidate.getMediaType())) {
             s += 0.25;
@@ -222,65 +278,13 @@ public class RecommendationService {
 
 
     /**
-     * Returns the MediaType with the highest accumulated weight.
-     */
-    private MediaType mostWeightedType(Map<MediaType, Integer> typeWeights) {
-        MediaType best = null;
-        int bestW = -1;
-
-        for (Map.Entry<MediaType, Integer> e : typeWeights.entrySet()) {
-            if (e.getKey() == null || e.getValue() == null) continue;
-            if (e.getValue() > bestW) {
-                bestW = e.getValue();
-                best = e.getKey();
-            }
-        }
-        return best;
-    }
-
-
-    /**
-     * Derives an age restriction preference from the user's positive history.
-     *
-     * Current strategy: conservative -> use the smallest age restriction the user positively rated.
-     * Meaning: do not recommend content that is "harsher" than what the user already liked.
-     *
-     * Note: An alternative (commented out) would be the maximum age restriction.
+     * Already rated media among the given ids: from the known history if it was
+     * loaded, otherwise one indexed lookup for just these ids.
      */
-    private Integer preferredAgeMax(List<Rating> history) {
-        Integer best = null;
-
-        for (Rating r : history) {
-            if (r == null || r.getMediaId() == null) {
-                continue;
-            }
-
-            MediaEntry m = media.findById(r.getMediaId()).orElse(null);
-            if (m == null) {
-                continue;
-            }
-
-            Integer age = m.getAgeRestriction();
-            if (age == null) {
-                continue;
-            }
-
-            // Conservative: pick the smallest age restriction in the (positive) history
-            /*
-            if (best == null || age < best) {
-                best = age;
-            }
-            */
-
-            // Alternative (more permissive): maximum age restriction
-            if (best == null || age > best) {
-                best = age;
-            }
-
-
-        }
-
-        return best;
+    private Set<UUID> ratedAmong(UUID userId, Collection<UUID> ids, Set<UUID> known) {
+        if (known != null) return known;
+        if (ids.isEmpty()) return Set.of();
+        return ratings.ratedMediaIds(userId, ids);
     }
 
 
@@ -302,14 +306,4 @@ public class RecommendationService {
                 e.getUpdatedAt()
         );
     }
-
-    private static class ScoredMedia {
-        private MediaEntry media;
-        private double score;
-
-        private ScoredMedia(MediaEntry media, double score) {
-            this.media = media;
-            this.score = score;
-        }
-    }
 }
@@ -0,0 +1,140 @@
+package mrp.application;
+
+import mrp.application.events.MediaEventListener;
+import mrp.application.loader.CatalogSnapshot;
+import mrp.application.loader.MediaLoader;
+import mrp.application.similarity.HnswIndex;
+import mrp.application.similarity.MediaVectors;
+import mrp.domain.model.MediaEntry;
+import mrp.domain.model.enums.MediaType;
+import mrp.domain.ports.MediaRepository;
+import mrp.dto.MediaResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Application service for "similar media" lookups backed by an HNSW index.
+ *
+ * - the index is built from the whole catalog on first use
+ * - afterwards it is kept current through MediaService events
+ *   (insert on create/update, tombstone on delete)
+ * - media written by other nodes, the importer or a shard rebalance are
+ *   picked up by rebuilding once featuresVersion() moved, checked at most
+ *   every refreshMillis (CatalogSnapshot); score changes do not count,
+ *   vectors do not contain the score
+ * - once tombstones outnumber live entries the index is rebuilt
+ *
+ * Also used by RecommendationService as an additional candidate source.
+ */
+public class SimilarityService implements MediaEventListener {
+
+    private static final int M = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int EF_SEARCH = 64;
+
+    private final MediaRepository media;
+    private final CatalogSnapshot<HnswIndex> index;
+
+    public SimilarityService(MediaRepository media, long refreshMillis) {
+        if (media == null) throw new IllegalArgumentException("media null");
+        this.media = media;
+        this.index = new CatalogSnapshot<>(media::featuresVersion, this::build, refreshMillis);
+    }
+
+    /**
+     * Returns media similar to the given one (the media itself is excluded).
+     *
+     * @throws IllegalArgumentException "media not found" if the media does not exist
+     */
+    public List<MediaResponse> similarTo(UUID mediaId, int limit, Integer maxAge, MediaType type) {
+        if (mediaId == null) throw new IllegalArgumentException("id null");
+        int k = limit <= 0 ? 10 : Math.min(limit, 50);
+
+        float[] indexed = index.read(idx -> idx.vectorOf(mediaId));
+        float[] query = indexed != null ? indexed : MediaVectors.of(media.findById(mediaId)
+                .orElseThrow(() -> new IllegalArgumentException("media not found")));
+
+        List<MediaResponse> out = new ArrayList<>();
+        for (MediaEntry e : load(index.read(idx -> idx.search(query, k, maxAge, type, mediaId)))) {
+            out.add(toResponse(e));
+        }
+        return out;
+    }
+
+    /**
+     * Nearest catalog entries to an arbitrary query vector (see MediaVectors).
+     */
+    public List<MediaEntry> candidates(float[] query, int k, Integer maxAge, MediaType type) {
+        return load(index.read(idx -> idx.search(query, k, maxAge, type, null)));
+    }
+
+    // ---- MediaEventListener ----
+
+    @Override
+    public void onMediaSaved(MediaEntry entry) {
+        if (entry == null || entry.getId() == null) return;
+        index.apply(idx -> upsert(idx, entry));
+    }
+
+    @Override
+    public void onMediaDeleted(UUID mediaId) {
+        if (mediaId == null) return;
+        index.apply(idx -> idx.remove(mediaId));
+        if (index.peek(idx -> idx != null && idx.tombstones() > Math.max(1000, idx.size()))) {
+            index.invalidate(); // rebuilt on next use
+        }
+    }
+
+    // ---- changes made by other nodes (cluster invalidation) ----
+
+    public void refresh(UUID mediaId) {
+        if (mediaId == null) return;
+        MediaEntry entry = media.findById(mediaId).orElse(null);
+        // foreign writes never advance the loaded version
+        index.apply(idx -> {
+            if (entry != null) upsert(idx, entry);
+            else idx.remove(mediaId);
+            return false;
+        });
+    }
+
+    // Messages were lost: rebuilt on next use
+    public void invalidate() {
+        index.invalidate();
+    }
+
+    // ---- internals ----
+
+    private HnswIndex build() {
+        HnswIndex fresh = new HnswIndex(M, EF_CONSTRUCTION, EF_SEARCH);
+        media.forEachEntry(e ->
+                fresh.upsert(e.getId(), MediaVectors.of(e), e.getAgeRestriction(), e.getMediaType()));
+        return fresh;
+    }
+
+    // true if the entry is new or its vector changed (the write bumped featuresVersion())
+    private static boolean upsert(HnswIndex idx, MediaEntry entry) {
+        float[] old = idx.vectorOf(entry.getId());
+        float[] vector = MediaVectors.of(entry);
+        idx.upsert(entry.getId(), vector, entry.getAgeRestriction(), entry.getMediaType());
+        return old == null || !Arrays.equals(old, vector);
+    }
+
+    private List<MediaEntry> load(List<HnswIndex.Hit> hits) {
+        List<UUID> ids = new ArrayList<>(hits.size());
+        for (HnswIndex.Hit h : hits) ids.add(h.id());
+        // loadMany keeps the key order, i.e. best first
+        return new ArrayList<>(MediaLoader.of(media).loadMany(ids).values());
+    }
+
+    private MediaResponse toResponse(MediaEntry e) {
+        return new MediaResponse(
+                e.getId(), e.getCreatorId(), e.getTitle(), e.getDescription(),
+                e.getMediaType(), e.getReleaseYear(), e.getGenres(), e.getAgeRestriction(),
+                e.getAverageScore(), e.getCreatedAt(), e.getUpdatedAt()
+        );
+    }
+}
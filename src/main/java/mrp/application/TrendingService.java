@@ -0,0 +1,109 @@
+package mrp.application;
+
+import mrp.application.events.FavoriteEventListener;
+import mrp.application.events.MediaEventListener;
+import mrp.application.events.RatingEventListener;
+import mrp.application.loader.MediaLoader;
+import mrp.application.trending.TrendingCounters;
+import mrp.application.trending.TrendingWindow;
+import mrp.domain.model.MediaEntry;
+import mrp.domain.model.Rating;
+import mrp.domain.ports.MediaRepository;
+import mrp.dto.MediaResponse;
+import mrp.dto.TrendingMediaResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Application service for "what is hot right now".
+ *
+ * Feeds rating, like and favorite events into TrendingCounters and serves
+ * the top media of a window. Weights: favorite 3, new rating 2, like 1
+ * (rating updates/deletes are not activity).
+ *
+ * Each (user, media, kind) counts once per window: removing and adding a
+ * favorite again, unliking and liking, or deleting and re-creating a rating
+ * does not add weight a second time.
+ */
+public class TrendingService implements RatingEventListener, FavoriteEventListener, MediaEventListener {
+
+    private static final double RATING_WEIGHT = 2.0;
+    private static final double LIKE_WEIGHT = 1.0;
+    private static final double FAVORITE_WEIGHT = 3.0;
+
+    private MediaRepository media;
+    private TrendingCounters counters;
+
+    public TrendingService(MediaRepository media, TrendingCounters counters) {
+        if (media == null) throw new IllegalArgumentException("media null");
+        if (counters == null) throw new IllegalArgumentException("counters null");
+        this.media = media;
+        this.counters = counters;
+    }
+
+    public List<TrendingMediaResponse> trending(TrendingWindow window, int limit) {
+        if (window == null) throw new IllegalArgumentException("window null");
+        if (limit <= 0) limit = 20;
+        if (limit > 100) limit = 100;
+
+        List<UUID> ids = counters.top(window, limit);
+        Map<UUID, MediaEntry> found = MediaLoader.of(media).loadMany(ids);
+
+        List<TrendingMediaResponse> out = new ArrayList<>();
+        for (UUID id : ids) {
+            MediaEntry e = found.get(id);
+            if (e == null) continue; // deleted in the meantime
+            out.add(new TrendingMediaResponse(toResponse(e), counters.score(window, id)));
+        }
+        return out;
+    }
+
+    // ---- events ----
+
+    @Override
+    public void onRatingCreated(Rating rating) {
+        count("rating", rating.getUserId(), rating.getMediaId(), RATING_WEIGHT);
+    }
+
+    @Override
+    public void onRatingUpdated(int previousStars, Rating rating) { }
+
+    @Override
+    public void onRatingDeleted(Rating rating) { }
+
+    @Override
+    public void onRatingLiked(Rating rating, UUID likerUserId) {
+        count("like", likerUserId, rating.getMediaId(), LIKE_WEIGHT);
+    }
+
+    @Override
+    public void onFavoriteAdded(UUID userId, UUID mediaId) {
+        count("favorite", userId, mediaId, FAVORITE_WEIGHT);
+    }
+
+    @Override
+    public void onMediaSaved(MediaEntry entry) { }
+
+    @Override
+    public void onMediaDeleted(UUID mediaId) {
+        counters.forget(mediaId);
+    }
+
+    // key of one user's contribution to a media's score
+    private record Activity(String kind, UUID userId, UUID mediaId) { }
+
+    private void count(String kind, UUID userId, UUID mediaId, double weight) {
+        counters.recordOnce(mediaId, new Activity(kind, userId, mediaId), weight);
+    }
+
+    private MediaResponse toResponse(MediaEntry e) {
+        return new MediaResponse(
+                e.getId(), e.getCreatorId(), e.getTitle(), e.getDescription(),
+                e.getMediaType(), e.getReleaseYear(), e.getGenres(), e.getAgeRestriction(),
+                e.getAverageScore(), e.getCreatedAt(), e.getUpdatedAt()
+        );
+    }
+}
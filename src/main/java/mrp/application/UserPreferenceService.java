@@ -0,0 +1,164 @@
+package mrp.application;
+
+import mrp.application.events.RatingEventListener;
+import mrp.application.loader.BatchLoader;
+import mrp.application.loader.MediaLoader;
+import mrp.domain.model.MediaEntry;
+import mrp.domain.model.Rating;
+import mrp.domain.model.UserPreferences;
+import mrp.domain.ports.MediaRepository;
+import mrp.domain.ports.RatingRepository;
+import mrp.domain.ports.UserPreferenceRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Maintains the persisted preference profile of each user.
+ *
+ * - rating created/updated/deleted: the profile is changed by delta
+ *   (contribution of the old rating removed, new one added)
+ * - users without a stored profile (e.g. ratings from before the profile
+ *   table existed) get it built once from their full history on first read
+ *
+ * - a delta that fails (e.g. database error after the rating was written)
+ *   drops the stored profile, so the next read rebuilds it instead of the
+ *   profile silently missing that rating
+ * - a rebuild from the history replaces the profile only if its version did
+ *   not change meanwhile, so it never overwrites a concurrent delta
+ *
+ * Deltas use the media's current genres/type/age. If a media entry is edited
+ * after it was rated, its old attributes stay in the profile until
+ * recompute() runs for the user (RaterProfileFanout queues it for every
+ * rater of an edited or deleted media entry).
+ */
+public class UserPreferenceService implements RatingEventListener {
+
+    private static final int MAX_STORE_ATTEMPTS = 5;
+
+    private UserPreferenceRepository profiles;
+    private RatingRepository ratings;
+    private MediaRepository media;
+
+    public UserPreferenceService(UserPreferenceRepository profiles, RatingRepository ratings, MediaRepository media) {
+        if (profiles == null) throw new IllegalArgumentException("profiles null");
+        if (ratings == null) throw new IllegalArgumentException("ratings null");
+        if (media == null) throw new IllegalArgumentException("media null");
+        this.profiles = profiles;
+        this.ratings = ratings;
+        this.media = media;
+    }
+
+    /**
+     * Returns the user's profile: one lookup, or a one-time build from the history.
+     */
+    public UserPreferences profileFor(UUID userId) {
+        if (userId == null) throw new IllegalArgumentException("userId null");
+        return profiles.find(userId).orElseGet(() -> rebuild(userId));
+    }
+
+    /**
+     * Recomputes the profile from the complete rating history and stores it
+     * if none exists yet.
+     */
+    public UserPreferences rebuild(UUID userId) {
+        return store(userId, false);
+    }
+
+    /**
+     * Recomputes the profile from the complete rating history and replaces
+     * the stored one.
+     */
+    public UserPreferences recompute(UUID userId) {
+        if (userId == null) throw new IllegalArgumentException("userId null");
+        return store(userId, true);
+    }
+
+    /*
+     * The stored version is read before the history and the profile is only
+     * replaced if it is unchanged: a delta that commits in between (and is
+     * missing from the history read) fails the replace, and the build runs
+     * again. A newly inserted profile is built once more, because deltas that
+     * ran before the row existed were skipped (change() ignores users without
+     * a profile). If the profile keeps changing, it is dropped and the next
+     * read rebuilds it.
+     */
+    private UserPreferences store(UUID userId, boolean replaceExisting) {
+        UserPreferences fresh = null;
+        boolean inserted = false;
+        for (int attempt = 0; attempt < MAX_STORE_ATTEMPTS; attempt++) {
+            Optional<UserPreferences> stored = profiles.find(userId);
+            if (stored.isPresent() && !replaceExisting && !inserted) return stored.get();
+
+            fresh = fromHistory(userId, ratings.listByUser(userId), MediaLoader.of(media));
+            if (stored.isEmpty()) {
+                // false: a concurrent insert won, the next round replaces (or keeps) that one
+                inserted |= profiles.insertIfAbsent(fresh);
+            } else if (profiles.replace(fresh, stored.get().getVersion())) {
+                return fresh;
+            }
+        }
+        profiles.delete(userId);
+        return fresh;
+    }
+
+    /**
+     * Builds a profile from a rating history (all positively rated media
+     * are loaded with one batch query).
+     */
+    public static UserPreferences fromHistory(UUID userId, List<Rating> history, BatchLoader<UUID, MediaEntry> loader) {
+        UserPreferences prefs = new UserPreferences(userId);
+        if (history == null) return prefs;
+
+        for (Rating r : history) {
+            if (r != null && r.getStars() >= UserPreferences.MIN_POSITIVE_STARS) loader.enqueue(r.getMediaId());
+        }
+        for (Rating r : history) {
+            if (r == null || r.getMediaId() == null || r.getStars() < UserPreferences.MIN_POSITIVE_STARS) continue;
+            loader.load(r.getMediaId()).ifPresent(m -> prefs.apply(m, r.getStars(), +1));
+        }
+        return prefs;
+    }
+
+    // ---- RatingEventListener ----
+
+    @Override
+    public void onRatingCreated(Rating rating) {
+        change(rating, 0, rating.getStars());
+    }
+
+    @Override
+    public void onRatingUpdated(int previousStars, Rating rating) {
+        change(rating, previousStars, rating.getStars());
+    }
+
+    @Override
+    public void onRatingDeleted(Rating rating) {
+        change(rating, rating.getStars(), 0);
+    }
+
+    private void change(Rating rating, int oldStars, int newStars) {
+        boolean oldPositive = oldStars >= UserPreferences.MIN_POSITIVE_STARS;
+        boolean newPositive = newStars >= UserPreferences.MIN_POSITIVE_STARS;
+        if (!oldPositive && !newPositive) return; // no contribution before or after
+
+        try {
+            MediaEntry m = MediaLoader.of(media).load(rating.getMediaId()).orElse(null);
+            if (m == null) return;
+
+            // no stored profile yet: nothing to do, profileFor() builds it from the history
+            profiles.update(rating.getUserId(), p -> {
+                p.apply(m, oldStars, -1);
+                p.apply(m, newStars, +1);
+            });
+        } catch (RuntimeException e) {
+            try {
+                profiles.delete(rating.getUserId());
+            } catch (RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+}
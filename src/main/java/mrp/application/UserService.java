@@ -1,5 +1,6 @@
 package mrp.application;
 
+import mrp.application.concurrent.Fanout;
 import mrp.application.security.PasswordHasher;
 import mrp.domain.model.User;
 import mrp.domain.ports.AuthTokenService;
@@ -8,6 +9,7 @@ import mrp.dto.TokenResponse;
 
 import mrp.domain.model.Rating;
 import mrp.domain.ports.RatingRepository;
+import mrp.dto.UserProfileResponse;
 import mrp.dto.UserRatingStats;
 
 import java.util.List;
@@ -108,6 +110,26 @@ public class UserService {
     }
 
 
+    /**
+     * Profile plus rating statistics for GET /users/{id}/profile.
+     * Both lookups are independent and run concurrently.
+     */
+    public UserProfileResponse getProfileOverview(UUID userId) {
+        if (userId == null) throw new IllegalArgumentException("userId null");
+
+        try (Fanout scope = Fanout.open()) {
+            Fanout.Subtask<User> user = scope.fork(() -> getProfile(userId));
+            Fanout.Subtask<UserRatingStats> stats = scope.fork(() -> getUserRatingStats(userId));
+            scope.join();
+
+            User u = user.get();
+            UserRatingStats s = stats.get();
+
+            return new UserProfileResponse(u.getId(), u.getUsername(), u.getEmail(), u.getFavoriteGenre(),
+                    s.totalRatings, s.averageScore);
+        }
+    }
+
     public User updateProfile(UUID userId, String email, String favoriteGenre) {
         if (userId == null) throw new IllegalArgumentException("userId null");
         users.updateProfile(userId, email, favoriteGenre);
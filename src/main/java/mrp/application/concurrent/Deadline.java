@@ -0,0 +1,37 @@
+package mrp.application.concurrent;
+
+import java.time.Duration;
+
+/**
+ * Deadline of the current request.
+ *
+ * Set once per request by the HTTP layer and read by Fanout to bound how
+ * long concurrent sub-queries may take. Uses an InheritableThreadLocal so
+ * that virtual threads forked by a Fanout see the same deadline (nested
+ * fan-outs cannot outlive their parent).
+ */
+public final class Deadline {
+
+    private static final InheritableThreadLocal<Long> CURRENT = new InheritableThreadLocal<>();
+
+    private Deadline() { }
+
+    public static void start(Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+        CURRENT.set(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return remaining nanoseconds (may be negative), or Long.MAX_VALUE if no deadline is set
+     */
+    public static long remainingNanos() {
+        Long at = CURRENT.get();
+        return at == null ? Long.MAX_VALUE : at - System.nanoTime();
+    }
+}
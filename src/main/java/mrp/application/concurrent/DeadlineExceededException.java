@@ -0,0 +1,14 @@
+package mrp.application.concurrent;
+
+/**
+ * Thrown when a fan-out did not finish before the request deadline.
+ * The HTTP layer maps it to 504.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
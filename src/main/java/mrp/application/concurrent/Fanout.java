@@ -0,0 +1,179 @@
+package mrp.application.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Structured fan-out of independent sub-queries on virtual threads.
+ *
+ * Usage:
+ * <pre>
+ * try (Fanout scope = Fanout.open()) {
+ *     Fanout.Subtask&lt;User&gt; user = scope.fork(() -&gt; users.findById(id));
+ *     Fanout.Subtask&lt;Stats&gt; stats = scope.fork(() -&gt; stats(id));
+ *     scope.join();
+ *     return combine(user.get(), stats.get());
+ * }
+ * </pre>
+ *
+ * Semantics (same shape as StructuredTaskScope.ShutdownOnFailure, which is
+ * still a preview API on the JDK used by this project):
+ * - the first failing subtask cancels all others; join() rethrows its exception
+ *   (RuntimeExceptions unchanged, so IllegalArgumentException still maps to 400/404)
+ * - join() waits at most until the request Deadline; then all subtasks are
+ *   cancelled and DeadlineExceededException is thrown
+ * - close() cancels whatever is still running and waits for the threads to
+ *   end, so no subtask outlives the scope
+ */
+public final class Fanout implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final long deadlineNanos;
+    private final List<Subtask<?>> forked = new ArrayList<>();
+    private final BlockingQueue<Subtask<?>> completed = new LinkedBlockingQueue<>();
+    private boolean joined;
+
+    private Fanout(long timeoutNanos) {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("fanout-", 0).factory());
+        long now = System.nanoTime();
+        this.deadlineNanos = timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : now + timeoutNanos;
+    }
+
+    /**
+     * Opens a scope bounded by the request deadline (if any).
+     */
+    public static Fanout open() {
+        return new Fanout(Deadline.remainingNanos());
+    }
+
+    /**
+     * Opens a scope bounded by the request deadline and the given timeout,
+     * whichever comes first.
+     */
+    public static Fanout open(Duration timeout) {
+        if (timeout == null) throw new IllegalArgumentException("timeout null");
+        return new Fanout(Math.min(Deadline.remainingNanos(), timeout.toNanos()));
+    }
+
+    public <T> Subtask<T> fork(Callable<T> task) {
+        if (task == null) throw new IllegalArgumentException("task null");
+        if (joined) throw new IllegalStateException("already joined");
+
+        Subtask<T> st = new Subtask<>(task);
+        forked.add(st);
+        executor.execute(st);
+        return st;
+    }
+
+    /**
+     * Waits for all subtasks. Fails fast on the first exception or when the
+     * deadline passes.
+     */
+    public void join() {
+        joined = true;
+        int done = 0;
+        try {
+            while (done < forked.size()) {
+                long remaining = deadlineNanos == Long.MAX_VALUE ? Long.MAX_VALUE : deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    throw deadlineExceeded();
+                }
+
+                Subtask<?> st = remaining == Long.MAX_VALUE
+                        ? completed.take()
+                        : completed.poll(remaining, TimeUnit.NANOSECONDS);
+                if (st == null) {
+                    throw deadlineExceeded();
+                }
+
+                done++;
+                Throwable failure = st.failure();
+                if (failure != null) {
+                    cancelAll();
+                    throw rethrow(failure);
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelAll();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for subtasks", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private DeadlineExceededException deadlineExceeded() {
+        cancelAll();
+        return new DeadlineExceededException("deadline exceeded");
+    }
+
+    private void cancelAll() {
+        for (Subtask<?> st : forked) {
+            st.cancel(true);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException re) return re;
+        if (t instanceof Error err) throw err;
+        return new RuntimeException(t);
+    }
+
+    /**
+     * Handle of a forked subtask. get() is only valid after a successful join().
+     */
+    public final class Subtask<T> extends FutureTask<T> {
+
+        private Subtask(Callable<T> callable) {
+            super(callable);
+        }
+
+        @Override
+        protected void done() {
+            completed.add(this);
+        }
+
+        @Override
+        public T get() {
+            if (!joined || !isDone()) throw new IllegalStateException("subtask not joined");
+            try {
+                return super.get();
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            } catch (CancellationException | InterruptedException e) {
+                throw new IllegalStateException("subtask cancelled", e);
+            }
+        }
+
+        private Throwable failure() {
+            if (isCancelled()) return null;
+            try {
+                super.get();
+                return null;
+            } catch (ExecutionException e) {
+                return e.getCause();
+            } catch (CancellationException | InterruptedException e) {
+                return null;
+            }
+        }
+    }
+}
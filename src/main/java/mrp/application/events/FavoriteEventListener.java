@@ -0,0 +1,13 @@
+package mrp.application.events;
+
+import java.util.UUID;
+
+/**
+ * Callback for in-process consumers of favorite changes. Called by
+ * FavoriteService after a favorite was actually added (not for repeats);
+ * failures are caught and ignored.
+ */
+public interface FavoriteEventListener {
+
+    void onFavoriteAdded(UUID userId, UUID mediaId);
+}
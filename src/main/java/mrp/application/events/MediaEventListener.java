@@ -0,0 +1,28 @@
+package mrp.application.events;
+
+import mrp.domain.model.MediaEntry;
+
+import java.util.UUID;
+
+/**
+ * Callback for in-process consumers of media changes (indexes, caches).
+ *
+ * Called by MediaService after the change was persisted (beforeMediaDeleted:
+ * right before the delete), on the request thread. Implementations must be fast and must not throw; failures are
+ * caught and ignored so a broken index never fails the write.
+ */
+public interface MediaEventListener {
+
+    /** A media entry was created or updated. */
+    void onMediaSaved(MediaEntry entry);
+
+    /**
+     * A media entry is about to be deleted (the delete may still fail).
+     * For consumers that need data the delete takes with it, e.g. the
+     * ratings removed by the cascade.
+     */
+    default void beforeMediaDeleted(UUID mediaId) { }
+
+    /** A media entry was deleted. */
+    void onMediaDeleted(UUID mediaId);
+}
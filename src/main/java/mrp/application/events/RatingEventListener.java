@@ -0,0 +1,28 @@
+package mrp.application.events;
+
+import mrp.domain.model.Rating;
+
+import java.util.UUID;
+
+/**
+ * Callback for in-process consumers of rating changes (e.g. preference
+ * profiles). Called by RatingService after the change was persisted;
+ * failures are caught and ignored so they never fail the write.
+ */
+public interface RatingEventListener {
+
+    void onRatingCreated(Rating rating);
+
+    /**
+     * @param previousStars stars before the update
+     * @param rating        the rating after the update
+     */
+    void onRatingUpdated(int previousStars, Rating rating);
+
+    void onRatingDeleted(Rating rating);
+
+    /**
+     * A user liked the rating. Optional: most consumers only care about stars.
+     */
+    default void onRatingLiked(Rating rating, UUID likerUserId) { }
+}
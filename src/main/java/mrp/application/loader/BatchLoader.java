@@ -0,0 +1,121 @@
+package mrp.application.loader;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * DataLoader-style memoizing batch loader.
+ *
+ * - enqueue() only registers keys; nothing is fetched yet
+ * - the first load()/loadMany() that needs a missing key dispatches all
+ *   pending keys in a single batch call (the "tick" ends when a value is
+ *   actually needed)
+ * - every key is fetched at most once per loader; misses are remembered too
+ *
+ * Instances are meant to live for one request (see RequestScope), so the
+ * cache never serves data from another request. Writers call clear(key)
+ * after modifying an entity.
+ *
+ * Thread-safe: subtasks of a Fanout may share one loader.
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<Collection<K>, Map<K, V>> batchFn;
+    private final Map<K, Optional<V>> cache = new HashMap<>();
+    private final Set<K> pending = new LinkedHashSet<>();
+
+    private long batches;
+    private long keysFetched;
+
+    /**
+     * @param batchFn loads all given keys at once; keys missing from the
+     *                result are treated as "not found"
+     */
+    public BatchLoader(Function<Collection<K>, Map<K, V>> batchFn) {
+        if (batchFn == null) throw new IllegalArgumentException("batchFn null");
+        this.batchFn = batchFn;
+    }
+
+    /**
+     * Registers a key for the next batch without loading it.
+     */
+    public synchronized void enqueue(K key) {
+        if (key != null && !cache.containsKey(key)) {
+            pending.add(key);
+        }
+    }
+
+    public synchronized void enqueueAll(Collection<K> keys) {
+        if (keys == null) return;
+        for (K k : keys) enqueue(k);
+    }
+
+    public synchronized Optional<V> load(K key) {
+        if (key == null) return Optional.empty();
+        Optional<V> hit = cache.get(key);
+        if (hit != null) return hit;
+
+        pending.add(key);
+        dispatch();
+        return cache.getOrDefault(key, Optional.empty());
+    }
+
+    /**
+     * @return found values in the order of the given keys (missing keys are absent)
+     */
+    public synchronized Map<K, V> loadMany(Collection<K> keys) {
+        Map<K, V> out = new LinkedHashMap<>();
+        if (keys == null || keys.isEmpty()) return out;
+
+        enqueueAll(keys);
+        dispatch();
+        for (K k : keys) {
+            Optional<V> v = cache.get(k);
+            if (v != null && v.isPresent()) out.put(k, v.get());
+        }
+        return out;
+    }
+
+    /**
+     * Stores a value that is already known (e.g. just created/updated).
+     */
+    public synchronized void prime(K key, V value) {
+        if (key == null) return;
+        cache.put(key, Optional.ofNullable(value));
+        pending.remove(key);
+    }
+
+    /**
+     * Drops a cached value so the next load() fetches it again.
+     */
+    public synchronized void clear(K key) {
+        cache.remove(key);
+    }
+
+    public synchronized long getBatches() { return batches; }
+
+    public synchronized long getKeysFetched() { return keysFetched; }
+
+    private void dispatch() {
+        if (pending.isEmpty()) return;
+
+        List<K> keys = List.copyOf(pending);
+        pending.clear();
+
+        Map<K, V> loaded = batchFn.apply(keys);
+        batches++;
+        keysFetched += keys.size();
+
+        for (K k : keys) {
+            V v = loaded == null ? null : loaded.get(k);
+            cache.put(k, Optional.ofNullable(v));
+        }
+    }
+}
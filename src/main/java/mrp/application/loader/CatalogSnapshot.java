@@ -0,0 +1,220 @@
+package mrp.application.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * In-memory state derived from the whole catalog (column store, top lists,
+ * similarity index), kept in sync with MediaRepository.catalogVersion().
+ *
+ * - changes made on this node are applied as deltas under the write lock
+ * - at most every refreshMillis a read compares catalogVersion() with the
+ *   version the state was loaded at and reloads if it moved (version <=
+ *   loaded counts as fresh, e.g. a read from a lagging replica)
+ * - a reload runs outside the lock: readers keep using the old state, deltas
+ *   applied meanwhile are replayed onto the new one before it is swapped in
+ *
+ * A local change only advances the loaded version if the version moved by
+ * exactly the one bump it caused itself; anything more means another writer
+ * was involved and the next check reloads. The version read after a change
+ * is never taken as is, so foreign writes are not masked.
+ *
+ * version() names the state reads currently see (for ETags): the loaded
+ * catalog version while the state equals a load at that version, otherwise
+ * (uncredited changes applied since) a tag unique to this instance.
+ *
+ * @param <S> mutable state; only touched under the lock of this snapshot
+ */
+public final class CatalogSnapshot<S> {
+
+    private final LongSupplier version;
+    private final Supplier<S> loader;
+    private final long refreshNanos;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // one check/reload at a time; readers are not blocked by it once a state exists
+    private final Object reloadLock = new Object();
+    // distinguishes version() tags of locally changed states from those of other nodes
+    private final long instance = ThreadLocalRandom.current().nextLong();
+
+    private volatile S state;
+    private volatile long loadedVersion = -1;
+    // deltas applied while a reload runs (guarded by lock); null = no reload running
+    private List<Predicate<S>> pending;
+    private volatile long lastCheckNanos;
+    private volatile boolean stale;
+    private volatile long invalidations;
+    // changes applied on top of the loaded state (guarded by lock); dirty = not all credited
+    private long localChanges;
+    private boolean dirty;
+
+    /**
+     * @param version current catalog version (MediaRepository::catalogVersion)
+     * @param loader  builds a complete state from the catalog
+     */
+    public CatalogSnapshot(LongSupplier version, Supplier<S> loader, long refreshMillis) {
+        if (version == null || loader == null) throw new IllegalArgumentException("version/loader null");
+        if (refreshMillis <= 0) throw new IllegalArgumentException("refreshMillis must be positive");
+        this.version = version;
+        this.loader = loader;
+        this.refreshNanos = refreshMillis * 1_000_000L;
+    }
+
+    /**
+     * Reads a fresh state (loads it on first use).
+     */
+    public <R> R read(Function<S, R> reader) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            return reader.apply(state);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Version of the state read() serves, checked for freshness like read().
+     * Read it before the data it describes: a change in between makes the tag
+     * older than the data, never newer.
+     */
+    public String version() {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            return dirty ? loadedVersion + "-" + Long.toHexString(instance) + "-" + localChanges
+                         : Long.toString(loadedVersion);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the current state without a version check; null if not loaded yet.
+     */
+    public <R> R peek(Function<S, R> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(state);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a change to the loaded state; no-op before the first load.
+     *
+     * @param change returns true if the write behind it moved catalogVersion() by
+     *               one (a visible column changed); false for changes that did not
+     *               bump it or that were made by another node
+     */
+    public void apply(Predicate<S> change) {
+        boolean bumped;
+        boolean wasClean;
+        long mark;
+        lock.writeLock().lock();
+        try {
+            if (state == null) return; // the first read loads everything
+            bumped = change.test(state);
+            wasClean = !dirty;
+            dirty = true;
+            mark = ++localChanges;
+            if (pending != null) {
+                pending.add(change);
+                return; // the reload sets the version
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!bumped) return;
+
+        long expected = loadedVersion + 1;
+        long current = version.getAsLong();
+        if (current != expected) return;
+        lock.writeLock().lock();
+        try {
+            if (pending == null && loadedVersion == expected - 1) {
+                loadedVersion = current;
+                // the state equals a load at `current` unless other changes came in meanwhile
+                if (wasClean && localChanges == mark) dirty = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Messages were lost: reload on the next read regardless of the refresh interval.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            invalidations++;
+            loadedVersion = -1;
+            stale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean due(long now) {
+        return state == null || stale || now - lastCheckNanos >= refreshNanos;
+    }
+
+    private void ensureFresh() {
+        if (!due(System.nanoTime())) return;
+
+        synchronized (reloadLock) {
+            long now = System.nanoTime();
+            if (!due(now)) return;
+            lastCheckNanos = now;
+            stale = false;
+
+            long v = version.getAsLong();
+            if (state != null && v <= loadedVersion) return;
+
+            long epoch;
+            lock.writeLock().lock();
+            try {
+                epoch = invalidations;
+                pending = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            S fresh;
+            try {
+                fresh = loader.get();
+            } catch (RuntimeException | Error e) {
+                lock.writeLock().lock();
+                try {
+                    pending = null;
+                    stale = true;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Predicate<S> change : pending) change.test(fresh);
+                dirty = !pending.isEmpty();
+                pending = null;
+                state = fresh;
+                if (epoch == invalidations) {
+                    loadedVersion = v;
+                } else {
+                    stale = true; // invalidated during the load
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package mrp.application.loader;
+
+import mrp.domain.model.MediaEntry;
+import mrp.domain.ports.MediaRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Request-scoped BatchLoader for media entries.
+ * One key uses findById, several keys one findByIds (WHERE id = ANY(?)).
+ */
+public final class MediaLoader {
+
+    private MediaLoader() { }
+
+    public static BatchLoader<UUID, MediaEntry> of(MediaRepository repo) {
+        if (repo == null) throw new IllegalArgumentException("repo null");
+        // keyed by repository instance: services with different repos do not share entries
+        return RequestScope.get(new ScopeKey(repo), () -> new BatchLoader<>(ids -> fetch(repo, ids)));
+    }
+
+    private static Map<UUID, MediaEntry> fetch(MediaRepository repo, Collection<UUID> ids) {
+        Map<UUID, MediaEntry> out = new HashMap<>();
+        if (ids.size() == 1) {
+            UUID id = ids.iterator().next();
+            repo.findById(id).ifPresent(e -> out.put(id, e));
+            return out;
+        }
+        for (MediaEntry e : repo.findByIds(ids)) {
+            out.put(e.getId(), e);
+        }
+        return out;
+    }
+
+    private record ScopeKey(MediaRepository repo) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ScopeKey k && k.repo == repo;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(repo);
+        }
+    }
+}
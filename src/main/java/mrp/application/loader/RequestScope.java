@@ -0,0 +1,41 @@
+package mrp.application.loader;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Holds per-request objects such as BatchLoaders.
+ *
+ * Opened and closed by the HTTP layer around each request. Outside of a
+ * request (tests, CLI tools) get() simply creates a fresh instance per
+ * call, so callers behave the same, just without cross-call memoization.
+ *
+ * InheritableThreadLocal: virtual threads forked by a Fanout share the
+ * scope of the request that forked them.
+ */
+public final class RequestScope {
+
+    private static final InheritableThreadLocal<Map<Object, Object>> CURRENT = new InheritableThreadLocal<>();
+
+    private RequestScope() { }
+
+    public static void open() {
+        CURRENT.set(new HashMap<>());
+    }
+
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T get(Object key, Supplier<T> factory) {
+        Map<Object, Object> scope = CURRENT.get();
+        if (scope == null) {
+            return factory.get();
+        }
+        synchronized (scope) {
+            return (T) scope.computeIfAbsent(key, k -> factory.get());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package mrp.application.scoring;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Trained matrix factorization model (immutable snapshot).
+ *
+ * User and item factors are stored off-heap as flat row-major float
+ * segments (rank floats per user/item), so a prediction is a plain dot
+ * product over two contiguous slices and large models add nothing to the
+ * heap the collector has to trace. The segments come from an automatic
+ * arena (AlsTrainer): they are freed once the model is unreachable, since
+ * requests may still read an old snapshot after a retrain swapped it out.
+ */
+public class AlsModel {
+
+    private final int rank;
+    private final Map<UUID, Integer> userIndex;
+    private final Map<UUID, Integer> itemIndex;
+    private final UUID[] itemIds;
+    private final MemorySegment userFactors;
+    private final MemorySegment itemFactors;
+    private final int[] userItemStart;
+    private final int[] userItems;
+    private final double rmse;
+
+    AlsModel(int rank, Map<UUID, Integer> userIndex, Map<UUID, Integer> itemIndex, UUID[] itemIds,
+             MemorySegment userFactors, MemorySegment itemFactors, int[] userItemStart, int[] userItems, double rmse) {
+        this.rank = rank;
+        this.userIndex = userIndex;
+        this.itemIndex = itemIndex;
+        this.itemIds = itemIds;
+        this.userFactors = userFactors;
+        this.itemFactors = itemFactors;
+        this.userItemStart = userItemStart;
+        this.userItems = userItems;
+        this.rmse = rmse;
+    }
+
+    public int rank() { return rank; }
+
+    public int users() { return userIndex.size(); }
+
+    public int items() { return itemIds.length; }
+
+    /** Training error of the last iteration (root mean squared error in stars). */
+    public double rmse() { return rmse; }
+
+    /**
+     * @return number of ratings the user had when the model was trained (0 = unknown user)
+     */
+    public int ratingCount(UUID userId) {
+        Integer u = userIndex.get(userId);
+        return u == null ? 0 : userItemStart[u + 1] - userItemStart[u];
+    }
+
+    /**
+     * Predicted rating, or NaN if user or item are unknown to the model.
+     */
+    public double predict(UUID userId, UUID itemId) {
+        Integer u = userIndex.get(userId);
+        Integer i = itemIndex.get(itemId);
+        if (u == null || i == null) return Double.NaN;
+        return dot((long) u * rank, (long) i * rank);
+    }
+
+    /**
+     * Top-k items by predicted rating for a known user. Items the user had
+     * rated at training time are always skipped.
+     *
+     * @param exclude additional items to skip (e.g. media rated since training)
+     * @return item ids, best first; empty if the user is unknown
+     */
+    public List<UUID> recommend(UUID userId, Set<UUID> exclude, int k) {
+        Integer u = userIndex.get(userId);
+        if (u == null || k <= 0) return Collections.emptyList();
+
+        int[] rated = Arrays.copyOfRange(userItems, userItemStart[u], userItemStart[u + 1]);
+        Arrays.sort(rated);
+
+        TopK<UUID> best = new TopK<>(k);
+        long uBase = (long) u * rank;
+        for (int i = 0; i < itemIds.length; i++) {
+            if (Arrays.binarySearch(rated, i) >= 0) continue;
+            UUID id = itemIds[i];
+            if (exclude != null && exclude.contains(id)) continue;
+            best.offer(id, dot(uBase, (long) i * rank));
+        }
+        return best.toList();
+    }
+
+    // ---- package-private access for warm starts ----
+
+    Integer userRow(UUID userId) { return userIndex.get(userId); }
+
+    Integer itemRow(UUID itemId) { return itemIndex.get(itemId); }
+
+    MemorySegment userFactors() { return userFactors; }
+
+    MemorySegment itemFactors() { return itemFactors; }
+
+    private double dot(long uBase, long iBase) {
+        float sum = 0f;
+        for (int f = 0; f < rank; f++) {
+            sum += userFactors.getAtIndex(ValueLayout.JAVA_FLOAT, uBase + f)
+                    * itemFactors.getAtIndex(ValueLayout.JAVA_FLOAT, iBase + f);
+        }
+        return sum;
+    }
+}
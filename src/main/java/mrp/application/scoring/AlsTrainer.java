@@ -0,0 +1,247 @@
+package mrp.application.scoring;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Alternating least squares on explicit star ratings.
+ *
+ * Each half-step fixes one side and solves a small rank x rank ridge
+ * regression per user (resp. item):
+ *
+ *   x_u = (Y_u^T Y_u + lambda * n_u * I)^-1  Y_u^T r_u
+ *
+ * Rows are independent, so they are solved in parallel on a ForkJoinPool.
+ * The factor matrices are off-heap segments (see AlsModel) and are written
+ * in place; each task only writes its own rows.
+ *
+ * Warm start: factors of users/items that already exist in the previous
+ * model are reused as starting point, so a periodic retrain converges in
+ * a few iterations and only new users/items start from random values.
+ */
+public class AlsTrainer {
+
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private final int rank;
+    private final double lambda;
+    private final ForkJoinPool pool;
+
+    public AlsTrainer(int rank, double lambda, ForkJoinPool pool) {
+        if (rank <= 0) throw new IllegalArgumentException("rank must be positive");
+        if (lambda <= 0) throw new IllegalArgumentException("lambda must be positive");
+        if (pool == null) throw new IllegalArgumentException("pool null");
+        this.rank = rank;
+        this.lambda = lambda;
+        this.pool = pool;
+    }
+
+    /**
+     * Collects (user, item, stars) triples for one training run.
+     */
+    public static class Data {
+        private final Map<UUID, Integer> users = new HashMap<>();
+        private final Map<UUID, Integer> items = new HashMap<>();
+        private final List<UUID> itemIds = new ArrayList<>();
+        private final List<UUID> userIds = new ArrayList<>();
+
+        private int[] u = new int[1024];
+        private int[] i = new int[1024];
+        private float[] r = new float[1024];
+        private int size;
+
+        public void add(UUID userId, UUID itemId, int stars) {
+            if (userId == null || itemId == null) return;
+            if (size == u.length) {
+                u = Arrays.copyOf(u, size * 2);
+                i = Arrays.copyOf(i, size * 2);
+                r = Arrays.copyOf(r, size * 2);
+            }
+            u[size] = users.computeIfAbsent(userId, k -> { userIds.add(k); return userIds.size() - 1; });
+            i[size] = items.computeIfAbsent(itemId, k -> { itemIds.add(k); return itemIds.size() - 1; });
+            r[size] = stars;
+            size++;
+        }
+
+        public int size() { return size; }
+    }
+
+    public AlsModel train(Data data, AlsModel previous, int iterations) {
+        int nu = data.userIds.size();
+        int ni = data.itemIds.size();
+        int n = data.size;
+
+        // CSR by user and by item
+        int[][] byUser = csr(data.u, data.i, data.r, n, nu);
+        int[][] byItem = csr(data.i, data.u, data.r, n, ni);
+        float[] userRatings = values(data.u, data.r, n, nu, byUser[0]);
+        float[] itemRatings = values(data.i, data.r, n, ni, byItem[0]);
+
+        // freed by the GC once the model (or this run, if it fails) is unreachable
+        Arena arena = Arena.ofAuto();
+        MemorySegment x = arena.allocate((long) nu * rank * Float.BYTES, Float.BYTES);
+        MemorySegment y = arena.allocate((long) ni * rank * Float.BYTES, Float.BYTES);
+        Random rnd = new Random(42);
+        init(x, nu, data.userIds, previous, true, rnd);
+        init(y, ni, data.itemIds, previous, false, rnd);
+
+        for (int it = 0; it < iterations; it++) {
+            pool.invoke(new Solve(x, y, byUser[0], byUser[1], userRatings, 0, nu));
+            pool.invoke(new Solve(y, x, byItem[0], byItem[1], itemRatings, 0, ni));
+        }
+
+        return new AlsModel(rank, data.users, data.items, data.itemIds.toArray(new UUID[0]),
+                x, y, byUser[0], byUser[1], rmse(data, x, y));
+    }
+
+    private void init(MemorySegment f, int rows, List<UUID> ids, AlsModel previous, boolean users, Random rnd) {
+        boolean reuse = previous != null && previous.rank() == rank;
+        float scale = (float) (1.0 / Math.sqrt(rank));
+        for (int row = 0; row < rows; row++) {
+            Integer old = !reuse ? null : users ? previous.userRow(ids.get(row)) : previous.itemRow(ids.get(row));
+            long base = (long) row * rank;
+            if (old != null) {
+                MemorySegment src = users ? previous.userFactors() : previous.itemFactors();
+                MemorySegment.copy(src, ValueLayout.JAVA_FLOAT, (long) old * rank * Float.BYTES,
+                        f, ValueLayout.JAVA_FLOAT, base * Float.BYTES, rank);
+            } else {
+                for (int k = 0; k < rank; k++) {
+                    f.setAtIndex(ValueLayout.JAVA_FLOAT, base + k, (float) (rnd.nextDouble() * scale));
+                }
+            }
+        }
+    }
+
+    // rowStart (length rows+1) and column indexes, ordered by row
+    private static int[][] csr(int[] rowOf, int[] colOf, float[] r, int n, int rows) {
+        int[] start = new int[rows + 1];
+        for (int k = 0; k < n; k++) start[rowOf[k] + 1]++;
+        for (int k = 0; k < rows; k++) start[k + 1] += start[k];
+
+        int[] cols = new int[n];
+        int[] fill = start.clone();
+        for (int k = 0; k < n; k++) cols[fill[rowOf[k]]++] = colOf[k];
+        return new int[][] { start, cols };
+    }
+
+    private static float[] values(int[] rowOf, float[] r, int n, int rows, int[] start) {
+        float[] out = new float[n];
+        int[] fill = start.clone();
+        for (int k = 0; k < n; k++) out[fill[rowOf[k]]++] = r[k];
+        return out;
+    }
+
+    private double rmse(Data data, MemorySegment x, MemorySegment y) {
+        if (data.size == 0) return 0;
+        double se = 0;
+        for (int k = 0; k < data.size; k++) {
+            long ub = (long) data.u[k] * rank, ib = (long) data.i[k] * rank;
+            double p = 0;
+            for (int f = 0; f < rank; f++) {
+                p += x.getAtIndex(ValueLayout.JAVA_FLOAT, ub + f) * y.getAtIndex(ValueLayout.JAVA_FLOAT, ib + f);
+            }
+            double e = p - data.r[k];
+            se += e * e;
+        }
+        return Math.sqrt(se / data.size);
+    }
+
+    /**
+     * Solves the rows [from, to) of `target` with `fixed` held constant.
+     */
+    private class Solve extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient MemorySegment target, fixed;
+        private final int[] start, cols;
+        private final float[] ratings;
+        private final int from, to;
+
+        Solve(MemorySegment target, MemorySegment fixed, int[] start, int[] cols, float[] ratings, int from, int to) {
+            this.target = target;
+            this.fixed = fixed;
+            this.start = start;
+            this.cols = cols;
+            this.ratings = ratings;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Solve(target, fixed, start, cols, ratings, from, mid),
+                          new Solve(target, fixed, start, cols, ratings, mid, to));
+                return;
+            }
+
+            double[] a = new double[rank * rank];
+            double[] b = new double[rank];
+            float[] v = new float[rank];
+            for (int row = from; row < to; row++) {
+                int count = start[row + 1] - start[row];
+                if (count == 0) continue;
+
+                Arrays.fill(a, 0);
+                Arrays.fill(b, 0);
+                for (int k = start[row]; k < start[row + 1]; k++) {
+                    // one row of the fixed side, read once
+                    MemorySegment.copy(fixed, ValueLayout.JAVA_FLOAT, (long) cols[k] * rank * Float.BYTES, v, 0, rank);
+                    float r = ratings[k];
+                    for (int p = 0; p < rank; p++) {
+                        double vp = v[p];
+                        b[p] += r * vp;
+                        for (int q = 0; q <= p; q++) a[p * rank + q] += vp * v[q];
+                    }
+                }
+                double reg = lambda * count;
+                for (int p = 0; p < rank; p++) a[p * rank + p] += reg;
+
+                choleskySolve(a, b, rank);
+                long base = (long) row * rank;
+                for (int p = 0; p < rank; p++) target.setAtIndex(ValueLayout.JAVA_FLOAT, base + p, (float) b[p]);
+            }
+        }
+    }
+
+    /**
+     * Solves A x = b in place (A symmetric positive definite, lower triangle used);
+     * the solution is written to b.
+     */
+    static void choleskySolve(double[] a, double[] b, int n) {
+        for (int j = 0; j < n; j++) {
+            double d = a[j * n + j];
+            for (int k = 0; k < j; k++) d -= a[j * n + k] * a[j * n + k];
+            d = Math.sqrt(Math.max(d, 1e-12));
+            a[j * n + j] = d;
+            for (int i = j + 1; i < n; i++) {
+                double s = a[i * n + j];
+                for (int k = 0; k < j; k++) s -= a[i * n + k] * a[j * n + k];
+                a[i * n + j] = s / d;
+            }
+        }
+        // L y = b
+        for (int i = 0; i < n; i++) {
+            double s = b[i];
+            for (int k = 0; k < i; k++) s -= a[i * n + k] * b[k];
+            b[i] = s / a[i * n + i];
+        }
+        // L^T x = y
+        for (int i = n - 1; i >= 0; i--) {
+            double s = b[i];
+            for (int k = i + 1; k < n; k++) s -= a[k * n + i] * b[k];
+            b[i] = s / a[i * n + i];
+        }
+    }
+}
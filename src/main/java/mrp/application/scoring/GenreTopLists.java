@@ -0,0 +1,261 @@
+package mrp.application.scoring;
+
+import mrp.application.events.MediaEventListener;
+import mrp.application.events.RatingEventListener;
+import mrp.application.loader.CatalogSnapshot;
+import mrp.application.loader.MediaLoader;
+import mrp.domain.model.MediaEntry;
+import mrp.domain.model.Rating;
+import mrp.domain.model.enums.MediaType;
+import mrp.domain.ports.MediaRepository;
+import mrp.domain.ports.RatingRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Materialized per-genre and per genre x media type rankings by score.
+ *
+ * Every list is a sorted set ordered by rank score (best first), so reading
+ * the top N is a walk over the first entries and a score change is one
+ * remove + insert (O(log n)) in the lists of the media's genres.
+ *
+ * Rank score:
+ * - minVotes = 0: the plain average_score
+ * - minVotes > 0: Bayesian average (v * avg + m * C) / (v + m) with v = number
+ *   of ratings, m = minVotes and C = mean score of all rated media at load
+ *   time, so media with few ratings cannot top a list with a single 5-star vote
+ *
+ * Kept current through MediaService events (create/update/delete) and
+ * RatingService events (average score and vote count change). Changes made
+ * by other instances are picked up by a reload once catalogVersion() moved,
+ * checked at most every refreshMillis (CatalogSnapshot).
+ */
+public class GenreTopLists implements MediaEventListener, RatingEventListener {
+
+    private static final Comparator<Item> ORDER = Comparator
+            .comparingDouble((Item i) -> i.rankScore).reversed()
+            .thenComparing(i -> i.entry.getId());
+
+    private final MediaRepository media;
+    private final RatingRepository ratings;
+    private final int minVotes;
+    private final CatalogSnapshot<Lists> lists;
+
+    public GenreTopLists(MediaRepository media, RatingRepository ratings, int minVotes, long refreshMillis) {
+        if (media == null) throw new IllegalArgumentException("media null");
+        if (ratings == null) throw new IllegalArgumentException("ratings null");
+        if (minVotes < 0) throw new IllegalArgumentException("minVotes < 0");
+        if (refreshMillis <= 0) throw new IllegalArgumentException("refreshMillis must be positive");
+        this.media = media;
+        this.ratings = ratings;
+        this.minVotes = minVotes;
+        this.lists = new CatalogSnapshot<>(media::catalogVersion, this::load, refreshMillis);
+    }
+
+    /**
+     * Best media of a genre by rank score.
+     *
+     * @param type   only this media type (null = all types)
+     * @param maxAge only media with ageRestriction <= maxAge (null = no filter)
+     */
+    public List<MediaEntry> top(String genre, MediaType type, Integer maxAge, int n) {
+        if (genre == null || n <= 0) return List.of();
+        String g = genre.trim();
+
+        return lists.read(l -> {
+            NavigableSet<Item> list = type == null ? l.byGenre.get(g) : l.byGenreAndType.get(key(g, type));
+            if (list == null) return List.of();
+
+            List<MediaEntry> out = new ArrayList<>(Math.min(n, list.size()));
+            for (Item i : list) {
+                if (maxAge != null && i.age() > maxAge) continue;
+                out.add(i.entry);
+                if (out.size() == n) break;
+            }
+            return out;
+        });
+    }
+
+    // ---- MediaEventListener ----
+
+    @Override
+    public void onMediaSaved(MediaEntry entry) {
+        if (entry == null || entry.getId() == null) return;
+        lists.apply(l -> {
+            Item old = l.items.get(entry.getId());
+            l.put(entry, old == null ? 0 : old.votes);
+            return true;
+        });
+    }
+
+    @Override
+    public void onMediaDeleted(UUID mediaId) {
+        lists.apply(l -> l.remove(mediaId));
+    }
+
+    // ---- RatingEventListener ----
+
+    @Override
+    public void onRatingCreated(Rating rating) {
+        scoreChanged(rating.getMediaId(), +1);
+    }
+
+    @Override
+    public void onRatingUpdated(int previousStars, Rating rating) {
+        scoreChanged(rating.getMediaId(), 0);
+    }
+
+    @Override
+    public void onRatingDeleted(Rating rating) {
+        scoreChanged(rating.getMediaId(), -1);
+    }
+
+    // ---- changes made by other nodes (cluster invalidation) ----
+
+    public void refresh(UUID mediaId) {
+        MediaEntry entry = media.findById(mediaId).orElse(null);
+        // foreign writes never advance the loaded version
+        lists.apply(l -> {
+            if (entry == null) {
+                l.remove(mediaId);
+                return false;
+            }
+            Item old = l.items.get(mediaId);
+            l.put(entry, old == null ? 0 : old.votes);
+            return false;
+        });
+    }
+
+    public void ratingsChanged(UUID mediaId, int voteDelta) {
+        scoreChanged(mediaId, voteDelta, false);
+    }
+
+    // Messages were lost: full reload on the next read
+    public void invalidate() {
+        lists.invalidate();
+    }
+
+    private void scoreChanged(UUID mediaId, int voteDelta) {
+        scoreChanged(mediaId, voteDelta, true);
+    }
+
+    private void scoreChanged(UUID mediaId, int voteDelta, boolean local) {
+        // RatingService updated the average score on the request's loaded entry
+        MediaEntry entry = MediaLoader.of(media).load(mediaId).orElse(null);
+        lists.apply(l -> {
+            Item old = l.items.get(mediaId);
+            if (entry == null) {
+                l.remove(mediaId);
+                return false;
+            }
+            l.put(entry, Math.max(0, (old == null ? 0 : old.votes) + voteDelta));
+            // the score update only bumped the catalog version if the average changed
+            return local && old != null && !Objects.equals(old.entry.getAverageScore(), entry.getAverageScore());
+        });
+    }
+
+    // ---- internals ----
+
+    private Lists load() {
+        Map<UUID, Integer> votes = ratings.ratingCountsByMedia();
+        List<MediaEntry> all = new ArrayList<>();
+        media.forEachEntry(all::add);
+
+        double sum = 0;
+        int rated = 0;
+        for (MediaEntry e : all) {
+            if (votes.containsKey(e.getId()) && e.getAverageScore() != null) {
+                sum += e.getAverageScore();
+                rated++;
+            }
+        }
+
+        Lists l = new Lists(rated == 0 ? 0 : sum / rated);
+        for (MediaEntry e : all) {
+            l.put(e, votes.getOrDefault(e.getId(), 0));
+        }
+        return l;
+    }
+
+    // The lists of one load; only changed under the lock of the CatalogSnapshot
+    private final class Lists {
+        final Map<UUID, Item> items = new HashMap<>();
+        final Map<String, NavigableSet<Item>> byGenre = new HashMap<>();
+        final Map<String, NavigableSet<Item>> byGenreAndType = new HashMap<>();
+        final double globalMean;
+
+        Lists(double globalMean) {
+            this.globalMean = globalMean;
+        }
+
+        void put(MediaEntry entry, int votes) {
+            remove(entry.getId());
+
+            Item item = new Item(copy(entry), votes, rankScore(entry.getAverageScore(), votes, globalMean));
+            items.put(entry.getId(), item);
+            for (String g : genres(entry)) {
+                byGenre.computeIfAbsent(g, k -> new TreeSet<>(ORDER)).add(item);
+                if (entry.getMediaType() != null) {
+                    byGenreAndType.computeIfAbsent(key(g, entry.getMediaType()), k -> new TreeSet<>(ORDER)).add(item);
+                }
+            }
+        }
+
+        boolean remove(UUID id) {
+            Item old = items.remove(id);
+            if (old == null) return false;
+            for (String g : genres(old.entry)) {
+                NavigableSet<Item> list = byGenre.get(g);
+                if (list != null) list.remove(old);
+                if (old.entry.getMediaType() != null) {
+                    NavigableSet<Item> typed = byGenreAndType.get(key(g, old.entry.getMediaType()));
+                    if (typed != null) typed.remove(old);
+                }
+            }
+            return true;
+        }
+    }
+
+    private double rankScore(Double avg, int votes, double globalMean) {
+        double r = avg == null ? 0 : avg;
+        if (minVotes == 0) return r;
+        return (votes * r + minVotes * globalMean) / (votes + minVotes);
+    }
+
+    private static List<String> genres(MediaEntry e) {
+        List<String> out = new ArrayList<>();
+        if (e.getGenres() == null) return out;
+        for (String g : e.getGenres()) {
+            if (g == null || g.isBlank()) continue;
+            String t = g.trim();
+            if (!out.contains(t)) out.add(t);
+        }
+        return out;
+    }
+
+    // Callers keep mutating their entries (e.g. RatingService sets the average score)
+    private static MediaEntry copy(MediaEntry e) {
+        return new MediaEntry(e.getId(), e.getCreatorId(), e.getTitle(), e.getDescription(),
+                e.getMediaType(), e.getReleaseYear(), e.getGenres(), e.getAgeRestriction(),
+                e.getAverageScore(), e.getCreatedAt(), e.getUpdatedAt());
+    }
+
+    private static String key(String genre, MediaType type) {
+        return genre + '\u0000' + type.name();
+    }
+
+    // Immutable once inserted: a change replaces the item (sorted set keys must not change)
+    private record Item(MediaEntry entry, int votes, double rankScore) {
+        int age() {
+            return entry.getAgeRestriction() == null ? 0 : entry.getAgeRestriction();
+        }
+    }
+}
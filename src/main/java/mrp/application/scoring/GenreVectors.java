@@ -0,0 +1,91 @@
+package mrp.application.scoring;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense float encoding of genre preferences and candidate genres.
+ *
+ * The vocabulary consists of the user's preferred genres only: candidate
+ * genres outside of it contribute nothing to the overlap score, so they
+ * do not need a dimension.
+ *
+ * - preference: weight / total weight per genre (normalized once)
+ * - candidates: one 0/1 row per candidate in a flat row-major matrix
+ *
+ * Weighted overlap of all candidates is then a dense matrix-vector
+ * product over primitive arrays (no boxing, no map lookups per candidate),
+ * a loop shape the JIT can unroll and auto-vectorize.
+ */
+public class GenreVectors {
+
+    private final Map<String, Integer> index = new HashMap<>();
+    private final float[] preference;
+
+    private float[] matrix;
+    private int rows;
+
+    /**
+     * @param genreWeights accumulated weight per (trimmed) genre name
+     */
+    public GenreVectors(Map<String, Integer> genreWeights) {
+        if (genreWeights == null) throw new IllegalArgumentException("genreWeights null");
+
+        this.preference = new float[genreWeights.size()];
+        long total = 0;
+        for (Integer w : genreWeights.values()) total += w;
+
+        int i = 0;
+        for (Map.Entry<String, Integer> e : genreWeights.entrySet()) {
+            index.put(e.getKey(), i);
+            preference[i++] = total > 0 ? (float) (e.getValue() / (double) total) : 0f;
+        }
+        this.matrix = new float[Math.max(1, preference.length) * 16];
+    }
+
+    public int dimensions() { return preference.length; }
+
+    public int rows() { return rows; }
+
+    /**
+     * Appends a candidate row.
+     *
+     * @return the row index
+     */
+    public int add(List<String> genres) {
+        int d = preference.length;
+        int base = rows * d;
+        if (base + d > matrix.length) {
+            matrix = Arrays.copyOf(matrix, Math.max(base + d, matrix.length * 2));
+        }
+        if (genres != null) {
+            for (String g : genres) {
+                if (g == null) continue;
+                Integer col = index.get(g.trim());
+                if (col != null) matrix[base + col] = 1f;
+            }
+        }
+        return rows++;
+    }
+
+    /**
+     * Weighted genre overlap (0..1) of every row, written to out[0..rows).
+     */
+    public void overlap(float[] out) {
+        if (out.length < rows) throw new IllegalArgumentException("out too small");
+
+        int d = preference.length;
+        float[] m = matrix;
+        float[] p = preference;
+        for (int r = 0; r < rows; r++) {
+            int base = r * d;
+            float sum = 0f;
+            for (int c = 0; c < d; c++) {
+                sum += m[base + c] * p[c];
+            }
+            out[r] = sum;
+        }
+    }
+}
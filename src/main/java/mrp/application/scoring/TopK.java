@@ -0,0 +1,61 @@
+package mrp.application.scoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the k highest scored items in a bounded min-heap.
+ *
+ * offer() is O(log k) and only touches the heap when the item beats the
+ * current k-th best, so ranking n candidates costs O(n log k) instead of
+ * sorting all n. Ties keep the earlier offered item.
+ */
+public class TopK<T> {
+
+    private final int k;
+    private final PriorityQueue<Entry<T>> heap;
+    private long seq;
+
+    public TopK(int k) {
+        if (k <= 0) throw new IllegalArgumentException("k must be positive");
+        this.k = k;
+        // root = worst entry: lowest score, on ties the latest offered
+        this.heap = new PriorityQueue<>(Math.min(k, 1024) + 1, (a, b) -> {
+            int c = Double.compare(a.score, b.score);
+            return c != 0 ? c : Long.compare(b.seq, a.seq);
+        });
+    }
+
+    public void offer(T item, double score) {
+        if (heap.size() < k) {
+            heap.add(new Entry<>(item, score, seq++));
+            return;
+        }
+        if (score > heap.peek().score) {
+            heap.poll();
+            heap.add(new Entry<>(item, score, seq++));
+        } else {
+            seq++;
+        }
+    }
+
+    public int size() { return heap.size(); }
+
+    /**
+     * @return the kept items, best first
+     */
+    public List<T> toList() {
+        List<Entry<T>> entries = new ArrayList<>(heap);
+        entries.sort((a, b) -> {
+            int c = Double.compare(b.score, a.score);
+            return c != 0 ? c : Long.compare(a.seq, b.seq);
+        });
+
+        List<T> out = new ArrayList<>(entries.size());
+        for (Entry<T> e : entries) out.add(e.item);
+        return out;
+    }
+
+    private record Entry<T>(T item, double score, long seq) { }
+}
@@ -0,0 +1,316 @@
+package mrp.application.similarity;
+
+import mrp.domain.model.enums.MediaType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest neighbour index (HNSW, hierarchical navigable small
+ * world graph) over normalized media vectors, similarity = dot product.
+ *
+ * - every node lives on layer 0 and, with exponentially decreasing
+ *   probability, on higher layers; a search greedily descends from the
+ *   sparse top layer and runs a best-first beam search (ef) on layer 0
+ * - insert is incremental: the new node is linked to its M closest
+ *   neighbours per layer (neighbour lists are pruned to the closest ones)
+ * - delete only sets a tombstone: the node still routes searches but is
+ *   never returned; an update is delete + insert. Callers rebuild the
+ *   index when tombstones dominate (see tombstones())
+ * - filters (max age restriction, media type) are applied while collecting
+ *   results; if too few results pass, the search is repeated with a larger
+ *   beam so selective filters still return k hits
+ *
+ * Thread-safe: searches share a read lock, inserts/deletes take the write lock.
+ */
+public class HnswIndex {
+
+    public record Hit(UUID id, float similarity) { }
+
+    private final int m;
+    private final int mMax0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelFactor;
+    private final Random random = new Random(7);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<UUID, Integer> live = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int tombstones;
+
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        if (m < 2) throw new IllegalArgumentException("m must be >= 2");
+        if (efConstruction < m) throw new IllegalArgumentException("efConstruction must be >= m");
+        if (efSearch < 1) throw new IllegalArgumentException("efSearch must be positive");
+        this.m = m;
+        this.mMax0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelFactor = 1.0 / Math.log(m);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try { return live.size(); } finally { lock.readLock().unlock(); }
+    }
+
+    public int tombstones() {
+        lock.readLock().lock();
+        try { return tombstones; } finally { lock.readLock().unlock(); }
+    }
+
+    public boolean contains(UUID id) {
+        lock.readLock().lock();
+        try { return live.containsKey(id); } finally { lock.readLock().unlock(); }
+    }
+
+    /**
+     * @return the stored vector of a live entry, or null
+     */
+    public float[] vectorOf(UUID id) {
+        lock.readLock().lock();
+        try {
+            Integer n = live.get(id);
+            return n == null ? null : nodes.get(n).vector;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts or replaces the vector of an entry.
+     */
+    public void upsert(UUID id, float[] vector, Integer ageRestriction, MediaType mediaType) {
+        if (id == null || vector == null) throw new IllegalArgumentException("id/vector null");
+
+        lock.writeLock().lock();
+        try {
+            tombstone(id);
+
+            int level = (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelFactor);
+            int idx = nodes.size();
+            Node node = new Node(id, vector, level,
+                    ageRestriction == null ? 0 : ageRestriction,
+                    mediaType == null ? -1 : (byte) mediaType.ordinal());
+            nodes.add(node);
+            live.put(id, idx);
+
+            if (entryPoint < 0) {
+                entryPoint = idx;
+                maxLevel = level;
+                return;
+            }
+
+            int ep = entryPoint;
+            for (int lc = maxLevel; lc > level; lc--) {
+                ep = greedy(vector, ep, lc);
+            }
+            for (int lc = Math.min(level, maxLevel); lc >= 0; lc--) {
+                List<Scored> candidates = searchLayer(vector, ep, efConstruction, lc);
+                int max = lc == 0 ? mMax0 : m;
+                List<Scored> selected = candidates.subList(0, Math.min(m, candidates.size()));
+                for (Scored s : selected) {
+                    link(idx, s.node, lc, max);
+                    link(s.node, idx, lc, max);
+                }
+                ep = candidates.get(0).node;
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = idx;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            return tombstone(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * k most similar live entries.
+     *
+     * @param maxAge  only entries with ageRestriction <= maxAge (null = no filter)
+     * @param type    only entries of this type (null = no filter)
+     * @param exclude entry to skip (e.g. the query media itself), may be null
+     */
+    public List<Hit> search(float[] query, int k, Integer maxAge, MediaType type, UUID exclude) {
+        if (query == null || k <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) return List.of();
+
+            int ep = entryPoint;
+            for (int lc = maxLevel; lc > 0; lc--) {
+                ep = greedy(query, ep, lc);
+            }
+
+            int ef = Math.max(efSearch, k + 1);
+            while (true) {
+                List<Hit> hits = new ArrayList<>(k);
+                List<Scored> found = searchLayer(query, ep, ef, 0);
+                for (Scored s : found) {
+                    Node n = nodes.get(s.node);
+                    if (n.deleted || n.id.equals(exclude)) continue;
+                    if (maxAge != null && n.age > maxAge) continue;
+                    if (type != null && n.type != type.ordinal()) continue;
+                    hits.add(new Hit(n.id, s.similarity));
+                    if (hits.size() == k) break;
+                }
+                // selective filter: widen the beam until k hits or the whole graph was seen
+                if (hits.size() == k || found.size() < ef || ef >= nodes.size()) {
+                    return hits;
+                }
+                ef = Math.min(nodes.size(), ef * 4);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- internals (lock held) ----
+
+    private boolean tombstone(UUID id) {
+        Integer old = live.remove(id);
+        if (old == null) return false;
+        nodes.get(old).deleted = true;
+        tombstones++;
+        return true;
+    }
+
+    private int greedy(float[] q, int ep, int level) {
+        float best = dot(q, nodes.get(ep).vector);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Node n = nodes.get(ep);
+            int[] links = n.links[level];
+            for (int i = 0; i < n.counts[level]; i++) {
+                float s = dot(q, nodes.get(links[i]).vector);
+                if (s > best) {
+                    best = s;
+                    ep = links[i];
+                    changed = true;
+                }
+            }
+        }
+        return ep;
+    }
+
+    // Beam search on one layer; result sorted by similarity (best first)
+    private List<Scored> searchLayer(float[] q, int ep, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Scored> candidates = new PriorityQueue<>((a, b) -> Float.compare(b.similarity, a.similarity));
+        PriorityQueue<Scored> results = new PriorityQueue<>((a, b) -> Float.compare(a.similarity, b.similarity));
+
+        Scored start = new Scored(ep, dot(q, nodes.get(ep).vector));
+        visited.set(ep);
+        candidates.add(start);
+        results.add(start);
+
+        while (!candidates.isEmpty()) {
+            Scored c = candidates.poll();
+            if (results.size() >= ef && c.similarity < results.peek().similarity) break;
+
+            Node n = nodes.get(c.node);
+            if (n.links.length <= level) continue;
+            int[] links = n.links[level];
+            for (int i = 0; i < n.counts[level]; i++) {
+                int nb = links[i];
+                if (visited.get(nb)) continue;
+                visited.set(nb);
+
+                float s = dot(q, nodes.get(nb).vector);
+                if (results.size() < ef || s > results.peek().similarity) {
+                    Scored sc = new Scored(nb, s);
+                    candidates.add(sc);
+                    results.add(sc);
+                    if (results.size() > ef) results.poll();
+                }
+            }
+        }
+
+        Scored[] out = results.toArray(new Scored[0]);
+        Arrays.sort(out, (a, b) -> Float.compare(b.similarity, a.similarity));
+        return Arrays.asList(out);
+    }
+
+    // Adds `to` to the neighbour list of `from`; prunes to the `max` closest on overflow.
+    private void link(int from, int to, int level, int max) {
+        if (from == to) return;
+        Node n = nodes.get(from);
+        int[] links = n.links[level];
+        int count = n.counts[level];
+        for (int i = 0; i < count; i++) {
+            if (links[i] == to) return;
+        }
+
+        if (count < max) {
+            if (count == links.length) {
+                links = Arrays.copyOf(links, Math.min(max, Math.max(4, count * 2)));
+                n.links[level] = links;
+            }
+            links[count] = to;
+            n.counts[level] = count + 1;
+            return;
+        }
+
+        // Full: replace the least similar neighbour if `to` is closer
+        int worst = -1;
+        float worstSim = dot(n.vector, nodes.get(to).vector);
+        for (int i = 0; i < count; i++) {
+            float s = dot(n.vector, nodes.get(links[i]).vector);
+            if (s < worstSim) {
+                worstSim = s;
+                worst = i;
+            }
+        }
+        if (worst >= 0) links[worst] = to;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float s = 0f;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+
+    private static final class Node {
+        private final UUID id;
+        private final float[] vector;
+        private final int age;
+        private final byte type;
+        private final int[][] links;
+        private final int[] counts;
+        private boolean deleted;
+
+        private Node(UUID id, float[] vector, int level, int age, byte type) {
+            this.id = id;
+            this.vector = vector;
+            this.age = age;
+            this.type = type;
+            this.links = new int[level + 1][4];
+            this.counts = new int[level + 1];
+        }
+    }
+
+    private record Scored(int node, float similarity) { }
+}
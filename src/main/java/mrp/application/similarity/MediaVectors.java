@@ -0,0 +1,90 @@
+package mrp.application.similarity;
+
+import mrp.domain.model.MediaEntry;
+import mrp.domain.model.enums.MediaType;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Encodes a media entry as a fixed-size, L2-normalized feature vector.
+ *
+ * Layout:
+ * - GENRE_BUCKETS dims: hashed genres (feature hashing, 1/sqrt(n) each),
+ *   so new genres need no vocabulary change
+ * - one dim per MediaType (one-hot)
+ * - release year, scaled to roughly 0..1
+ *
+ * Only fields that change with media edits go in: the average score moves
+ * with every rating, and indexed vectors are not updated on rating events.
+ *
+ * Vectors are normalized, so the dot product is the cosine similarity.
+ */
+public final class MediaVectors {
+
+    public static final int GENRE_BUCKETS = 32;
+    public static final int DIMENSIONS = GENRE_BUCKETS + MediaType.values().length + 1;
+
+    private static final float TYPE_WEIGHT = 0.6f;
+    private static final float YEAR_WEIGHT = 0.4f;
+
+    private MediaVectors() { }
+
+    public static float[] of(MediaEntry e) {
+        float[] v = new float[DIMENSIONS];
+
+        List<String> genres = e.getGenres();
+        if (genres != null && !genres.isEmpty()) {
+            float w = (float) (1.0 / Math.sqrt(genres.size()));
+            for (String g : genres) {
+                if (g == null || g.isBlank()) continue;
+                v[genreBucket(g)] += w;
+            }
+        }
+
+        if (e.getMediaType() != null) {
+            v[GENRE_BUCKETS + e.getMediaType().ordinal()] = TYPE_WEIGHT;
+        }
+
+        int base = GENRE_BUCKETS + MediaType.values().length;
+        if (e.getReleaseYear() != null) {
+            v[base] = YEAR_WEIGHT * Math.max(0f, Math.min(1f, (e.getReleaseYear() - 1900) / 150f));
+        }
+
+        normalize(v);
+        return v;
+    }
+
+    /**
+     * Query vector for a taste profile: genre weights and the preferred type,
+     * no year preference.
+     */
+    public static float[] ofPreferences(Map<String, Integer> genreWeights, MediaType preferredType) {
+        float[] v = new float[DIMENSIONS];
+        double norm = 0;
+        for (Integer w : genreWeights.values()) norm += (double) w * w;
+        if (norm > 0) {
+            for (Map.Entry<String, Integer> e : genreWeights.entrySet()) {
+                v[genreBucket(e.getKey())] += (float) (e.getValue() / Math.sqrt(norm));
+            }
+        }
+        if (preferredType != null) {
+            v[GENRE_BUCKETS + preferredType.ordinal()] = TYPE_WEIGHT;
+        }
+        normalize(v);
+        return v;
+    }
+
+    static int genreBucket(String genre) {
+        return Math.floorMod(genre.trim().toLowerCase(Locale.ROOT).hashCode(), GENRE_BUCKETS);
+    }
+
+    static void normalize(float[] v) {
+        double n = 0;
+        for (float x : v) n += x * x;
+        if (n == 0) return;
+        float inv = (float) (1.0 / Math.sqrt(n));
+        for (int i = 0; i < v.length; i++) v[i] *= inv;
+    }
+}
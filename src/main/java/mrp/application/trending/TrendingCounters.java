@@ -0,0 +1,254 @@
+package mrp.application.trending;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * In-memory, time-decayed activity counters per media.
+ *
+ * Storage:
+ * - a ring buffer of minute buckets covering the largest window (7d);
+ *   each bucket only holds the media that had events in that minute
+ * - per window a running score per media and a sorted set of all scores
+ *   (the continuously maintained top-K)
+ *
+ * Decay uses "forward decay": an event at minute t adds
+ * w * exp((t - landmark) / tau) instead of decaying every score each minute.
+ * The true score exp(-(now - landmark) / tau) * sum differs from the stored
+ * sum only by a factor shared by all media, so the order stays valid without
+ * touching old entries. When a bucket leaves a window its contributions are
+ * subtracted again (sliding window). The landmark is moved forward before
+ * the exponent can overflow.
+ *
+ * Events recorded via recordOnce() carry a key (e.g. user + media + kind)
+ * and count at most once while the first one is in the largest window, so
+ * toggling a favorite or like cannot push a media up. The keys are kept
+ * with the bucket of the minute they were counted in and dropped when that
+ * slot is reused.
+ *
+ * Counters are per process: with several instances each one ranks the
+ * events it has seen.
+ */
+public class TrendingCounters {
+
+    private static final double MAX_EXPONENT = 50;
+    private static final double EPSILON = 1e-9;
+
+    private final Clock clock;
+    private final int ringMinutes;
+    private final List<Map<UUID, Double>> ring;
+    private final long[] ringMinute;
+    private final List<List<Object>> ringKeys;
+    private final Map<Object, Long> countedAt = new HashMap<>();
+    private final WindowState[] windows;
+
+    private long currentMinute;
+    private long landmarkMinute;
+
+    public TrendingCounters(Clock clock) {
+        if (clock == null) throw new IllegalArgumentException("clock null");
+        this.clock = clock;
+
+        int max = 0;
+        for (TrendingWindow w : TrendingWindow.values()) max = Math.max(max, w.minutes());
+        this.ringMinutes = max;
+        this.ring = new ArrayList<>(Collections.nCopies(ringMinutes, (Map<UUID, Double>) null));
+        this.ringMinute = new long[ringMinutes];
+        this.ringKeys = new ArrayList<>(Collections.nCopies(ringMinutes, (List<Object>) null));
+
+        this.windows = new WindowState[TrendingWindow.values().length];
+        for (TrendingWindow w : TrendingWindow.values()) windows[w.ordinal()] = new WindowState(w);
+
+        this.currentMinute = nowMinute();
+        this.landmarkMinute = currentMinute;
+    }
+
+    /**
+     * Records an event with the given weight for a media at the current time.
+     */
+    public synchronized void record(UUID mediaId, double weight) {
+        if (mediaId == null || weight <= 0) return;
+        advance();
+        add(mediaId, weight);
+    }
+
+    /**
+     * Like record(), but ignored if an event with the same key was counted
+     * within the largest window.
+     *
+     * @return false if the key was already counted
+     */
+    public synchronized boolean recordOnce(UUID mediaId, Object key, double weight) {
+        if (mediaId == null || key == null || weight <= 0) return false;
+        advance();
+
+        Long last = countedAt.get(key);
+        if (last != null && currentMinute - last < ringMinutes) return false;
+
+        add(mediaId, weight);
+        countedAt.put(key, currentMinute);
+        ringKeys.get(slot(currentMinute)).add(key);
+        return true;
+    }
+
+    /**
+     * Drops all counters of a media (e.g. after it was deleted).
+     */
+    public synchronized void forget(UUID mediaId) {
+        for (Map<UUID, Double> bucket : ring) {
+            if (bucket != null) bucket.remove(mediaId);
+        }
+        for (WindowState w : windows) w.remove(mediaId);
+    }
+
+    /**
+     * @return up to k media ids, hottest first
+     */
+    public synchronized List<UUID> top(TrendingWindow window, int k) {
+        advance();
+        List<UUID> out = new ArrayList<>(k);
+        for (Score s : windows[window.ordinal()].sorted) {
+            if (out.size() == k) break;
+            out.add(s.mediaId);
+        }
+        return out;
+    }
+
+    /**
+     * Current decayed score of a media (events per window, newest count fully).
+     */
+    public synchronized double score(TrendingWindow window, UUID mediaId) {
+        advance();
+        WindowState w = windows[window.ordinal()];
+        Score s = w.scores.get(mediaId);
+        return s == null ? 0 : s.value / w.factor(currentMinute);
+    }
+
+    // ---- internals (synchronized callers) ----
+
+    private long nowMinute() {
+        return clock.millis() / 60_000L;
+    }
+
+    private void add(UUID mediaId, double weight) {
+        int slot = slot(currentMinute);
+        if (ring.get(slot) == null || ringMinute[slot] != currentMinute) {
+            List<Object> expired = ringKeys.get(slot);
+            if (expired != null) {
+                for (Object key : expired) countedAt.remove(key, ringMinute[slot]);
+            }
+            ring.set(slot, new HashMap<>());
+            ringKeys.set(slot, new ArrayList<>());
+            ringMinute[slot] = currentMinute;
+        }
+        ring.get(slot).merge(mediaId, weight, Double::sum);
+
+        for (WindowState w : windows) {
+            w.add(mediaId, weight * w.factor(currentMinute));
+        }
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) ringMinutes);
+    }
+
+    // Moves time forward: expires buckets that left each window, renormalizes the landmark.
+    private void advance() {
+        long now = nowMinute();
+        if (now <= currentMinute) return;
+
+        for (WindowState w : windows) {
+            int span = w.window.minutes();
+            if (now - currentMinute >= span) {
+                // idle for longer than the window: everything left it
+                w.clear();
+                continue;
+            }
+            // buckets in (currentMinute - span, now - span] leave this window
+            for (long m = currentMinute - span + 1; m <= now - span; m++) {
+                Map<UUID, Double> bucket = bucketAt(m);
+                if (bucket == null) continue;
+                double f = w.factor(m);
+                for (Map.Entry<UUID, Double> e : bucket.entrySet()) {
+                    w.add(e.getKey(), -e.getValue() * f);
+                }
+            }
+        }
+        currentMinute = now;
+
+        for (WindowState w : windows) {
+            if ((currentMinute - landmarkMinute) / w.window.tauMinutes() > MAX_EXPONENT) {
+                renormalize(currentMinute);
+                break;
+            }
+        }
+    }
+
+    private Map<UUID, Double> bucketAt(long minute) {
+        int slot = slot(minute);
+        return ringMinute[slot] == minute ? ring.get(slot) : null;
+    }
+
+    private void renormalize(long newLandmark) {
+        for (WindowState w : windows) w.rescale(Math.exp(-(newLandmark - landmarkMinute) / w.window.tauMinutes()));
+        landmarkMinute = newLandmark;
+    }
+
+    private final class WindowState {
+        private final TrendingWindow window;
+        private final Map<UUID, Score> scores = new HashMap<>();
+        private TreeSet<Score> sorted = new TreeSet<>(ORDER);
+
+        private WindowState(TrendingWindow window) {
+            this.window = window;
+        }
+
+        double factor(long minute) {
+            return Math.exp((minute - landmarkMinute) / window.tauMinutes());
+        }
+
+        void add(UUID mediaId, double delta) {
+            Score old = scores.remove(mediaId);
+            double v = (old == null ? 0 : old.value) + delta;
+            if (old != null) sorted.remove(old);
+            if (v > EPSILON * factor(currentMinute)) {
+                Score s = new Score(mediaId, v);
+                scores.put(mediaId, s);
+                sorted.add(s);
+            }
+        }
+
+        void remove(UUID mediaId) {
+            Score old = scores.remove(mediaId);
+            if (old != null) sorted.remove(old);
+        }
+
+        void clear() {
+            scores.clear();
+            sorted.clear();
+        }
+
+        void rescale(double f) {
+            TreeSet<Score> fresh = new TreeSet<>(ORDER);
+            for (Map.Entry<UUID, Score> e : scores.entrySet()) {
+                Score s = new Score(e.getKey(), e.getValue().value * f);
+                e.setValue(s);
+                fresh.add(s);
+            }
+            sorted = fresh;
+        }
+    }
+
+    private static final Comparator<Score> ORDER = Comparator
+            .comparingDouble((Score s) -> s.value).reversed()
+            .thenComparing(s -> s.mediaId);
+
+    private record Score(UUID mediaId, double value) { }
+}
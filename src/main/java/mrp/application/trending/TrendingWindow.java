@@ -0,0 +1,38 @@
+package mrp.application.trending;
+
+/**
+ * Supported trending windows. Events older than the window are dropped;
+ * inside the window they decay exponentially with the given time constant.
+ */
+public enum TrendingWindow {
+    HOUR("1h", 60, 20),
+    DAY("24h", 24 * 60, 6 * 60),
+    WEEK("7d", 7 * 24 * 60, 42 * 60);
+
+    private final String token;
+    private final int minutes;
+    private final double tauMinutes;
+
+    TrendingWindow(String token, int minutes, double tauMinutes) {
+        this.token = token;
+        this.minutes = minutes;
+        this.tauMinutes = tauMinutes;
+    }
+
+    public String token() { return token; }
+
+    public int minutes() { return minutes; }
+
+    public double tauMinutes() { return tauMinutes; }
+
+    /**
+     * @throws IllegalArgumentException for unknown values
+     */
+    public static TrendingWindow parse(String s) {
+        if (s == null || s.isBlank()) return DAY;
+        for (TrendingWindow w : values()) {
+            if (w.token.equalsIgnoreCase(s.trim())) return w;
+        }
+        throw new IllegalArgumentException("window must be 1h, 24h or 7d");
+    }
+}
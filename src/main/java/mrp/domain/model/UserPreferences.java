@@ -0,0 +1,105 @@
+package mrp.domain.model;
+
+import mrp.domain.model.enums.MediaType;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Preference profile of a user, derived from their positive ratings (>= 4 stars).
+ *
+ * - genre and type weights: sum of the stars of the positively rated media
+ * - age bound: the highest age restriction among positively rated media;
+ *   kept as a histogram so that removing a rating can lower it again
+ *
+ * The profile is maintained incrementally via apply(): +1 when a positive
+ * rating appears, -1 when it disappears (an update is -old +new).
+ *
+ * version is the stored row version: every stored change increments it, so
+ * a rebuild can replace the profile only if nothing changed in between.
+ */
+public class UserPreferences {
+
+    public static final int MIN_POSITIVE_STARS = 4;
+    public static final int MAX_AGE = 21;
+
+    private UUID userId;
+    private Map<String, Integer> genreWeights = new HashMap<>();
+    private Map<MediaType, Integer> typeWeights = new EnumMap<>(MediaType.class);
+    private int[] ageCounts = new int[MAX_AGE + 1];
+    private int positiveCount;
+    private long version;
+
+    public UserPreferences(UUID userId) {
+        if (userId == null) throw new IllegalArgumentException("userId null");
+        this.userId = userId;
+    }
+
+    /**
+     * Adds (sign = +1) or removes (sign = -1) the contribution of one rating.
+     * Ratings below MIN_POSITIVE_STARS do not contribute.
+     */
+    public void apply(MediaEntry media, int stars, int sign) {
+        if (media == null || stars < MIN_POSITIVE_STARS) return;
+        int w = stars * sign;
+
+        if (media.getGenres() != null) {
+            for (String g : media.getGenres()) {
+                if (g == null) continue;
+                String key = g.trim();
+                if (key.isEmpty()) continue;
+                add(genreWeights, key, w);
+            }
+        }
+        if (media.getMediaType() != null) {
+            add(typeWeights, media.getMediaType(), w);
+        }
+        Integer age = media.getAgeRestriction();
+        if (age != null && age >= 0 && age <= MAX_AGE) {
+            ageCounts[age] = Math.max(0, ageCounts[age] + sign);
+        }
+        positiveCount = Math.max(0, positiveCount + sign);
+    }
+
+    private static <K> void add(Map<K, Integer> map, K key, int delta) {
+        int v = map.getOrDefault(key, 0) + delta;
+        if (v > 0) map.put(key, v);
+        else map.remove(key);
+    }
+
+    /**
+     * @return the media type with the highest weight, or null
+     */
+    public MediaType preferredType() {
+        MediaType best = null;
+        int bestW = -1;
+        for (Map.Entry<MediaType, Integer> e : typeWeights.entrySet()) {
+            if (e.getValue() > bestW) {
+                bestW = e.getValue();
+                best = e.getKey();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the highest age restriction among positively rated media, or null
+     */
+    public Integer maxAge() {
+        for (int age = MAX_AGE; age >= 0; age--) {
+            if (ageCounts[age] > 0) return age;
+        }
+        return null;
+    }
+
+    public UUID getUserId() { return userId; }
+    public Map<String, Integer> getGenreWeights() { return genreWeights; }
+    public Map<MediaType, Integer> getTypeWeights() { return typeWeights; }
+    public int[] getAgeCounts() { return ageCounts; }
+    public int getPositiveCount() { return positiveCount; }
+    public void setPositiveCount(int positiveCount) { this.positiveCount = positiveCount; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
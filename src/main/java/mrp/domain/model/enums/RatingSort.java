@@ -0,0 +1,21 @@
+package mrp.domain.model.enums;
+
+/**
+ * Sort orders supported by the paginated rating listings.
+ * Every order ends with the rating id as tie-breaker so that the
+ * keyset cursor always identifies exactly one position.
+ */
+public enum RatingSort {
+    NEWEST,         // created_at DESC, id DESC
+    MOST_LIKED,     // like_count DESC, id DESC
+    HIGHEST_STARS;  // stars DESC, id DESC
+
+    public static RatingSort from(String s) {
+        if (s == null || s.isBlank()) return NEWEST;
+        try {
+            return RatingSort.valueOf(s.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid sort");
+        }
+    }
+}
@@ -1,15 +1,58 @@
 package mrp.domain.ports;
 
 import mrp.domain.model.MediaEntry;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface MediaRepository {
     MediaEntry save(MediaEntry entry);
     Optional<MediaEntry> findById(UUID id);
+
+    /**
+     * Loads several entries in one query. Unknown ids are skipped;
+     * the order of the result is unspecified.
+     */
+    List<MediaEntry> findByIds(Collection<UUID> ids);
     boolean update(MediaEntry entry);
     boolean delete(UUID id);
     List<MediaEntry> search(MediaSearch search);
     boolean isOwner(UUID mediaId, UUID userId);
+
+    /**
+     * Version of the whole catalog; changes whenever a visible field of any
+     * media entry changes or entries are added/removed. Used for ETags.
+     */
+    long catalogVersion();
+
+    /**
+     * Like catalogVersion(), but ignores average_score: changes when entries
+     * are added/removed or a field other than the score changes. For
+     * in-memory indexes that do not use scores.
+     */
+    long featuresVersion();
+
+    /**
+     * Version of the data search() returns right now, for ETags of search
+     * results. The catalogVersion() for a search that goes to the database;
+     * an in-memory copy reports the version it was loaded at instead.
+     */
+    String searchVersion();
+
+    /**
+     * Streams all media entries (e.g. to build an in-memory index)
+     * without materializing the whole catalog as one list.
+     */
+    void forEachEntry(Consumer<MediaEntry> consumer);
+
+    /**
+     * Recomputes average_score of the given entries from their ratings in one
+     * statement (0 without ratings).
+     *
+     * @return the new average score per updated entry
+     */
+    Map<UUID, Double> updateAverageScores(Collection<UUID> ids);
 }
@@ -0,0 +1,38 @@
+package mrp.domain.ports;
+
+import mrp.domain.model.Rating;
+
+import java.util.List;
+
+/**
+ * RatingRepository.createAll wurde nur teilweise ausgeführt, z. B. weil eine
+ * von mehreren Datenbanken (Shards) nicht erreichbar war.
+ *
+ * - getCreated(): tatsächlich angelegte Ratings (committed)
+ * - getFailed(): Ratings, deren Schreibvorgang fehlgeschlagen ist; sie sind
+ *   nicht angelegt und können einzeln erneut versucht werden
+ *
+ * Ratings, die wegen ux_user_media_unique_rating übersprungen wurden, stehen
+ * in keiner der beiden Listen (wie bei einem vollständigen createAll).
+ */
+public class PartialCreateException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<Rating> created;
+    private final transient List<Rating> failed;
+
+    public PartialCreateException(List<Rating> created, List<Rating> failed, Throwable cause) {
+        super(failed.size() + " rating(s) not written: " + cause, cause);
+        this.created = List.copyOf(created);
+        this.failed = List.copyOf(failed);
+    }
+
+    public List<Rating> getCreated() {
+        return created;
+    }
+
+    public List<Rating> getFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,76 @@
+package mrp.domain.ports;
+
+import mrp.domain.model.Rating;
+import mrp.domain.model.enums.RatingSort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursor for rating listings.
+ *
+ * Encodes the sort key of the last row of a page together with its id:
+ * - NEWEST:        created_at in epoch microseconds
+ * - MOST_LIKED:    like_count
+ * - HIGHEST_STARS: stars
+ *
+ * The next page continues strictly after (key, id) in the chosen order.
+ */
+public class RatingCursor {
+
+    private RatingSort sort;
+    private long key;
+    private UUID id;
+
+    public RatingCursor(RatingSort sort, long key, UUID id) {
+        if (sort == null) throw new IllegalArgumentException("sort null");
+        if (id == null) throw new IllegalArgumentException("id null");
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    public static RatingCursor after(Rating last, RatingSort sort) {
+        long key = switch (sort) {
+            case NEWEST -> toMicros(last.getCreatedAt());
+            case MOST_LIKED -> last.getLikeCount();
+            case HIGHEST_STARS -> last.getStars();
+        };
+        return new RatingCursor(sort, key, last.getId());
+    }
+
+    // Decodes a cursor and checks that it was issued for the same sort order.
+    public static RatingCursor decode(String cursor, RatingSort expected) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            if (parts.length != 3) throw new IllegalArgumentException("invalid cursor");
+            RatingSort sort = RatingSort.valueOf(parts[0]);
+            if (sort != expected) throw new IllegalArgumentException("invalid cursor");
+            return new RatingCursor(sort, Long.parseLong(parts[1]), UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and bad Base64 both end up here
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = sort.name() + ":" + key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public RatingSort getSort() { return sort; }
+    public long getKey() { return key; }
+    public UUID getId() { return id; }
+
+    public Instant keyAsInstant() {
+        return Instant.ofEpochSecond(Math.floorDiv(key, 1_000_000L), Math.floorMod(key, 1_000_000L) * 1_000L);
+    }
+
+    private static long toMicros(Instant t) {
+        if (t == null) return 0L;
+        return Math.addExact(Math.multiplyExact(t.getEpochSecond(), 1_000_000L), t.getNano() / 1_000L);
+    }
+}
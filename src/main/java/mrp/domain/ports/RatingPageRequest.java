@@ -0,0 +1,49 @@
+package mrp.domain.ports;
+
+import mrp.domain.model.enums.RatingSort;
+
+/**
+ * Keyset pagination parameters for rating listings.
+ *
+ * The cursor is the opaque value handed out with the previous page
+ * (see RatingCursor). A null cursor starts at the first page.
+ */
+public class RatingPageRequest {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private RatingSort sort;
+    private int limit;
+    private String cursor;
+
+    public RatingPageRequest(RatingSort sort, int limit, String cursor) {
+        this.sort = sort == null ? RatingSort.NEWEST : sort;
+        if (limit <= 0) limit = DEFAULT_LIMIT;
+        if (limit > MAX_LIMIT) limit = MAX_LIMIT;
+        this.limit = limit;
+        this.cursor = (cursor == null || cursor.isBlank()) ? null : cursor.trim();
+    }
+
+    private RatingPageRequest(RatingPageRequest page, int limit) {
+        this.sort = page.sort;
+        this.limit = limit;
+        this.cursor = page.cursor;
+    }
+
+    /**
+     * The same page with one extra row, so the caller can tell whether
+     * another page follows. Not clamped to MAX_LIMIT (a full page of
+     * MAX_LIMIT rows still needs its look-ahead row).
+     */
+    public RatingPageRequest withLookahead() {
+        return new RatingPageRequest(this, limit + 1);
+    }
+
+    public static RatingPageRequest firstPage() {
+        return new RatingPageRequest(RatingSort.NEWEST, DEFAULT_LIMIT, null);
+    }
+
+    public RatingSort getSort() { return sort; }
+    public int getLimit() { return limit; }
+    public String getCursor() { return cursor; }
+}
@@ -2,9 +2,13 @@ package mrp.domain.ports;
 
 import mrp.domain.model.Rating;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Port für die Persistenz von Ratings.
@@ -24,6 +28,16 @@ public interface RatingRepository {
      */
     Rating create(Rating rating);
 
+    /**
+     * Persistiert mehrere Ratings mit wenigen Statements (IDs sind bereits gesetzt).
+     * Ratings, die gegen ux_user_media_unique_rating verstoßen, werden übersprungen;
+     * geliefert werden nur die tatsächlich angelegten Ratings.
+     *
+     * @throws PartialCreateException wenn nur ein Teil geschrieben werden konnte
+     *         (mehrere Shards, von denen einer fehlschlug)
+     */
+    List<Rating> createAll(List<Rating> ratings);
+
     /**
      * Findet ein Rating anhand seiner ID.
      */
@@ -40,6 +54,18 @@ public interface RatingRepository {
      */
     List<Rating> listByMedia(UUID mediaId);
 
+    /**
+     * Listet eine Seite der Ratings eines Users (Keyset-Pagination).
+     * Liefert höchstens page.getLimit() Einträge in der gewählten Sortierung.
+     */
+    List<Rating> listByUser(UUID userId, RatingPageRequest page);
+
+    /**
+     * Listet eine Seite der Ratings zu einem Media-Eintrag (Keyset-Pagination).
+     * Liefert höchstens page.getLimit() Einträge in der gewählten Sortierung.
+     */
+    List<Rating> listByMedia(UUID mediaId, RatingPageRequest page);
+
     /**
      * Aktualisiert ein Rating. Nur der Besitzer (actorUserId == rating.userId)
      * darf eine Änderung vornehmen.
@@ -57,4 +83,34 @@ public interface RatingRepository {
     boolean addLike(UUID ratingId, UUID likerUserId);
 
     boolean removeLike(UUID ratingId, UUID likerUserId);
+
+    /**
+     * Version der Ratings einer Media: Anzahl der Ratings und Summe ihrer
+     * row_version (ändert sich bei jedem Insert/Update/Delete/Like). Beide Teile
+     * gehen getrennt in ein ETag ein; zu einer Zahl verrechnet könnten zwei
+     * verschiedene Stände dieselbe Version ergeben.
+     */
+    record ListVersion(long count, long rowVersionSum) { }
+
+    /**
+     * Liefert Optional.empty(), wenn die Media nicht existiert.
+     */
+    Optional<ListVersion> mediaRatingsVersion(UUID mediaId);
+
+    /**
+     * Streamt alle Ratings (z.B. als Trainingsdaten für die Matrix-Faktorisierung),
+     * ohne sie als eine Liste zu materialisieren.
+     */
+    void forEachRating(Consumer<Rating> consumer);
+
+    /**
+     * Liefert die Teilmenge der gegebenen Media-IDs, die der User bereits bewertet hat
+     * (ein Index-Lookup statt der kompletten Historie).
+     */
+    Set<UUID> ratedMediaIds(UUID userId, Collection<UUID> mediaIds);
+
+    /**
+     * Anzahl Ratings pro Media (nur Medien mit mindestens einem Rating).
+     */
+    Map<UUID, Integer> ratingCountsByMedia();
 }
@@ -0,0 +1,44 @@
+package mrp.domain.ports;
+
+import mrp.domain.model.UserPreferences;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Port für die persistierten Präferenzprofile der User.
+ */
+public interface UserPreferenceRepository {
+
+    Optional<UserPreferences> find(UUID userId);
+
+    /**
+     * Legt das Profil an, falls noch keines existiert (z.B. erster Aufbau
+     * aus der Rating-Historie). Ein vorhandenes Profil bleibt unverändert.
+     *
+     * @return false, wenn bereits ein Profil existierte
+     */
+    boolean insertIfAbsent(UserPreferences prefs);
+
+    /**
+     * Ändert ein vorhandenes Profil atomar (Zeilensperre für die Dauer von change)
+     * und erhöht seine Version.
+     *
+     * @return false, wenn für den User noch kein Profil existiert
+     */
+    boolean update(UUID userId, Consumer<UserPreferences> change);
+
+    /**
+     * Ersetzt das Profil nur, wenn die gespeicherte Version noch expectedVersion
+     * ist (z.B. Neuaufbau aus der Historie, während dem kein Delta committet hat).
+     *
+     * @return false, wenn das Profil fehlt oder inzwischen geändert wurde
+     */
+    boolean replace(UserPreferences prefs, long expectedVersion);
+
+    /**
+     * Entfernt das Profil; der nächste Zugriff baut es aus der Rating-Historie neu auf.
+     */
+    void delete(UUID userId);
+}
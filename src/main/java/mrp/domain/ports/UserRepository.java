@@ -24,4 +24,9 @@ public interface UserRepository {
     void updateProfile(UUID id, String email, String favoriteGenre);
 
     List<LeaderboardEntry> leaderboardByRatings(int limit, int offset);
+
+    /**
+     * Version des Leaderboards (ändert sich bei neuen/gelöschten Ratings und Usern).
+     */
+    long leaderboardVersion();
 }
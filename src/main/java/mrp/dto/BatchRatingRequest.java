@@ -0,0 +1,31 @@
+package mrp.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.UUID;
+
+/**
+ * One entry of POST /users/me/ratings/batch: a RatingRequest plus the rated media.
+ */
+public class BatchRatingRequest {
+
+    private UUID mediaId;
+    private int stars;
+    private String comment;
+
+    @JsonCreator
+    public BatchRatingRequest(
+            @JsonProperty("mediaId") UUID mediaId,
+            @JsonProperty("stars") int stars,
+            @JsonProperty("comment") String comment
+    ) {
+        this.mediaId = mediaId;
+        this.stars = stars;
+        this.comment = comment;
+    }
+
+    public UUID getMediaId() { return mediaId; }
+    public int getStars() { return stars; }
+    public String getComment() { return comment; }
+}
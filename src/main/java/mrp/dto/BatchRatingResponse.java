@@ -0,0 +1,36 @@
+package mrp.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public class BatchRatingResponse {
+    public List<RatingResponse> created;
+    public List<Rejected> rejected;
+
+    public BatchRatingResponse() { }
+
+    public BatchRatingResponse(List<RatingResponse> created, List<Rejected> rejected) {
+        this.created = created;
+        this.rejected = rejected;
+    }
+
+    /**
+     * A batch entry that was not stored; index refers to the position in the request array,
+     * status is the HTTP status the single-rating endpoint would have answered with.
+     */
+    public static class Rejected {
+        public int index;
+        public UUID mediaId;
+        public int status;
+        public String error;
+
+        public Rejected() { }
+
+        public Rejected(int index, UUID mediaId, int status, String error) {
+            this.index = index;
+            this.mediaId = mediaId;
+            this.status = status;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package mrp.dto;
+
+import java.util.List;
+
+public class RatingPageResponse {
+    public List<RatingResponse> items;
+    public String nextCursor;
+
+    public RatingPageResponse() { }
+
+    public RatingPageResponse(List<RatingResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
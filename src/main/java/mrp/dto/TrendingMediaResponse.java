@@ -0,0 +1,13 @@
+package mrp.dto;
+
+public class TrendingMediaResponse {
+    public MediaResponse media;
+    public double score;
+
+    public TrendingMediaResponse() { }
+
+    public TrendingMediaResponse(MediaResponse media, double score) {
+        this.media = media;
+        this.score = score;
+    }
+}
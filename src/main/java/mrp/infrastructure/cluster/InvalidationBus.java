@@ -0,0 +1,251 @@
+package mrp.infrastructure.cluster;
+
+import mrp.infrastructure.config.ConnectionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cluster-wide cache invalidation over PostgreSQL LISTEN/NOTIFY.
+ *
+ * Publishing: write paths call publish(topic, key) after their write
+ * succeeded. A publisher thread numbers the messages of this node
+ * (1, 2, 3, ...) and sends them in order through one connection, many per
+ * round trip. A failed send is retried with the same numbers.
+ *
+ * Receiving: a listener thread holds a dedicated connection with
+ * LISTEN mrp_invalidation and dispatches messages of other nodes to the
+ * topic subscribers (own messages are skipped, local caches are updated
+ * by the write path itself).
+ *
+ * Missed messages: per sending node the last sequence number is tracked;
+ * a gap (seq > last + 1) means messages were lost and triggers a full
+ * flush of all caches. A lost listener connection is handled the same way:
+ * after reconnecting everything is flushed once.
+ *
+ * Failing handlers are logged and never stop the listener. A subscriber may
+ * register a fallback (usually its cache's invalidate()) that runs when it
+ * fails, since its cache may otherwise keep the stale entry.
+ */
+public class InvalidationBus implements AutoCloseable {
+
+    public enum Topic { MEDIA_SAVED, MEDIA_DELETED, RATING_CREATED, RATING_DELETED, SESSION_REPLACED }
+
+    static final String CHANNEL = "mrp_invalidation";
+
+    private static final int MAX_BATCH = 500;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final String node = UUID.randomUUID().toString();
+    private final Map<Topic, List<Subscriber>> subscribers = new EnumMap<>(Topic.class);
+    private final List<Runnable> flushHandlers = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<String> outbox = new LinkedBlockingQueue<>();
+    // listener thread only
+    private final Map<String, Long> lastSeen = new HashMap<>();
+
+    private volatile boolean closed;
+    private Thread publisher;
+    private Thread listener;
+
+    public InvalidationBus() {
+        for (Topic t : Topic.values()) subscribers.put(t, new CopyOnWriteArrayList<>());
+    }
+
+    /**
+     * Called with the key of every change made by another node.
+     */
+    public void subscribe(Topic topic, Consumer<String> handler) {
+        subscribe(topic, handler, null);
+    }
+
+    /**
+     * Like subscribe(topic, handler); onFailure runs if the handler throws.
+     */
+    public void subscribe(Topic topic, Consumer<String> handler, Runnable onFailure) {
+        if (topic == null || handler == null) throw new IllegalArgumentException("topic/handler null");
+        subscribers.get(topic).add(new Subscriber(handler, onFailure));
+    }
+
+    /**
+     * Called when messages may have been lost; the handler must drop or revalidate everything.
+     */
+    public void onFlush(Runnable handler) {
+        if (handler == null) throw new IllegalArgumentException("handler null");
+        flushHandlers.add(handler);
+    }
+
+    /**
+     * Queues a change notification; never blocks and never fails the caller.
+     */
+    public void publish(Topic topic, Object key) {
+        if (topic == null || key == null || closed) return;
+        outbox.add(topic.name() + '|' + key);
+    }
+
+    public synchronized void start() {
+        if (publisher != null) return;
+        publisher = daemon("invalidation-publisher", this::publishLoop);
+        listener = daemon("invalidation-listener", this::listenLoop);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (publisher != null) publisher.interrupt();
+        if (listener != null) listener.interrupt();
+    }
+
+    // ---- publishing ----
+
+    private void publishLoop() {
+        long seq = 0;
+        Connection c = null;
+        List<String> drained = new ArrayList<>(MAX_BATCH);
+        List<String> payloads = new ArrayList<>(MAX_BATCH);
+
+        while (!closed) {
+            try {
+                String first = outbox.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                drained.add(first);
+                outbox.drainTo(drained, MAX_BATCH - 1);
+
+                // numbered once; a retry resends the same numbers
+                for (String m : drained) payloads.add(node + '|' + (++seq) + '|' + m);
+                drained.clear();
+
+                while (!closed) {
+                    try {
+                        if (c == null) c = ConnectionFactory.get();
+                        send(c, payloads);
+                        break;
+                    } catch (SQLException e) {
+                        System.err.println("invalidation publish failed: " + e.getMessage());
+                        closeQuietly(c);
+                        c = null;
+                        Thread.sleep(RETRY_MILLIS);
+                    }
+                }
+                payloads.clear();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        closeQuietly(c);
+    }
+
+    private static void send(Connection c, List<String> payloads) throws SQLException {
+        // one round trip; ORDER BY keeps the sequence order on the wire
+        String sql = "SELECT pg_notify(?, p) FROM unnest(?::text[]) WITH ORDINALITY AS u(p, n) ORDER BY n";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, CHANNEL);
+            ps.setArray(2, c.createArrayOf("text", payloads.toArray()));
+            ps.executeQuery().close();
+        }
+    }
+
+    // ---- receiving ----
+
+    private void listenLoop() {
+        while (!closed) {
+            try (Connection c = ConnectionFactory.get()) {
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                // anything sent while we were not listening is lost
+                lastSeen.clear();
+                flush();
+
+                PGConnection pg = c.unwrap(PGConnection.class);
+                while (!closed) {
+                    PGNotification[] notes = pg.getNotifications(1000);
+                    if (notes == null) continue;
+                    for (PGNotification n : notes) handle(n.getParameter());
+                }
+            } catch (SQLException e) {
+                if (closed) break;
+                System.err.println("invalidation listener lost connection: " + e.getMessage());
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // payload: node|seq|TOPIC|key
+    void handle(String payload) {
+        String[] p = payload == null ? new String[0] : payload.split("\\|", 4);
+        if (p.length != 4 || p[0].equals(node)) return;
+
+        long seq;
+        Topic topic;
+        try {
+            seq = Long.parseLong(p[1]);
+            topic = Topic.valueOf(p[2]);
+        } catch (IllegalArgumentException e) {
+            return; // not ours / newer version
+        }
+
+        Long last = lastSeen.put(p[0], seq);
+        if (last != null && seq > last + 1) {
+            flush();
+        }
+
+        for (Subscriber s : subscribers.get(topic)) {
+            try {
+                s.handler().accept(p[3]);
+            } catch (RuntimeException e) {
+                // a subscriber must never stop the listener
+                System.err.println("invalidation subscriber for " + topic + " failed: " + e);
+                if (s.onFailure() != null) runLogged("invalidation fallback for " + topic, s.onFailure());
+            }
+        }
+    }
+
+    private void flush() {
+        for (Runnable r : flushHandlers) runLogged("invalidation flush handler", r);
+    }
+
+    private static void runLogged(String what, Runnable r) {
+        try {
+            r.run();
+        } catch (RuntimeException e) {
+            System.err.println(what + " failed: " + e);
+        }
+    }
+
+    private record Subscriber(Consumer<String> handler, Runnable onFailure) { }
+
+    private static Thread daemon(String name, Runnable body) {
+        Thread t = new Thread(body, name);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    private static void closeQuietly(Connection c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+            // already broken
+        }
+    }
+}
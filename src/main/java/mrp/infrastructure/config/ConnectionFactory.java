@@ -3,17 +3,97 @@ package mrp.infrastructure.config;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * JDBC connections to the primary and (optionally) read replicas.
+ *
+ * DB_URL is the primary. DB_REPLICA_URLS (comma separated, same credentials)
+ * adds replicas for read-only queries, see getReadOnly(). Without replicas
+ * everything goes to the primary as before.
+ */
 public class ConnectionFactory {
 
     private static String url  = requireEnv("DB_URL");
     private static String user = requireEnv("DB_USER");
     private static String pass = requireEnv("DB_PASSWORD");
 
+    private static final ReplicaSet replicas = replicasFromEnv();
+
     public static Connection get() throws SQLException {
         return DriverManager.getConnection(url, user, pass);
     }
 
+    /**
+     * Connection for queries that tolerate replication lag (searches, lists,
+     * leaderboard). Goes to the primary when no replica is healthy or the
+     * current request needs read-your-writes (see ReadRouting).
+     *
+     * A request stays on the replica of its first read; once that replica
+     * is unhealthy or unreachable, the request continues on the primary.
+     */
+    public static Connection getReadOnly() throws SQLException {
+        if (replicas.isEmpty()) return get();
+
+        ReadRouting.Session s = ReadRouting.current();
+        if (s != null && s.primary) return get();
+
+        ReplicaSet.Replica r = s != null ? s.replica : null;
+        if (r == null) {
+            r = replicas.pick();
+            if (s != null) s.replica = r;
+        }
+        if (r == null || !r.healthy) return primaryFor(s);
+        try {
+            return replicas.connect(r);
+        } catch (SQLException e) {
+            return primaryFor(s); // replica is marked unhealthy, the read still succeeds
+        }
+    }
+
+    // another replica may be further behind than the one already read from
+    private static Connection primaryFor(ReadRouting.Session s) throws SQLException {
+        if (s != null) s.primary = true;
+        return get();
+    }
+
+    /**
+     * Connections to another database of the same cluster (e.g. a rating
+     * shard), with the DB_USER / DB_PASSWORD credentials.
+     */
+    public static ConnectionSource forUrl(String jdbcUrl) {
+        if (jdbcUrl == null || jdbcUrl.isBlank()) throw new IllegalArgumentException("jdbcUrl blank");
+        return () -> DriverManager.getConnection(jdbcUrl, user, pass);
+    }
+
+    private static ReplicaSet replicasFromEnv() {
+        List<String> urls = new ArrayList<>();
+        String v = System.getenv("DB_REPLICA_URLS");
+        if (v != null) {
+            for (String u : v.split(",")) {
+                if (!u.isBlank()) urls.add(u.trim());
+            }
+        }
+        long maxLag = envLong("DB_REPLICA_MAX_LAG_MS", 1000);
+        // the read-your-writes window must outlast the lag a replica may have
+        ReadRouting.setStickyMillis(Math.max(envLong("DB_READ_YOUR_WRITES_MS", 5000), maxLag));
+
+        ReplicaSet set = new ReplicaSet(urls, user, pass, maxLag);
+        set.startHealthChecks(envLong("DB_REPLICA_CHECK_MS", 1000));
+        return set;
+    }
+
+    private static long envLong(String k, long fallback) {
+        String v = System.getenv(k);
+        if (v == null || v.isBlank()) return fallback;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
     private static String requireEnv(String k) {
         String v = System.getenv(k);
         if (v == null || v.isBlank()) {
@@ -0,0 +1,31 @@
+package mrp.infrastructure.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Where a repository gets its connections from: the main database
+ * (PRIMARY, see ConnectionFactory) or one rating shard.
+ */
+public interface ConnectionSource {
+
+    /** The main database incl. replica routing for read-only queries. */
+    ConnectionSource PRIMARY = new ConnectionSource() {
+        @Override
+        public Connection get() throws SQLException {
+            return ConnectionFactory.get();
+        }
+
+        @Override
+        public Connection getReadOnly() throws SQLException {
+            return ConnectionFactory.getReadOnly();
+        }
+    };
+
+    Connection get() throws SQLException;
+
+    /** Connection for lag-tolerant reads; defaults to get(). */
+    default Connection getReadOnly() throws SQLException {
+        return get();
+    }
+}
@@ -0,0 +1,85 @@
+package mrp.infrastructure.config;
+
+/**
+ * Per-request routing state for ConnectionFactory.getReadOnly().
+ *
+ * Read-your-writes: after a client wrote something, its reads go to the
+ * primary for `stickyMillis` (longer than the allowed replica lag), so a
+ * new rating is visible in the next request even on a lagging replica.
+ * The time of the write travels with the client (a cookie set by
+ * ReadRoutingMiddleware), so every node behind a load balancer sees it;
+ * nothing is stored per node.
+ *
+ * Within one request all reads use the same replica. Version reads for
+ * ETags and the data they describe therefore come from the same snapshot
+ * line (a replica only moves forward), so an ETag is never newer than
+ * the body it is sent with. If that replica drops out mid-request, the
+ * rest of the request reads from the primary, never from another replica
+ * that may be further behind.
+ *
+ * Bound by the HTTP layer (begin/end); the state is inherited by virtual
+ * threads forked during the request.
+ */
+public final class ReadRouting {
+
+    static final class Session {
+        volatile boolean primary;
+        volatile ReplicaSet.Replica replica;
+
+        Session(boolean primary) {
+            this.primary = primary;
+        }
+    }
+
+    private static final InheritableThreadLocal<Session> CURRENT = new InheritableThreadLocal<>();
+    private static volatile long stickyMillis = 5_000;
+
+    private ReadRouting() { }
+
+    static void setStickyMillis(long millis) {
+        stickyMillis = millis;
+    }
+
+    /**
+     * @return how long after a write the client reads from the primary
+     */
+    public static long stickyMillis() {
+        return stickyMillis;
+    }
+
+    /**
+     * @param wroteAtMillis epoch millis of the client's last write (from its cookie)
+     * @return true if that write may not have reached every replica yet
+     */
+    public static boolean isRecentWrite(long wroteAtMillis, long nowMillis) {
+        long age = nowMillis - wroteAtMillis;
+        // a time in the future is not trusted (forged or skewed cookie)
+        return age >= 0 && age < stickyMillis;
+    }
+
+    /**
+     * Starts routing for a request.
+     *
+     * @param primary true for writing requests and clients within their
+     *                read-your-writes window
+     */
+    public static void begin(boolean primary) {
+        CURRENT.set(new Session(primary));
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return true if reads of the current request must see the primary
+     */
+    public static boolean readsPrimary() {
+        Session s = CURRENT.get();
+        return s != null && s.primary;
+    }
+
+    static Session current() {
+        return CURRENT.get();
+    }
+}
@@ -0,0 +1,117 @@
+package mrp.infrastructure.config;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read replicas (streaming replication standbys) behind ConnectionFactory.getReadOnly().
+ *
+ * - replicas are picked round robin among the healthy ones
+ * - a background thread measures the replay lag of every replica; a replica
+ *   lagging more than maxLagMillis (or not reachable) is skipped until a
+ *   later check sees it caught up again
+ * - a replica that fails to connect is marked unhealthy immediately
+ *
+ * Until the first check has run, all replicas count as unhealthy, i.e.
+ * reads go to the primary.
+ */
+final class ReplicaSet {
+
+    // 0 when everything received has been replayed (an idle primary sends nothing,
+    // so the age of the last replayed transaction alone would look like lag)
+    private static final String LAG_SQL = """
+        SELECT CASE
+                 WHEN NOT pg_is_in_recovery() THEN 0
+                 WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                 ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+               END
+        """;
+
+    static final class Replica {
+        final String url;
+        volatile boolean healthy;
+        volatile long lagMillis = -1;
+
+        Replica(String url) {
+            this.url = url;
+        }
+    }
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final String user;
+    private final String pass;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ReplicaSet(List<String> urls, String user, String pass, long maxLagMillis) {
+        for (String u : urls) replicas.add(new Replica(u));
+        this.user = user;
+        this.pass = pass;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    boolean isEmpty() {
+        return replicas.isEmpty();
+    }
+
+    /**
+     * @return a healthy replica, or null if there is none
+     */
+    Replica pick() {
+        int n = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(n, 1));
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((start + i) % n);
+            if (r.healthy) return r;
+        }
+        return null;
+    }
+
+    Connection connect(Replica r) throws SQLException {
+        try {
+            Connection c = DriverManager.getConnection(r.url, user, pass);
+            c.setReadOnly(true);
+            return c;
+        } catch (SQLException e) {
+            r.healthy = false;
+            throw e;
+        }
+    }
+
+    void startHealthChecks(long intervalMillis) {
+        if (replicas.isEmpty()) return;
+        Thread t = new Thread(() -> {
+            while (true) {
+                checkAll();
+                try {
+                    Thread.sleep(intervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "replica-health");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void checkAll() {
+        for (Replica r : replicas) {
+            try (Connection c = DriverManager.getConnection(r.url, user, pass);
+                 Statement st = c.createStatement();
+                 ResultSet rs = st.executeQuery(LAG_SQL)) {
+                rs.next();
+                r.lagMillis = (long) rs.getDouble(1);
+                r.healthy = r.lagMillis <= maxLagMillis;
+            } catch (SQLException e) {
+                r.lagMillis = -1;
+                r.healthy = false;
+            }
+        }
+    }
+}
@@ -2,44 +2,194 @@ package mrp.infrastructure.http;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import mrp.application.*;
+import mrp.application.scoring.GenreTopLists;
 import mrp.application.security.PasswordHasher;
+import mrp.application.trending.TrendingCounters;
 import mrp.domain.ports.*;
 import mrp.infrastructure.persistence.*;
+import mrp.infrastructure.cluster.InvalidationBus;
+import mrp.infrastructure.config.ConnectionFactory;
+import mrp.infrastructure.config.ConnectionSource;
+import mrp.infrastructure.jobs.JobMetrics;
+import mrp.infrastructure.jobs.JobScheduler;
+import mrp.infrastructure.jobs.Trigger;
+import mrp.infrastructure.queue.QueueWorkers;
+import mrp.infrastructure.queue.RaterProfileFanout;
+import mrp.infrastructure.queue.WorkQueue;
 import mrp.infrastructure.security.AuthService;
+import mrp.infrastructure.security.CachingTokenService;
 import mrp.infrastructure.security.OpaqueTokenService;
+import mrp.infrastructure.util.SingleFlight;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToIntFunction;
 
 public class AppFactory {
 
+    private static final String LIKE_COUNTS = "like-counts";
+
     public Router buildRouter(ObjectMapper mapper) {
         // Repos
-        UserRepository userRepo = new JdbcUserRepository();
-        MediaRepository mediaRepo = new JdbcMediaRepository();
-        RatingRepository ratingRepo = new JdbcRatingRepository();
+        // Concurrent identical reads (hot media pages) share one query
+        SingleFlight readFlight = new SingleFlight(envInt("MRP_SINGLE_FLIGHT_WAIT_MS", 1000));
+        // Optional: several nodes keep their in-memory caches in sync via LISTEN/NOTIFY
+        InvalidationBus bus = null;
+        if ("true".equalsIgnoreCase(System.getenv("MRP_CLUSTER_INVALIDATION"))) {
+            bus = new InvalidationBus();
+        }
+        // Optional: ratings partitioned by media over several databases
+        ShardedRatingRepository shardedRatings = shardedRatingsFromEnv();
+        UserRepository userRepo = new JdbcUserRepository(shardedRatings);
+        JdbcMediaRepository jdbcMedia = new JdbcMediaRepository(new GenreDictionary(), shardedRatings);
+        MediaRepository mediaStore = jdbcMedia;
+        ColumnarMediaCatalog columnar = null;
+        if ("true".equalsIgnoreCase(System.getenv("MRP_CATALOG_IN_MEMORY"))) {
+            // Optional: serve GET /media searches from an in-memory column store
+            columnar = new ColumnarMediaCatalog(mediaStore, envInt("MRP_CATALOG_REFRESH_MS", 5000));
+            mediaStore = columnar;
+        }
+        JdbcRatingRepository jdbcRatings = shardedRatings == null ? new JdbcRatingRepository() : null;
+        RatingRepository ratingStore = shardedRatings != null ? shardedRatings : jdbcRatings;
+        if (bus != null) {
+            mediaStore = new NotifyingMediaRepository(mediaStore, bus);
+            ratingStore = new NotifyingRatingRepository(ratingStore, bus);
+        }
+        MediaRepository mediaRepo = new SingleFlightMediaRepository(mediaStore, readFlight);
+        RatingRepository ratingRepo = new SingleFlightRatingRepository(ratingStore, readFlight);
         FavoriteRepository favoriteRepo = new JdbcFavoriteRepository();
+        UserPreferenceRepository preferenceRepo = new JdbcUserPreferenceRepository();
 
         // Security
-        AuthTokenService tokenService = new OpaqueTokenService();
+        OpaqueTokenService sessions = new OpaqueTokenService();
+        AuthTokenService tokenService = sessions;
+        if (bus != null) {
+            // Cached token checks are only safe when other nodes announce replaced sessions
+            tokenService = new CachingTokenService(tokenService, bus, Duration.ofSeconds(envInt("MRP_TOKEN_CACHE_SECONDS", 30)));
+        }
         AuthService authService = new AuthService(tokenService);
 
         // Services
         PasswordHasher passwordHasher = new PasswordHasher(12);
         UserService userService = new UserService(userRepo, tokenService, ratingRepo, passwordHasher);
         MediaService mediaService = new MediaService(mediaRepo);
-        RatingService ratingService = new RatingService(ratingRepo, mediaRepo);
+        if (shardedRatings != null) {
+            // replaces ON DELETE CASCADE from media_entries to the ratings on the shards
+            mediaService.addListener(shardedRatings);
+        }
+        // Optional group commit: concurrent rating creates share one INSERT + one score update
+        GroupCommitRatingWriter groupCommit = null;
+        if ("true".equalsIgnoreCase(System.getenv("MRP_RATING_GROUP_COMMIT"))) {
+            groupCommit = new GroupCommitRatingWriter(ratingRepo, mediaRepo,
+                    envInt("MRP_RATING_GROUP_COMMIT_MAX", 256), envInt("MRP_RATING_GROUP_COMMIT_LINGER_MS", 2));
+        }
+        RatingService ratingService = new RatingService(ratingRepo, mediaRepo, groupCommit);
         FavoriteService favoriteService = new FavoriteService(favoriteRepo, mediaRepo);
-        RecommendationService recommendationService = new RecommendationService(ratingRepo, mediaRepo);
+        MatrixFactorizationEngine mfEngine = null;
+        if ("true".equalsIgnoreCase(System.getenv("MRP_MF_ENABLED"))) {
+            // Optional: collaborative recommendations (ALS), retrained in the background
+            mfEngine = new MatrixFactorizationEngine(ratingRepo,
+                    envInt("MRP_MF_RANK", 16), 0.1, envInt("MRP_MF_MIN_RATINGS", 3), ForkJoinPool.commonPool());
+        }
+        SimilarityService similarityService = new SimilarityService(mediaRepo, envInt("MRP_SIMILARITY_REFRESH_MS", 5000));
+        mediaService.addListener(similarityService);
+        UserPreferenceService preferenceService = new UserPreferenceService(preferenceRepo, ratingRepo, mediaRepo);
+        ratingService.addListener(preferenceService);
+        // Per-genre rankings for candidate generation (Bayesian average with MRP_TOPLIST_MIN_VOTES)
+        GenreTopLists topLists = new GenreTopLists(mediaRepo, ratingRepo,
+                envInt("MRP_TOPLIST_MIN_VOTES", 0), envInt("MRP_TOPLIST_REFRESH_MS", 5000));
+        mediaService.addListener(topLists);
+        ratingService.addListener(topLists);
+        // Trending: in-memory decayed activity counters (rating, like, favorite events)
+        TrendingService trendingService = new TrendingService(mediaRepo, new TrendingCounters(Clock.systemUTC()));
+        ratingService.addListener(trendingService);
+        favoriteService.addListener(trendingService);
+        mediaService.addListener(trendingService);
+        if (bus != null) {
+            subscribeCaches(bus, columnar, similarityService, topLists, trendingService);
+            bus.start();
+        }
+        RecommendationService recommendationService = new RecommendationService(ratingRepo, mediaRepo,
+                mfEngine, similarityService, preferenceService, topLists);
         LeaderboardService leaderboardService = new LeaderboardService(userRepo);
 
+        // Work queue (008_work_queue.sql): fan-out work, consumed by the workers of all nodes;
+        // MRP_QUEUE_WORKERS=0 only enqueues on this node
+        WorkQueue workQueue = new WorkQueue();
+        int queueWorkers = envInt("MRP_QUEUE_WORKERS", 4);
+        QueueWorkers workers = new QueueWorkers(workQueue, Math.max(queueWorkers, 1),
+                Duration.ofSeconds(envInt("MRP_QUEUE_VISIBILITY_SECONDS", 300)), Duration.ofSeconds(1));
+        RaterProfileFanout raterFanout = new RaterProfileFanout(workQueue, ratingRepo, preferenceService);
+        raterFanout.register(workers);
+        mediaService.addListener(raterFanout);
+        ToIntFunction<UUID> likeCounts = shardedRatings != null
+                ? shardedRatings::reconcileLikeCounts
+                : jdbcRatings::reconcileLikeCounts;
+        workers.handle(LIKE_COUNTS, payload -> likeCounts.applyAsInt(UUID.fromString(payload)));
+        if (queueWorkers > 0) workers.start();
+
+        // Background jobs; singleton jobs run on one node of the cluster (advisory lock leader)
+        JobScheduler jobs = new JobScheduler()
+                .singleton("session-cleanup", Trigger.cron("0-59/15 * * * *"), Duration.ofMinutes(1),
+                        sessions::deleteExpired)
+                .singleton("average-score-reconciliation", Trigger.cron("30 3 * * *"), Duration.ofMinutes(10),
+                        () -> reconcileAverageScores(jdbcMedia, mediaRepo))
+                .singleton("like-count-reconciliation", Trigger.cron("0 4 * * 0"), Duration.ofMinutes(10),
+                        () -> enqueueLikeCountChecks(jdbcMedia, workQueue));
+        if (shardedRatings == null) {
+            // monthly ratings partitions (007_ratings_partitioning.sql) are created ahead of time
+            RatingPartitionMaintenance partitions = new RatingPartitionMaintenance(envInt("MRP_RATING_PARTITIONS_AHEAD", 3));
+            jobs.singleton("rating-partitions", Trigger.fixedRate(Duration.ofHours(6)), Duration.ofMinutes(1),
+                    partitions::ensureUpcoming);
+        }
+        if (mfEngine != null) {
+            // every node serves recommendations from its own model
+            Duration retrain = Duration.ofSeconds(envInt("MRP_MF_RETRAIN_SECONDS", 300));
+            jobs.everyNode("mf-retrain", Trigger.fixedRate(retrain), retrain.dividedBy(10), mfEngine::retrain);
+        }
+        // counters on stderr, e.g. how many duplicate reads single flight absorbed and how the jobs did
+        Duration statsEvery = Duration.ofSeconds(envInt("MRP_STATS_LOG_SECONDS", 300));
+        jobs.everyNode("stats-log", Trigger.fixedRate(statsEvery), Duration.ZERO, () -> {
+            System.err.println("stats: " + readFlight);
+            System.err.println("jobs: leader=" + jobs.isLeader());
+            for (JobMetrics m : jobs.metrics()) System.err.println("  " + m);
+        });
+        jobs.start();
+
         // Handlers
-        UserHandler userHandler = new UserHandler(mapper, userService, authService);
-        MediaHandler mediaHandler = new MediaHandler(mapper, mediaService, authService);
-        RatingHandler ratingHandler = new RatingHandler(mapper, ratingService, authService);
-        FavoriteHandler favoriteHandler = new FavoriteHandler(mapper, favoriteService, authService);
-        RecommendationHandler recommendationHandler = new RecommendationHandler(mapper, recommendationService, authService);
-        LeaderboardHandler leaderboardHandler = new LeaderboardHandler(mapper, leaderboardService, authService);
+        UserHandler userHandler = new UserHandler(mapper, userService);
+        MediaHandler mediaHandler = new MediaHandler(mapper, mediaService);
+        RatingHandler ratingHandler = new RatingHandler(mapper, ratingService);
+        FavoriteHandler favoriteHandler = new FavoriteHandler(mapper, favoriteService);
+        RecommendationHandler recommendationHandler = new RecommendationHandler(mapper, recommendationService);
+        LeaderboardHandler leaderboardHandler = new LeaderboardHandler(mapper, leaderboardService);
+        SimilarityHandler similarityHandler = new SimilarityHandler(mapper, similarityService);
+        TrendingHandler trendingHandler = new TrendingHandler(mapper, trendingService);
+
+        // Admission control
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+                envInt("MRP_LIMIT_INITIAL", 20),
+                envInt("MRP_LIMIT_MIN", 4),
+                envInt("MRP_LIMIT_MAX", 64),
+                envInt("MRP_LIMIT_QUEUE", 100),
+                envInt("MRP_LIMIT_MAX_WAIT_MS", 500)
+        );
 
-        // Router + Routes
-        Router router = new Router(mapper, "/api");
+        // Router + Middleware + Routes
+        HttpResponses responses = new HttpResponses(mapper);
+        Router router = new Router(mapper, "/api")
+                .use(new ErrorMiddleware(responses))
+                .use(new TimingMiddleware(envInt("MRP_SLOW_REQUEST_MS", 500)))
+                .use(new LimiterMiddleware(limiter, responses))
+                .use(new DeadlineMiddleware(Duration.ofMillis(envInt("MRP_REQUEST_DEADLINE_MS", 3000))))
+                .use(new RequestScopeMiddleware())
+                .use(new ContentTypeMiddleware(responses))
+                .use(new AuthMiddleware(authService, responses))
+                .use(new ReadRoutingMiddleware());
 
         Routes.register(router,
                 userHandler,
@@ -47,9 +197,90 @@ public class AppFactory {
                 ratingHandler,
                 favoriteHandler,
                 recommendationHandler,
-                leaderboardHandler
+                leaderboardHandler,
+                similarityHandler,
+                trendingHandler
         );
 
         return router;
     }
+
+    // Applies media/rating changes of other nodes to this node's in-memory caches.
+    // One subscription per cache: a cache whose update fails is invalidated
+    // without keeping the others from applying the change.
+    private static void subscribeCaches(InvalidationBus bus, ColumnarMediaCatalog columnar,
+                                        SimilarityService similarity, GenreTopLists topLists,
+                                        TrendingService trending) {
+        if (columnar != null) {
+            bus.subscribe(InvalidationBus.Topic.MEDIA_SAVED, key -> columnar.refresh(UUID.fromString(key)),
+                    columnar::invalidate);
+            bus.subscribe(InvalidationBus.Topic.MEDIA_DELETED, key -> columnar.evict(UUID.fromString(key)),
+                    columnar::invalidate);
+            bus.onFlush(columnar::invalidate);
+        }
+        bus.subscribe(InvalidationBus.Topic.MEDIA_SAVED, key -> similarity.refresh(UUID.fromString(key)),
+                similarity::invalidate);
+        bus.subscribe(InvalidationBus.Topic.MEDIA_DELETED, key -> similarity.onMediaDeleted(UUID.fromString(key)),
+                similarity::invalidate);
+        bus.onFlush(similarity::invalidate);
+
+        bus.subscribe(InvalidationBus.Topic.MEDIA_SAVED, key -> topLists.refresh(UUID.fromString(key)),
+                topLists::invalidate);
+        bus.subscribe(InvalidationBus.Topic.MEDIA_DELETED, key -> topLists.onMediaDeleted(UUID.fromString(key)),
+                topLists::invalidate);
+        bus.subscribe(InvalidationBus.Topic.RATING_CREATED, key -> topLists.ratingsChanged(UUID.fromString(key), +1),
+                topLists::invalidate);
+        bus.subscribe(InvalidationBus.Topic.RATING_DELETED, key -> topLists.ratingsChanged(UUID.fromString(key), -1),
+                topLists::invalidate);
+        bus.onFlush(topLists::invalidate);
+
+        bus.subscribe(InvalidationBus.Topic.MEDIA_DELETED, key -> trending.onMediaDeleted(UUID.fromString(key)));
+    }
+
+    // Repairs average scores that drifted from the ratings; goes through the
+    // decorated repository so caches and other nodes pick up the new values
+    private static void reconcileAverageScores(JdbcMediaRepository store, MediaRepository repo) {
+        List<UUID> stale = store.findStaleAverageScores();
+        for (int i = 0; i < stale.size(); i += 500) {
+            repo.updateAverageScores(stale.subList(i, Math.min(i + 500, stale.size())));
+        }
+        if (!stale.isEmpty()) System.err.println("reconciled " + stale.size() + " average score(s)");
+    }
+
+    // One queue entry per media; the workers of all nodes share the checks
+    private static void enqueueLikeCountChecks(JdbcMediaRepository media, WorkQueue queue) {
+        List<String> chunk = new ArrayList<>();
+        media.forEachEntry(m -> {
+            chunk.add(m.getId().toString());
+            if (chunk.size() == 1000) {
+                queue.enqueueAll(LIKE_COUNTS, chunk);
+                chunk.clear();
+            }
+        });
+        queue.enqueueAll(LIKE_COUNTS, chunk);
+    }
+
+    // MRP_RATING_SHARD_URLS: comma separated JDBC urls, order fixed (see RatingShardMap)
+    private static ShardedRatingRepository shardedRatingsFromEnv() {
+        String urls = System.getenv("MRP_RATING_SHARD_URLS");
+        if (urls == null || urls.isBlank()) return null;
+
+        List<ConnectionSource> shards = new ArrayList<>();
+        for (String u : urls.split(",")) {
+            if (!u.isBlank()) shards.add(ConnectionFactory.forUrl(u.trim()));
+        }
+        return new ShardedRatingRepository(shards);
+    }
+
+    private static int envInt(String key, int fallback) {
+        String v = System.getenv(key);
+        if (v == null || v.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("invalid integer in environment variable: " + key);
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package mrp.infrastructure.http;
+
+import mrp.infrastructure.security.AuthService;
+
+/**
+ * Resolves the Bearer token once per request and stores the user id in
+ * the RequestContext. Routes marked publicAccess() skip this step.
+ * Missing/invalid/expired tokens are answered with 401.
+ */
+public class AuthMiddleware implements Middleware {
+
+    private AuthService auth;
+    private HttpResponses resp;
+
+    public AuthMiddleware(AuthService auth, HttpResponses resp) {
+        if (auth == null) throw new IllegalArgumentException("auth null");
+        if (resp == null) throw new IllegalArgumentException("responses null");
+        this.auth = auth;
+        this.resp = resp;
+    }
+
+    @Override
+    public void handle(RequestContext ctx, Chain next) throws Exception {
+        if (ctx.getRoute().publicAccess) {
+            next.proceed(ctx);
+            return;
+        }
+
+        AuthService.AuthContext a;
+        try {
+            a = auth.requireAuth(ctx.getExchange());
+        } catch (IllegalArgumentException e) {
+            resp.error(ctx.getExchange(), 401, e.getMessage());
+            return;
+        }
+        ctx.authenticate(a.getUserId(), a.getToken());
+        ctx.mark("auth");
+
+        next.proceed(ctx);
+    }
+}
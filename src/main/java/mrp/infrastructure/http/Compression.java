@@ -0,0 +1,136 @@
+package mrp.infrastructure.http;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * gzip/deflate encoding of response bodies.
+ *
+ * Deflater holds native zlib memory, so instances are reused instead of
+ * being created per response. Requests run on virtual threads (one thread
+ * per request), so a ThreadLocal would not reuse anything; a small shared
+ * pool is used instead. If the pool is empty a temporary Deflater is
+ * created and ended after use.
+ */
+public final class Compression {
+
+    public enum Encoding {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String token;
+
+        Encoding(String token) {
+            this.token = token;
+        }
+
+        public String token() { return token; }
+    }
+
+    /** Bodies below this size are sent uncompressed (header/CPU overhead). */
+    public static final int MIN_SIZE = 1024;
+
+    private static final int LEVEL = 5;
+    private static final int POOL_SIZE = 32;
+
+    // gzip uses raw deflate + own header/trailer, "deflate" means zlib format (RFC 9110)
+    private static final BlockingQueue<Deflater> RAW = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Deflater> ZLIB = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private Compression() { }
+
+    /**
+     * Picks the encoding from an Accept-Encoding header. gzip wins over
+     * deflate; entries with q=0 are ignored.
+     *
+     * @return the encoding or null for identity
+     */
+    public static Encoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) return null;
+
+        Boolean gzip = null;
+        Boolean deflate = null;
+        boolean any = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] p = part.trim().split(";");
+            String coding = p[0].trim().toLowerCase(Locale.ROOT);
+            boolean ok = acceptable(p);
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = ok;
+                case "deflate" -> deflate = ok;
+                case "*" -> any = ok;
+                default -> { }
+            }
+        }
+        // "*" only covers codings that were not listed explicitly
+        if (gzip != null ? gzip : any) return Encoding.GZIP;
+        if (deflate != null ? deflate : any) return Encoding.DEFLATE;
+        return null;
+    }
+
+    private static boolean acceptable(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public static byte[] encode(byte[] data, Encoding encoding) {
+        if (encoding == Encoding.GZIP) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3 + 32);
+            out.writeBytes(GZIP_HEADER);
+            deflate(data, RAW, true, out);
+
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, data.length);
+            return out.toByteArray();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3 + 16);
+        deflate(data, ZLIB, false, out);
+        return out.toByteArray();
+    }
+
+    private static void deflate(byte[] data, BlockingQueue<Deflater> pool, boolean nowrap, ByteArrayOutputStream out) {
+        Deflater d = pool.poll();
+        if (d == null) d = new Deflater(LEVEL, nowrap);
+        try {
+            d.setInput(data);
+            d.finish();
+            byte[] buf = new byte[8192];
+            while (!d.finished()) {
+                int n = d.deflate(buf);
+                out.write(buf, 0, n);
+            }
+        } finally {
+            d.reset();
+            if (!pool.offer(d)) {
+                d.end();
+            }
+        }
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int v) {
+        out.write(v & 0xff);
+        out.write((v >>> 8) & 0xff);
+        out.write((v >>> 16) & 0xff);
+        out.write((v >>> 24) & 0xff);
+    }
+}
@@ -0,0 +1,306 @@
+package mrp.infrastructure.http;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive admission control in front of route dispatch.
+ *
+ * The number of concurrently executing requests is capped by a limit that
+ * follows the measured latency (gradient algorithm):
+ * - a long-term RTT average approximates the latency without queueing
+ * - a short-term RTT average reflects the current latency
+ * - while short RTT stays close to long RTT the limit grows by sqrt(limit)
+ * - when short RTT rises (e.g. PostgreSQL slows down) the limit shrinks
+ *   proportionally; failed requests shrink it multiplicatively (AIMD)
+ *
+ * Requests above the limit wait in a small bounded queue for at most
+ * maxWait. Everything else is rejected immediately so the caller can answer
+ * with 503 + Retry-After instead of piling up.
+ *
+ * Priorities:
+ * - CRITICAL  (authenticated writes, login/register) may use the whole limit
+ * - NORMAL    (single resource reads) may use 90% of the limit
+ * - SHEDDABLE (expensive listings) may use 75% of the limit, are queued only
+ *   while the queue is less than half full and are evicted from the queue
+ *   first when more important requests arrive
+ */
+public class ConcurrencyLimiter {
+
+    public enum Priority {
+        CRITICAL(1.0),
+        NORMAL(0.9),
+        SHEDDABLE(0.75);
+
+        private final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    private static final double LONG_RTT_ALPHA = 0.02;
+    private static final double SHORT_RTT_ALPHA = 0.3;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // one FIFO per priority, indexed by ordinal
+    private final List<ArrayDeque<Waiter>> queues;
+
+    private int minLimit;
+    private int maxLimit;
+    private int maxQueue;
+    private long maxWaitNanos;
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+
+    private double longRttNanos;
+    private double shortRttNanos;
+
+    private long admitted;
+    private long rejected;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue, long maxWaitMillis) {
+        if (minLimit < 1) throw new IllegalArgumentException("minLimit < 1");
+        if (maxLimit < minLimit) throw new IllegalArgumentException("maxLimit < minLimit");
+        if (maxQueue < 0) throw new IllegalArgumentException("maxQueue < 0");
+        if (maxWaitMillis < 0) throw new IllegalArgumentException("maxWaitMillis < 0");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        this.queues = new ArrayList<>();
+        for (int i = 0; i < Priority.values().length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Tries to admit a request. Blocks for at most maxWait if the request
+     * was queued.
+     *
+     * @return a permit that must be released when the request is done,
+     *         or null if the request has to be shed
+     */
+    public Permit acquire(Priority priority) {
+        if (priority == null) priority = Priority.NORMAL;
+
+        Waiter w;
+        lock.lock();
+        try {
+            // Never overtake queued requests of the same or a higher priority
+            if (inFlight < capacity(priority) && !hasWaitersAtOrAbove(priority)) {
+                return admitNow();
+            }
+            w = enqueue(priority);
+            if (w == null) {
+                rejected++;
+                return null;
+            }
+
+            long remaining = maxWaitNanos;
+            while (!w.admitted && !w.evicted && remaining > 0) {
+                try {
+                    remaining = w.signal.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            if (w.admitted) {
+                return new Permit(System.nanoTime(), inFlight);
+            }
+            if (!w.evicted) {
+                queues.get(w.priority.ordinal()).remove(w);
+                queued--;
+            }
+            rejected++;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Suggested Retry-After in seconds: roughly the time the current queue
+     * needs to drain at the current limit, at least one second.
+     */
+    public int retryAfterSeconds() {
+        lock.lock();
+        try {
+            double drainNanos = longRttNanos * (queued + 1) / Math.max(1.0, limit);
+            long seconds = (long) Math.ceil(drainNanos / 1_000_000_000.0);
+            return (int) Math.max(1, Math.min(30, seconds));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try { return (int) limit; } finally { lock.unlock(); }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try { return inFlight; } finally { lock.unlock(); }
+    }
+
+    public long getAdmitted() {
+        lock.lock();
+        try { return admitted; } finally { lock.unlock(); }
+    }
+
+    public long getRejected() {
+        lock.lock();
+        try { return rejected; } finally { lock.unlock(); }
+    }
+
+    // ---- internals (all called with lock held) ----
+
+    private int capacity(Priority p) {
+        return Math.max(1, (int) Math.floor(limit * p.share));
+    }
+
+    private boolean hasWaitersAtOrAbove(Priority p) {
+        for (int i = 0; i <= p.ordinal(); i++) {
+            if (!queues.get(i).isEmpty()) return true;
+        }
+        return false;
+    }
+
+    private Permit admitNow() {
+        inFlight++;
+        admitted++;
+        return new Permit(System.nanoTime(), inFlight);
+    }
+
+    private Waiter enqueue(Priority p) {
+        if (maxQueue == 0 || maxWaitNanos == 0) return null;
+        if (p == Priority.SHEDDABLE && queued >= maxQueue / 2) return null;
+
+        if (queued >= maxQueue && !evictLowerThan(p)) {
+            return null;
+        }
+
+        Waiter w = new Waiter(p, lock.newCondition());
+        queues.get(p.ordinal()).addLast(w);
+        queued++;
+        return w;
+    }
+
+    // Drops the newest waiter of the lowest priority below p to make room.
+    private boolean evictLowerThan(Priority p) {
+        for (int i = queues.size() - 1; i > p.ordinal(); i--) {
+            Waiter victim = queues.get(i).pollLast();
+            if (victim != null) {
+                victim.evicted = true;
+                queued--;
+                victim.signal.signal();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dispatchWaiters() {
+        for (ArrayDeque<Waiter> q : queues) {
+            while (!q.isEmpty()) {
+                Waiter head = q.peekFirst();
+                if (inFlight >= capacity(head.priority)) return;
+                q.pollFirst();
+                queued--;
+                inFlight++;
+                admitted++;
+                head.admitted = true;
+                head.signal.signal();
+            }
+        }
+    }
+
+    private void onComplete(long startNanos, int inFlightAtStart, boolean success) {
+        long rtt = System.nanoTime() - startNanos;
+        inFlight--;
+
+        if (!success) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else if (rtt > 0) {
+            if (longRttNanos == 0) {
+                longRttNanos = rtt;
+                shortRttNanos = rtt;
+            } else {
+                shortRttNanos += SHORT_RTT_ALPHA * (rtt - shortRttNanos);
+                longRttNanos += LONG_RTT_ALPHA * (rtt - longRttNanos);
+                // Recover faster after a latency spike has passed
+                if (longRttNanos > 2 * shortRttNanos) {
+                    longRttNanos *= 0.95;
+                }
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / shortRttNanos));
+            double newLimit = limit * gradient + Math.sqrt(limit);
+
+            // Do not grow the limit while it is not actually being used
+            if (inFlightAtStart < limit / 2) {
+                newLimit = Math.min(newLimit, limit);
+            }
+
+            limit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+            limit = Math.max(minLimit, Math.min(maxLimit, limit));
+        }
+
+        dispatchWaiters();
+    }
+
+    /**
+     * Admission ticket of one request. Release exactly once.
+     */
+    public class Permit {
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * @param success false if the request failed on the server side;
+         *                failures back off the limit
+         */
+        public void release(boolean success) {
+            lock.lock();
+            try {
+                if (released) return;
+                released = true;
+                onComplete(startNanos, inFlightAtStart, success);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static class Waiter {
+        private final Priority priority;
+        private final Condition signal;
+        private boolean admitted;
+        private boolean evicted;
+
+        private Waiter(Priority priority, Condition signal) {
+            this.priority = priority;
+            this.signal = signal;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package mrp.infrastructure.http;
+
+/**
+ * Rejects requests with 415 when a route that reads a JSON body
+ * is called without a JSON Content-Type. Runs before auth.
+ */
+public class ContentTypeMiddleware implements Middleware {
+
+    private HttpResponses resp;
+
+    public ContentTypeMiddleware(HttpResponses resp) {
+        if (resp == null) throw new IllegalArgumentException("responses null");
+        this.resp = resp;
+    }
+
+    @Override
+    public void handle(RequestContext ctx, Chain next) throws Exception {
+        if (ctx.getRoute().consumesJson) {
+            String ct = ctx.getExchange().getRequestHeaders().getFirst("Content-Type");
+            if (ct == null || !ct.toLowerCase().contains("application/json")) {
+                resp.error(ctx.getExchange(), 415, "unsupported media type");
+                return;
+            }
+        }
+        next.proceed(ctx);
+    }
+}
@@ -0,0 +1,32 @@
+package mrp.infrastructure.http;
+
+import mrp.application.concurrent.Deadline;
+
+import java.time.Duration;
+
+/**
+ * Starts the per-request Deadline once the request has been admitted.
+ * Concurrent sub-queries (Fanout) give up when it passes; the
+ * ErrorMiddleware answers with 504.
+ */
+public class DeadlineMiddleware implements Middleware {
+
+    private Duration timeout;
+
+    public DeadlineMiddleware(Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void handle(RequestContext ctx, Chain next) throws Exception {
+        Deadline.start(timeout);
+        try {
+            next.proceed(ctx);
+        } finally {
+            Deadline.clear();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package mrp.infrastructure.http;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Builds and compares strong ETags.
+ *
+ * Tags are derived from cheap version data (updated_at, trigger-maintained
+ * version counters, query parameters) instead of hashing the serialized
+ * body, so If-None-Match can be answered before the body is produced.
+ *
+ * Compressed responses get an encoding suffix ("-gzip"/"-deflate");
+ * matching ignores the suffix, so a client revalidating a gzip copy still
+ * gets 304.
+ */
+public final class ETags {
+
+    private ETags() { }
+
+    /**
+     * @param parts version inputs; null parts are allowed
+     * @return quoted strong ETag
+     */
+    public static String of(Object... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (Object p : parts) {
+            sb.append(p).append('|');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            // hex only, so the "-gzip"/"-deflate" suffix can never be ambiguous
+            return '"' + HexFormat.of().formatHex(digest, 0, 12) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String withEncoding(String etag, Compression.Encoding enc) {
+        if (etag.length() < 2 || !etag.endsWith("\"")) return etag;
+        return etag.substring(0, etag.length() - 1) + "-" + enc.token() + '"';
+    }
+
+    /**
+     * Weak comparison as required for If-None-Match (RFC 9110 13.1.2).
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        return matching(ifNoneMatch, etag) != null;
+    }
+
+    /**
+     * Like {@link #matches}, but returns the tag of the representation the
+     * client holds: etag with the encoding suffix of the matched candidate,
+     * so a 304 repeats the ETag of the 200 it revalidates. Null if none matches.
+     */
+    static String matching(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank() || etag == null) return null;
+        String own = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if ("*".equals(c)) return etag;
+            if (own.equals(opaque(c))) {
+                Compression.Encoding enc = encodingOf(c);
+                return enc == null ? etag : withEncoding(etag, enc);
+            }
+        }
+        return null;
+    }
+
+    private static Compression.Encoding encodingOf(String tag) {
+        String t = tag.endsWith("\"") ? tag.substring(0, tag.length() - 1) : tag;
+        for (Compression.Encoding enc : Compression.Encoding.values()) {
+            if (t.endsWith("-" + enc.token())) return enc;
+        }
+        return null;
+    }
+
+    private static String opaque(String tag) {
+        String t = tag.startsWith("W/") ? tag.substring(2) : tag;
+        if (t.length() >= 2 && t.startsWith("\"") && t.endsWith("\"")) {
+            t = t.substring(1, t.length() - 1);
+        }
+        for (Compression.Encoding enc : Compression.Encoding.values()) {
+            String suffix = "-" + enc.token();
+            if (t.endsWith(suffix)) {
+                return t.substring(0, t.length() - suffix.length());
+            }
+        }
+        return t;
+    }
+}
@@ -0,0 +1,34 @@
+package mrp.infrastructure.http;
+
+import mrp.application.concurrent.DeadlineExceededException;
+
+/**
+ * Outermost middleware: maps exceptions that escape a handler to
+ * 500 (504 for an exceeded request deadline) instead of letting the
+ * connection die without a response.
+ */
+public class ErrorMiddleware implements Middleware {
+
+    private HttpResponses resp;
+
+    public ErrorMiddleware(HttpResponses resp) {
+        if (resp == null) throw new IllegalArgumentException("responses null");
+        this.resp = resp;
+    }
+
+    @Override
+    public void handle(RequestContext ctx, Chain next) throws Exception {
+        try {
+            next.proceed(ctx);
+        } catch (DeadlineExceededException e) {
+            if (!ctx.isResponseSent()) {
+                resp.error(ctx.getExchange(), 504, "request deadline exceeded");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (!ctx.isResponseSent()) {
+                resp.error(ctx.getExchange(), 500, "internal server error");
+            }
+        }
+    }
+}
@@ -3,7 +3,6 @@ package mrp.infrastructure.http;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.net.httpserver.HttpExchange;
 import mrp.application.FavoriteService;
-import mrp.infrastructure.security.AuthService;
 
 import java.io.IOException;
 import java.util.UUID;
@@ -12,28 +11,19 @@ public class FavoriteHandler {
 
     private ObjectMapper mapper;
     private FavoriteService service;
-    private AuthService auth;
     private HttpResponses resp;
 
-    public FavoriteHandler(ObjectMapper mapper, FavoriteService service, AuthService auth) {
+    public FavoriteHandler(ObjectMapper mapper, FavoriteService service) {
         if (mapper == null) throw new IllegalArgumentException("mapper null");
         if (service == null) throw new IllegalArgumentException("service null");
-        if (auth == null) throw new IllegalArgumentException("auth null");
         this.mapper = mapper;
         this.service = service;
-        this.auth = auth;
         this.resp = new HttpResponses(mapper);
     }
 
     // POST /media/{mediaId}/favorite
     public void add(HttpExchange ex, UUID mediaId) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try {
             service.add(userId, mediaId);
@@ -51,13 +41,7 @@ public class FavoriteHandler {
 
     // DELETE /media/{mediaId}/favorite
     public void remove(HttpExchange ex, UUID mediaId) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try {
             service.remove(userId, mediaId);
@@ -74,13 +58,7 @@ public class FavoriteHandler {
 
     // GET /users/me/favorites
     public void listMine(HttpExchange ex) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try {
             resp.json(ex, 200, service.listMine(userId));
@@ -91,13 +69,7 @@ public class FavoriteHandler {
 
     // SPEC: GET /users/{userId}/favorites
     public void listForUser(HttpExchange ex, UUID userId) throws IOException {
-        UUID authUserId;
-        try {
-            authUserId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID authUserId = RequestContext.of(ex).requireUserId();
 
         if (!authUserId.equals(userId)) {
             resp.error(ex, 403, "forbidden");
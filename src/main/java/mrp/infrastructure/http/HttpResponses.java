@@ -1,6 +1,7 @@
 package mrp.infrastructure.http;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import mrp.dto.ApiErrorResponse;
 
@@ -30,10 +31,16 @@ public class HttpResponses {
      * @param ex HttpExchange
      * @param status HTTP status code (e.g. 200, 201, 400)
      * @param body object to serialize as JSON
+     *
+     * Bodies of at least Compression.MIN_SIZE bytes are gzip/deflate encoded
+     * when the client sends a matching Accept-Encoding and the route did not
+     * opt out via Route.noCompression().
      */
     public void json(HttpExchange ex, int status, Object body) throws IOException {
         byte[] bytes = mapper.writeValueAsBytes(body);
+        RequestContext.beforeSend(ex);
         ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        bytes = compress(ex, bytes);
         ex.sendResponseHeaders(status, bytes.length);
         ex.getResponseBody().write(bytes);
         ex.close();
@@ -50,11 +57,80 @@ public class HttpResponses {
         json(ex, status, new ApiErrorResponse(msg));
     }
 
+    /**
+     * Sends 503 Service Unavailable for requests shed by the ConcurrencyLimiter.
+     * Retry-After tells well-behaved clients when to try again.
+     */
+    public void overloaded(HttpExchange ex, int retryAfterSeconds) throws IOException {
+        ex.getResponseHeaders().set("Retry-After", String.valueOf(Math.max(1, retryAfterSeconds)));
+        error(ex, 503, "server overloaded, retry later");
+    }
+
     public void message(HttpExchange ex, int status, String message) throws IOException {
         // falls für "success: ..." wirklich nur eine Message ist
         json(ex, status, new ApiErrorResponse(message)); // oder ApiMessageResponse
     }
 
+    /**
+     * Conditional GET support.
+     *
+     * Sets ETag and Cache-Control on the response. If the request carries a
+     * matching If-None-Match, 304 Not Modified is sent and true is returned;
+     * the caller must not send a body then.
+     *
+     * Call this before serializing the body so that a match skips the work.
+     */
+    public boolean notModified(HttpExchange ex, String etag) throws IOException {
+        Headers h = ex.getResponseHeaders();
+        h.set("ETag", etag);
+        h.set("Cache-Control", "private, max-age=0, must-revalidate");
+
+        String held = ETags.matching(ex.getRequestHeaders().getFirst("If-None-Match"), etag);
+        if (held == null) {
+            return false;
+        }
+
+        // same tag as the (possibly compressed) 200 the client revalidates
+        h.set("ETag", held);
+        RequestContext.beforeSend(ex);
+        if (compressible(ex)) {
+            h.add("Vary", "Accept-Encoding");
+        }
+        ex.sendResponseHeaders(304, -1);
+        ex.close();
+        return true;
+    }
+
+    private boolean compressible(HttpExchange ex) {
+        RequestContext ctx = RequestContext.of(ex);
+        return ctx == null || !ctx.getRoute().noCompression;
+    }
+
+    private byte[] compress(HttpExchange ex, byte[] bytes) {
+        if (!compressible(ex)) {
+            return bytes;
+        }
+
+        Headers h = ex.getResponseHeaders();
+        h.add("Vary", "Accept-Encoding");
+        if (bytes.length < Compression.MIN_SIZE) {
+            return bytes;
+        }
+
+        Compression.Encoding enc = Compression.negotiate(ex.getRequestHeaders().getFirst("Accept-Encoding"));
+        if (enc == null) {
+            return bytes;
+        }
+        h.set("Content-Encoding", enc.token());
+
+        // A strong ETag must differ between representations
+        String etag = h.getFirst("ETag");
+        if (etag != null) {
+            h.set("ETag", ETags.withEncoding(etag, enc));
+        }
+        return Compression.encode(bytes, enc);
+    }
+
     /**
      * Sends an empty response body.
      *
@@ -63,6 +139,7 @@ public class HttpResponses {
      * - successful DELETE requests
      */
     public void empty(HttpExchange ex, int status) throws IOException {
+        RequestContext.beforeSend(ex);
         ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
         ex.sendResponseHeaders(status, -1);
         ex.close();
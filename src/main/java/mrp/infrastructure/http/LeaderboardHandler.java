@@ -5,7 +5,6 @@ import com.sun.net.httpserver.HttpExchange;
 import mrp.application.LeaderboardService;
 import mrp.dto.LeaderboardEntry;
 import mrp.dto.LeaderboardEntryResponse;
-import mrp.infrastructure.security.AuthService;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -15,28 +14,18 @@ public class LeaderboardHandler {
 
     private ObjectMapper mapper;
     private LeaderboardService service;
-    private AuthService auth;
     private HttpResponses resp;
 
-    public LeaderboardHandler(ObjectMapper mapper, LeaderboardService service, AuthService auth) {
+    public LeaderboardHandler(ObjectMapper mapper, LeaderboardService service) {
         if (mapper == null) throw new IllegalArgumentException("mapper null");
         if (service == null) throw new IllegalArgumentException("service null");
-        if (auth == null) throw new IllegalArgumentException("auth null");
         this.mapper = mapper;
         this.service = service;
-        this.auth = auth;
         this.resp = new HttpResponses(mapper);
     }
 
     // GET /leaderboard?limit=10&offset=0
     public void list(HttpExchange ex) throws IOException {
-        try {
-            auth.requireAuth(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
-
         int limit = parseIntQuery(ex, "limit", 10);
         int offset = parseIntQuery(ex, "offset", 0);
 
@@ -46,6 +35,10 @@ public class LeaderboardHandler {
         }
 
         try {
+            if (resp.notModified(ex, ETags.of("leaderboard", service.version(), limit, offset))) {
+                return;
+            }
+
             List<LeaderboardEntry> entries = service.getLeaderboard(limit, offset);
             List<LeaderboardEntryResponse> responseList = new ArrayList<>();
 
@@ -0,0 +1,37 @@
+package mrp.infrastructure.http;
+
+/**
+ * Admission control: runs the rest of the chain inside a ConcurrencyLimiter
+ * permit. Shed requests get 503 + Retry-After. Server errors (5xx or an
+ * escaping exception) count as failures and back off the limit.
+ */
+public class LimiterMiddleware implements Middleware {
+
+    private ConcurrencyLimiter limiter;
+    private HttpResponses resp;
+
+    public LimiterMiddleware(ConcurrencyLimiter limiter, HttpResponses resp) {
+        if (limiter == null) throw new IllegalArgumentException("limiter null");
+        if (resp == null) throw new IllegalArgumentException("responses null");
+        this.limiter = limiter;
+        this.resp = resp;
+    }
+
+    @Override
+    public void handle(RequestContext ctx, Chain next) throws Exception {
+        ConcurrencyLimiter.Permit permit = limiter.acquire(ctx.getRoute().priority);
+        ctx.mark("queue");
+        if (permit == null) {
+            resp.overloaded(ctx.getExchange(), limiter.retryAfterSeconds());
+            return;
+        }
+
+        boolean ok = false;
+        try {
+            next.proceed(ctx);
+            ok = ctx.getExchange().getResponseCode() < 500;
+        } finally {
+            permit.release(ok);
+        }
+    }
+}
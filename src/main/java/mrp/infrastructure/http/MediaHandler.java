@@ -4,7 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.net.httpserver.HttpExchange;
 import mrp.application.MediaService;
 import mrp.dto.MediaRequest;
-import mrp.infrastructure.security.AuthService;
+import mrp.dto.MediaResponse;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -19,35 +19,19 @@ public class MediaHandler {
 
     private ObjectMapper mapper;
     private MediaService service;
-    private AuthService auth;
     private HttpResponses resp;
 
-    public MediaHandler(ObjectMapper mapper, MediaService service, AuthService auth) {
+    public MediaHandler(ObjectMapper mapper, MediaService service) {
         if (mapper == null) throw new IllegalArgumentException("mapper null");
         if (service == null) throw new IllegalArgumentException("service null");
-        if (auth == null) throw new IllegalArgumentException("auth null");
         this.mapper = mapper;
         this.service = service;
-        this.auth = auth;
         this.resp = new HttpResponses(mapper);
     }
 
     // POST /media
     public void create(HttpExchange ex) throws IOException {
-        String ct = ex.getRequestHeaders().getFirst("Content-Type");
-        if (ct == null || !ct.toLowerCase().contains("application/json")) {
-            resp.error(ex, 415, "unsupported media type");
-            return;
-        }
-
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
-
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try (InputStream in = ex.getRequestBody()) {
             MediaRequest req = mapper.readValue(in, MediaRequest.class);
@@ -67,14 +51,12 @@ public class MediaHandler {
     // GET /media/{mediaId}
     public void getOne(HttpExchange ex, UUID id) throws IOException {
         try {
-            auth.requireAuth(ex); // kann "token expired" werfen
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage()); // {"error":"token expired"}
-            return;
-        }
-
-        try {
-            Object one = service.get(id);
+            MediaResponse one = service.get(id);
+            // averageScore changes through ratings without touching updatedAt
+            String etag = ETags.of("media", one.getId(), one.getUpdatedAt(), one.getAverageScore());
+            if (resp.notModified(ex, etag)) {
+                return;
+            }
             resp.json(ex, 200, one);
         } catch (IllegalArgumentException e) {
             String msg = e.getMessage();
@@ -88,20 +70,7 @@ public class MediaHandler {
 
     //PUT /media/{mediaId}
     public void update(HttpExchange ex, UUID id) throws IOException {
-        String ct = ex.getRequestHeaders().getFirst("Content-Type");
-        if (ct == null || !ct.toLowerCase().contains("application/json")) {
-            resp.error(ex, 415, "unsupported media type");
-            return;
-        }
-
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
-
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try (InputStream in = ex.getRequestBody()) {
             MediaRequest req = mapper.readValue(in, MediaRequest.class);
@@ -130,13 +99,7 @@ public class MediaHandler {
     // DELETE media/{mediaId}
     public void delete(HttpExchange ex, UUID id) throws IOException {
         try {
-            UUID userId;
-            try {
-                userId = auth.requireUserId(ex);
-            } catch (IllegalArgumentException e) {
-                resp.error(ex, 401, e.getMessage());
-                return;
-            }
+            UUID userId = RequestContext.of(ex).requireUserId();
 
             service.delete(id, userId);
             resp.empty(ex, 204);
@@ -156,13 +119,6 @@ public class MediaHandler {
 
     //GET media
     public void list(HttpExchange ex) throws IOException {
-        try {
-            auth.requireAuth(ex); // kann "token expired" werfen
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage()); // {"error":"token expired"}
-            return;
-        }
-
         var q = Query.from(ex.getRequestURI());
         var search = new mrp.domain.ports.MediaSearch(
                 q.s("title"),
@@ -178,6 +134,11 @@ public class MediaHandler {
         );
 
         try {
+            // Version check first: an unchanged catalog is answered without running the search
+            String etag = ETags.of("catalog", service.searchVersion(), ex.getRequestURI().getRawQuery());
+            if (resp.notModified(ex, etag)) {
+                return;
+            }
             Object list = service.search(search);
             resp.json(ex, 200, list);
         } catch (IllegalArgumentException e) {
@@ -0,0 +1,18 @@
+package mrp.infrastructure.http;
+
+/**
+ * Cross-cutting step in the Router pipeline (auth, timing, limits, ...).
+ *
+ * A middleware either answers the request itself (and does not call
+ * next) or passes it on with next.proceed(ctx).
+ */
+@FunctionalInterface
+public interface Middleware {
+
+    void handle(RequestContext ctx, Chain next) throws Exception;
+
+    @FunctionalInterface
+    interface Chain {
+        void proceed(RequestContext ctx) throws Exception;
+    }
+}
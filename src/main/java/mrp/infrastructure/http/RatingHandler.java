@@ -3,55 +3,50 @@ package mrp.infrastructure.http;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.net.httpserver.HttpExchange;
 import mrp.application.RatingService;
+import mrp.domain.model.enums.RatingSort;
+import mrp.domain.ports.RatingPageRequest;
+import mrp.domain.ports.RatingRepository;
+import mrp.dto.BatchRatingRequest;
+import mrp.dto.BatchRatingResponse;
+import mrp.dto.RatingPageResponse;
 import mrp.dto.RatingRequest;
-import mrp.infrastructure.security.AuthService;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 
 public class RatingHandler {
     private ObjectMapper mapper;
     private RatingService service;
-    private AuthService auth;
     private HttpResponses resp;
 
-    public RatingHandler(ObjectMapper mapper, RatingService service, AuthService auth) {
+    public RatingHandler(ObjectMapper mapper, RatingService service) {
         if(mapper == null){
             throw new IllegalArgumentException("Mapper cannot be null");
         }
         if(service == null){
             throw new IllegalArgumentException("Service cannot be null");
         }
-        if(auth == null){
-            throw new IllegalArgumentException("Auth cannot be null");
-        }
         this.mapper = mapper;
         this.service = service;
-        this.auth = auth;
         this.resp = new HttpResponses(mapper);
     }
 
     // POST /media/{mediaId}/ratings
     public void rateMedia(HttpExchange ex, UUID mediaId) throws IOException {
-        String ct = ex.getRequestHeaders().getFirst("Content-Type");
-        if(ct == null || !ct.toLowerCase().contains("application/json")){
-            resp.error(ex, 415, "unsupported media type");
-            return;
-        }
-
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try(InputStream in = ex.getRequestBody()){
             RatingRequest req = mapper.readValue(in, RatingRequest.class);
@@ -83,19 +78,42 @@ public class RatingHandler {
         }
     }
 
-    // GET /media/{mediaId}/ratings
-    public void listForMedia(HttpExchange ex, UUID mediaId) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
+    // POST /users/me/ratings/batch  body: [{"mediaId": "...", "stars": 4, "comment": "..."}, ...]
+    public void rateBatch(HttpExchange ex) throws IOException {
+        UUID userId = RequestContext.of(ex).requireUserId();
+
+        try (InputStream in = ex.getRequestBody()) {
+            List<BatchRatingRequest> items = mapper.readValue(in, new TypeReference<List<BatchRatingRequest>>() { });
+            BatchRatingResponse result = service.createBatch(userId, items);
+            // Per-entry conflicts are part of the body; the batch itself was processed
+            resp.json(ex, result.created.isEmpty() ? 200 : 201, result);
+        } catch (InvalidFormatException e) {
+            resp.error(ex, 400, "invalid value");
+        } catch (JsonProcessingException e) {
+            resp.error(ex, 400, "invalid json");
         } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
+            String msg = e.getMessage();
+            resp.error(ex, 400, (msg == null || msg.isBlank()) ? "bad request" : msg);
         }
+    }
+
+    // GET /media/{mediaId}/ratings?limit=20&cursor=...&sort=newest|most_liked|highest_stars
+    public void listForMedia(HttpExchange ex, UUID mediaId) throws IOException {
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try{
-            Object list = service.listForMedia(mediaId, userId);
-            resp.json(ex, 200, list);
+            RatingPageRequest page = pageFrom(ex);
+
+            // Comment visibility depends on the requester, so the user id is part of the tag
+            Optional<RatingRepository.ListVersion> version = service.mediaRatingsVersion(mediaId);
+            if (version.isPresent()) {
+                String etag = ETags.of("ratings", mediaId, version.get().count(), version.get().rowVersionSum(),
+                        userId, ex.getRequestURI().getRawQuery());
+                if (resp.notModified(ex, etag)) {
+                    return;
+                }
+            }
+            sendPage(ex, service.listForMedia(mediaId, userId, page));
         } catch(IllegalArgumentException e){
                 String msg =  e.getMessage();
                 if("media not found".equalsIgnoreCase(msg)){
@@ -106,32 +124,20 @@ public class RatingHandler {
         }
     }
 
-    // GET /users/me/ratings
+    // GET /users/me/ratings?limit=20&cursor=...&sort=...
     public void listMine(HttpExchange ex) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try {
-            Object list = service.listForUser(userId);
-            resp.json(ex, 200, list);
+            RatingPageRequest page = pageFrom(ex);
+            sendPage(ex, service.listForUser(userId, page));
         } catch(IllegalArgumentException e){
             resp.error(ex, 400, e.getMessage());
         }
     }
     // GET /users/{userId}}/ratings -> nach SPEC
     public void listForUser(HttpExchange ex, UUID userId) throws IOException {
-        UUID authUserId;
-        try {
-            authUserId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID authUserId = RequestContext.of(ex).requireUserId();
 
         if (!authUserId.equals(userId)) {
             resp.error(ex, 403, "forbidden");
@@ -139,8 +145,8 @@ public class RatingHandler {
         }
 
         try {
-            Object list = service.listForUser(userId);
-            resp.json(ex, 200, list);
+            RatingPageRequest page = pageFrom(ex);
+            sendPage(ex, service.listForUser(userId, page));
         } catch (IllegalArgumentException e) {
             resp.error(ex, 400, e.getMessage());
         }
@@ -148,19 +154,7 @@ public class RatingHandler {
 
     // PUT /ratings/{ratingId}
     public void update(HttpExchange ex, UUID ratingId) throws IOException {
-        String ct = ex.getRequestHeaders().getFirst("Content-Type");
-        if (ct == null || !ct.toLowerCase().contains("application/json")) {
-            resp.error(ex, 415, "unsupported media type");
-            return;
-        }
-
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage()); // z.B. token expired
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try (InputStream in = ex.getRequestBody()) {
             RatingRequest req = mapper.readValue(in, RatingRequest.class);
@@ -191,13 +185,7 @@ public class RatingHandler {
 
     // DELETE /ratings/{ratingId}
     public void delete(HttpExchange ex, UUID ratingId) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage()); // token expired / missing header
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try{
             service.delete(ratingId, userId);
@@ -216,13 +204,7 @@ public class RatingHandler {
 
     // POST ratings/{{ratingId}}/confirm-comment
     public void confirmComment(HttpExchange ex, UUID ratingId) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage()); // token expired / missing header
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try {
             service.confirmComment(ratingId, userId);
@@ -243,13 +225,7 @@ public class RatingHandler {
 
     // POST ratings/{{ratingId}}/like
     public void like(HttpExchange ex, UUID ratingId) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try {
             service.like(ratingId, userId);
@@ -271,13 +247,7 @@ public class RatingHandler {
 
     // DELETE ratings/{{ratingId}}/like
     public void unlike(HttpExchange ex, UUID ratingId) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try {
             service.unlike(ratingId, userId);
@@ -295,4 +265,42 @@ public class RatingHandler {
             }
         }
     }
+
+    /**
+     * Reads limit, cursor and sort from the query string.
+     * The body stays a plain JSON array; the cursor for the next page is
+     * sent in the X-Next-Cursor header (absent on the last page).
+     */
+    private RatingPageRequest pageFrom(HttpExchange ex) {
+        Map<String, String> q = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw != null && !raw.isEmpty()) {
+            for (String part : raw.split("&")) {
+                String[] kv = part.split("=", 2);
+                if (kv.length == 2) {
+                    q.put(URLDecoder.decode(kv[0], StandardCharsets.UTF_8).toLowerCase(),
+                            URLDecoder.decode(kv[1], StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        int limit = RatingPageRequest.DEFAULT_LIMIT;
+        if (q.containsKey("limit")) {
+            try {
+                limit = Integer.parseInt(q.get("limit"));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("limit must be an integer");
+            }
+            if (limit <= 0) throw new IllegalArgumentException("invalid pagination");
+        }
+
+        return new RatingPageRequest(RatingSort.from(q.get("sort")), limit, q.get("cursor"));
+    }
+
+    private void sendPage(HttpExchange ex, RatingPageResponse page) throws IOException {
+        if (page.nextCursor != null) {
+            ex.getResponseHeaders().set("X-Next-Cursor", page.nextCursor);
+        }
+        resp.json(ex, 200, page.items);
+    }
 }
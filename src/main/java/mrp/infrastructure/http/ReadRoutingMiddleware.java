@@ -0,0 +1,63 @@
+package mrp.infrastructure.http;
+
+import mrp.infrastructure.config.ReadRouting;
+
+import java.util.List;
+
+/**
+ * Binds the replica routing of ConnectionFactory.getReadOnly() to the
+ * request (see ReadRouting).
+ *
+ * Every method other than GET/HEAD counts as a write: the whole request
+ * reads from the primary, and the response sets the cookie `mrp_wrote`
+ * (epoch millis, taken when the response is sent, i.e. after the commit).
+ * While the cookie is younger than the read-your-writes window, later
+ * requests of the same client read from the primary on any node.
+ *
+ * The cookie only decides where reads go; a forged one can at most send
+ * its own client to the primary.
+ */
+public class ReadRoutingMiddleware implements Middleware {
+
+    static final String COOKIE = "mrp_wrote";
+
+    @Override
+    public void handle(RequestContext ctx, Chain next) throws Exception {
+        String method = ctx.getExchange().getRequestMethod();
+        boolean write = !"GET".equalsIgnoreCase(method) && !"HEAD".equalsIgnoreCase(method);
+
+        if (write) {
+            ctx.onBeforeSend(ex -> ex.getResponseHeaders().add("Set-Cookie", COOKIE + "="
+                    + System.currentTimeMillis()
+                    + "; Max-Age=" + Math.max(1, (ReadRouting.stickyMillis() + 999) / 1000)
+                    + "; Path=/; HttpOnly; SameSite=Lax"));
+        }
+
+        long wroteAt = wroteAt(ctx.getExchange().getRequestHeaders().get("Cookie"));
+        ReadRouting.begin(write || ReadRouting.isRecentWrite(wroteAt, System.currentTimeMillis()));
+        try {
+            next.proceed(ctx);
+        } finally {
+            ReadRouting.end();
+        }
+    }
+
+    /**
+     * @return the write time from the request cookies, or -1 if absent or malformed
+     */
+    static long wroteAt(List<String> cookieHeaders) {
+        if (cookieHeaders == null) return -1;
+        for (String header : cookieHeaders) {
+            for (String part : header.split(";")) {
+                String c = part.trim();
+                if (!c.startsWith(COOKIE + "=")) continue;
+                try {
+                    return Long.parseLong(c.substring(COOKIE.length() + 1).trim());
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+}
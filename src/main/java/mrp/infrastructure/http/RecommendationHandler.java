@@ -3,7 +3,6 @@ package mrp.infrastructure.http;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.net.httpserver.HttpExchange;
 import mrp.application.RecommendationService;
-import mrp.infrastructure.security.AuthService;
 
 import java.io.IOException;
 import java.util.UUID;
@@ -28,29 +27,20 @@ public class RecommendationHandler {
 
     private ObjectMapper mapper;
     private RecommendationService service;
-    private AuthService auth;
     private HttpResponses resp;
 
-    public RecommendationHandler(ObjectMapper mapper, RecommendationService service, AuthService auth) {
+    public RecommendationHandler(ObjectMapper mapper, RecommendationService service) {
         if (mapper == null) throw new IllegalArgumentException("mapper null");
         if (service == null) throw new IllegalArgumentException("service null");
-        if (auth == null) throw new IllegalArgumentException("auth null");
         this.mapper = mapper;
         this.service = service;
-        this.auth = auth;
         this.resp = new HttpResponses(mapper);
     }
 
     // SPEC: GET /users/{userId}/recommendations?limit=10
     // Security: only allow the authenticated user to access their own recommendations
     public void listForUser(HttpExchange ex, UUID userId) throws IOException {
-        UUID authUserId;
-        try {
-            authUserId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID authUserId = RequestContext.of(ex).requireUserId();
 
         if (!authUserId.equals(userId)) {
             resp.error(ex, 403, "forbidden");
@@ -63,13 +53,7 @@ public class RecommendationHandler {
 
     // GET /users/me/recommendations?limit=10
     public void listMine(HttpExchange ex) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         // Query parameter parsing:
         // Default recommendation limit is 10.
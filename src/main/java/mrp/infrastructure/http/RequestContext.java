@@ -0,0 +1,140 @@
+package mrp.infrastructure.http;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+
+/**
+ * Request-scoped state shared by the middleware chain and the handlers.
+ *
+ * Carries:
+ * - the matched route and its path matcher
+ * - the authenticated user id (resolved once by AuthMiddleware)
+ * - timing marks for Server-Timing / slow request logging
+ * - hooks that run right before the response headers are sent
+ *
+ * HttpExchange attributes cannot be used for this: the JDK HttpServer
+ * stores them on the HttpContext, i.e. they are shared by all requests.
+ * The Router therefore binds the context to the exchange for the duration
+ * of the request.
+ */
+public class RequestContext {
+
+    private static final Map<HttpExchange, RequestContext> ACTIVE = new ConcurrentHashMap<>();
+
+    private HttpExchange exchange;
+    private Router.Route route;
+    private Matcher matcher;
+    private UUID userId;
+    private String token;
+
+    private long startNanos;
+    private long lastMarkNanos;
+    private Map<String, Long> marks = new LinkedHashMap<>();
+    private List<Consumer<HttpExchange>> beforeSend = new ArrayList<>();
+    private boolean sent;
+
+    RequestContext(HttpExchange exchange, Router.Route route, Matcher matcher) {
+        this.exchange = exchange;
+        this.route = route;
+        this.matcher = matcher;
+        this.startNanos = System.nanoTime();
+        this.lastMarkNanos = startNanos;
+    }
+
+    // ---- binding (Router only) ----
+
+    static RequestContext bind(HttpExchange ex, Router.Route route, Matcher matcher) {
+        RequestContext ctx = new RequestContext(ex, route, matcher);
+        ACTIVE.put(ex, ctx);
+        return ctx;
+    }
+
+    static void unbind(HttpExchange ex) {
+        ACTIVE.remove(ex);
+    }
+
+    /**
+     * @return the context of a routed request, or null outside the Router
+     */
+    public static RequestContext of(HttpExchange ex) {
+        return ex == null ? null : ACTIVE.get(ex);
+    }
+
+    // ---- auth ----
+
+    public UUID getUserId() { return userId; }
+
+    public String getToken() { return token; }
+
+    void authenticate(UUID userId, String token) {
+        this.userId = userId;
+        this.token = token;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the route was not authenticated
+     */
+    public UUID requireUserId() {
+        if (userId == null) throw new IllegalArgumentException("missing Authorization header");
+        return userId;
+    }
+
+    // ---- timing ----
+
+    /**
+     * Records the time spent since the previous mark under the given name
+     * (e.g. "queue", "auth"). Repeated names accumulate.
+     */
+    public void mark(String name) {
+        long now = System.nanoTime();
+        marks.merge(name, now - lastMarkNanos, Long::sum);
+        lastMarkNanos = now;
+    }
+
+    public Map<String, Long> getMarks() { return marks; }
+
+    public long getStartNanos() { return startNanos; }
+
+    public long getLastMarkNanos() { return lastMarkNanos; }
+
+    // ---- response hooks ----
+
+    /**
+     * Registers a callback that can still modify response headers.
+     * Hooks run once, from HttpResponses, right before sendResponseHeaders.
+     */
+    public void onBeforeSend(Consumer<HttpExchange> hook) {
+        beforeSend.add(hook);
+    }
+
+    void fireBeforeSend() {
+        if (sent) return;
+        sent = true;
+        for (Consumer<HttpExchange> hook : beforeSend) {
+            hook.accept(exchange);
+        }
+    }
+
+    static void beforeSend(HttpExchange ex) {
+        RequestContext ctx = of(ex);
+        if (ctx != null) ctx.fireBeforeSend();
+    }
+
+    public boolean isResponseSent() { return sent || exchange.getResponseCode() != -1; }
+
+    // ---- route ----
+
+    public HttpExchange getExchange() { return exchange; }
+
+    public Router.Route getRoute() { return route; }
+
+    public Matcher getMatcher() { return matcher; }
+}
@@ -0,0 +1,21 @@
+package mrp.infrastructure.http;
+
+import mrp.application.loader.RequestScope;
+
+/**
+ * Opens a RequestScope per request so that request-scoped loaders
+ * (e.g. MediaLoader) memoize across all service calls of one request
+ * and are discarded afterwards.
+ */
+public class RequestScopeMiddleware implements Middleware {
+
+    @Override
+    public void handle(RequestContext ctx, Chain next) throws Exception {
+        RequestScope.open();
+        try {
+            next.proceed(ctx);
+        } finally {
+            RequestScope.close();
+        }
+    }
+}
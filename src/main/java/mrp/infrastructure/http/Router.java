@@ -18,18 +18,37 @@ public class Router {
     private String basePath;
     private List<Route> routes = new ArrayList<>();
     private ObjectMapper mapper = new ObjectMapper();
+    private List<Middleware> middlewares = new ArrayList<>();
 
     public Router(ObjectMapper mapper, String basePath) {
         this.basePath = basePath == null ? "" : basePath;
         this.responses = new HttpResponses(mapper);
     }
 
-    public void add(String method, String regex, RouteHandler handler) {
+    /**
+     * Appends a middleware to the pipeline. Middlewares run in registration
+     * order around every matched route; unmatched requests get 404 directly.
+     */
+    public Router use(Middleware middleware) {
+        if (middleware == null) throw new IllegalArgumentException("middleware null");
+        middlewares.add(middleware);
+        return this;
+    }
+
+    /**
+     * Registers a route. Reads default to NORMAL priority, writes to CRITICAL;
+     * use the returned Route to adjust (e.g. mark expensive listings SHEDDABLE).
+     */
+    public Route add(String method, String regex, RouteHandler handler) {
         Route r = new Route();
         r.method = method.toUpperCase();
         r.pattern = Pattern.compile(regex);
         r.handler = handler;
+        r.priority = "GET".equals(r.method)
+                ? ConcurrencyLimiter.Priority.NORMAL
+                : ConcurrencyLimiter.Priority.CRITICAL;
         routes.add(r);
+        return r;
     }
 
     public void handle(HttpExchange exchange) {
@@ -42,7 +61,7 @@ public class Router {
                 if (!r.method.equals(method)) continue;
                 Matcher m = r.pattern.matcher(rel);
                 if (m.matches()) {
-                    r.handler.handle(exchange, m);
+                    dispatch(r, exchange, m);
                     return;
                 }
             }
@@ -59,6 +78,25 @@ public class Router {
             exchange.close();
         }
     }
+
+    // Runs the middleware chain around the route handler.
+    private void dispatch(Route r, HttpExchange exchange, Matcher m) throws Exception {
+        RequestContext ctx = RequestContext.bind(exchange, r, m);
+        try {
+            chain(0, r).proceed(ctx);
+        } finally {
+            RequestContext.unbind(exchange);
+        }
+    }
+
+    private Middleware.Chain chain(int index, Route r) {
+        if (index == middlewares.size()) {
+            return ctx -> r.handler.handle(ctx.getExchange(), ctx.getMatcher());
+        }
+        Middleware mw = middlewares.get(index);
+        return ctx -> mw.handle(ctx, chain(index + 1, r));
+    }
+
     /*
     public <T> T readJson(HttpExchange exchange, Class<T> type) throws IOException {
         InputStream in = exchange.getRequestBody();
@@ -87,9 +125,38 @@ public class Router {
         os.flush();
     }
     */
-    private class Route {
+
+    public static class Route {
         String method;
         Pattern pattern;
         RouteHandler handler;
+        ConcurrencyLimiter.Priority priority;
+        boolean publicAccess;
+        boolean consumesJson;
+        boolean noCompression;
+
+        /** Route is reachable without a Bearer token (register, login). */
+        public Route publicAccess() {
+            this.publicAccess = true;
+            return this;
+        }
+
+        /** Route reads a JSON body; other Content-Types are rejected with 415. */
+        public Route consumesJson() {
+            this.consumesJson = true;
+            return this;
+        }
+
+        /** Responses of this route are never gzip/deflate encoded. */
+        public Route noCompression() {
+            this.noCompression = true;
+            return this;
+        }
+
+        public Route priority(ConcurrencyLimiter.Priority priority) {
+            if (priority == null) throw new IllegalArgumentException("priority null");
+            this.priority = priority;
+            return this;
+        }
     }
 }
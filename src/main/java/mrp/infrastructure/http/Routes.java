@@ -2,6 +2,8 @@ package mrp.infrastructure.http;
 
 import java.util.UUID;
 
+import static mrp.infrastructure.http.ConcurrencyLimiter.Priority.SHEDDABLE;
+
 public class Routes {
 
     public static void register(
@@ -11,47 +13,55 @@ public class Routes {
             RatingHandler ratingHandler,
             FavoriteHandler favoriteHandler,
             RecommendationHandler recommendationHandler,
-            LeaderboardHandler leaderboardHandler
+            LeaderboardHandler leaderboardHandler,
+            SimilarityHandler similarityHandler,
+            TrendingHandler trendingHandler
     ) {
         // User
-        router.add("POST", "^/users/register$", userHandler);
-        router.add("POST", "^/users/login$",    userHandler);
+        router.add("POST", "^/users/register$", userHandler).publicAccess();
+        router.add("POST", "^/users/login$",    userHandler).publicAccess().noCompression(); // token response, avoid BREACH-style leaks
         router.add("GET",  "^/users/me$",       userHandler);
         router.add("GET",  "^/users/([0-9a-fA-F-]{36})/profile$", userHandler);
         router.add("PUT",  "^/users/([0-9a-fA-F-]{36})/profile$", userHandler);
 
         // Media
-        router.add("POST", "^/media$",          (ex, m) -> mediaHandler.create(ex));
-        router.add("GET",  "^/media$",          (ex, m) -> mediaHandler.list(ex));
+        router.add("POST", "^/media$",          (ex, m) -> mediaHandler.create(ex)).consumesJson();
+        router.add("GET",  "^/media$",          (ex, m) -> mediaHandler.list(ex)).priority(SHEDDABLE);
+        router.add("GET",  "^/media/trending$", (ex, m) -> trendingHandler.list(ex)).priority(SHEDDABLE);
         router.add("GET",  "^/media/([0-9a-fA-F-]{36})$", (ex, m) -> {
             UUID id = UUID.fromString(m.group(1)); mediaHandler.getOne(ex, id);
         });
         router.add("PUT",  "^/media/([0-9a-fA-F-]{36})$", (ex, m) -> {
             UUID id = UUID.fromString(m.group(1)); mediaHandler.update(ex, id);
-        });
+        }).consumesJson();
         router.add("DELETE", "^/media/([0-9a-fA-F-]{36})$", (ex, m) -> {
             UUID id = UUID.fromString(m.group(1)); mediaHandler.delete(ex, id);
         });
 
+        router.add("GET",  "^/media/([0-9a-fA-F-]{36})/similar$", (ex, m) -> {
+            UUID id = UUID.fromString(m.group(1)); similarityHandler.similar(ex, id);
+        }).priority(SHEDDABLE);
+
         // Ratings
         router.add("POST", "^/media/([0-9a-fA-F-]{36})/rate$", (ex, m) -> {
             UUID mediaId = UUID.fromString(m.group(1));
             ratingHandler.rateMedia(ex, mediaId);
-        });
+        }).consumesJson();
         router.add("GET", "^/media/([0-9a-fA-F-]{36})/ratings$", (ex, m) -> {
             UUID mediaId = UUID.fromString(m.group(1));
             ratingHandler.listForMedia(ex, mediaId);
-        });
+        }).priority(SHEDDABLE);
         router.add("GET", "^/users/([0-9a-fA-F-]{36})/ratings$", (ex, m) -> {
             UUID userId = UUID.fromString(m.group(1));
             ratingHandler.listForUser(ex, userId);
-        });
-        router.add("GET", "^/users/me/ratings$", (ex, m) -> ratingHandler.listMine(ex));
+        }).priority(SHEDDABLE);
+        router.add("GET", "^/users/me/ratings$", (ex, m) -> ratingHandler.listMine(ex)).priority(SHEDDABLE);
+        router.add("POST", "^/users/me/ratings/batch$", (ex, m) -> ratingHandler.rateBatch(ex)).consumesJson();
 
         router.add("PUT", "^/ratings/([0-9a-fA-F-]{36})$", (ex, m) -> {
             UUID ratingId = UUID.fromString(m.group(1));
             ratingHandler.update(ex, ratingId);
-        });
+        }).consumesJson();
         router.add("DELETE", "^/ratings/([0-9a-fA-F-]{36})$", (ex, m) -> {
             UUID ratingId = UUID.fromString(m.group(1));
             ratingHandler.delete(ex, ratingId);
@@ -81,17 +91,17 @@ public class Routes {
         router.add("GET", "^/users/([0-9a-fA-F-]{36})/favorites$", (ex, m) -> {
             UUID userId = UUID.fromString(m.group(1));
             favoriteHandler.listForUser(ex, userId);
-        });
-        router.add("GET", "^/users/me/favorites$", (ex, m) -> favoriteHandler.listMine(ex));
+        }).priority(SHEDDABLE);
+        router.add("GET", "^/users/me/favorites$", (ex, m) -> favoriteHandler.listMine(ex)).priority(SHEDDABLE);
 
         // Recommendations
         router.add("GET", "^/users/([0-9a-fA-F-]{36})/recommendations$", (ex, m) -> {
             UUID userId = UUID.fromString(m.group(1));
             recommendationHandler.listForUser(ex, userId);
-        });
-        router.add("GET", "^/users/me/recommendations$", (ex, m) -> recommendationHandler.listMine(ex));
+        }).priority(SHEDDABLE);
+        router.add("GET", "^/users/me/recommendations$", (ex, m) -> recommendationHandler.listMine(ex)).priority(SHEDDABLE);
 
         // Leaderboard
-        router.add("GET", "^/leaderboard$", (ex, m) -> leaderboardHandler.list(ex));
+        router.add("GET", "^/leaderboard$", (ex, m) -> leaderboardHandler.list(ex)).priority(SHEDDABLE);
     }
 }
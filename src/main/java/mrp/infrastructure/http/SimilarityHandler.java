@@ -0,0 +1,74 @@
+package mrp.infrastructure.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import mrp.application.SimilarityService;
+import mrp.domain.model.enums.MediaType;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Handles: GET /media/{mediaId}/similar?limit=10&ageRestriction=12&mediaType=MOVIE
+ *
+ * Returns the media most similar to the given one (approximate nearest
+ * neighbours over genre/type/year/score vectors).
+ *
+ * - limit: 1..50, default 10
+ * - ageRestriction: optional max age restriction of the results
+ * - mediaType: optional type filter (MOVIE, SERIES, GAME)
+ */
+public class SimilarityHandler {
+
+    private ObjectMapper mapper;
+    private SimilarityService service;
+    private HttpResponses resp;
+
+    public SimilarityHandler(ObjectMapper mapper, SimilarityService service) {
+        if (mapper == null) throw new IllegalArgumentException("mapper null");
+        if (service == null) throw new IllegalArgumentException("service null");
+        this.mapper = mapper;
+        this.service = service;
+        this.resp = new HttpResponses(mapper);
+    }
+
+    // GET /media/{mediaId}/similar
+    public void similar(HttpExchange ex, UUID mediaId) throws IOException {
+        int limit = 10;
+        Integer maxAge = null;
+        MediaType type = null;
+
+        String q = ex.getRequestURI().getRawQuery();
+        if (q != null) {
+            for (String part : q.split("&")) {
+                String[] kv = part.split("=", 2);
+                if (kv.length != 2) continue;
+                String value = URLDecoder.decode(kv[1], StandardCharsets.UTF_8).trim();
+                try {
+                    switch (kv[0]) {
+                        case "limit" -> limit = Integer.parseInt(value);
+                        case "ageRestriction" -> maxAge = Integer.parseInt(value);
+                        case "mediaType" -> type = MediaType.valueOf(value.toUpperCase());
+                        default -> { }
+                    }
+                } catch (IllegalArgumentException e) {
+                    resp.error(ex, 400, "invalid value for " + kv[0]);
+                    return;
+                }
+            }
+        }
+
+        try {
+            resp.json(ex, 200, service.similarTo(mediaId, limit, maxAge, type));
+        } catch (IllegalArgumentException e) {
+            String msg = e.getMessage();
+            if (msg != null && "media not found".equalsIgnoreCase(msg)) {
+                resp.error(ex, 404, "not found");
+            } else {
+                resp.error(ex, 400, (msg == null || msg.isBlank()) ? "bad request" : msg);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package mrp.infrastructure.http;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures each request.
+ *
+ * - adds a Server-Timing header (one entry per mark plus "app" and "total")
+ * - logs requests slower than the configured threshold
+ */
+public class TimingMiddleware implements Middleware {
+
+    private long slowThresholdNanos;
+
+    public TimingMiddleware(long slowThresholdMillis) {
+        this.slowThresholdNanos = slowThresholdMillis * 1_000_000L;
+    }
+
+    @Override
+    public void handle(RequestContext ctx, Chain next) throws Exception {
+        ctx.onBeforeSend(ex -> ex.getResponseHeaders().set("Server-Timing", serverTiming(ctx)));
+        try {
+            next.proceed(ctx);
+        } finally {
+            long total = System.nanoTime() - ctx.getStartNanos();
+            if (slowThresholdNanos > 0 && total >= slowThresholdNanos) {
+                HttpExchange ex = ctx.getExchange();
+                System.err.println("slow request: " + ex.getRequestMethod() + " " + ex.getRequestURI().getPath()
+                        + " status=" + ex.getResponseCode()
+                        + " " + serverTiming(ctx));
+            }
+        }
+    }
+
+    private static String serverTiming(RequestContext ctx) {
+        long now = System.nanoTime();
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> m : ctx.getMarks().entrySet()) {
+            append(sb, m.getKey(), m.getValue());
+        }
+        append(sb, "app", now - ctx.getLastMarkNanos());
+        append(sb, "total", now - ctx.getStartNanos());
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String name, long nanos) {
+        if (sb.length() > 0) sb.append(", ");
+        sb.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0));
+    }
+}
@@ -0,0 +1,60 @@
+package mrp.infrastructure.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import mrp.application.TrendingService;
+import mrp.application.trending.TrendingWindow;
+
+import java.io.IOException;
+
+/**
+ * Handles: GET /media/trending?window=1h|24h|7d&limit=20
+ *
+ * Returns the media with the most (time-decayed) rating, like and favorite
+ * activity in the window; default window is 24h.
+ */
+public class TrendingHandler {
+
+    private ObjectMapper mapper;
+    private TrendingService service;
+    private HttpResponses resp;
+
+    public TrendingHandler(ObjectMapper mapper, TrendingService service) {
+        if (mapper == null) throw new IllegalArgumentException("mapper null");
+        if (service == null) throw new IllegalArgumentException("service null");
+        this.mapper = mapper;
+        this.service = service;
+        this.resp = new HttpResponses(mapper);
+    }
+
+    // GET /media/trending
+    public void list(HttpExchange ex) throws IOException {
+        String window = null;
+        int limit = 20;
+
+        String q = ex.getRequestURI().getQuery();
+        if (q != null) {
+            for (String part : q.split("&")) {
+                String[] kv = part.split("=", 2);
+                if (kv.length != 2) continue;
+                if ("window".equalsIgnoreCase(kv[0])) {
+                    window = kv[1];
+                } else if ("limit".equalsIgnoreCase(kv[0])) {
+                    try {
+                        limit = Integer.parseInt(kv[1]);
+                    } catch (NumberFormatException e) {
+                        resp.error(ex, 400, "limit must be an integer");
+                        return;
+                    }
+                }
+            }
+        }
+
+        try {
+            resp.json(ex, 200, service.trending(TrendingWindow.parse(window), limit));
+        } catch (IllegalArgumentException e) {
+            String msg = e.getMessage();
+            resp.error(ex, 400, (msg == null || msg.isBlank()) ? "bad request" : msg);
+        }
+    }
+}
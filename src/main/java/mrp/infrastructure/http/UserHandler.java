@@ -7,9 +7,7 @@ import mrp.domain.model.User;
 import mrp.dto.TokenResponse;
 import mrp.dto.UserCredentials;
 import mrp.dto.UserResponse;
-import mrp.infrastructure.security.AuthService;
 
-import mrp.dto.UserProfileResponse;
 import mrp.dto.UserProfileUpdate;
 
 import java.io.IOException;
@@ -21,14 +19,12 @@ public class UserHandler implements RouteHandler {
 
     private ObjectMapper mapper;
     private UserService service;
-    private AuthService auth;
     private HttpResponses resp;
 
-    public UserHandler(ObjectMapper mapper, UserService service, AuthService auth) {
+    public UserHandler(ObjectMapper mapper, UserService service) {
         if (mapper == null) throw new IllegalArgumentException("mapper null");
         this.mapper = mapper;
         this.service = service;
-        this.auth = auth;
         this.resp = new HttpResponses(mapper);
     }
 
@@ -83,13 +79,7 @@ public class UserHandler implements RouteHandler {
     }
 
     private void me(HttpExchange ex) throws IOException {
-        UUID userId;
-        try {
-            userId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID userId = RequestContext.of(ex).requireUserId();
 
         try {
             User u = service.getProfile(userId);
@@ -107,13 +97,7 @@ public class UserHandler implements RouteHandler {
 
 
     private void profile(HttpExchange ex, UUID userId) throws IOException {
-        UUID authUserId;
-        try {
-            authUserId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID authUserId = RequestContext.of(ex).requireUserId();
 
         if (!authUserId.equals(userId)) {
             resp.error(ex, 403, "forbidden");
@@ -121,11 +105,7 @@ public class UserHandler implements RouteHandler {
         }
 
         try {
-            User u = service.getProfile(userId);
-            mrp.dto.UserRatingStats stats = service.getUserRatingStats(userId);
-
-            UserProfileResponse dto = toProfileResponse(u, stats.totalRatings, stats.averageScore);
-            resp.json(ex, 200, dto);
+            resp.json(ex, 200, service.getProfileOverview(userId));
 
         } catch (IllegalArgumentException e) {
             String msg = e.getMessage();
@@ -139,13 +119,7 @@ public class UserHandler implements RouteHandler {
 
 
     private void updateProfile(HttpExchange ex, UUID userId) throws IOException {
-        UUID authUserId;
-        try {
-            authUserId = auth.requireUserId(ex);
-        } catch (IllegalArgumentException e) {
-            resp.error(ex, 401, e.getMessage());
-            return;
-        }
+        UUID authUserId = RequestContext.of(ex).requireUserId();
 
         if (!authUserId.equals(userId)) {
             resp.error(ex, 403, "forbidden");
@@ -154,11 +128,8 @@ public class UserHandler implements RouteHandler {
 
         try (InputStream in = ex.getRequestBody()) {
             UserProfileUpdate update = mapper.readValue(in, UserProfileUpdate.class);
-            User u = service.updateProfile(userId, update.email, update.favoriteGenre);
-
-            mrp.dto.UserRatingStats stats = service.getUserRatingStats(userId);
-            UserProfileResponse dto = toProfileResponse(u, stats.totalRatings, stats.averageScore);
-            resp.json(ex, 200, dto);
+            service.updateProfile(userId, update.email, update.favoriteGenre);
+            resp.json(ex, 200, service.getProfileOverview(userId));
 
         } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
             resp.error(ex, 400, "invalid json");
@@ -167,16 +138,4 @@ public class UserHandler implements RouteHandler {
             resp.error(ex, 400, (msg == null || msg.isBlank()) ? "bad request" : msg);
         }
     }
-
-
-    private UserProfileResponse toProfileResponse(User u, int totalRatings, double averageScore) {
-        UserProfileResponse dto = new UserProfileResponse();
-        dto.id = u.getId();
-        dto.username = u.getUsername();
-        dto.email = u.getEmail();
-        dto.favoriteGenre = u.getFavoriteGenre();
-        dto.totalRatings = totalRatings;
-        dto.averageScore = averageScore;
-        return dto;
-    }
 }
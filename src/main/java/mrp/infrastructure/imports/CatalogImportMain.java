@@ -0,0 +1,77 @@
+package mrp.infrastructure.imports;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Command line entry point for the bulk catalog import.
+ *
+ *   mvn exec:java -Dexec.mainClass=mrp.infrastructure.imports.CatalogImportMain \
+ *       -Dexec.args="catalog.csv --creator <userId> [--format csv|ndjson] [--chunk 50000]"
+ *
+ *   ... -Dexec.args="--resume <importId>"
+ *
+ * Uses the same DB_URL / DB_USER / DB_PASSWORD environment as the server.
+ * Progress goes to stderr after every committed chunk; rejected records are
+ * listed in media_import_rejects.
+ */
+public class CatalogImportMain {
+
+    private static final int DEFAULT_CHUNK = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        Path file = null;
+        UUID creator = null;
+        UUID resume = null;
+        CatalogReader.Format format = null;
+        int chunk = DEFAULT_CHUNK;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--creator" -> creator = UUID.fromString(value(args, ++i));
+                case "--resume" -> resume = UUID.fromString(value(args, ++i));
+                case "--format" -> format = CatalogReader.Format.of(value(args, ++i));
+                case "--chunk" -> chunk = Integer.parseInt(value(args, ++i));
+                default -> file = Path.of(args[i]);
+            }
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        CatalogImporter importer = new CatalogImporter(mapper, chunk, p -> System.err.printf(Locale.ROOT,
+                "import %s: %d records, %d loaded, %d rejected (%.0f records/s)%n",
+                p.importId(), p.records(), p.loaded(), p.rejected(), p.recordsPerSecond()));
+
+        UUID importId = resume;
+        if (importId == null) {
+            if (file == null || creator == null) {
+                System.err.println("usage: <file> --creator <userId> [--format csv|ndjson] [--chunk n] | --resume <importId>");
+                System.exit(2);
+            }
+            if (format == null) format = formatOf(file);
+            importId = importer.create(file, format, creator);
+            System.err.println("import " + importId + " started (resume with --resume " + importId + ")");
+        }
+
+        CatalogImporter.Progress done = importer.run(importId);
+        System.err.printf("import %s done: %d records, %d loaded, %d rejected%n",
+                done.importId(), done.records(), done.loaded(), done.rejected());
+    }
+
+    private static CatalogReader.Format formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) return CatalogReader.Format.NDJSON;
+        if (name.endsWith(".csv")) return CatalogReader.Format.CSV;
+        throw new IllegalArgumentException("cannot derive format from file name, use --format");
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("missing value for " + args[i - 1]);
+        return args[i];
+    }
+}
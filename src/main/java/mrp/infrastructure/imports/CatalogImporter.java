@@ -0,0 +1,350 @@
+package mrp.infrastructure.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mrp.application.MediaRequestValidator;
+import mrp.dto.MediaRequest;
+import mrp.infrastructure.config.ConnectionFactory;
+import mrp.infrastructure.util.UUIDv7;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import of partner catalogs into media_entries.
+ *
+ * Pipeline per chunk (one transaction):
+ * 1. read records from the file (CatalogReader) and validate them with the
+ *    same rules as POST /media (MediaRequestValidator)
+ * 2. stream the valid rows with fresh UUIDv7 ids through COPY into a
+ *    temporary staging table
+ * 3. set-based merge: new genre names into the dictionary, then one
+ *    INSERT ... SELECT into media_entries with the genre ids resolved in SQL
+ * 4. write rejected records and the checkpoint (records consumed so far)
+ *
+ * A chunk is either fully committed together with its checkpoint or not at
+ * all, so run() on an interrupted import continues exactly after the last
+ * committed chunk.
+ *
+ * Imported entries bypass MediaService, so no media events are fired.
+ * The INSERT of each chunk bumps catalogVersion() and featuresVersion()
+ * once (statement triggers); the in-memory indexes of running instances
+ * (column store, genre top lists, similarity index) compare these versions
+ * at most every refresh interval and reload (CatalogSnapshot).
+ */
+public class CatalogImporter {
+
+    public record Progress(UUID importId, long records, long loaded, long rejected, double recordsPerSecond) { }
+
+    private static final int MAX_TITLE = 255;
+    private static final int MAX_GENRE = 64;
+
+    private static final String STAGING = """
+        CREATE TEMP TABLE IF NOT EXISTS media_import_staging (
+            id              UUID,
+            title           TEXT,
+            description     TEXT,
+            media_type      TEXT,
+            release_year    INT,
+            genres          TEXT[],
+            age_restriction INT
+        ) ON COMMIT DELETE ROWS
+        """;
+
+    private static final String MERGE_GENRES = """
+        INSERT INTO genres (name)
+        SELECT DISTINCT g FROM media_import_staging s, unnest(s.genres) AS g
+        ON CONFLICT (name) DO NOTHING
+        """;
+
+    private static final String MERGE_MEDIA = """
+        INSERT INTO media_entries
+            (id, creator_id, title, description, media_type, release_year, genre_ids,
+             age_restriction, average_score, created_at, updated_at)
+        SELECT s.id, ?, s.title, s.description, s.media_type, s.release_year,
+               CASE WHEN s.genres IS NULL THEN NULL ELSE COALESCE(
+                   (SELECT array_agg(g.id ORDER BY u.ord)
+                    FROM unnest(s.genres) WITH ORDINALITY AS u(name, ord)
+                    JOIN genres g ON g.name = u.name), '{}') END,
+               s.age_restriction, 0, now(), now()
+        FROM media_import_staging s
+        ON CONFLICT (id) DO NOTHING
+        """;
+
+    private final ObjectMapper mapper;
+    private final int chunkSize;
+    private final Consumer<Progress> progress;
+
+    public CatalogImporter(ObjectMapper mapper, int chunkSize, Consumer<Progress> progress) {
+        if (mapper == null) throw new IllegalArgumentException("mapper null");
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+        this.mapper = mapper;
+        this.chunkSize = chunkSize;
+        this.progress = progress != null ? progress : p -> { };
+    }
+
+    /**
+     * Registers a new import; run() then loads it.
+     */
+    public UUID create(Path source, CatalogReader.Format format, UUID creatorId) {
+        if (source == null) throw new IllegalArgumentException("source null");
+        if (format == null) throw new IllegalArgumentException("format null");
+        if (creatorId == null) throw new IllegalArgumentException("creatorId null");
+        if (!Files.isReadable(source)) throw new IllegalArgumentException("source not readable: " + source);
+
+        UUID id = UUIDv7.randomUUID();
+        String sql = "INSERT INTO media_imports (id, source, format, creator_id) VALUES (?,?,?,?)";
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setObject(1, id);
+            ps.setString(2, source.toAbsolutePath().toString());
+            ps.setString(3, format.name());
+            ps.setObject(4, creatorId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("create import failed", e);
+        }
+        return id;
+    }
+
+    /**
+     * Loads (or continues loading) an import until the end of its source file.
+     *
+     * @return the final progress
+     */
+    public Progress run(UUID importId) throws IOException {
+        if (importId == null) throw new IllegalArgumentException("importId null");
+
+        try (Connection c = ConnectionFactory.get()) {
+            State state = load(c, importId);
+            if (state.done) {
+                return new Progress(importId, state.records, state.loaded, state.rejected, 0);
+            }
+
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(STAGING)) {
+                ps.execute();
+            }
+            c.commit();
+
+            long started = System.nanoTime();
+            long resumedAt = state.records;
+
+            try (CatalogReader reader = new CatalogReader(
+                    Files.newBufferedReader(Path.of(state.source), StandardCharsets.UTF_8), state.format, mapper)) {
+
+                // skip what earlier runs already committed
+                CatalogReader.Record r = reader.next();
+                while (r != null && r.number() <= state.records) r = reader.next();
+
+                while (r != null) {
+                    r = loadChunk(c, importId, state, reader, r);
+                    double seconds = Math.max(1e-3, (System.nanoTime() - started) / 1e9);
+                    progress.accept(new Progress(importId, state.records, state.loaded, state.rejected,
+                            (state.records - resumedAt) / seconds));
+                }
+            }
+
+            try (PreparedStatement ps = c.prepareStatement(
+                    "UPDATE media_imports SET status = 'DONE', updated_at = now() WHERE id = ?")) {
+                ps.setObject(1, importId);
+                ps.executeUpdate();
+            }
+            c.commit();
+            return new Progress(importId, state.records, state.loaded, state.rejected, 0);
+        } catch (SQLException e) {
+            throw new RuntimeException("import failed", e);
+        }
+    }
+
+    // Loads one chunk starting with `first`; returns the first record of the next chunk (null at EOF)
+    private CatalogReader.Record loadChunk(Connection c, UUID importId, State state,
+                                           CatalogReader reader, CatalogReader.Record first)
+            throws SQLException, IOException {
+        List<CatalogReader.Record> rejects = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        long lastNumber = state.records;
+        int copied = 0;
+
+        CatalogReader.Record r = first;
+        try {
+            PGConnection pg = c.unwrap(PGConnection.class);
+            try (Writer out = new OutputStreamWriter(new PGCopyOutputStream(pg,
+                    "COPY media_import_staging FROM STDIN (FORMAT csv)", 1 << 16), StandardCharsets.UTF_8)) {
+
+                for (int n = 0; r != null && n < chunkSize; n++) {
+                    lastNumber = r.number();
+                    String error = r.error() != null ? r.error() : validate(r.request());
+                    if (error != null) {
+                        rejects.add(r);
+                        errors.add(error);
+                    } else {
+                        writeRow(out, r.request());
+                        copied++;
+                    }
+                    r = reader.next();
+                }
+            }
+
+            int inserted = 0;
+            if (copied > 0) {
+                try (PreparedStatement ps = c.prepareStatement(MERGE_GENRES)) {
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = c.prepareStatement(MERGE_MEDIA)) {
+                    ps.setObject(1, state.creatorId);
+                    inserted = ps.executeUpdate();
+                }
+            }
+
+            if (!rejects.isEmpty()) {
+                try (PreparedStatement ps = c.prepareStatement(
+                        "INSERT INTO media_import_rejects (import_id, record_no, error) VALUES (?,?,?) "
+                                + "ON CONFLICT DO NOTHING")) {
+                    for (int i = 0; i < rejects.size(); i++) {
+                        ps.setObject(1, importId);
+                        ps.setLong(2, rejects.get(i).number());
+                        ps.setString(3, errors.get(i));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+
+            try (PreparedStatement ps = c.prepareStatement("""
+                    UPDATE media_imports
+                    SET records_done = ?, rows_loaded = rows_loaded + ?, rows_rejected = rows_rejected + ?,
+                        updated_at = now()
+                    WHERE id = ?
+                    """)) {
+                ps.setLong(1, lastNumber);
+                ps.setLong(2, inserted);
+                ps.setLong(3, rejects.size());
+                ps.setObject(4, importId);
+                ps.executeUpdate();
+            }
+            c.commit();
+
+            state.records = lastNumber;
+            state.loaded += inserted;
+            state.rejected += rejects.size();
+            return r;
+        } catch (SQLException | IOException | RuntimeException e) {
+            c.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Business rules plus the column limits that would otherwise fail the whole chunk.
+     *
+     * @return the reject reason, or null if the record can be loaded
+     */
+    private static String validate(MediaRequest req) {
+        try {
+            MediaRequestValidator.validate(req);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        if (req.getTitle().trim().length() > MAX_TITLE) return "title too long";
+        if (hasNul(req.getTitle()) || hasNul(req.getDescription())) return "invalid character";
+        if (req.getGenres() != null) {
+            for (String g : req.getGenres()) {
+                if (g != null && (g.trim().length() > MAX_GENRE || hasNul(g))) return "invalid genre";
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasNul(String s) {
+        return s != null && s.indexOf('\u0000') >= 0;
+    }
+
+    // One staging row in COPY csv format (unquoted empty field = NULL)
+    private static void writeRow(Writer out, MediaRequest req) throws IOException {
+        out.write(UUIDv7.randomUUID().toString());
+        out.write(',');
+        out.write(csv(MediaRequestValidator.safeTrim(req.getTitle())));
+        out.write(',');
+        out.write(csv(req.getDescription()));
+        out.write(',');
+        out.write(req.getMediaType().name());
+        out.write(',');
+        if (req.getReleaseYear() != null) out.write(Integer.toString(req.getReleaseYear()));
+        out.write(',');
+        out.write(csv(genreArray(req.getGenres())));
+        out.write(',');
+        out.write(Integer.toString(req.getAgeRestriction()));
+        out.write('\n');
+    }
+
+    private static String csv(String value) {
+        if (value == null) return "";
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // Same normalization as GenreDictionary.idsFor: trimmed, no blanks, no duplicates, order kept
+    private static String genreArray(List<String> genres) {
+        if (genres == null) return null;
+        Set<String> names = new LinkedHashSet<>();
+        for (String g : genres) {
+            if (g == null) continue;
+            String t = g.trim();
+            if (!t.isEmpty()) names.add(t);
+        }
+
+        StringBuilder sb = new StringBuilder("{");
+        for (String n : names) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append('"').append(n.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private State load(Connection c, UUID importId) throws SQLException {
+        String sql = """
+            SELECT source, format, creator_id, records_done, rows_loaded, rows_rejected, status
+            FROM media_imports WHERE id = ?
+            """;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setObject(1, importId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) throw new IllegalArgumentException("import not found");
+                State s = new State();
+                s.source = rs.getString("source");
+                s.format = CatalogReader.Format.valueOf(rs.getString("format"));
+                s.creatorId = (UUID) rs.getObject("creator_id");
+                s.records = rs.getLong("records_done");
+                s.loaded = rs.getLong("rows_loaded");
+                s.rejected = rs.getLong("rows_rejected");
+                s.done = "DONE".equals(rs.getString("status"));
+                return s;
+            }
+        }
+    }
+
+    private static final class State {
+        private String source;
+        private CatalogReader.Format format;
+        private UUID creatorId;
+        private long records;
+        private long loaded;
+        private long rejected;
+        private boolean done;
+    }
+}
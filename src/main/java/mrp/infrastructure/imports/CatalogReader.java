@@ -0,0 +1,212 @@
+package mrp.infrastructure.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mrp.domain.model.enums.MediaType;
+import mrp.dto.MediaRequest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader for partner catalogs; one record at a time, never the whole file.
+ *
+ * CSV: header line required (columns title, mediaType, and optionally description,
+ * releaseYear, genres, ageRestriction; any order, unknown columns ignored), RFC 4180
+ * quoting incl. line breaks in quoted fields, genres separated by '|'.
+ *
+ * NDJSON: one MediaRequest JSON object per line.
+ *
+ * Records are numbered from 1 in file order (blank lines are skipped and not
+ * counted); the number is the resume position of the import. A record that
+ * cannot be parsed is returned with an error instead of a request.
+ */
+public class CatalogReader implements Closeable {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format of(String s) {
+            if (s == null) throw new IllegalArgumentException("format null");
+            String f = s.trim().toUpperCase(Locale.ROOT);
+            if (f.equals("JSONL")) return NDJSON;
+            try {
+                return Format.valueOf(f);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("format must be csv or ndjson");
+            }
+        }
+    }
+
+    public record Record(long number, MediaRequest request, String error) { }
+
+    private final BufferedReader in;
+    private final Format format;
+    private final ObjectMapper mapper;
+    private Map<String, Integer> columns;
+    private long number;
+
+    public CatalogReader(Reader in, Format format, ObjectMapper mapper) {
+        if (in == null) throw new IllegalArgumentException("in null");
+        if (format == null) throw new IllegalArgumentException("format null");
+        if (mapper == null) throw new IllegalArgumentException("mapper null");
+        this.in = in instanceof BufferedReader b ? b : new BufferedReader(in, 1 << 16);
+        this.format = format;
+        this.mapper = mapper;
+    }
+
+    /**
+     * @return the next record, or null at the end of the input
+     */
+    public Record next() throws IOException {
+        return format == Format.CSV ? nextCsv() : nextJson();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ---- NDJSON ----
+
+    private Record nextJson() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) return null;
+        } while (line.isBlank());
+
+        long n = ++number;
+        try {
+            return new Record(n, mapper.readValue(line, MediaRequest.class), null);
+        } catch (JsonProcessingException e) {
+            return new Record(n, null, "invalid json");
+        }
+    }
+
+    // ---- CSV ----
+
+    private Record nextCsv() throws IOException {
+        if (columns == null) {
+            List<String> header = readCsvRecord();
+            if (header == null) return null;
+            columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("title") || !columns.containsKey("mediatype")) {
+                throw new IllegalArgumentException("csv header must contain title and mediaType");
+            }
+        }
+
+        List<String> fields;
+        do {
+            fields = readCsvRecord();
+            if (fields == null) return null;
+        } while (fields.size() == 1 && fields.get(0).isEmpty());
+
+        long n = ++number;
+        try {
+            return new Record(n, toRequest(fields), null);
+        } catch (IllegalArgumentException e) {
+            return new Record(n, null, e.getMessage());
+        }
+    }
+
+    private MediaRequest toRequest(List<String> f) {
+        String type = field(f, "mediatype");
+        MediaType mediaType = null;
+        if (type != null) {
+            try {
+                mediaType = MediaType.valueOf(type.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("invalid mediaType");
+            }
+        }
+
+        List<String> genres = null;
+        String g = field(f, "genres");
+        if (g != null) {
+            genres = new ArrayList<>();
+            for (String part : g.split("\\|")) genres.add(part);
+        }
+
+        return new MediaRequest(
+                field(f, "title"),
+                field(f, "description"),
+                mediaType,
+                intField(f, "releaseYear"),
+                genres,
+                intField(f, "ageRestriction")
+        );
+    }
+
+    // Empty and missing fields are null
+    private String field(List<String> fields, String column) {
+        Integer i = columns.get(column);
+        if (i == null || i >= fields.size()) return null;
+        String v = fields.get(i);
+        return v.isEmpty() ? null : v;
+    }
+
+    private Integer intField(List<String> fields, String column) {
+        String v = field(fields, column.toLowerCase(Locale.ROOT));
+        if (v == null) return null;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " must be an integer");
+        }
+    }
+
+    // One CSV record (may span several lines when a quoted field contains line breaks)
+    private List<String> readCsvRecord() throws IOException {
+        int c = in.read();
+        if (c < 0) return null;
+
+        List<String> out = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c < 0) throw new IOException("unterminated quoted field in record " + (number + 1));
+                if (c == '"') {
+                    in.mark(1);
+                    int d = in.read();
+                    if (d == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (d >= 0) in.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c < 0 || c == '\n') {
+                out.add(field.toString());
+                return out;
+            } else if (c == '\r') {
+                in.mark(1);
+                if (in.read() != '\n') in.reset();
+                out.add(field.toString());
+                return out;
+            } else if (c == ',') {
+                out.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package mrp.infrastructure.jobs;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * Five-field cron expression, evaluated in UTC:
+ *
+ *   minute (0-59) hour (0-23) day-of-month (1-31) month (1-12) day-of-week (0-7, 0 and 7 = Sunday)
+ *
+ * Each field is "*", a value, a range "a-b" or a list "a,b-c", each
+ * optionally with a step (minute "0-59/15" = every 15 minutes, hour
+ * "8-18/2"). As in classic cron, if
+ * both day fields are restricted a day matches when either of them does.
+ */
+final class CronTrigger implements Trigger {
+
+    // an expression that matches nothing (e.g. 31st of February) is rejected
+    private static final int MAX_YEARS = 5;
+
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean anyDayOfMonth;
+    private final boolean anyDayOfWeek;
+
+    private CronTrigger(String expression) {
+        String[] f = expression.trim().split("\\s+");
+        if (f.length != 5) throw new IllegalArgumentException("cron needs 5 fields: " + expression);
+        this.expression = expression.trim();
+        this.minutes = field(f[0], 0, 59);
+        this.hours = field(f[1], 0, 23);
+        this.daysOfMonth = field(f[2], 1, 31);
+        this.months = field(f[3], 1, 12);
+        this.daysOfWeek = field(f[4], 0, 7);
+        if (daysOfWeek.get(7)) daysOfWeek.set(0);
+        this.anyDayOfMonth = f[2].equals("*");
+        this.anyDayOfWeek = f[4].equals("*");
+    }
+
+    static CronTrigger parse(String expression) {
+        if (expression == null || expression.isBlank()) throw new IllegalArgumentException("cron expression blank");
+        CronTrigger t = new CronTrigger(expression);
+        t.next(Instant.now()); // fails for expressions that never match
+        return t;
+    }
+
+    @Override
+    public Instant next(Instant previous) {
+        LocalDateTime t = LocalDateTime.ofInstant(previous, ZoneOffset.UTC)
+                .truncatedTo(ChronoUnit.MINUTES)
+                .plusMinutes(1);
+        LocalDateTime limit = t.plusYears(MAX_YEARS);
+
+        while (t.isBefore(limit)) {
+            if (!months.get(t.getMonthValue())) {
+                t = t.withDayOfMonth(1).withHour(0).withMinute(0).plusMonths(1);
+            } else if (!dayMatches(t)) {
+                t = t.withHour(0).withMinute(0).plusDays(1);
+            } else if (!hours.get(t.getHour())) {
+                t = t.withMinute(0).plusHours(1);
+            } else if (!minutes.get(t.getMinute())) {
+                t = t.plusMinutes(1);
+            } else {
+                return t.toInstant(ZoneOffset.UTC);
+            }
+        }
+        throw new IllegalArgumentException("cron expression never matches: " + expression);
+    }
+
+    private boolean dayMatches(LocalDateTime t) {
+        boolean dom = daysOfMonth.get(t.getDayOfMonth());
+        boolean dow = daysOfWeek.get(t.getDayOfWeek().getValue() % 7);
+        if (anyDayOfMonth) return dow;
+        if (anyDayOfWeek) return dom;
+        return dom || dow;
+    }
+
+    private static BitSet field(String spec, int min, int max) {
+        BitSet bits = new BitSet(max + 1);
+        for (String part : spec.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = number(part.substring(slash + 1), 1, max, spec);
+                range = part.substring(0, slash);
+            }
+
+            int from;
+            int to;
+            if (range.equals("*")) {
+                from = min;
+                to = max;
+            } else if (range.contains("-")) {
+                String[] ab = range.split("-", 2);
+                from = number(ab[0], min, max, spec);
+                to = number(ab[1], min, max, spec);
+                if (from > to) throw new IllegalArgumentException("invalid cron range: " + spec);
+            } else {
+                from = number(range, min, max, spec);
+                // "5/10" means from 5 to the end in steps of 10
+                to = slash >= 0 ? max : from;
+            }
+            for (int v = from; v <= to; v += step) bits.set(v);
+        }
+        return bits;
+    }
+
+    private static int number(String s, int min, int max, String spec) {
+        try {
+            int v = Integer.parseInt(s);
+            if (v < min || v > max) throw new IllegalArgumentException("cron value out of range: " + spec);
+            return v;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid cron field: " + spec);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "cron " + expression;
+    }
+}
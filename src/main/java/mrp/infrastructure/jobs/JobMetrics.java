@@ -0,0 +1,74 @@
+package mrp.infrastructure.jobs;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of one job on this node. Skipped runs are counted separately:
+ * overrun (the previous run was still busy), not leader (a singleton job
+ * on a node that is not the leader) and locked (another node is still
+ * running it, e.g. right after a leader change).
+ */
+public final class JobMetrics {
+
+    private final String name;
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong skippedOverrun = new AtomicLong();
+    private final AtomicLong skippedNotLeader = new AtomicLong();
+    private final AtomicLong skippedLocked = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+    private volatile long lastMillis;
+    private volatile Instant lastSuccess;
+    private volatile Instant lastFailure;
+    private volatile String lastError;
+
+    JobMetrics(String name) {
+        this.name = name;
+    }
+
+    void recordRun(long millis, Throwable error) {
+        runs.incrementAndGet();
+        totalMillis.addAndGet(millis);
+        maxMillis.accumulateAndGet(millis, Math::max);
+        lastMillis = millis;
+        if (error == null) {
+            lastSuccess = Instant.now();
+        } else {
+            failures.incrementAndGet();
+            lastFailure = Instant.now();
+            lastError = String.valueOf(error);
+        }
+    }
+
+    void skippedOverrun() { skippedOverrun.incrementAndGet(); }
+
+    void skippedNotLeader() { skippedNotLeader.incrementAndGet(); }
+
+    void skippedLocked() { skippedLocked.incrementAndGet(); }
+
+    public String getName() { return name; }
+    public long getRuns() { return runs.get(); }
+    public long getFailures() { return failures.get(); }
+    public long getSkippedOverrun() { return skippedOverrun.get(); }
+    public long getSkippedNotLeader() { return skippedNotLeader.get(); }
+    public long getSkippedLocked() { return skippedLocked.get(); }
+    public long getLastMillis() { return lastMillis; }
+    public long getMaxMillis() { return maxMillis.get(); }
+    public Instant getLastSuccess() { return lastSuccess; }
+    public Instant getLastFailure() { return lastFailure; }
+    public String getLastError() { return lastError; }
+
+    public long getAverageMillis() {
+        long n = runs.get();
+        return n == 0 ? 0 : totalMillis.get() / n;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": runs=" + runs + " failures=" + failures
+                + " skipped(overrun=" + skippedOverrun + " notLeader=" + skippedNotLeader + " locked=" + skippedLocked + ")"
+                + " last=" + lastMillis + "ms avg=" + getAverageMillis() + "ms max=" + maxMillis + "ms";
+    }
+}
@@ -0,0 +1,211 @@
+package mrp.infrastructure.jobs;
+
+import mrp.infrastructure.config.ConnectionFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process scheduler for background jobs (cleanup, reconciliation,
+ * precomputation) outside the request path.
+ *
+ * - one daemon timer thread computes the schedule; every run gets its own
+ *   virtual thread, so a slow job does not delay the others
+ * - singleton jobs run only on the leader node (LeaderLock). During a run
+ *   the job additionally holds an advisory lock of its own, so a run that
+ *   is still going on the old leader is not started again on a new one
+ * - everyNode jobs run on every node (e.g. rebuilding in-memory models)
+ * - overrun protection: if the previous run of a job is still busy when
+ *   the next one is due, the new run is skipped, not queued
+ * - jitter: each run is delayed by a random amount up to the job's jitter,
+ *   so nodes and jobs with the same schedule do not hit the database at
+ *   the same moment
+ *
+ * Failed runs are logged and counted; the job runs again at its next
+ * scheduled time. Counters per job: metrics(), logged together with
+ * isLeader() by the "stats-log" job (AppFactory).
+ */
+public class JobScheduler implements AutoCloseable {
+
+    // advisory lock keys (class, id): leader = (LEADER_CLASS, 0), job = (JOB_CLASS, hashtext(name))
+    private static final int LEADER_CLASS = 0x6d72704c; // "mrpL"
+    private static final int JOB_CLASS = 0x6d72704a;    // "mrpJ"
+
+    private static final class Job {
+        final String name;
+        final Trigger trigger;
+        final long jitterMillis;
+        final boolean singleton;
+        final Runnable task;
+        final JobMetrics metrics;
+        final AtomicBoolean running = new AtomicBoolean();
+        // timer thread only
+        Instant scheduled;
+
+        Job(String name, Trigger trigger, Duration jitter, boolean singleton, Runnable task) {
+            this.name = name;
+            this.trigger = trigger;
+            this.jitterMillis = jitter == null ? 0 : jitter.toMillis();
+            this.singleton = singleton;
+            this.task = task;
+            this.metrics = new JobMetrics(name);
+        }
+    }
+
+    private final List<Job> jobs = new CopyOnWriteArrayList<>();
+    private final LeaderLock leader = new LeaderLock(LEADER_CLASS);
+    private ScheduledExecutorService timer;
+    private volatile boolean closed;
+
+    /**
+     * Registers a job that runs on one node of the cluster at a time.
+     */
+    public JobScheduler singleton(String name, Trigger trigger, Duration jitter, Runnable task) {
+        return add(new Job(name, trigger, jitter, true, task));
+    }
+
+    /**
+     * Registers a job that runs on every node.
+     */
+    public JobScheduler everyNode(String name, Trigger trigger, Duration jitter, Runnable task) {
+        return add(new Job(name, trigger, jitter, false, task));
+    }
+
+    private synchronized JobScheduler add(Job job) {
+        if (job.name == null || job.name.isBlank()) throw new IllegalArgumentException("job name blank");
+        if (job.trigger == null || job.task == null) throw new IllegalArgumentException("trigger/task null");
+        if (job.jitterMillis < 0) throw new IllegalArgumentException("jitter must be >= 0");
+        for (Job j : jobs) {
+            if (j.name.equals(job.name)) throw new IllegalArgumentException("job already registered: " + job.name);
+        }
+        jobs.add(job);
+        if (timer != null) arm(job, job.trigger.first(Instant.now()));
+        return this;
+    }
+
+    public synchronized void start() {
+        if (timer != null || closed) return;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        Instant now = Instant.now();
+        for (Job job : jobs) arm(job, job.trigger.first(now));
+    }
+
+    /**
+     * @return counters of all registered jobs on this node
+     */
+    public List<JobMetrics> metrics() {
+        List<JobMetrics> out = new ArrayList<>();
+        for (Job job : jobs) out.add(job.metrics);
+        return out;
+    }
+
+    public boolean isLeader() {
+        return leader.isLeader();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        leader.close();
+    }
+
+    private void arm(Job job, Instant at) {
+        job.scheduled = at;
+        timer.schedule(() -> fire(job), delayMillis(Instant.now(), at, job.jitterMillis), TimeUnit.MILLISECONDS);
+    }
+
+    // time until `at` plus a random jitter in [0, jitterMillis]
+    static long delayMillis(Instant now, Instant at, long jitterMillis) {
+        long delay = Math.max(0, Duration.between(now, at).toMillis());
+        if (jitterMillis > 0) delay += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+        return delay;
+    }
+
+    // timer thread
+    private void fire(Job job) {
+        if (closed) return;
+        // slots missed while the timer was stalled (e.g. suspended VM) are not made up
+        Instant now = Instant.now();
+        Instant next = job.trigger.next(job.scheduled);
+        while (!next.isAfter(now)) next = job.trigger.next(next);
+
+        if (job.running.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("job-" + job.name).start(() -> {
+                try {
+                    run(job);
+                } finally {
+                    job.running.set(false);
+                }
+            });
+        } else {
+            job.metrics.skippedOverrun();
+        }
+        arm(job, next);
+    }
+
+    private void run(Job job) {
+        if (!job.singleton) {
+            execute(job);
+            return;
+        }
+        if (!leader.holds()) {
+            job.metrics.skippedNotLeader();
+            return;
+        }
+        // closing the connection releases the job lock
+        try (Connection c = ConnectionFactory.get()) {
+            if (!tryJobLock(c, job.name)) {
+                job.metrics.skippedLocked();
+                return;
+            }
+            execute(job);
+        } catch (SQLException e) {
+            job.metrics.recordRun(0, e);
+            System.err.println("job " + job.name + ": lock failed: " + e.getMessage());
+        }
+    }
+
+    private void execute(Job job) {
+        long start = System.nanoTime();
+        RuntimeException error = null;
+        try {
+            job.task.run();
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        job.metrics.recordRun((System.nanoTime() - start) / 1_000_000, error);
+        if (error != null) {
+            System.err.println("job " + job.name + " failed: " + error.getMessage() + " (" + job.metrics + ")");
+        }
+    }
+
+    private static boolean tryJobLock(Connection c, String name) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT pg_try_advisory_lock(?, hashtext(?))")) {
+            ps.setInt(1, JOB_CLASS);
+            ps.setString(2, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
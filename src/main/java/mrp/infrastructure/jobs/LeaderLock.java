@@ -0,0 +1,78 @@
+package mrp.infrastructure.jobs;
+
+import mrp.infrastructure.config.ConnectionFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Leader election with a session-level advisory lock on the primary.
+ *
+ * The node whose connection holds the lock is the leader. The lock lives
+ * as long as that database session: if the leader dies or its connection
+ * breaks, PostgreSQL releases it and the next node asking becomes leader.
+ * holds() checks the connection before every singleton run, so a node
+ * that lost its session stops acting as leader.
+ */
+final class LeaderLock implements AutoCloseable {
+
+    private final int lockClass;
+    private Connection conn;
+    private boolean leader;
+
+    LeaderLock(int lockClass) {
+        this.lockClass = lockClass;
+    }
+
+    /**
+     * @return true if this node is (or just became) the leader
+     */
+    synchronized boolean holds() {
+        try {
+            if (conn != null && !conn.isValid(2)) lost();
+            if (conn == null) conn = ConnectionFactory.get();
+            if (!leader) {
+                leader = tryLock();
+                if (leader) System.err.println("job scheduler: this node is now the leader");
+            }
+            return leader;
+        } catch (SQLException e) {
+            lost();
+            return false;
+        }
+    }
+
+    synchronized boolean isLeader() {
+        return leader;
+    }
+
+    private boolean tryLock() throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_try_advisory_lock(?, 0)")) {
+            ps.setInt(1, lockClass);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    // the session is gone or unusable; its lock is released with it
+    private void lost() {
+        if (leader) System.err.println("job scheduler: lost leadership");
+        leader = false;
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // already broken
+            }
+            conn = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        lost();
+    }
+}
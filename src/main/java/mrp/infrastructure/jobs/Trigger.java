@@ -0,0 +1,56 @@
+package mrp.infrastructure.jobs;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * When a job runs. next() is asked with the previous scheduled time (not
+ * the end of the run), so a slow run does not shift the schedule.
+ */
+public interface Trigger {
+
+    /**
+     * @return the first scheduled time after `previous`
+     */
+    Instant next(Instant previous);
+
+    /**
+     * @return the first run after the scheduler started at `now`
+     */
+    default Instant first(Instant now) {
+        return next(now);
+    }
+
+    /**
+     * Every `period`, the first run right after start.
+     */
+    static Trigger fixedRate(Duration period) {
+        if (period == null || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        return new Trigger() {
+            @Override
+            public Instant next(Instant previous) {
+                return previous.plus(period);
+            }
+
+            @Override
+            public Instant first(Instant now) {
+                return now;
+            }
+
+            @Override
+            public String toString() {
+                return "every " + period;
+            }
+        };
+    }
+
+    /**
+     * Cron expression with five fields (minute hour day-of-month month
+     * day-of-week) in UTC, e.g. "30 3 * * *" or "0,30 8-18 * * 1-5".
+     */
+    static Trigger cron(String expression) {
+        return CronTrigger.parse(expression);
+    }
+}
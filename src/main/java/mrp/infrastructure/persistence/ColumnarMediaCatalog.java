@@ -0,0 +1,384 @@
+package mrp.infrastructure.persistence;
+
+import mrp.application.loader.CatalogSnapshot;
+import mrp.domain.model.MediaEntry;
+import mrp.domain.model.enums.MediaType;
+import mrp.domain.ports.MediaRepository;
+import mrp.domain.ports.MediaSearch;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * MediaRepository decorator that answers search() from an in-memory
+ * column store instead of PostgreSQL.
+ *
+ * Layout (struct of arrays, one slot per media entry):
+ * - byte[]  type (MediaType ordinal)
+ * - int[]   releaseYear / ageRestriction
+ * - float[] averageScore
+ * - String[] lower-case titles + CollationKeys for title sort
+ * - bitmaps (long[]) per media type, per genre and for live rows
+ *
+ * A search intersects the bitmaps (type, genre), checks the scalar columns
+ * for the remaining rows and keeps only offset+limit rows in a bounded
+ * heap ordered by the sort key. Semantics follow JdbcMediaRepository.search
+ * (ILIKE title, exact type/year, max age, min score, NULL years last on ASC).
+ *
+ * Freshness (CatalogSnapshot):
+ * - writes through this repository (media CRUD, average score updates after
+ *   rating writes) are applied immediately as single-row deltas
+ * - writes by other instances are picked up by comparing catalogVersion()
+ *   at most every refreshMillis and reloading the catalog in the background
+ *   of the searches if it changed, or right away through refresh()/evict()
+ *   when an InvalidationBus is wired
+ *
+ * All other operations are delegated unchanged.
+ */
+public class ColumnarMediaCatalog implements MediaRepository {
+
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+    private static final MediaType[] TYPES = MediaType.values();
+
+    private final MediaRepository delegate;
+    private final Collator collator = Collator.getInstance(Locale.US);
+    private final CatalogSnapshot<Columns> columns;
+
+    public ColumnarMediaCatalog(MediaRepository delegate, long refreshMillis) {
+        if (delegate == null) throw new IllegalArgumentException("delegate null");
+        this.delegate = delegate;
+        this.columns = new CatalogSnapshot<>(delegate::catalogVersion, this::load, refreshMillis);
+    }
+
+    // ---- search (served from memory) ----
+
+    @Override
+    public List<MediaEntry> search(MediaSearch s) {
+        return columns.read(c -> c.search(s));
+    }
+
+    // ---- writes (delegate first, then apply) ----
+
+    @Override
+    public MediaEntry save(MediaEntry entry) {
+        MediaEntry saved = delegate.save(entry);
+        columns.apply(c -> c.put(saved));
+        return saved;
+    }
+
+    @Override
+    public boolean update(MediaEntry entry) {
+        boolean ok = delegate.update(entry);
+        if (ok) columns.apply(c -> c.put(entry));
+        return ok;
+    }
+
+    @Override
+    public boolean delete(UUID id) {
+        boolean ok = delegate.delete(id);
+        if (ok) columns.apply(c -> c.remove(id));
+        return ok;
+    }
+
+    @Override
+    public Map<UUID, Double> updateAverageScores(Collection<UUID> ids) {
+        Map<UUID, Double> scores = delegate.updateAverageScores(ids);
+        if (!scores.isEmpty()) columns.apply(c -> c.updateScores(scores));
+        return scores;
+    }
+
+    // ---- pass-through ----
+
+    @Override
+    public Optional<MediaEntry> findById(UUID id) { return delegate.findById(id); }
+
+    @Override
+    public List<MediaEntry> findByIds(Collection<UUID> ids) { return delegate.findByIds(ids); }
+
+    @Override
+    public boolean isOwner(UUID mediaId, UUID userId) { return delegate.isOwner(mediaId, userId); }
+
+    @Override
+    public long catalogVersion() { return delegate.catalogVersion(); }
+
+    @Override
+    public long featuresVersion() { return delegate.featuresVersion(); }
+
+    // search() answers from the snapshot, which may lag catalogVersion() by up to refreshMillis
+    @Override
+    public String searchVersion() { return columns.version(); }
+
+    @Override
+    public void forEachEntry(Consumer<MediaEntry> consumer) { delegate.forEachEntry(consumer); }
+
+    // ---- changes made by other nodes (InvalidationBus) ----
+
+    public void refresh(UUID id) {
+        Optional<MediaEntry> current = delegate.findById(id);
+        // foreign writes never advance the loaded version
+        columns.apply(c -> {
+            if (current.isPresent()) c.put(current.get());
+            else c.remove(id);
+            return false;
+        });
+    }
+
+    public void evict(UUID id) {
+        columns.apply(c -> {
+            c.remove(id);
+            return false;
+        });
+    }
+
+    // Messages were lost: reload on the next search regardless of the refresh interval
+    public void invalidate() {
+        columns.invalidate();
+    }
+
+    public int size() {
+        return columns.peek(c -> c == null ? 0 : c.live);
+    }
+
+    // ---- loading ----
+
+    private Columns load() {
+        Columns fresh = new Columns(collator);
+        delegate.forEachEntry(fresh::put);
+        return fresh;
+    }
+
+    // ---- column store ----
+
+    private static final class Columns {
+        private final Collator collator;
+
+        private int size;
+        private int live;
+        private MediaEntry[] rows = new MediaEntry[64];
+        private byte[] type = new byte[64];
+        private int[] year = new int[64];
+        private int[] age = new int[64];
+        private float[] score = new float[64];
+        private String[] titleLower = new String[64];
+        private CollationKey[] titleKey = new CollationKey[64];
+
+        private long[] liveBits = new long[1];
+        private final long[][] typeBits = new long[TYPES.length][1];
+        private final Map<String, long[]> genreBits = new HashMap<>();
+        private final Map<UUID, Integer> rowOf = new HashMap<>();
+
+        private Columns(Collator collator) {
+            this.collator = collator;
+        }
+
+        // true: a stored row changed, i.e. the write behind it bumped catalogVersion()
+        boolean put(MediaEntry source) {
+            if (source == null || source.getId() == null) return false;
+            MediaEntry e = SingleFlightMediaRepository.copy(source);
+
+            Integer existing = rowOf.get(e.getId());
+            int row;
+            if (existing != null) {
+                row = existing;
+                unindex(row);
+            } else {
+                row = size++;
+                grow(size);
+                rowOf.put(e.getId(), row);
+                live++;
+            }
+
+            rows[row] = e;
+            type[row] = (byte) (e.getMediaType() == null ? -1 : e.getMediaType().ordinal());
+            year[row] = e.getReleaseYear() == null ? NO_YEAR : e.getReleaseYear();
+            age[row] = e.getAgeRestriction() == null ? 0 : e.getAgeRestriction();
+            score[row] = e.getAverageScore() == null ? 0f : e.getAverageScore().floatValue();
+            String title = e.getTitle() == null ? "" : e.getTitle();
+            titleLower[row] = title.toLowerCase(Locale.ROOT);
+            titleKey[row] = collator.getCollationKey(title);
+
+            liveBits = set(liveBits, row);
+            if (type[row] >= 0) typeBits[type[row]] = set(typeBits[type[row]], row);
+            if (e.getGenres() != null) {
+                for (String g : e.getGenres()) {
+                    genreBits.put(g, set(genreBits.getOrDefault(g, new long[1]), row));
+                }
+            }
+            return true;
+        }
+
+        // true if any known score changed (the UPDATE only bumps the version then)
+        boolean updateScores(Map<UUID, Double> scores) {
+            boolean changed = false;
+            for (Map.Entry<UUID, Double> s : scores.entrySet()) {
+                Integer row = rowOf.get(s.getKey());
+                if (row == null) continue;
+                Double avg = s.getValue();
+                if (Objects.equals(rows[row].getAverageScore(), avg)) continue;
+                // rows are private copies, so the entry can be changed in place
+                rows[row].setAverageScore(avg);
+                score[row] = avg == null ? 0f : avg.floatValue();
+                changed = true;
+            }
+            return changed;
+        }
+
+        boolean remove(UUID id) {
+            Integer row = rowOf.remove(id);
+            if (row == null) return false;
+            unindex(row);
+            rows[row] = null;
+            live--;
+            return true;
+        }
+
+        private void unindex(int row) {
+            clear(liveBits, row);
+            if (type[row] >= 0) clear(typeBits[type[row]], row);
+            MediaEntry old = rows[row];
+            if (old != null && old.getGenres() != null) {
+                for (String g : old.getGenres()) {
+                    long[] bits = genreBits.get(g);
+                    if (bits != null) clear(bits, row);
+                }
+            }
+        }
+
+        List<MediaEntry> search(MediaSearch s) {
+            long[] bits = liveBits.clone();
+
+            String titleFilter = null;
+            Integer yearFilter = null;
+            Integer maxAge = null;
+            float minScore = Float.NEGATIVE_INFINITY;
+
+            if (s != null) {
+                if (s.getMediaType() != null && !s.getMediaType().trim().isEmpty()) {
+                    int t = typeOrdinal(s.getMediaType().trim());
+                    if (t < 0) return new ArrayList<>();
+                    and(bits, typeBits[t]);
+                }
+                if (s.getGenre() != null && !s.getGenre().trim().isEmpty()) {
+                    long[] g = genreBits.get(s.getGenre().trim());
+                    if (g == null) return new ArrayList<>();
+                    and(bits, g);
+                }
+                if (s.getTitle() != null && !s.getTitle().trim().isEmpty()) {
+                    titleFilter = s.getTitle().trim().toLowerCase(Locale.ROOT);
+                }
+                yearFilter = s.getReleaseYear();
+                maxAge = s.getAgeRestriction();
+                if (s.getRating() != null) minScore = s.getRating().floatValue();
+            }
+
+            int limit = s != null ? s.getLimit() : 20;
+            int offset = s != null ? s.getOffset() : 0;
+            if (limit <= 0) limit = 20;
+            if (limit > 100) limit = 100;
+            if (offset < 0) offset = 0;
+
+            Comparator<Integer> order = comparator(s);
+            int k = offset + limit;
+            // max-heap on the sort order: the root is the worst of the current top-k
+            PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(k, 1024) + 1, order.reversed());
+
+            for (int w = 0; w < bits.length; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+
+                    if (yearFilter != null && year[row] != yearFilter) continue;
+                    if (maxAge != null && age[row] > maxAge) continue;
+                    if (score[row] < minScore) continue;
+                    if (titleFilter != null && !titleLower[row].contains(titleFilter)) continue;
+
+                    if (heap.size() < k) {
+                        heap.add(row);
+                    } else if (order.compare(row, heap.peek()) < 0) {
+                        heap.poll();
+                        heap.add(row);
+                    }
+                }
+            }
+
+            Integer[] top = heap.toArray(new Integer[0]);
+            Arrays.sort(top, order);
+
+            List<MediaEntry> out = new ArrayList<>(Math.max(0, top.length - offset));
+            for (int i = offset; i < top.length; i++) {
+                out.add(SingleFlightMediaRepository.copy(rows[top[i]]));
+            }
+            return out;
+        }
+
+        private Comparator<Integer> comparator(MediaSearch s) {
+            String by = s == null || s.getSortBy() == null ? "title" : s.getSortBy().trim().toLowerCase();
+            boolean asc = s != null && "asc".equalsIgnoreCase(s.getSortDir());
+
+            Comparator<Integer> c = switch (by) {
+                case "year" -> (a, b) -> {
+                    // PostgreSQL: NULLs sort as the largest value
+                    boolean na = year[a] == NO_YEAR, nb = year[b] == NO_YEAR;
+                    if (na || nb) return na == nb ? 0 : (na ? 1 : -1);
+                    return Integer.compare(year[a], year[b]);
+                };
+                case "score" -> (a, b) -> Float.compare(score[a], score[b]);
+                default -> (a, b) -> titleKey[a].compareTo(titleKey[b]);
+            };
+            if (!asc) c = c.reversed();
+            return c.thenComparingInt(r -> r);
+        }
+
+        private void grow(int needed) {
+            if (needed <= rows.length) return;
+            int n = Math.max(needed, rows.length * 2);
+            rows = Arrays.copyOf(rows, n);
+            type = Arrays.copyOf(type, n);
+            year = Arrays.copyOf(year, n);
+            age = Arrays.copyOf(age, n);
+            score = Arrays.copyOf(score, n);
+            titleLower = Arrays.copyOf(titleLower, n);
+            titleKey = Arrays.copyOf(titleKey, n);
+        }
+
+        private static int typeOrdinal(String name) {
+            for (MediaType t : TYPES) {
+                if (t.name().equals(name)) return t.ordinal();
+            }
+            return -1;
+        }
+
+        private static long[] set(long[] bits, int row) {
+            int w = row >>> 6;
+            if (w >= bits.length) bits = Arrays.copyOf(bits, Math.max(w + 1, bits.length * 2));
+            bits[w] |= 1L << row;
+            return bits;
+        }
+
+        private static void clear(long[] bits, int row) {
+            int w = row >>> 6;
+            if (w < bits.length) bits[w] &= ~(1L << row);
+        }
+
+        // bits &= other (missing words in other count as zero)
+        private static void and(long[] bits, long[] other) {
+            int n = Math.min(bits.length, other.length);
+            for (int i = 0; i < n; i++) bits[i] &= other[i];
+            for (int i = n; i < bits.length; i++) bits[i] = 0;
+        }
+    }
+}
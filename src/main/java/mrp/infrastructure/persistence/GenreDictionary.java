@@ -0,0 +1,171 @@
+package mrp.infrastructure.persistence;
+
+import mrp.infrastructure.config.ConnectionFactory;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory copy of the genres dictionary table (id <-> name).
+ *
+ * - names are interned: every MediaEntry with "Drama" references the same String
+ * - genre lists are shared immutable instances per id combination, so a catalog
+ *   with many entries but few distinct combinations holds each list only once
+ * - unknown ids (e.g. inserted by another instance) trigger a reload
+ * - unknown names are inserted on write (INSERT ... ON CONFLICT DO NOTHING,
+ *   then a select if another writer inserted the name first)
+ * - lookups of unknown names (search filters) query only that name; misses are
+ *   remembered for a short time, so repeated searches for a nonexistent genre
+ *   do not hit the database every time
+ */
+public class GenreDictionary {
+
+    private static final long MISS_TTL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int MAX_MISSES = 10_000;
+
+    private final Map<Integer, String> byId = new ConcurrentHashMap<>();
+    private final Map<String, Integer> byName = new ConcurrentHashMap<>();
+    private final Map<List<Integer>, List<String>> lists = new ConcurrentHashMap<>();
+    // name -> System.nanoTime() until which it counts as unknown
+    private final Map<String, Long> misses = new ConcurrentHashMap<>();
+
+    /**
+     * @return ids for the given names, inserting new genres; null for null
+     */
+    public Integer[] idsFor(List<String> names, Connection c) throws SQLException {
+        if (names == null) return null;
+
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String n : names) {
+            if (n == null) continue;
+            String t = n.trim();
+            if (!t.isEmpty()) normalized.add(t);
+        }
+
+        List<Integer> ids = new ArrayList<>(normalized.size());
+        for (String n : normalized) {
+            Integer id = byName.get(n);
+            if (id == null) id = insert(n, c);
+            ids.add(id);
+        }
+        return ids.toArray(new Integer[0]);
+    }
+
+    /**
+     * @return id of an existing genre, or null if the name is unknown
+     */
+    public Integer idOf(String name) {
+        if (name == null) return null;
+        String t = name.trim();
+        Integer id = byName.get(t);
+        if (id != null) return id;
+
+        Long until = misses.get(t);
+        if (until != null && until - System.nanoTime() > 0) return null;
+
+        id = lookup(t);
+        if (id == null) {
+            if (misses.size() >= MAX_MISSES) misses.clear();
+            misses.put(t, System.nanoTime() + MISS_TTL_NANOS);
+        }
+        return id;
+    }
+
+    /**
+     * @return shared immutable list of canonical names; null for a SQL NULL array
+     */
+    public List<String> namesOf(Array sqlArray) throws SQLException {
+        if (sqlArray == null) return null;
+        Integer[] ids = (Integer[]) sqlArray.getArray();
+        return lists.computeIfAbsent(List.of(ids), this::resolve);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private List<String> resolve(List<Integer> ids) {
+        String[] out = new String[ids.size()];
+        for (int i = 0; i < out.length; i++) {
+            String name = byId.get(ids.get(i));
+            if (name == null) {
+                reload();
+                name = byId.get(ids.get(i));
+                if (name == null) throw new IllegalStateException("unknown genre id " + ids.get(i));
+            }
+            out[i] = name;
+        }
+        return List.of(out);
+    }
+
+    private Integer insert(String name, Connection c) throws SQLException {
+        String sql = """
+            INSERT INTO genres (name) VALUES (?)
+            ON CONFLICT (name) DO NOTHING
+            RETURNING id
+            """;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    int id = rs.getInt(1);
+                    register(id, name);
+                    return id;
+                }
+            }
+        }
+        // inserted concurrently by another writer; no row was returned
+        Integer id = select(name, c);
+        if (id == null) throw new IllegalStateException("genre vanished: " + name);
+        return id;
+    }
+
+    private Integer lookup(String name) {
+        try (Connection c = ConnectionFactory.get()) {
+            return select(name, c);
+        } catch (SQLException e) {
+            throw new RuntimeException("load genre failed", e);
+        }
+    }
+
+    private Integer select(String name, Connection c) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT id FROM genres WHERE name = ?")) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                int id = rs.getInt(1);
+                register(id, name);
+                return id;
+            }
+        }
+    }
+
+    private synchronized void reload() {
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement("SELECT id, name FROM genres");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                register(rs.getInt("id"), rs.getString("name"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("load genres failed", e);
+        }
+    }
+
+    private void register(int id, String name) {
+        String canonical = name.intern();
+        byId.putIfAbsent(id, canonical);
+        byName.putIfAbsent(canonical, id);
+        misses.remove(canonical);
+    }
+}
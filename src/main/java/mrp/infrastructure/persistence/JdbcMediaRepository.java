@@ -9,18 +9,38 @@ import mrp.infrastructure.config.ConnectionFactory;
 import java.sql.*;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public class JdbcMediaRepository implements MediaRepository {
 
-    public JdbcMediaRepository() { }
+    private GenreDictionary genres;
+    // set when ratings live on shards instead of this database
+    private ShardedRatingRepository shardedRatings;
+
+    public JdbcMediaRepository() {
+        this(new GenreDictionary());
+    }
+
+    public JdbcMediaRepository(GenreDictionary genres) {
+        this(genres, null);
+    }
+
+    public JdbcMediaRepository(GenreDictionary genres, ShardedRatingRepository shardedRatings) {
+        if (genres == null) throw new IllegalArgumentException("genres null");
+        this.genres = genres;
+        this.shardedRatings = shardedRatings;
+    }
 
     @Override
     public MediaEntry save(MediaEntry e) {
         String sql = "INSERT INTO media_entries " +
-                "(id, creator_id, title, description, media_type, release_year, genres, age_restriction, average_score, created_at, updated_at) " +
+                "(id, creator_id, title, description, media_type, release_year, genre_ids, age_restriction, average_score, created_at, updated_at) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         try (Connection c = ConnectionFactory.get();
              PreparedStatement ps = c.prepareStatement(sql)) {
@@ -32,8 +52,7 @@ public class JdbcMediaRepository implements MediaRepository {
             ps.setString(5, e.getMediaType() != null ? e.getMediaType().name() : null);
             if (e.getReleaseYear() == null) ps.setNull(6, Types.INTEGER);
             else ps.setInt(6, e.getReleaseYear());
-            if (e.getGenres() == null) ps.setNull(7, Types.ARRAY);
-            else ps.setArray(7, c.createArrayOf("text", e.getGenres().toArray(new Object[0])));
+            setGenreIds(ps, 7, e.getGenres(), c);
             if (e.getAgeRestriction() == null) ps.setNull(8, Types.INTEGER);
             else ps.setInt(8, e.getAgeRestriction());
             if (e.getAverageScore() == null) ps.setNull(9, Types.DOUBLE);
@@ -62,10 +81,29 @@ public class JdbcMediaRepository implements MediaRepository {
         }
     }
 
+    @Override
+    public List<MediaEntry> findByIds(Collection<UUID> ids) {
+        if (ids == null || ids.isEmpty()) return List.of();
+
+        String sql = "SELECT * FROM media_entries WHERE id = ANY(?)";
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setArray(1, c.createArrayOf("uuid", ids.toArray()));
+
+            List<MediaEntry> out = new ArrayList<>(ids.size());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(map(rs));
+            }
+            return out;
+        } catch (SQLException ex) {
+            throw new RuntimeException("findByIds failed", ex);
+        }
+    }
+
     @Override
     public boolean update(MediaEntry e) {
         String sql = "UPDATE media_entries SET " +
-                "title=?, description=?, media_type=?, release_year=?, genres=?, age_restriction=?, average_score=?, updated_at=? " +
+                "title=?, description=?, media_type=?, release_year=?, genre_ids=?, age_restriction=?, average_score=?, updated_at=? " +
                 "WHERE id=?";
         try (Connection c = ConnectionFactory.get();
              PreparedStatement ps = c.prepareStatement(sql)) {
@@ -75,8 +113,7 @@ public class JdbcMediaRepository implements MediaRepository {
             ps.setString(3, e.getMediaType() != null ? e.getMediaType().name() : null);
             if (e.getReleaseYear() == null) ps.setNull(4, Types.INTEGER);
             else ps.setInt(4, e.getReleaseYear());
-            if (e.getGenres() == null) ps.setNull(5, Types.ARRAY);
-            else ps.setArray(5, c.createArrayOf("text", e.getGenres().toArray(new Object[0])));
+            setGenreIds(ps, 5, e.getGenres(), c);
             if (e.getAgeRestriction() == null) ps.setNull(6, Types.INTEGER);
             else ps.setInt(6, e.getAgeRestriction());
             if (e.getAverageScore() == null) ps.setNull(7, Types.DOUBLE);
@@ -130,10 +167,14 @@ public class JdbcMediaRepository implements MediaRepository {
                 params.add(s.getAgeRestriction());
             }
 
-            // genre (must be contained in genres array)
+            // genre (must be contained in genre_ids; served by the intarray GIN index)
             if (s.getGenre() != null && !s.getGenre().trim().isEmpty()) {
-                sb.append(" AND ? = ANY(genres)");
-                params.add(s.getGenre().trim());
+                Integer genreId = genres.idOf(s.getGenre());
+                if (genreId == null) {
+                    return new ArrayList<>(); // unknown genre -> nothing can match
+                }
+                sb.append(" AND genre_ids @> ARRAY[?]::int[]");
+                params.add(genreId);
             }
 
             // rating (treat as minimum average score)
@@ -169,7 +210,7 @@ public class JdbcMediaRepository implements MediaRepository {
         params.add(limit);
         params.add(offset);
 
-        try (Connection c = ConnectionFactory.get();
+        try (Connection c = ConnectionFactory.getReadOnly();
              PreparedStatement ps = c.prepareStatement(sb.toString())) {
 
             int i = 1;
@@ -205,6 +246,163 @@ public class JdbcMediaRepository implements MediaRepository {
         }
     }
 
+    @Override
+    public void forEachEntry(Consumer<MediaEntry> consumer) {
+        String sql = "SELECT * FROM media_entries ORDER BY id";
+        try (Connection c = ConnectionFactory.get()) {
+            // cursor-based fetch: PostgreSQL only honours fetchSize outside autocommit
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(500);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) consumer.accept(map(rs));
+                }
+            } finally {
+                c.rollback();
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException("forEachEntry failed", ex);
+        }
+    }
+
+    @Override
+    public Map<UUID, Double> updateAverageScores(Collection<UUID> ids) {
+        Map<UUID, Double> out = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return out;
+        if (shardedRatings != null) return writeAverageScores(ids, shardedRatings.averageStars(ids));
+
+        String sql = """
+            UPDATE media_entries m
+            SET average_score = COALESCE((SELECT AVG(r.stars) FROM ratings r WHERE r.media_id = m.id), 0)
+            WHERE m.id = ANY(?)
+            RETURNING m.id, m.average_score
+            """;
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setArray(1, c.createArrayOf("uuid", ids.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.put((UUID) rs.getObject(1), rs.getDouble(2));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException("updateAverageScores failed", ex);
+        }
+        return out;
+    }
+
+    // Averages computed on the rating shards; media without ratings get 0
+    private Map<UUID, Double> writeAverageScores(Collection<UUID> ids, Map<UUID, Double> averages) {
+        Map<UUID, Double> out = new HashMap<>();
+        List<UUID> idList = new ArrayList<>(ids);
+        Double[] scores = new Double[idList.size()];
+        for (int i = 0; i < scores.length; i++) scores[i] = averages.getOrDefault(idList.get(i), 0.0);
+
+        String sql = """
+            UPDATE media_entries m
+            SET average_score = v.score
+            FROM unnest(?::uuid[], ?::float8[]) AS v(id, score)
+            WHERE m.id = v.id
+            RETURNING m.id, m.average_score
+            """;
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setArray(1, c.createArrayOf("uuid", idList.toArray()));
+            ps.setArray(2, c.createArrayOf("float8", scores));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.put((UUID) rs.getObject(1), rs.getDouble(2));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException("updateAverageScores failed", ex);
+        }
+        return out;
+    }
+
+    /**
+     * Entries whose stored average_score no longer matches their ratings
+     * (e.g. a crash between the rating insert and the score update).
+     * Read only: the caller repairs them through updateAverageScores of the
+     * decorated repository, so caches and other nodes see the new scores.
+     */
+    public List<UUID> findStaleAverageScores() {
+        if (shardedRatings != null) return findStaleAverageScoresOnShards();
+
+        String sql = """
+            SELECT m.id
+            FROM media_entries m
+            LEFT JOIN (SELECT media_id, AVG(stars) AS avg FROM ratings GROUP BY media_id) r
+                   ON r.media_id = m.id
+            WHERE abs(m.average_score - COALESCE(r.avg, 0)::float8) > 1e-9
+            """;
+        List<UUID> out = new ArrayList<>();
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) out.add((UUID) rs.getObject(1));
+        } catch (SQLException ex) {
+            throw new RuntimeException("findStaleAverageScores failed", ex);
+        }
+        return out;
+    }
+
+    // Stored scores compared chunk by chunk with the averages on the shards
+    private List<UUID> findStaleAverageScoresOnShards() {
+        List<UUID> out = new ArrayList<>();
+        Map<UUID, Double> chunk = new HashMap<>();
+        try (Connection c = ConnectionFactory.get()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement("SELECT id, average_score FROM media_entries")) {
+                ps.setFetchSize(1000);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        chunk.put((UUID) rs.getObject(1), rs.getDouble(2));
+                        if (chunk.size() == 1000) {
+                            collectStale(chunk, out);
+                            chunk.clear();
+                        }
+                    }
+                }
+            } finally {
+                c.rollback();
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException("findStaleAverageScores failed", ex);
+        }
+        collectStale(chunk, out);
+        return out;
+    }
+
+    private void collectStale(Map<UUID, Double> stored, List<UUID> out) {
+        if (stored.isEmpty()) return;
+        Map<UUID, Double> actual = shardedRatings.averageStars(stored.keySet());
+        stored.forEach((id, score) -> {
+            if (Math.abs(score - actual.getOrDefault(id, 0.0)) > 1e-9) out.add(id);
+        });
+    }
+
+    @Override
+    public long catalogVersion() {
+        return ResourceVersions.get("catalog");
+    }
+
+    @Override
+    public long featuresVersion() {
+        return ResourceVersions.get("catalog-features");
+    }
+
+    @Override
+    public String searchVersion() {
+        return String.valueOf(catalogVersion());
+    }
+
+    private void setGenreIds(PreparedStatement ps, int index, List<String> names, Connection c) throws SQLException {
+        Integer[] ids = genres.idsFor(names, c);
+        if (ids == null) ps.setNull(index, Types.ARRAY);
+        else ps.setArray(index, c.createArrayOf("int4", ids));
+    }
+
     private MediaEntry map(ResultSet rs) throws SQLException {
         UUID id = (UUID) rs.getObject("id");
         UUID creatorId = (UUID) rs.getObject("creator_id");
@@ -213,13 +411,8 @@ public class JdbcMediaRepository implements MediaRepository {
         String mt = rs.getString("media_type");
         Integer year = (Integer) rs.getObject("release_year");
 
-        Array genresArr = rs.getArray("genres");
-        List<String> genres = null;
-        if (genresArr != null) {
-            Object[] arr = (Object[]) genresArr.getArray();
-            genres = new ArrayList<>();
-            for (Object o : arr) genres.add((String) o);
-        }
+        // shared, immutable list of interned names (see GenreDictionary)
+        List<String> genreNames = genres.namesOf(rs.getArray("genre_ids"));
 
         Integer age = (Integer) rs.getObject("age_restriction");
         Double avg = (Double) rs.getObject("average_score");
@@ -229,7 +422,7 @@ public class JdbcMediaRepository implements MediaRepository {
         return new MediaEntry(
                 id, creatorId, title, description,
                 mt != null ? MediaType.valueOf(mt) : null,
-                year, genres, age, avg, created, updated
+                year, genreNames, age, avg, created, updated
         );
     }
 }
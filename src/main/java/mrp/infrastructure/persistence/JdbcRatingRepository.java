@@ -1,19 +1,50 @@
 package mrp.infrastructure.persistence;
 
 import mrp.domain.model.Rating;
+import mrp.domain.model.enums.RatingSort;
+import mrp.domain.ports.RatingCursor;
+import mrp.domain.ports.RatingPageRequest;
 import mrp.domain.ports.RatingRepository;
-import mrp.infrastructure.config.ConnectionFactory;
+import mrp.infrastructure.config.ConnectionSource;
 import mrp.infrastructure.util.UUIDv7;
 
 import java.sql.*;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public class JdbcRatingRepository implements RatingRepository {
 
+    // 8 parameters per row; stays far below the 32767 bind parameters of the protocol
+    private static final int INSERT_CHUNK = 500;
+    // tolerated clock step between id generation and created_at (partition pruning bound)
+    private static final Duration ID_CLOCK_MARGIN = Duration.ofDays(1);
+
+    private final ConnectionSource db;
+    // rating shard (see db/shards): no media_entries, unique (media_id, user_id) directly on ratings.
+    // Main database: ratings is partitioned and the uniqueness lives in rating_keys
+    // (007_ratings_partitioning.sql).
+    private final boolean shard;
+
+    public JdbcRatingRepository() {
+        this(ConnectionSource.PRIMARY, false);
+    }
+
+    JdbcRatingRepository(ConnectionSource db, boolean shard) {
+        if (db == null) throw new IllegalArgumentException("db null");
+        this.db = db;
+        this.shard = shard;
+    }
+
     @Override
     public Rating create(Rating rating) {
         if (rating == null) {
@@ -23,22 +54,34 @@ public class JdbcRatingRepository implements RatingRepository {
         UUID id = UUIDv7.randomUUID();
         Instant now = Instant.now();
 
-        String sql = """
+        String insert = """
             INSERT INTO ratings (id, media_id, user_id, stars, comment, comment_confirmed, created_at, like_count)
             VALUES (?,?,?,?,?,?,?,?)
             """;
-
-        try (Connection c = ConnectionFactory.get();
+        // a duplicate fails on the rating_keys primary key (same constraint name as before)
+        String sql = shard ? insert : """
+            WITH k AS (
+                INSERT INTO rating_keys (media_id, user_id, rating_id) VALUES (?,?,?)
+            )
+            """ + insert;
+
+        try (Connection c = db.get();
              PreparedStatement ps = c.prepareStatement(sql)) {
 
-            ps.setObject(1, id);
-            ps.setObject(2, rating.getMediaId());
-            ps.setObject(3, rating.getUserId());
-            ps.setInt(4, rating.getStars());
-            ps.setString(5, rating.getComment());
-            ps.setBoolean(6, rating.isCommentConfirmed());
-            ps.setTimestamp(7, Timestamp.from(now));
-            ps.setInt(8, rating.getLikeCount());
+            int p = 1;
+            if (!shard) {
+                ps.setObject(p++, rating.getMediaId());
+                ps.setObject(p++, rating.getUserId());
+                ps.setObject(p++, id);
+            }
+            ps.setObject(p++, id);
+            ps.setObject(p++, rating.getMediaId());
+            ps.setObject(p++, rating.getUserId());
+            ps.setInt(p++, rating.getStars());
+            ps.setString(p++, rating.getComment());
+            ps.setBoolean(p++, rating.isCommentConfirmed());
+            ps.setTimestamp(p++, Timestamp.from(now));
+            ps.setInt(p, rating.getLikeCount());
 
             ps.executeUpdate();
 
@@ -69,6 +112,83 @@ public class JdbcRatingRepository implements RatingRepository {
         }
     }
 
+    @Override
+    public List<Rating> createAll(List<Rating> ratings) {
+        List<Rating> created = new ArrayList<>();
+        if (ratings == null || ratings.isEmpty()) {
+            return created;
+        }
+
+        Instant now = Instant.now();
+        try (Connection c = db.get()) {
+            c.setAutoCommit(false);
+            try {
+                for (int from = 0; from < ratings.size(); from += INSERT_CHUNK) {
+                    List<Rating> chunk = ratings.subList(from, Math.min(ratings.size(), from + INSERT_CHUNK));
+                    insertChunk(c, chunk, now, created);
+                }
+                c.commit();
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("create ratings failed", e);
+        }
+        return created;
+    }
+
+    // One multi-row INSERT; duplicates are skipped by the unique constraint instead of failing the statement
+    private void insertChunk(Connection c, List<Rating> chunk, Instant now, List<Rating> created) throws SQLException {
+        StringBuilder sql = new StringBuilder();
+        if (shard) {
+            sql.append("INSERT INTO ratings (id, media_id, user_id, stars, comment, comment_confirmed, created_at, like_count) VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ",").append("(?,?,?,?,?,?,?,?)");
+            }
+            sql.append("""
+                     ON CONFLICT ON CONSTRAINT ux_user_media_unique_rating DO NOTHING
+                    RETURNING id, media_id, user_id, stars, comment, comment_confirmed, created_at, like_count
+                    """);
+        } else {
+            // partitioned ratings: claim the (media, user) keys first, insert only the claimed rows
+            sql.append("WITH v (id, media_id, user_id, stars, comment, comment_confirmed, created_at, like_count) AS (VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ",").append("(?::uuid,?::uuid,?::uuid,?::int,?::text,?::boolean,?::timestamptz,?::int)");
+            }
+            sql.append("""
+                    ), k AS (
+                        INSERT INTO rating_keys (media_id, user_id, rating_id)
+                        SELECT media_id, user_id, id FROM v
+                        ON CONFLICT ON CONSTRAINT ux_user_media_unique_rating DO NOTHING
+                        RETURNING rating_id
+                    )
+                    INSERT INTO ratings (id, media_id, user_id, stars, comment, comment_confirmed, created_at, like_count)
+                    SELECT v.* FROM v JOIN k ON k.rating_id = v.id
+                    RETURNING id, media_id, user_id, stars, comment, comment_confirmed, created_at, like_count
+                    """);
+        }
+
+        try (PreparedStatement ps = c.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (Rating r : chunk) {
+                ps.setObject(p++, r.getId());
+                ps.setObject(p++, r.getMediaId());
+                ps.setObject(p++, r.getUserId());
+                ps.setInt(p++, r.getStars());
+                ps.setString(p++, r.getComment());
+                ps.setBoolean(p++, r.isCommentConfirmed());
+                ps.setTimestamp(p++, Timestamp.from(now));
+                ps.setInt(p++, r.getLikeCount());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    created.add(map(rs));
+                }
+            }
+        }
+    }
+
     @Override
     public Optional<Rating> findById(UUID id) {
         if (id == null) {
@@ -82,7 +202,7 @@ public class JdbcRatingRepository implements RatingRepository {
             WHERE id=?
             """;
 
-        try (Connection c = ConnectionFactory.get();
+        try (Connection c = db.get();
              PreparedStatement ps = c.prepareStatement(sql)) {
 
             ps.setObject(1, id);
@@ -114,7 +234,7 @@ public class JdbcRatingRepository implements RatingRepository {
 
         List<Rating> result = new ArrayList<>();
 
-        try (Connection c = ConnectionFactory.get();
+        try (Connection c = db.getReadOnly();
              PreparedStatement ps = c.prepareStatement(sql)) {
 
             ps.setObject(1, userId);
@@ -147,7 +267,8 @@ public class JdbcRatingRepository implements RatingRepository {
 
         List<Rating> result = new ArrayList<>();
 
-        try (Connection c = ConnectionFactory.get();
+        // primary, not a replica: feeds the average score recalculation right after a write
+        try (Connection c = db.get();
              PreparedStatement ps = c.prepareStatement(sql)) {
 
             ps.setObject(1, mediaId);
@@ -164,6 +285,102 @@ public class JdbcRatingRepository implements RatingRepository {
         return result;
     }
 
+    @Override
+    public List<Rating> listByUser(UUID userId, RatingPageRequest page) {
+        if (userId == null) {
+            return List.of();
+        }
+        return listPage("user_id", userId, page, "listByUser page failed");
+    }
+
+    @Override
+    public List<Rating> listByMedia(UUID mediaId, RatingPageRequest page) {
+        if (mediaId == null) {
+            return List.of();
+        }
+        return listPage("media_id", mediaId, page, "listByMedia page failed");
+    }
+
+    /**
+     * Keyset-Pagination über (sortKey, id).
+     * Die Sortierungen passen zu den Indizes idx_ratings_{media,user}_* (siehe 002_rating_pagination.sql),
+     * dadurch liest Postgres nur die angeforderte Seite statt alle Ratings.
+     */
+    private List<Rating> listPage(String ownerColumn, UUID ownerId, RatingPageRequest page, String errorMessage) {
+        if (page == null) {
+            page = RatingPageRequest.firstPage();
+        }
+
+        String keyColumn = switch (page.getSort()) {
+            case NEWEST -> "created_at";
+            case MOST_LIKED -> "like_count";
+            case HIGHEST_STARS -> "stars";
+        };
+
+        RatingCursor cursor = page.getCursor() == null ? null : RatingCursor.decode(page.getCursor(), page.getSort());
+
+        // newest: the id (UUIDv7, generated before created_at is taken) is bounded by the cursor too;
+        // redundant for the result, but lets the planner skip newer partitions (007_ratings_partitioning.sql).
+        // Only v7 partitions follow that order: ratings_default also keeps ids from before the migration
+        // (UUIDv4), so its rows above the bound are read by a second, unbounded branch.
+        // Shards are not partitioned and skip the bound.
+        boolean idBound = !shard && cursor != null && page.getSort() == RatingSort.NEWEST;
+        String order = " ORDER BY " + keyColumn + " DESC, id DESC LIMIT ?";
+
+        String sql;
+        if (idBound) {
+            sql = "SELECT * FROM ((" + pageSelect("ratings", ownerColumn, keyColumn, true) + " AND id < ?" + order
+                    + ") UNION ALL (" + pageSelect("ratings_default", ownerColumn, keyColumn, true) + " AND id >= ?" + order
+                    + ")) p" + order;
+        } else {
+            sql = pageSelect("ratings", ownerColumn, keyColumn, cursor != null) + order;
+        }
+
+        List<Rating> result = new ArrayList<>();
+
+        try (Connection c = db.getReadOnly();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            int i = 1;
+            int branches = idBound ? 2 : 1;
+            for (int b = 0; b < branches; b++) {
+                ps.setObject(i++, ownerId);
+                if (cursor != null) {
+                    if (page.getSort() == RatingSort.NEWEST) {
+                        ps.setTimestamp(i++, Timestamp.from(cursor.keyAsInstant()));
+                    } else {
+                        ps.setInt(i++, (int) cursor.getKey());
+                    }
+                    ps.setObject(i++, cursor.getId());
+                }
+                if (idBound) {
+                    ps.setObject(i++, UUIDv7.lowerBound(cursor.keyAsInstant().plus(ID_CLOCK_MARGIN)));
+                    ps.setInt(i++, page.getLimit());
+                }
+            }
+            ps.setInt(i, page.getLimit());
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(errorMessage, e);
+        }
+
+        return result;
+    }
+
+    private static String pageSelect(String table, String ownerColumn, String keyColumn, boolean afterCursor) {
+        String sql = """
+            SELECT id, media_id, user_id, stars, comment,
+                   comment_confirmed, created_at, like_count
+            FROM""" + ' ' + table + " WHERE " + ownerColumn + " = ?";
+        if (afterCursor) sql += " AND (" + keyColumn + ", id) < (?, ?)";
+        return sql;
+    }
+
     @Override
     public void update(UUID ratingId, UUID actorUserId, int stars, String comment) {
         if (ratingId == null || actorUserId == null) {
@@ -184,7 +401,7 @@ public class JdbcRatingRepository implements RatingRepository {
             WHERE id = ? AND user_id = ?
             """;
 
-        try (Connection c = ConnectionFactory.get();
+        try (Connection c = db.get();
              PreparedStatement ps = c.prepareStatement(sql)) {
 
             ps.setInt(1, stars);
@@ -210,7 +427,7 @@ public class JdbcRatingRepository implements RatingRepository {
 
         String sql = "DELETE FROM ratings WHERE id = ? AND user_id = ?";
 
-        try (Connection c = ConnectionFactory.get();
+        try (Connection c = db.get();
              PreparedStatement ps = c.prepareStatement(sql)) {
 
             ps.setObject(1, ratingId);
@@ -226,6 +443,211 @@ public class JdbcRatingRepository implements RatingRepository {
         }
     }
 
+    @Override
+    public Optional<ListVersion> mediaRatingsVersion(UUID mediaId) {
+        if (mediaId == null) {
+            return Optional.empty();
+        }
+
+        // derived from the rows (009_version_counters.sql): every insert/update draws a new
+        // row_version, a delete lowers the count; no counter row that writers would queue on
+        String sql = shard
+                ? "SELECT count(*), COALESCE(sum(row_version), 0)::bigint FROM ratings WHERE media_id = ?"
+                : """
+                  SELECT r.n, r.s
+                  FROM media_entries m
+                  CROSS JOIN LATERAL (
+                      SELECT count(*) AS n, COALESCE(sum(row_version), 0)::bigint AS s
+                      FROM ratings WHERE media_id = m.id
+                  ) r
+                  WHERE m.id = ?
+                  """;
+
+        try (Connection c = db.getReadOnly();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            ps.setObject(1, mediaId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                // a shard does not know which media exist; it always returns one row
+                if (!rs.next()) return Optional.empty();
+                return Optional.of(new ListVersion(rs.getLong(1), rs.getLong(2)));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("mediaRatingsVersion failed", e);
+        }
+    }
+
+    @Override
+    public void forEachRating(Consumer<Rating> consumer) {
+        String sql = """
+            SELECT id, media_id, user_id, stars, comment,
+                   comment_confirmed, created_at, like_count
+            FROM ratings
+            """;
+
+        try (Connection c = db.get()) {
+            // cursor-based fetch: PostgreSQL only honours fetchSize outside autocommit
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(1000);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(map(rs));
+                    }
+                }
+            } finally {
+                c.rollback();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("forEachRating failed", e);
+        }
+    }
+
+    @Override
+    public Set<UUID> ratedMediaIds(UUID userId, Collection<UUID> mediaIds) {
+        Set<UUID> out = new HashSet<>();
+        if (userId == null || mediaIds == null || mediaIds.isEmpty()) {
+            return out;
+        }
+
+        // served by the (media_id, user_id) key: the primary key of rating_keys on the main
+        // database, the unique constraint on ratings on a shard
+        String sql = shard
+                ? "SELECT media_id FROM ratings WHERE user_id = ? AND media_id = ANY(?)"
+                : "SELECT media_id FROM rating_keys WHERE user_id = ? AND media_id = ANY(?)";
+
+        try (Connection c = db.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            ps.setObject(1, userId);
+            ps.setArray(2, c.createArrayOf("uuid", mediaIds.toArray()));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add((UUID) rs.getObject(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("ratedMediaIds failed", e);
+        }
+        return out;
+    }
+
+    @Override
+    public Map<UUID, Integer> ratingCountsByMedia() {
+        String sql = "SELECT media_id, count(*) FROM ratings GROUP BY media_id";
+
+        Map<UUID, Integer> out = new HashMap<>();
+        try (Connection c = db.get();
+             PreparedStatement ps = c.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                out.put((UUID) rs.getObject(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("ratingCountsByMedia failed", e);
+        }
+        return out;
+    }
+
+    // ---- shard support (ShardedRatingRepository) ----
+
+    /**
+     * Average stars per media (only media with ratings).
+     */
+    Map<UUID, Double> averageStars(Collection<UUID> mediaIds) {
+        Map<UUID, Double> out = new HashMap<>();
+        if (mediaIds == null || mediaIds.isEmpty()) {
+            return out;
+        }
+
+        String sql = "SELECT media_id, AVG(stars) FROM ratings WHERE media_id = ANY(?) GROUP BY media_id";
+
+        try (Connection c = db.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setArray(1, c.createArrayOf("uuid", mediaIds.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.put((UUID) rs.getObject(1), rs.getDouble(2));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("averageStars failed", e);
+        }
+        return out;
+    }
+
+    /**
+     * Anzahl Ratings pro User (nur User mit mindestens einem Rating).
+     */
+    Map<UUID, Integer> ratingCountsByUser() {
+        String sql = "SELECT user_id, count(*) FROM ratings GROUP BY user_id";
+
+        Map<UUID, Integer> out = new HashMap<>();
+        try (Connection c = db.getReadOnly();
+             PreparedStatement ps = c.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                out.put((UUID) rs.getObject(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("ratingCountsByUser failed", e);
+        }
+        return out;
+    }
+
+    long leaderboardVersion() {
+        return ResourceVersions.get(db, "leaderboard");
+    }
+
+    /**
+     * Sets like_count of the media's ratings to the number of rows in
+     * rating_likes where they differ. addLike/removeLike change both in one
+     * transaction; they drift through changes that bypass them, e.g. a user
+     * deleted on the main database takes their likes with it (ON DELETE
+     * CASCADE) without lowering like_count, or rows fixed or restored by hand.
+     *
+     * @return number of corrected ratings
+     */
+    public int reconcileLikeCounts(UUID mediaId) {
+        if (mediaId == null) throw new IllegalArgumentException("mediaId null");
+        String sql = """
+            UPDATE ratings r
+            SET like_count = c.n
+            FROM (SELECT r2.id, count(l.rating_id)::int AS n
+                  FROM ratings r2
+                  LEFT JOIN rating_likes l ON l.rating_id = r2.id
+                  WHERE r2.media_id = ?
+                  GROUP BY r2.id) c
+            WHERE r.id = c.id AND r.like_count <> c.n
+            """;
+
+        try (Connection c = db.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setObject(1, mediaId);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("reconcileLikeCounts failed", e);
+        }
+    }
+
+    /**
+     * Removes all ratings (and their likes) of a deleted media; on the main
+     * database ON DELETE CASCADE does this.
+     */
+    void deleteByMedia(UUID mediaId) {
+        String sql = "DELETE FROM ratings WHERE media_id = ?";
+
+        try (Connection c = db.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setObject(1, mediaId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("deleteByMedia failed", e);
+        }
+    }
+
     private Rating map(ResultSet rs) throws SQLException {
         UUID id = (UUID) rs.getObject("id");
         UUID mediaId = (UUID) rs.getObject("media_id");
@@ -257,7 +679,7 @@ public class JdbcRatingRepository implements RatingRepository {
                 WHERE id = ? AND user_id = ? AND COMMENT IS NOT NULL
                 """;
 
-        try (Connection c = ConnectionFactory.get()){
+        try (Connection c = db.get()){
             PreparedStatement ps = c.prepareStatement(sql);
 
             ps.setObject(1, ratingId);
@@ -272,7 +694,7 @@ public class JdbcRatingRepository implements RatingRepository {
         String insert = "INSERT INTO rating_likes (rating_id, user_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
         String inc = "UPDATE ratings SET like_count = like_count + 1 WHERE id = ?";
 
-        try (Connection c = ConnectionFactory.get()) {
+        try (Connection c = db.get()) {
             c.setAutoCommit(false);
 
             int inserted;
@@ -310,7 +732,7 @@ public class JdbcRatingRepository implements RatingRepository {
         String del = "DELETE FROM rating_likes WHERE rating_id = ? AND user_id = ?";
         String dec = "UPDATE ratings SET like_count = GREATEST(like_count - 1, 0) WHERE id = ?";
 
-        try (Connection c = ConnectionFactory.get()) {
+        try (Connection c = db.get()) {
             c.setAutoCommit(false);
 
             int removed;
@@ -0,0 +1,193 @@
+package mrp.infrastructure.persistence;
+
+import mrp.domain.model.UserPreferences;
+import mrp.domain.model.enums.MediaType;
+import mrp.domain.ports.UserPreferenceRepository;
+import mrp.infrastructure.config.ConnectionFactory;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public class JdbcUserPreferenceRepository implements UserPreferenceRepository {
+
+    private static final String COLUMNS =
+            "user_id, genre_names, genre_weights, type_names, type_weights, age_counts, positive_count, version";
+
+    @Override
+    public Optional<UserPreferences> find(UUID userId) {
+        if (userId == null) return Optional.empty();
+
+        String sql = "SELECT " + COLUMNS + " FROM user_preferences WHERE user_id = ?";
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setObject(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(map(rs)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("find user preferences failed", e);
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(UserPreferences prefs) {
+        String sql = """
+            INSERT INTO user_preferences (user_id, genre_names, genre_weights, type_names,
+                                          type_weights, age_counts, positive_count)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id) DO NOTHING
+            """;
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setObject(1, prefs.getUserId());
+            bind(c, ps, 2, prefs);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new RuntimeException("insert user preferences failed", e);
+        }
+    }
+
+    @Override
+    public boolean update(UUID userId, Consumer<UserPreferences> change) {
+        String select = "SELECT " + COLUMNS + " FROM user_preferences WHERE user_id = ? FOR UPDATE";
+        String update = """
+            UPDATE user_preferences
+            SET genre_names = ?, genre_weights = ?, type_names = ?, type_weights = ?,
+                age_counts = ?, positive_count = ?, version = version + 1, updated_at = now()
+            WHERE user_id = ?
+            """;
+
+        try (Connection c = ConnectionFactory.get()) {
+            c.setAutoCommit(false);
+            try {
+                UserPreferences prefs;
+                try (PreparedStatement ps = c.prepareStatement(select)) {
+                    ps.setObject(1, userId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
+                            c.rollback();
+                            return false;
+                        }
+                        prefs = map(rs);
+                    }
+                }
+
+                change.accept(prefs);
+
+                try (PreparedStatement ps = c.prepareStatement(update)) {
+                    bind(c, ps, 1, prefs);
+                    ps.setObject(7, userId);
+                    ps.executeUpdate();
+                }
+                c.commit();
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("update user preferences failed", e);
+        }
+    }
+
+    @Override
+    public boolean replace(UserPreferences prefs, long expectedVersion) {
+        String sql = """
+            UPDATE user_preferences
+            SET genre_names = ?, genre_weights = ?, type_names = ?, type_weights = ?,
+                age_counts = ?, positive_count = ?, version = version + 1, updated_at = now()
+            WHERE user_id = ? AND version = ?
+            """;
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            bind(c, ps, 1, prefs);
+            ps.setObject(7, prefs.getUserId());
+            ps.setLong(8, expectedVersion);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new RuntimeException("replace user preferences failed", e);
+        }
+    }
+
+    @Override
+    public void delete(UUID userId) {
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement("DELETE FROM user_preferences WHERE user_id = ?")) {
+            ps.setObject(1, userId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("delete user preferences failed", e);
+        }
+    }
+
+    // binds the six profile columns starting at index `from`
+    private void bind(Connection c, PreparedStatement ps, int from, UserPreferences p) throws SQLException {
+        Map<String, Integer> genres = p.getGenreWeights();
+        String[] genreNames = genres.keySet().toArray(new String[0]);
+        Integer[] genreWeights = new Integer[genreNames.length];
+        for (int i = 0; i < genreNames.length; i++) genreWeights[i] = genres.get(genreNames[i]);
+
+        Map<MediaType, Integer> types = p.getTypeWeights();
+        String[] typeNames = new String[types.size()];
+        Integer[] typeWeights = new Integer[types.size()];
+        int i = 0;
+        for (Map.Entry<MediaType, Integer> e : types.entrySet()) {
+            typeNames[i] = e.getKey().name();
+            typeWeights[i++] = e.getValue();
+        }
+
+        int[] ages = p.getAgeCounts();
+        Integer[] ageCounts = new Integer[ages.length];
+        for (int a = 0; a < ages.length; a++) ageCounts[a] = ages[a];
+
+        ps.setArray(from, c.createArrayOf("text", genreNames));
+        ps.setArray(from + 1, c.createArrayOf("int4", genreWeights));
+        ps.setArray(from + 2, c.createArrayOf("text", typeNames));
+        ps.setArray(from + 3, c.createArrayOf("int4", typeWeights));
+        ps.setArray(from + 4, c.createArrayOf("int4", ageCounts));
+        ps.setInt(from + 5, p.getPositiveCount());
+    }
+
+    private UserPreferences map(ResultSet rs) throws SQLException {
+        UserPreferences p = new UserPreferences((UUID) rs.getObject("user_id"));
+
+        String[] genreNames = strings(rs.getArray("genre_names"));
+        Integer[] genreWeights = ints(rs.getArray("genre_weights"));
+        for (int i = 0; i < genreNames.length && i < genreWeights.length; i++) {
+            p.getGenreWeights().put(genreNames[i], genreWeights[i]);
+        }
+
+        String[] typeNames = strings(rs.getArray("type_names"));
+        Integer[] typeWeights = ints(rs.getArray("type_weights"));
+        for (int i = 0; i < typeNames.length && i < typeWeights.length; i++) {
+            try {
+                p.getTypeWeights().put(MediaType.valueOf(typeNames[i]), typeWeights[i]);
+            } catch (IllegalArgumentException ignored) {
+                // unknown type name (enum changed): drop the weight
+            }
+        }
+
+        Integer[] ages = ints(rs.getArray("age_counts"));
+        int[] target = p.getAgeCounts();
+        for (int a = 0; a < ages.length && a < target.length; a++) target[a] = ages[a];
+
+        p.setPositiveCount(rs.getInt("positive_count"));
+        p.setVersion(rs.getLong("version"));
+        return p;
+    }
+
+    private static String[] strings(Array a) throws SQLException {
+        return a == null ? new String[0] : (String[]) a.getArray();
+    }
+
+    private static Integer[] ints(Array a) throws SQLException {
+        return a == null ? new Integer[0] : (Integer[]) a.getArray();
+    }
+}
@@ -10,11 +10,23 @@ import java.util.ArrayList;
 import java.util.List;
 import java.sql.*;
 import java.time.Instant;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 public class JdbcUserRepository implements UserRepository {
 
+    // set when ratings live on shards instead of this database
+    private ShardedRatingRepository shardedRatings;
+
+    public JdbcUserRepository() {
+        this(null);
+    }
+
+    public JdbcUserRepository(ShardedRatingRepository shardedRatings) {
+        this.shardedRatings = shardedRatings;
+    }
+
     @Override
     public User create(String username, String passwordHash) {
         UUID id = UUIDv7.randomUUID();
@@ -96,6 +108,7 @@ public class JdbcUserRepository implements UserRepository {
     public List<LeaderboardEntry> leaderboardByRatings(int limit, int offset) {
         int safeLimit = limit <= 0 ? 10 : Math.min(limit, 100);
         int safeOffset = Math.max(offset, 0);
+        if (shardedRatings != null) return leaderboardFromShards(safeLimit, safeOffset);
 
         String sql = """
         SELECT u.id, u.username, COUNT(r.id) AS rating_count
@@ -108,7 +121,7 @@ public class JdbcUserRepository implements UserRepository {
 
         List<LeaderboardEntry> result = new ArrayList<>();
 
-        try (Connection c = ConnectionFactory.get();
+        try (Connection c = ConnectionFactory.getReadOnly();
              PreparedStatement ps = c.prepareStatement(sql)) {
 
             ps.setInt(1, safeLimit);
@@ -130,6 +143,49 @@ public class JdbcUserRepository implements UserRepository {
     }
 
 
+    // Counts come from the rating shards; order and usernames (incl. users without ratings) from users
+    private List<LeaderboardEntry> leaderboardFromShards(int limit, int offset) {
+        Map<UUID, Integer> counts = shardedRatings.ratingCountsByUser();
+        List<UUID> userIds = new ArrayList<>(counts.keySet());
+        Integer[] ratingCounts = new Integer[userIds.size()];
+        for (int i = 0; i < ratingCounts.length; i++) ratingCounts[i] = counts.get(userIds.get(i));
+
+        String sql = """
+        SELECT u.id, u.username, COALESCE(c.rating_count, 0) AS rating_count
+        FROM users u
+        LEFT JOIN unnest(?::uuid[], ?::int[]) AS c(user_id, rating_count) ON c.user_id = u.id
+        ORDER BY rating_count DESC, u.username ASC
+        LIMIT ? OFFSET ?
+        """;
+
+        List<LeaderboardEntry> result = new ArrayList<>();
+
+        try (Connection c = ConnectionFactory.getReadOnly();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            ps.setArray(1, c.createArrayOf("uuid", userIds.toArray()));
+            ps.setArray(2, c.createArrayOf("int4", ratingCounts));
+            ps.setInt(3, limit);
+            ps.setInt(4, offset);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new LeaderboardEntry((UUID) rs.getObject("id"), rs.getString("username"), rs.getInt("rating_count")));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new RuntimeException("leaderboardByRatings failed", e);
+        }
+    }
+
+    @Override
+    public long leaderboardVersion() {
+        long version = ResourceVersions.get("leaderboard");
+        // user changes bump the counter here, rating inserts/deletes the counters on the shards
+        return shardedRatings == null ? version : version + shardedRatings.leaderboardVersion();
+    }
+
     private User map(ResultSet rs) throws SQLException {
         UUID id = (UUID) rs.getObject("id");
         String username = rs.getString("username");
@@ -0,0 +1,85 @@
+package mrp.infrastructure.persistence;
+
+import mrp.domain.model.MediaEntry;
+import mrp.domain.ports.MediaRepository;
+import mrp.domain.ports.MediaSearch;
+import mrp.infrastructure.cluster.InvalidationBus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * MediaRepository decorator that announces successful writes on the
+ * InvalidationBus so other nodes can evict their cached copies.
+ * Reads are passed through unchanged.
+ */
+public class NotifyingMediaRepository implements MediaRepository {
+
+    private MediaRepository delegate;
+    private InvalidationBus bus;
+
+    public NotifyingMediaRepository(MediaRepository delegate, InvalidationBus bus) {
+        if (delegate == null) throw new IllegalArgumentException("delegate null");
+        if (bus == null) throw new IllegalArgumentException("bus null");
+        this.delegate = delegate;
+        this.bus = bus;
+    }
+
+    @Override
+    public MediaEntry save(MediaEntry entry) {
+        MediaEntry saved = delegate.save(entry);
+        bus.publish(InvalidationBus.Topic.MEDIA_SAVED, saved.getId());
+        return saved;
+    }
+
+    @Override
+    public boolean update(MediaEntry entry) {
+        boolean ok = delegate.update(entry);
+        if (ok) bus.publish(InvalidationBus.Topic.MEDIA_SAVED, entry.getId());
+        return ok;
+    }
+
+    @Override
+    public boolean delete(UUID id) {
+        boolean ok = delegate.delete(id);
+        if (ok) bus.publish(InvalidationBus.Topic.MEDIA_DELETED, id);
+        return ok;
+    }
+
+    @Override
+    public Map<UUID, Double> updateAverageScores(Collection<UUID> ids) {
+        Map<UUID, Double> scores = delegate.updateAverageScores(ids);
+        for (UUID id : scores.keySet()) bus.publish(InvalidationBus.Topic.MEDIA_SAVED, id);
+        return scores;
+    }
+
+    // ---- pass-through ----
+
+    @Override
+    public Optional<MediaEntry> findById(UUID id) { return delegate.findById(id); }
+
+    @Override
+    public List<MediaEntry> findByIds(Collection<UUID> ids) { return delegate.findByIds(ids); }
+
+    @Override
+    public List<MediaEntry> search(MediaSearch search) { return delegate.search(search); }
+
+    @Override
+    public boolean isOwner(UUID mediaId, UUID userId) { return delegate.isOwner(mediaId, userId); }
+
+    @Override
+    public long catalogVersion() { return delegate.catalogVersion(); }
+
+    @Override
+    public long featuresVersion() { return delegate.featuresVersion(); }
+
+    @Override
+    public String searchVersion() { return delegate.searchVersion(); }
+
+    @Override
+    public void forEachEntry(Consumer<MediaEntry> consumer) { delegate.forEachEntry(consumer); }
+}
@@ -0,0 +1,105 @@
+package mrp.infrastructure.persistence;
+
+import mrp.domain.model.Rating;
+import mrp.domain.ports.PartialCreateException;
+import mrp.domain.ports.RatingPageRequest;
+import mrp.domain.ports.RatingRepository;
+import mrp.infrastructure.cluster.InvalidationBus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * RatingRepository decorator that announces created and deleted ratings
+ * (keyed by media id) on the InvalidationBus; caches of other nodes use
+ * them for per-media vote counts. Score changes travel as media messages
+ * (see NotifyingMediaRepository), so updates and likes are not announced.
+ */
+public class NotifyingRatingRepository implements RatingRepository {
+
+    private RatingRepository delegate;
+    private InvalidationBus bus;
+
+    public NotifyingRatingRepository(RatingRepository delegate, InvalidationBus bus) {
+        if (delegate == null) throw new IllegalArgumentException("delegate null");
+        if (bus == null) throw new IllegalArgumentException("bus null");
+        this.delegate = delegate;
+        this.bus = bus;
+    }
+
+    @Override
+    public Rating create(Rating rating) {
+        Rating saved = delegate.create(rating);
+        bus.publish(InvalidationBus.Topic.RATING_CREATED, saved.getMediaId());
+        return saved;
+    }
+
+    @Override
+    public List<Rating> createAll(List<Rating> ratings) {
+        List<Rating> created;
+        try {
+            created = delegate.createAll(ratings);
+        } catch (PartialCreateException e) {
+            for (Rating r : e.getCreated()) bus.publish(InvalidationBus.Topic.RATING_CREATED, r.getMediaId());
+            throw e;
+        }
+        for (Rating r : created) bus.publish(InvalidationBus.Topic.RATING_CREATED, r.getMediaId());
+        return created;
+    }
+
+    @Override
+    public void delete(UUID ratingId, UUID actorUserId) {
+        // the delete statement does not return the media id
+        Optional<Rating> existing = delegate.findById(ratingId);
+        delegate.delete(ratingId, actorUserId);
+        existing.ifPresent(r -> bus.publish(InvalidationBus.Topic.RATING_DELETED, r.getMediaId()));
+    }
+
+    // ---- pass-through ----
+
+    @Override
+    public Optional<Rating> findById(UUID id) { return delegate.findById(id); }
+
+    @Override
+    public List<Rating> listByUser(UUID userId) { return delegate.listByUser(userId); }
+
+    @Override
+    public List<Rating> listByMedia(UUID mediaId) { return delegate.listByMedia(mediaId); }
+
+    @Override
+    public List<Rating> listByUser(UUID userId, RatingPageRequest page) { return delegate.listByUser(userId, page); }
+
+    @Override
+    public List<Rating> listByMedia(UUID mediaId, RatingPageRequest page) { return delegate.listByMedia(mediaId, page); }
+
+    @Override
+    public void update(UUID ratingId, UUID actorUserId, int stars, String comment) {
+        delegate.update(ratingId, actorUserId, stars, comment);
+    }
+
+    @Override
+    public boolean confirmComment(UUID ratingId, UUID actorUserId) { return delegate.confirmComment(ratingId, actorUserId); }
+
+    @Override
+    public boolean addLike(UUID ratingId, UUID likerUserId) { return delegate.addLike(ratingId, likerUserId); }
+
+    @Override
+    public boolean removeLike(UUID ratingId, UUID likerUserId) { return delegate.removeLike(ratingId, likerUserId); }
+
+    @Override
+    public Optional<ListVersion> mediaRatingsVersion(UUID mediaId) { return delegate.mediaRatingsVersion(mediaId); }
+
+    @Override
+    public void forEachRating(Consumer<Rating> consumer) { delegate.forEachRating(consumer); }
+
+    @Override
+    public Set<UUID> ratedMediaIds(UUID userId, Collection<UUID> mediaIds) { return delegate.ratedMediaIds(userId, mediaIds); }
+
+    @Override
+    public Map<UUID, Integer> ratingCountsByMedia() { return delegate.ratingCountsByMedia(); }
+}
@@ -0,0 +1,43 @@
+package mrp.infrastructure.persistence;
+
+import mrp.infrastructure.config.ConnectionFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Keeps the monthly partitions of ratings ahead of time
+ * (see 007_ratings_partitioning.sql): the current month plus `monthsAhead`
+ * must exist before the first rating of a month arrives, otherwise it
+ * lands in ratings_default.
+ *
+ * Runs as a singleton job of the JobScheduler. Should two instances still
+ * run it concurrently, the SQL function serializes itself with an
+ * advisory lock and skips existing partitions.
+ */
+public class RatingPartitionMaintenance {
+
+    private final int monthsAhead;
+
+    public RatingPartitionMaintenance(int monthsAhead) {
+        if (monthsAhead < 1) throw new IllegalArgumentException("monthsAhead must be >= 1");
+        this.monthsAhead = monthsAhead;
+    }
+
+    /**
+     * @return number of partitions created
+     */
+    public int ensureUpcoming() {
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement("SELECT ensure_rating_partitions(?)")) {
+            ps.setInt(1, monthsAhead);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("ensure rating partitions failed", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package mrp.infrastructure.persistence;
+
+import java.util.UUID;
+
+/**
+ * Placement of ratings on shards.
+ *
+ * media_id -> bucket: the low 10 bits of the UUID (random in UUIDv4 and v7).
+ * The same value is stored as generated column ratings.bucket on every
+ * shard (see db/shards/001_rating_shard.sql), so a bucket can be moved
+ * with one indexed query.
+ *
+ * bucket -> shard: jump consistent hash. Going from n to n+1 shards moves
+ * only the buckets that the new shard takes over (about 1/(n+1)), never
+ * buckets between existing shards. Shards are therefore only ever added
+ * at (or removed from) the end of the list.
+ */
+public final class RatingShardMap {
+
+    public static final int BUCKETS = 1024;
+
+    private RatingShardMap() { }
+
+    public static int bucketOf(UUID mediaId) {
+        return (int) (mediaId.getLeastSignificantBits() & (BUCKETS - 1));
+    }
+
+    public static int shardOf(UUID mediaId, int shards) {
+        return shardOf(bucketOf(mediaId), shards);
+    }
+
+    /**
+     * Jump consistent hash (Lamping/Veach) of a bucket onto [0, shards).
+     */
+    public static int shardOf(int bucket, int shards) {
+        if (shards <= 0) throw new IllegalArgumentException("shards must be positive");
+        long key = mix(bucket);
+        long b = -1;
+        long j = 0;
+        while (j < shards) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    // bucket numbers are small and consecutive; spread them over 64 bits first
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,38 @@
+package mrp.infrastructure.persistence;
+
+import mrp.infrastructure.config.ConnectionSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the trigger-maintained counters in resource_versions
+ * (see 003_resource_versions.sql; rating shards have their own, see db/shards).
+ * Each name is striped over several rows (009_version_counters.sql); the version is their sum.
+ */
+final class ResourceVersions {
+
+    private ResourceVersions() { }
+
+    static long get(String name) {
+        return get(ConnectionSource.PRIMARY, name);
+    }
+
+    static long get(ConnectionSource db, String name) {
+        String sql = "SELECT COALESCE(sum(version), 0)::bigint FROM resource_versions WHERE name = ?";
+
+        try (Connection c = db.getReadOnly();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            ps.setString(1, name);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("read resource version failed: " + name, e);
+        }
+    }
+}
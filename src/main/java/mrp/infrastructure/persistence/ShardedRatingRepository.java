@@ -0,0 +1,380 @@
+package mrp.infrastructure.persistence;
+
+import mrp.application.concurrent.Fanout;
+import mrp.application.events.MediaEventListener;
+import mrp.domain.model.MediaEntry;
+import mrp.domain.model.Rating;
+import mrp.domain.ports.PartialCreateException;
+import mrp.domain.ports.RatingPageRequest;
+import mrp.domain.ports.RatingRepository;
+import mrp.infrastructure.config.ConnectionSource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * RatingRepository over several PostgreSQL databases, partitioned by media_id
+ * (see RatingShardMap). Every shard holds ratings + rating_likes of its
+ * media (schema db/shards/001_rating_shard.sql) and is accessed with the
+ * plain JdbcRatingRepository.
+ *
+ * - by media (create, listByMedia, versions, scores): one shard
+ * - by user (listByUser): all shards in parallel, merged by the list order
+ *   (k-way merge; a keyset page asks every shard for one page and keeps
+ *   the first `limit` rows, the cursor stays valid across shards)
+ * - by rating id (update, delete, likes): the shard is located with a
+ *   parallel primary-key lookup first
+ *
+ * Not across shards: createAll runs one transaction per shard, i.e. a
+ * batch spanning shards is not atomic (ratings are skipped individually
+ * anyway). If some shards fail, the ratings of the others stay committed
+ * and PartialCreateException reports both sides. Media and users stay in
+ * the main database; what used to be a foreign key / cascade or a join
+ * there is done here (deleteByMedia via onMediaDeleted) or in
+ * JdbcMediaRepository / JdbcUserRepository.
+ */
+public class ShardedRatingRepository implements RatingRepository, MediaEventListener {
+
+    private final List<JdbcRatingRepository> shards = new ArrayList<>();
+
+    public ShardedRatingRepository(List<ConnectionSource> shardSources) {
+        if (shardSources == null || shardSources.isEmpty()) throw new IllegalArgumentException("no shards");
+        for (ConnectionSource s : shardSources) shards.add(new JdbcRatingRepository(s, true));
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    // ---- by media: single shard ----
+
+    @Override
+    public Rating create(Rating rating) {
+        if (rating == null) throw new IllegalArgumentException("rating null");
+        return shardFor(rating.getMediaId()).create(rating);
+    }
+
+    @Override
+    public List<Rating> createAll(List<Rating> ratings) {
+        if (ratings == null || ratings.isEmpty()) return new ArrayList<>();
+
+        Map<Integer, List<Rating>> byShard = new LinkedHashMap<>();
+        for (Rating r : ratings) {
+            byShard.computeIfAbsent(shardIndex(r.getMediaId()), k -> new ArrayList<>()).add(r);
+        }
+        if (byShard.size() == 1) {
+            Map.Entry<Integer, List<Rating>> only = byShard.entrySet().iterator().next();
+            return shards.get(only.getKey()).createAll(only.getValue());
+        }
+
+        // every shard commits on its own: one failing shard must not hide what the others wrote
+        List<ShardWrite> writes = onShards(byShard, (shard, part) -> {
+            try {
+                return new ShardWrite(part, shard.createAll(part), null);
+            } catch (RuntimeException e) {
+                return new ShardWrite(part, List.of(), e);
+            }
+        });
+
+        List<Rating> created = new ArrayList<>();
+        List<Rating> failed = new ArrayList<>();
+        RuntimeException failure = null;
+        for (ShardWrite w : writes) {
+            created.addAll(w.created);
+            if (w.failure != null) {
+                failed.addAll(w.attempted);
+                if (failure == null) failure = w.failure;
+            }
+        }
+        if (failure == null) return created;
+        if (failed.size() == ratings.size()) throw failure; // nothing written anywhere
+        throw new PartialCreateException(created, failed, failure);
+    }
+
+    private record ShardWrite(List<Rating> attempted, List<Rating> created, RuntimeException failure) { }
+
+    @Override
+    public List<Rating> listByMedia(UUID mediaId) {
+        if (mediaId == null) return List.of();
+        return shardFor(mediaId).listByMedia(mediaId);
+    }
+
+    @Override
+    public List<Rating> listByMedia(UUID mediaId, RatingPageRequest page) {
+        if (mediaId == null) return List.of();
+        return shardFor(mediaId).listByMedia(mediaId, page);
+    }
+
+    @Override
+    public Optional<ListVersion> mediaRatingsVersion(UUID mediaId) {
+        if (mediaId == null) return Optional.empty();
+        return shardFor(mediaId).mediaRatingsVersion(mediaId);
+    }
+
+    @Override
+    public Set<UUID> ratedMediaIds(UUID userId, Collection<UUID> mediaIds) {
+        Set<UUID> out = new HashSet<>();
+        if (userId == null || mediaIds == null || mediaIds.isEmpty()) return out;
+
+        for (Set<UUID> part : onShards(groupByShard(mediaIds), (shard, ids) -> shard.ratedMediaIds(userId, ids))) {
+            out.addAll(part);
+        }
+        return out;
+    }
+
+    /**
+     * Average stars per media (only media with ratings), see JdbcMediaRepository.updateAverageScores.
+     */
+    public Map<UUID, Double> averageStars(Collection<UUID> mediaIds) {
+        Map<UUID, Double> out = new HashMap<>();
+        if (mediaIds == null || mediaIds.isEmpty()) return out;
+
+        for (Map<UUID, Double> part : onShards(groupByShard(mediaIds), JdbcRatingRepository::averageStars)) {
+            out.putAll(part);
+        }
+        return out;
+    }
+
+    @Override
+    public void onMediaSaved(MediaEntry entry) {
+        // nothing stored per media on the shards
+    }
+
+    @Override
+    public void onMediaDeleted(UUID mediaId) {
+        if (mediaId != null) shardFor(mediaId).deleteByMedia(mediaId);
+    }
+
+    /**
+     * See JdbcRatingRepository.reconcileLikeCounts; ratings and likes of a media share a shard.
+     */
+    public int reconcileLikeCounts(UUID mediaId) {
+        if (mediaId == null) throw new IllegalArgumentException("mediaId null");
+        return shardFor(mediaId).reconcileLikeCounts(mediaId);
+    }
+
+    // ---- by user: all shards ----
+
+    @Override
+    public List<Rating> listByUser(UUID userId) {
+        if (userId == null) return List.of();
+        return merge(onAll(s -> s.listByUser(userId)), NEWEST_FIRST, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Rating> listByUser(UUID userId, RatingPageRequest page) {
+        if (userId == null) return List.of();
+        RatingPageRequest p = page == null ? RatingPageRequest.firstPage() : page;
+        return merge(onAll(s -> s.listByUser(userId, p)), pageOrder(p), p.getLimit());
+    }
+
+    /**
+     * Number of ratings per user across all shards (for the leaderboard).
+     */
+    public Map<UUID, Integer> ratingCountsByUser() {
+        Map<UUID, Integer> out = new HashMap<>();
+        for (Map<UUID, Integer> part : onAll(JdbcRatingRepository::ratingCountsByUser)) {
+            part.forEach((user, n) -> out.merge(user, n, Integer::sum));
+        }
+        return out;
+    }
+
+    /**
+     * Sum of the shards' leaderboard counters; grows with every rating insert/delete.
+     */
+    public long leaderboardVersion() {
+        long sum = 0;
+        for (long v : onAll(JdbcRatingRepository::leaderboardVersion)) sum += v;
+        return sum;
+    }
+
+    @Override
+    public Map<UUID, Integer> ratingCountsByMedia() {
+        Map<UUID, Integer> out = new HashMap<>();
+        for (Map<UUID, Integer> part : onAll(JdbcRatingRepository::ratingCountsByMedia)) {
+            out.putAll(part); // a media lives on exactly one shard
+        }
+        return out;
+    }
+
+    @Override
+    public void forEachRating(Consumer<Rating> consumer) {
+        for (JdbcRatingRepository s : shards) s.forEachRating(consumer);
+    }
+
+    // ---- by rating id: locate, then single shard ----
+
+    @Override
+    public Optional<Rating> findById(UUID id) {
+        if (id == null) return Optional.empty();
+        for (Optional<Rating> r : onAll(s -> s.findById(id))) {
+            if (r.isPresent()) return r;
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void update(UUID ratingId, UUID actorUserId, int stars, String comment) {
+        if (ratingId == null || actorUserId == null) {
+            throw new IllegalArgumentException("ratingId or actorUserId null");
+        }
+        JdbcRatingRepository s = locate(ratingId);
+        if (s == null) throw new IllegalArgumentException("rating not found or forbidden");
+        s.update(ratingId, actorUserId, stars, comment);
+    }
+
+    @Override
+    public void delete(UUID ratingId, UUID actorUserId) {
+        if (ratingId == null || actorUserId == null) {
+            throw new IllegalArgumentException("ratingId or actorUserId null");
+        }
+        JdbcRatingRepository s = locate(ratingId);
+        if (s == null) throw new IllegalArgumentException("rating not found or forbidden");
+        s.delete(ratingId, actorUserId);
+    }
+
+    @Override
+    public boolean confirmComment(UUID ratingId, UUID actorUserId) {
+        JdbcRatingRepository s = locate(ratingId);
+        return s != null && s.confirmComment(ratingId, actorUserId);
+    }
+
+    @Override
+    public boolean addLike(UUID ratingId, UUID likerUserId) {
+        JdbcRatingRepository s = locate(ratingId);
+        return s != null && s.addLike(ratingId, likerUserId);
+    }
+
+    @Override
+    public boolean removeLike(UUID ratingId, UUID likerUserId) {
+        JdbcRatingRepository s = locate(ratingId);
+        return s != null && s.removeLike(ratingId, likerUserId);
+    }
+
+    // ---- routing ----
+
+    private int shardIndex(UUID mediaId) {
+        if (mediaId == null) throw new IllegalArgumentException("mediaId null");
+        return RatingShardMap.shardOf(mediaId, shards.size());
+    }
+
+    private JdbcRatingRepository shardFor(UUID mediaId) {
+        return shards.get(shardIndex(mediaId));
+    }
+
+    private JdbcRatingRepository locate(UUID ratingId) {
+        if (ratingId == null) return null;
+        List<Optional<Rating>> found = onAll(s -> s.findById(ratingId));
+        for (int i = 0; i < found.size(); i++) {
+            if (found.get(i).isPresent()) return shards.get(i);
+        }
+        return null;
+    }
+
+    private Map<Integer, List<UUID>> groupByShard(Collection<UUID> mediaIds) {
+        Map<Integer, List<UUID>> out = new LinkedHashMap<>();
+        for (UUID id : mediaIds) {
+            if (id != null) out.computeIfAbsent(shardIndex(id), k -> new ArrayList<>()).add(id);
+        }
+        return out;
+    }
+
+    // one result per shard, in shard order; parallel when more than one shard
+    private <T> List<T> onAll(Function<JdbcRatingRepository, T> query) {
+        if (shards.size() == 1) return List.of(query.apply(shards.get(0)));
+
+        try (Fanout scope = Fanout.open()) {
+            List<Fanout.Subtask<T>> tasks = new ArrayList<>(shards.size());
+            for (JdbcRatingRepository s : shards) tasks.add(scope.fork(() -> query.apply(s)));
+            scope.join();
+
+            List<T> out = new ArrayList<>(tasks.size());
+            for (Fanout.Subtask<T> t : tasks) out.add(t.get());
+            return out;
+        }
+    }
+
+    private interface ShardQuery<A, T> {
+        T apply(JdbcRatingRepository shard, A arg);
+    }
+
+    // one result per involved shard; parallel when more than one shard is involved
+    private <A, T> List<T> onShards(Map<Integer, A> args, ShardQuery<A, T> query) {
+        if (args.size() == 1) {
+            Map.Entry<Integer, A> e = args.entrySet().iterator().next();
+            return List.of(query.apply(shards.get(e.getKey()), e.getValue()));
+        }
+
+        try (Fanout scope = Fanout.open()) {
+            List<Fanout.Subtask<T>> tasks = new ArrayList<>(args.size());
+            for (Map.Entry<Integer, A> e : args.entrySet()) {
+                JdbcRatingRepository s = shards.get(e.getKey());
+                tasks.add(scope.fork(() -> query.apply(s, e.getValue())));
+            }
+            scope.join();
+
+            List<T> out = new ArrayList<>(tasks.size());
+            for (Fanout.Subtask<T> t : tasks) out.add(t.get());
+            return out;
+        }
+    }
+
+    // ---- k-way merge ----
+
+    // PostgreSQL orders uuid bytewise (unsigned); UUID.compareTo compares signed longs
+    private static final Comparator<Rating> ID_DESC = (a, b) -> {
+        int c = Long.compareUnsigned(b.getId().getMostSignificantBits(), a.getId().getMostSignificantBits());
+        return c != 0 ? c
+                : Long.compareUnsigned(b.getId().getLeastSignificantBits(), a.getId().getLeastSignificantBits());
+    };
+
+    private static final Comparator<Rating> NEWEST_FIRST =
+            Comparator.comparing(Rating::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    // same order as JdbcRatingRepository.listPage: sort key DESC, id DESC
+    private static Comparator<Rating> pageOrder(RatingPageRequest page) {
+        Comparator<Rating> key = switch (page.getSort()) {
+            case NEWEST -> NEWEST_FIRST;
+            case MOST_LIKED -> Comparator.comparingInt(Rating::getLikeCount).reversed();
+            case HIGHEST_STARS -> Comparator.comparingInt(Rating::getStars).reversed();
+        };
+        return key.thenComparing(ID_DESC);
+    }
+
+    /**
+     * Merges lists that are each sorted by `order` and keeps the first `limit` rows.
+     */
+    static List<Rating> merge(List<List<Rating>> sorted, Comparator<Rating> order, int limit) {
+        record Head(Rating rating, int list, int index) { }
+
+        PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> order.compare(a.rating, b.rating));
+        int total = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            List<Rating> l = sorted.get(i);
+            total += l.size();
+            if (!l.isEmpty()) heads.add(new Head(l.get(0), i, 0));
+        }
+
+        List<Rating> out = new ArrayList<>(Math.min(total, limit));
+        while (!heads.isEmpty() && out.size() < limit) {
+            Head h = heads.poll();
+            out.add(h.rating);
+            List<Rating> l = sorted.get(h.list);
+            int next = h.index + 1;
+            if (next < l.size()) heads.add(new Head(l.get(next), h.list, next));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,84 @@
+package mrp.infrastructure.persistence;
+
+import mrp.domain.model.MediaEntry;
+import mrp.domain.ports.MediaRepository;
+import mrp.domain.ports.MediaSearch;
+import mrp.infrastructure.util.SingleFlight;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * MediaRepository decorator that coalesces concurrent findById calls for
+ * the same id (thundering herd on a popular media page).
+ * All other operations are passed through unchanged.
+ */
+public class SingleFlightMediaRepository implements MediaRepository {
+
+    private MediaRepository delegate;
+    private SingleFlight flight;
+
+    public SingleFlightMediaRepository(MediaRepository delegate, SingleFlight flight) {
+        if (delegate == null) throw new IllegalArgumentException("delegate null");
+        if (flight == null) throw new IllegalArgumentException("flight null");
+        this.delegate = delegate;
+        this.flight = flight;
+    }
+
+    @Override
+    public Optional<MediaEntry> findById(UUID id) {
+        if (id == null) return delegate.findById(null);
+        MediaEntry e = flight.execute(new Key("media.findById", id),
+                () -> delegate.findById(id).orElse(null),
+                SingleFlightMediaRepository::copy);
+        return Optional.ofNullable(e);
+    }
+
+    @Override
+    public MediaEntry save(MediaEntry entry) { return delegate.save(entry); }
+
+    @Override
+    public List<MediaEntry> findByIds(Collection<UUID> ids) { return delegate.findByIds(ids); }
+
+    @Override
+    public boolean update(MediaEntry entry) { return delegate.update(entry); }
+
+    @Override
+    public boolean delete(UUID id) { return delegate.delete(id); }
+
+    @Override
+    public List<MediaEntry> search(MediaSearch search) { return delegate.search(search); }
+
+    @Override
+    public boolean isOwner(UUID mediaId, UUID userId) { return delegate.isOwner(mediaId, userId); }
+
+    @Override
+    public long catalogVersion() { return delegate.catalogVersion(); }
+
+    @Override
+    public long featuresVersion() { return delegate.featuresVersion(); }
+
+    @Override
+    public String searchVersion() { return delegate.searchVersion(); }
+
+    @Override
+    public void forEachEntry(Consumer<MediaEntry> consumer) { delegate.forEachEntry(consumer); }
+
+    @Override
+    public Map<UUID, Double> updateAverageScores(Collection<UUID> ids) { return delegate.updateAverageScores(ids); }
+
+    static MediaEntry copy(MediaEntry e) {
+        return new MediaEntry(
+                e.getId(), e.getCreatorId(), e.getTitle(), e.getDescription(),
+                // genre lists from the repository are shared immutable instances (GenreDictionary)
+                e.getMediaType(), e.getReleaseYear(), e.getGenres(),
+                e.getAgeRestriction(), e.getAverageScore(), e.getCreatedAt(), e.getUpdatedAt()
+        );
+    }
+
+    record Key(String operation, Object args) { }
+}
@@ -0,0 +1,104 @@
+package mrp.infrastructure.persistence;
+
+import mrp.domain.model.Rating;
+import mrp.domain.ports.RatingPageRequest;
+import mrp.domain.ports.RatingRepository;
+import mrp.infrastructure.config.ReadRouting;
+import mrp.infrastructure.util.SingleFlight;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * RatingRepository decorator that coalesces concurrent identical page reads
+ * of GET /media/{id}/ratings (same media, sort, limit and cursor).
+ *
+ * The unpaged listByMedia is deliberately not coalesced: it is used to
+ * recalculate the average score right after a write, and joining a read
+ * that started before that write would return stale ratings. For the same
+ * reason reads routed to the primary (read-your-writes, see ReadRouting)
+ * never share a flight with replica reads.
+ */
+public class SingleFlightRatingRepository implements RatingRepository {
+
+    private RatingRepository delegate;
+    private SingleFlight flight;
+
+    public SingleFlightRatingRepository(RatingRepository delegate, SingleFlight flight) {
+        if (delegate == null) throw new IllegalArgumentException("delegate null");
+        if (flight == null) throw new IllegalArgumentException("flight null");
+        this.delegate = delegate;
+        this.flight = flight;
+    }
+
+    @Override
+    public List<Rating> listByMedia(UUID mediaId, RatingPageRequest page) {
+        if (mediaId == null || page == null) return delegate.listByMedia(mediaId, page);
+        SingleFlightMediaRepository.Key key = new SingleFlightMediaRepository.Key("ratings.listByMedia",
+                List.of(mediaId, page.getSort(), page.getLimit(), String.valueOf(page.getCursor()),
+                        ReadRouting.readsPrimary()));
+        return flight.execute(key, () -> delegate.listByMedia(mediaId, page), SingleFlightRatingRepository::copy);
+    }
+
+    @Override
+    public Rating create(Rating rating) { return delegate.create(rating); }
+
+    @Override
+    public List<Rating> createAll(List<Rating> ratings) { return delegate.createAll(ratings); }
+
+    @Override
+    public Optional<Rating> findById(UUID id) { return delegate.findById(id); }
+
+    @Override
+    public List<Rating> listByUser(UUID userId) { return delegate.listByUser(userId); }
+
+    @Override
+    public List<Rating> listByMedia(UUID mediaId) { return delegate.listByMedia(mediaId); }
+
+    @Override
+    public List<Rating> listByUser(UUID userId, RatingPageRequest page) { return delegate.listByUser(userId, page); }
+
+    @Override
+    public void update(UUID ratingId, UUID actorUserId, int stars, String comment) {
+        delegate.update(ratingId, actorUserId, stars, comment);
+    }
+
+    @Override
+    public void delete(UUID ratingId, UUID actorUserId) { delegate.delete(ratingId, actorUserId); }
+
+    @Override
+    public boolean confirmComment(UUID ratingId, UUID actorUserId) { return delegate.confirmComment(ratingId, actorUserId); }
+
+    @Override
+    public boolean addLike(UUID ratingId, UUID likerUserId) { return delegate.addLike(ratingId, likerUserId); }
+
+    @Override
+    public boolean removeLike(UUID ratingId, UUID likerUserId) { return delegate.removeLike(ratingId, likerUserId); }
+
+    @Override
+    public Optional<ListVersion> mediaRatingsVersion(UUID mediaId) { return delegate.mediaRatingsVersion(mediaId); }
+
+    @Override
+    public void forEachRating(Consumer<Rating> consumer) { delegate.forEachRating(consumer); }
+
+    @Override
+    public Set<UUID> ratedMediaIds(UUID userId, Collection<UUID> mediaIds) { return delegate.ratedMediaIds(userId, mediaIds); }
+
+    @Override
+    public Map<UUID, Integer> ratingCountsByMedia() { return delegate.ratingCountsByMedia(); }
+
+    private static List<Rating> copy(List<Rating> list) {
+        List<Rating> out = new ArrayList<>(list.size());
+        for (Rating r : list) {
+            out.add(new Rating(r.getId(), r.getMediaId(), r.getUserId(), r.getStars(), r.getComment(),
+                    r.isCommentConfirmed(), r.getCreatedAt(), r.getLikeCount()));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,158 @@
+package mrp.infrastructure.queue;
+
+import mrp.infrastructure.config.ReadRouting;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Consumes the work queue on this node with up to `parallelism` handlers
+ * at a time.
+ *
+ * A poller thread claims as many entries as there are free slots (one
+ * round trip per batch) and runs each on its own virtual thread. When a
+ * batch comes back short, the queue is drained and the poller waits
+ * `pollInterval` before asking again.
+ *
+ * A handler that throws is retried with exponential backoff (with jitter,
+ * capped at MAX_BACKOFF). Handlers read from the primary: they usually
+ * repair or derive data right after a write.
+ */
+public class QueueWorkers implements AutoCloseable {
+
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(5);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+
+    private final WorkQueue queue;
+    private final Duration visibility;
+    private final Duration pollInterval;
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+    private final Semaphore slots;
+
+    private volatile boolean closed;
+    private Thread poller;
+
+    /**
+     * @param visibility must be longer than a handler run, otherwise the
+     *                   entry is handed to a second worker meanwhile
+     */
+    public QueueWorkers(WorkQueue queue, int parallelism, Duration visibility, Duration pollInterval) {
+        if (queue == null) throw new IllegalArgumentException("queue null");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+        if (visibility == null || visibility.toMillis() < 1000) throw new IllegalArgumentException("visibility must be >= 1s");
+        if (pollInterval == null || pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("pollInterval must be positive");
+        }
+        this.queue = queue;
+        this.visibility = visibility;
+        this.pollInterval = pollInterval;
+        this.slots = new Semaphore(parallelism);
+    }
+
+    /**
+     * Registers the handler for entries of `kind`; it receives the payload.
+     */
+    public QueueWorkers handle(String kind, Consumer<String> handler) {
+        if (kind == null || kind.isBlank()) throw new IllegalArgumentException("kind blank");
+        if (handler == null) throw new IllegalArgumentException("handler null");
+        handlers.put(kind, handler);
+        return this;
+    }
+
+    public synchronized void start() {
+        if (poller != null || closed) return;
+        poller = new Thread(this::pollLoop, "queue-poller");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (poller != null) {
+            poller.interrupt();
+            poller = null;
+        }
+    }
+
+    private void pollLoop() {
+        while (!closed) {
+            int free;
+            try {
+                slots.acquire();
+                free = 1 + slots.drainPermits();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            List<WorkItem> items;
+            try {
+                items = queue.claim(handlers.keySet(), free, visibility);
+            } catch (RuntimeException e) {
+                slots.release(free);
+                System.err.println("work queue claim failed: " + e.getMessage());
+                if (!pause()) return;
+                continue;
+            }
+
+            slots.release(free - items.size());
+            for (WorkItem item : items) {
+                Thread.ofVirtual().name("work-" + item.kind()).start(() -> {
+                    try {
+                        process(item);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+            if (items.size() < free && !pause()) return;
+        }
+    }
+
+    private void process(WorkItem item) {
+        Consumer<String> handler = handlers.get(item.kind());
+        ReadRouting.begin(true);
+        try {
+            handler.accept(item.payload());
+        } catch (RuntimeException e) {
+            System.err.println("work " + item.kind() + " " + item.payload()
+                    + " failed (attempt " + item.attempts() + "): " + e.getMessage());
+            try {
+                queue.retry(item, String.valueOf(e), backoff(item.attempts()));
+            } catch (RuntimeException retryFailed) {
+                // the visibility timeout hands it out again
+            }
+            return;
+        } finally {
+            ReadRouting.end();
+        }
+        try {
+            queue.complete(item);
+        } catch (RuntimeException e) {
+            // done but still queued: runs again after the visibility timeout
+            System.err.println("work queue complete failed: " + e.getMessage());
+        }
+    }
+
+    // BASE * 2^(attempts-1), capped, then a random 50-100% of it
+    static Duration backoff(int attempts) {
+        long max = MAX_BACKOFF.toMillis();
+        long millis = BASE_BACKOFF.toMillis() << Math.min(Math.max(attempts - 1, 0), 20);
+        millis = Math.min(millis, max);
+        return Duration.ofMillis(millis / 2 + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pollInterval);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
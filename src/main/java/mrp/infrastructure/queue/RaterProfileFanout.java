@@ -0,0 +1,87 @@
+package mrp.infrastructure.queue;
+
+import mrp.application.UserPreferenceService;
+import mrp.application.events.MediaEventListener;
+import mrp.domain.model.MediaEntry;
+import mrp.domain.model.Rating;
+import mrp.domain.ports.RatingRepository;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps preference profiles in line with edited and deleted media: profiles
+ * are maintained by deltas with the media's attributes at rating time, so
+ * after an edit every rater's profile is recomputed.
+ *
+ * Two stages on the work queue, both coalesced by idempotency key:
+ * - media-raters (media id): finds the raters and queues one entry per user
+ * - user-preferences (user id): UserPreferenceService.recompute
+ *
+ * A delete removes the ratings by cascade, without rating events, and the
+ * first stage would find nobody afterwards. The raters are therefore read
+ * right before the delete and their recomputes queued once it went through
+ * (the deleted media no longer loads, so the recompute leaves it out).
+ *
+ * A popular title fans out to many users; the workers of all nodes share them.
+ */
+public class RaterProfileFanout implements MediaEventListener {
+
+    static final String MEDIA_RATERS = "media-raters";
+    static final String USER_PREFERENCES = "user-preferences";
+    private static final int MAX_PENDING_DELETES = 1_000;
+
+    private final WorkQueue queue;
+    private final RatingRepository ratings;
+    private final UserPreferenceService preferences;
+    // raters of media being deleted on this node; entries of failed deletes are dropped in bulk
+    private final Map<UUID, Set<String>> ratersOfDeleted = new ConcurrentHashMap<>();
+
+    public RaterProfileFanout(WorkQueue queue, RatingRepository ratings, UserPreferenceService preferences) {
+        if (queue == null) throw new IllegalArgumentException("queue null");
+        if (ratings == null) throw new IllegalArgumentException("ratings null");
+        if (preferences == null) throw new IllegalArgumentException("preferences null");
+        this.queue = queue;
+        this.ratings = ratings;
+        this.preferences = preferences;
+    }
+
+    public void register(QueueWorkers workers) {
+        workers.handle(MEDIA_RATERS, payload -> fanOut(UUID.fromString(payload)));
+        workers.handle(USER_PREFERENCES, payload -> preferences.recompute(UUID.fromString(payload)));
+    }
+
+    @Override
+    public void onMediaSaved(MediaEntry entry) {
+        // also on create; without ratings the first stage finds nobody
+        if (entry != null && entry.getId() != null) {
+            queue.enqueue(MEDIA_RATERS, entry.getId().toString(), entry.getId().toString());
+        }
+    }
+
+    @Override
+    public void beforeMediaDeleted(UUID mediaId) {
+        if (mediaId == null) return;
+        if (ratersOfDeleted.size() >= MAX_PENDING_DELETES) ratersOfDeleted.clear();
+        ratersOfDeleted.put(mediaId, raters(mediaId));
+    }
+
+    @Override
+    public void onMediaDeleted(UUID mediaId) {
+        Set<String> users = mediaId == null ? null : ratersOfDeleted.remove(mediaId);
+        if (users != null) queue.enqueueAll(USER_PREFERENCES, users);
+    }
+
+    private void fanOut(UUID mediaId) {
+        queue.enqueueAll(USER_PREFERENCES, raters(mediaId));
+    }
+
+    private Set<String> raters(UUID mediaId) {
+        Set<String> users = new LinkedHashSet<>();
+        for (Rating r : ratings.listByMedia(mediaId)) users.add(r.getUserId().toString());
+        return users;
+    }
+}
@@ -0,0 +1,10 @@
+package mrp.infrastructure.queue;
+
+import java.util.UUID;
+
+/**
+ * A claimed entry of the work queue. `lease` identifies this claim;
+ * complete/retry with an outdated lease (the entry timed out and was
+ * claimed again) change nothing.
+ */
+public record WorkItem(long id, String kind, String payload, int attempts, UUID lease) { }
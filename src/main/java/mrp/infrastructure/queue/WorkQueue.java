@@ -0,0 +1,164 @@
+package mrp.infrastructure.queue;
+
+import mrp.infrastructure.config.ConnectionFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable work queue in PostgreSQL (see 008_work_queue.sql).
+ *
+ * Delivery is at least once: an entry whose worker died or exceeded the
+ * visibility timeout is handed out again, so handlers must be idempotent.
+ */
+public class WorkQueue {
+
+    private static final String PENDING_KEY = "(kind, idempotency_key) WHERE idempotency_key IS NOT NULL AND lease IS NULL";
+
+    /**
+     * @param idempotencyKey optional; an entry with the same kind and key
+     *                       that has not started yet makes this a no-op
+     * @return true if a new entry was queued
+     */
+    public boolean enqueue(String kind, String payload, String idempotencyKey) {
+        requireKind(kind);
+        if (payload == null) throw new IllegalArgumentException("payload null");
+
+        String sql = "INSERT INTO work_queue (kind, payload, idempotency_key) VALUES (?, ?, ?) " +
+                "ON CONFLICT " + PENDING_KEY + " DO NOTHING";
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, kind);
+            ps.setString(2, payload);
+            ps.setString(3, idempotencyKey);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new RuntimeException("enqueue failed", e);
+        }
+    }
+
+    /**
+     * Queues one entry per payload in one statement (fan-out); each payload
+     * is also its idempotency key.
+     *
+     * @return number of new entries
+     */
+    public int enqueueAll(String kind, Collection<String> payloads) {
+        requireKind(kind);
+        if (payloads == null || payloads.isEmpty()) return 0;
+
+        String sql = "INSERT INTO work_queue (kind, payload, idempotency_key) " +
+                "SELECT ?, p, p FROM unnest(?::text[]) AS p " +
+                "ON CONFLICT " + PENDING_KEY + " DO NOTHING";
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, kind);
+            ps.setArray(2, c.createArrayOf("text", new LinkedHashSet<>(payloads).toArray()));
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("enqueueAll failed", e);
+        }
+    }
+
+    /**
+     * Claims up to `limit` due entries of the given kinds. Claimed entries
+     * are invisible to other workers for `visibility`. An entry that timed
+     * out on its last attempt is marked failed instead of handed out.
+     */
+    public List<WorkItem> claim(Collection<String> kinds, int limit, Duration visibility) {
+        List<WorkItem> out = new ArrayList<>();
+        if (kinds == null || kinds.isEmpty() || limit <= 0) return out;
+
+        String sql = """
+            WITH next AS (
+                SELECT id
+                FROM work_queue
+                WHERE kind = ANY(?) AND failed_at IS NULL AND run_at <= now()
+                ORDER BY run_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE work_queue q
+            SET lease = ?,
+                attempts = q.attempts + 1,
+                run_at = now() + make_interval(secs => ?),
+                failed_at = CASE WHEN q.attempts >= q.max_attempts THEN now() END,
+                last_error = CASE WHEN q.attempts >= q.max_attempts
+                                  THEN 'visibility timeout on last attempt' ELSE q.last_error END
+            FROM next
+            WHERE q.id = next.id
+            RETURNING q.id, q.kind, q.payload, q.attempts, q.failed_at IS NULL AS live
+            """;
+        UUID lease = UUID.randomUUID();
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setArray(1, c.createArrayOf("text", kinds.toArray()));
+            ps.setInt(2, limit);
+            ps.setObject(3, lease);
+            ps.setDouble(4, visibility.toMillis() / 1000.0);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (!rs.getBoolean("live")) continue;
+                    out.add(new WorkItem(rs.getLong("id"), rs.getString("kind"), rs.getString("payload"),
+                            rs.getInt("attempts"), lease));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("claim failed", e);
+        }
+        return out;
+    }
+
+    /**
+     * Removes a finished entry.
+     *
+     * @return false if the claim had expired (the entry belongs to another worker now)
+     */
+    public boolean complete(WorkItem item) {
+        String sql = "DELETE FROM work_queue WHERE id = ? AND lease = ?";
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, item.id());
+            ps.setObject(2, item.lease());
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new RuntimeException("complete failed", e);
+        }
+    }
+
+    /**
+     * Makes a failed entry due again after `delay`, or marks it failed for
+     * good once it has used up its attempts.
+     */
+    public void retry(WorkItem item, String error, Duration delay) {
+        String sql = """
+            UPDATE work_queue
+            SET run_at = now() + make_interval(secs => ?),
+                last_error = ?,
+                failed_at = CASE WHEN attempts >= max_attempts THEN now() END
+            WHERE id = ? AND lease = ?
+            """;
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setDouble(1, delay.toMillis() / 1000.0);
+            ps.setString(2, error);
+            ps.setLong(3, item.id());
+            ps.setObject(4, item.lease());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("retry failed", e);
+        }
+    }
+
+    private static void requireKind(String kind) {
+        if (kind == null || kind.isBlank()) throw new IllegalArgumentException("kind blank");
+    }
+}
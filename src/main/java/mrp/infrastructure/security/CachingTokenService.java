@@ -0,0 +1,86 @@
+package mrp.infrastructure.security;
+
+import mrp.domain.ports.AuthTokenService;
+import mrp.infrastructure.cluster.InvalidationBus;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AuthTokenService decorator that caches successful token checks, so an
+ * authenticated request does not need a sessions lookup every time.
+ *
+ * - a user has one session: issuing a token replaces the previous one, which
+ *   is evicted locally and announced to other nodes (SESSION_REPLACED)
+ * - entries live at most `ttl`, which also bounds how long an expired
+ *   session can still be accepted
+ * - failed checks are never cached
+ * - on a bus flush (missed messages) the whole cache is dropped
+ */
+public class CachingTokenService implements AuthTokenService {
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    private record Entry(UUID userId, long cachedAtNanos) { }
+
+    private final AuthTokenService delegate;
+    private final InvalidationBus bus;
+    private final long ttlNanos;
+    private final Map<String, Entry> byToken = new ConcurrentHashMap<>();
+    private final Map<UUID, String> tokenOfUser = new ConcurrentHashMap<>();
+    // bumped by every eviction: a check that overlapped one is not cached (it may have read the old session)
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CachingTokenService(AuthTokenService delegate, InvalidationBus bus, Duration ttl) {
+        if (delegate == null) throw new IllegalArgumentException("delegate null");
+        if (bus == null) throw new IllegalArgumentException("bus null");
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl must be positive");
+        this.delegate = delegate;
+        this.bus = bus;
+        this.ttlNanos = ttl.toNanos();
+
+        bus.subscribe(InvalidationBus.Topic.SESSION_REPLACED, key -> evictUser(UUID.fromString(key)), this::clear);
+        bus.onFlush(this::clear);
+    }
+
+    @Override
+    public String issueToken(UUID userId, String username) {
+        String token = delegate.issueToken(userId, username);
+        evictUser(userId);
+        bus.publish(InvalidationBus.Topic.SESSION_REPLACED, userId);
+        return token;
+    }
+
+    @Override
+    public UUID verifyAndGetUserId(String token) {
+        Entry e = token == null ? null : byToken.get(token);
+        if (e != null && System.nanoTime() - e.cachedAtNanos < ttlNanos) {
+            return e.userId;
+        }
+
+        long epoch = evictions.get();
+        UUID userId = delegate.verifyAndGetUserId(token); // throws for invalid/expired tokens
+        if (evictions.get() != epoch) return userId;
+
+        if (byToken.size() >= MAX_ENTRIES) clear();
+        byToken.put(token, new Entry(userId, System.nanoTime()));
+        String previous = tokenOfUser.put(userId, token);
+        if (previous != null && !previous.equals(token)) byToken.remove(previous);
+        return userId;
+    }
+
+    private void evictUser(UUID userId) {
+        evictions.incrementAndGet();
+        String token = tokenOfUser.remove(userId);
+        if (token != null) byToken.remove(token);
+    }
+
+    private void clear() {
+        evictions.incrementAndGet();
+        byToken.clear();
+        tokenOfUser.clear();
+    }
+}
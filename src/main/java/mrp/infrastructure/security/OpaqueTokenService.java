@@ -84,6 +84,21 @@ public class OpaqueTokenService implements AuthTokenService {
         }
     }
 
+    /**
+     * Removes expired and revoked sessions (they are rejected anyway).
+     *
+     * @return number of deleted sessions
+     */
+    public int deleteExpired() {
+        String sql = "DELETE FROM sessions WHERE expires_at < now() OR revoked";
+        try (Connection c = ConnectionFactory.get();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("delete expired sessions failed", e);
+        }
+    }
+
     /*
     public void revoke(String token) {
         if (token == null || token.isBlank()) throw new IllegalArgumentException("token blank");
@@ -0,0 +1,75 @@
+package mrp.infrastructure.sharding;
+
+import mrp.infrastructure.config.ConnectionFactory;
+import mrp.infrastructure.config.ConnectionSource;
+import mrp.infrastructure.persistence.RatingShardMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line tool to change the number of rating shards.
+ *
+ *   mvn exec:java -Dexec.mainClass=mrp.infrastructure.sharding.RatingRebalanceMain \
+ *       -Dexec.args="copy|cleanup --from 3 --to 4 [--shards url0,url1,...]"
+ *
+ * --shards defaults to MRP_RATING_SHARD_URLS and must list max(from, to)
+ * shards in their fixed order (new shards are appended, shards are removed
+ * from the end). Uses the same DB_URL / DB_USER / DB_PASSWORD environment
+ * as the server (shards share the credentials).
+ *
+ * Adding a shard (3 -> 4):
+ *   1. create the database with db/shards/001_rating_shard.sql
+ *   2. copy --from 3 --to 4              (bulk, while the application runs)
+ *   3. stop the application, copy again (only what changed since step 2)
+ *   4. start the application with the 4 shard urls
+ *   5. cleanup --from 3 --to 4           (removes the moved buckets from the old shards)
+ *
+ * Never run copy after step 4: it would replace the new shard's rows with
+ * the old shard's state.
+ */
+public class RatingRebalanceMain {
+
+    public static void main(String[] args) throws Exception {
+        String command = null;
+        int from = 0;
+        int to = 0;
+        String urls = System.getenv("MRP_RATING_SHARD_URLS");
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--from" -> from = Integer.parseInt(value(args, ++i));
+                case "--to" -> to = Integer.parseInt(value(args, ++i));
+                case "--shards" -> urls = value(args, ++i);
+                default -> command = args[i];
+            }
+        }
+
+        if (command == null || from <= 0 || to <= 0 || urls == null || urls.isBlank()) {
+            System.err.println("usage: copy|cleanup --from <n> --to <m> [--shards url0,url1,...]");
+            System.exit(2);
+        }
+
+        List<ConnectionSource> shards = new ArrayList<>();
+        for (String u : urls.split(",")) {
+            if (!u.isBlank()) shards.add(ConnectionFactory.forUrl(u.trim()));
+        }
+
+        RatingShardRebalancer rebalancer = new RatingShardRebalancer(shards, System.err::println);
+        System.err.println(rebalancer.movedBuckets(from, to).size() + " of " + RatingShardMap.BUCKETS
+                + " buckets change their shard");
+        switch (command) {
+            case "copy" -> rebalancer.copy(from, to);
+            case "cleanup" -> rebalancer.cleanup(from, to);
+            default -> {
+                System.err.println("unknown command: " + command);
+                System.exit(2);
+            }
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("missing value for " + args[i - 1]);
+        return args[i];
+    }
+}
@@ -0,0 +1,174 @@
+package mrp.infrastructure.sharding;
+
+import mrp.infrastructure.config.ConnectionSource;
+import mrp.infrastructure.persistence.RatingShardMap;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Moves rating buckets between shards when the shard count changes
+ * (see RatingShardMap; only buckets whose owner changes are touched).
+ *
+ * copy: for every moved bucket, one transaction on the new owner replaces
+ * its rows of that bucket with a consistent snapshot (REPEATABLE READ) of
+ * the old owner's ratings and likes. Idempotent, so it
+ * can be repeated until the cutover: a later pass picks up inserts,
+ * updates and deletes made in between. The copied rows draw new row
+ * versions on the target, so per-media ETags change with the move.
+ *
+ * cleanup: deletes the moved buckets from their old owners; only after
+ * the application runs with the new shard list.
+ */
+public class RatingShardRebalancer {
+
+    private static final int INSERT_CHUNK = 500;
+
+    private static final String RATING_COLUMNS =
+            "id, media_id, user_id, stars, comment, comment_confirmed, created_at, like_count";
+
+    private final List<ConnectionSource> shards;
+    private final Consumer<String> log;
+
+    public RatingShardRebalancer(List<ConnectionSource> shards, Consumer<String> log) {
+        if (shards == null || shards.isEmpty()) throw new IllegalArgumentException("no shards");
+        if (log == null) throw new IllegalArgumentException("log null");
+        this.shards = shards;
+        this.log = log;
+    }
+
+    /**
+     * @return buckets whose owner differs between `from` and `to` shards
+     */
+    public List<Integer> movedBuckets(int from, int to) {
+        if (from <= 0 || to <= 0) throw new IllegalArgumentException("shard counts must be positive");
+        if (Math.max(from, to) > shards.size()) {
+            throw new IllegalArgumentException("need " + Math.max(from, to) + " shard urls, got " + shards.size());
+        }
+        List<Integer> out = new ArrayList<>();
+        for (int b = 0; b < RatingShardMap.BUCKETS; b++) {
+            if (RatingShardMap.shardOf(b, from) != RatingShardMap.shardOf(b, to)) out.add(b);
+        }
+        return out;
+    }
+
+    public void copy(int from, int to) throws SQLException {
+        List<Integer> moved = movedBuckets(from, to);
+        long rows = 0;
+        for (int i = 0; i < moved.size(); i++) {
+            int b = moved.get(i);
+            int src = RatingShardMap.shardOf(b, from);
+            int dst = RatingShardMap.shardOf(b, to);
+            rows += copyBucket(b, shards.get(src), shards.get(dst));
+            log.accept(String.format("copy: bucket %d shard %d -> %d (%d/%d buckets, %d ratings)",
+                    b, src, dst, i + 1, moved.size(), rows));
+        }
+    }
+
+    public void cleanup(int from, int to) throws SQLException {
+        List<Integer> moved = movedBuckets(from, to);
+        long rows = 0;
+        for (int i = 0; i < moved.size(); i++) {
+            int b = moved.get(i);
+            int src = RatingShardMap.shardOf(b, from);
+            try (Connection c = shards.get(src).get();
+                 PreparedStatement ps = c.prepareStatement("DELETE FROM ratings WHERE bucket = ?")) {
+                ps.setInt(1, b);
+                rows += ps.executeUpdate();
+            }
+            log.accept(String.format("cleanup: bucket %d on shard %d (%d/%d buckets, %d ratings)",
+                    b, src, i + 1, moved.size(), rows));
+        }
+    }
+
+    private long copyBucket(int bucket, ConnectionSource source, ConnectionSource target) throws SQLException {
+        try (Connection s = source.get(); Connection t = target.get()) {
+            s.setAutoCommit(false);
+            s.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            t.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = t.prepareStatement("DELETE FROM ratings WHERE bucket = ?")) {
+                    ps.setInt(1, bucket);
+                    ps.executeUpdate(); // likes cascade
+                }
+
+                long ratings = copyRows(s, t, bucket);
+                copyLikes(s, t, bucket);
+
+                t.commit();
+                return ratings;
+            } catch (SQLException | RuntimeException e) {
+                t.rollback();
+                throw e;
+            } finally {
+                s.rollback();
+            }
+        }
+    }
+
+    private long copyRows(Connection s, Connection t, int bucket) throws SQLException {
+        String select = "SELECT " + RATING_COLUMNS + " FROM ratings WHERE bucket = ?";
+        long n = 0;
+        try (PreparedStatement ps = s.prepareStatement(select)) {
+            ps.setInt(1, bucket);
+            ps.setFetchSize(INSERT_CHUNK);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Object[]> chunk = new ArrayList<>(INSERT_CHUNK);
+                while (rs.next()) {
+                    Object[] row = new Object[8];
+                    for (int i = 0; i < row.length; i++) row[i] = rs.getObject(i + 1);
+                    chunk.add(row);
+                    if (chunk.size() == INSERT_CHUNK) n += insert(t, "ratings", RATING_COLUMNS, chunk);
+                }
+                n += insert(t, "ratings", RATING_COLUMNS, chunk);
+            }
+        }
+        return n;
+    }
+
+    private void copyLikes(Connection s, Connection t, int bucket) throws SQLException {
+        String select = """
+            SELECT l.rating_id, l.user_id, l.created_at
+            FROM rating_likes l JOIN ratings r ON r.id = l.rating_id
+            WHERE r.bucket = ?
+            """;
+        try (PreparedStatement ps = s.prepareStatement(select)) {
+            ps.setInt(1, bucket);
+            ps.setFetchSize(INSERT_CHUNK);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Object[]> chunk = new ArrayList<>(INSERT_CHUNK);
+                while (rs.next()) {
+                    chunk.add(new Object[] { rs.getObject(1), rs.getObject(2), rs.getObject(3) });
+                    if (chunk.size() == INSERT_CHUNK) insert(t, "rating_likes", "rating_id, user_id, created_at", chunk);
+                }
+                insert(t, "rating_likes", "rating_id, user_id, created_at", chunk);
+            }
+        }
+    }
+
+    // One multi-row INSERT; clears the chunk
+    private static int insert(Connection t, String table, String columns, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) return 0;
+        int width = rows.get(0).length;
+        String one = "(" + "?,".repeat(width - 1) + "?)";
+
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (").append(columns).append(") VALUES ");
+        for (int i = 0; i < rows.size(); i++) sql.append(i == 0 ? "" : ",").append(one);
+
+        try (PreparedStatement ps = t.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (Object[] row : rows) {
+                for (Object v : row) ps.setObject(p++, v);
+            }
+            int n = ps.executeUpdate();
+            rows.clear();
+            return n;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package mrp.infrastructure.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent identical reads ("single flight").
+ *
+ * The first caller for a key (leader) runs the loader; callers arriving
+ * while it is in flight (followers) wait for that result instead of
+ * running the same query again. Nothing is cached: once the leader is
+ * done the key is released and the next call queries again.
+ *
+ * - followers wait at most maxWait, then run the loader themselves
+ * - a leader failure is rethrown to its followers
+ * - every caller, the leader included, receives its own copy: domain
+ *   objects are mutable, and a write path (read, modify, update) must not
+ *   change the instance followers are still copying from
+ */
+public class SingleFlight {
+
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder waitTimeouts = new LongAdder();
+
+    public SingleFlight(long maxWaitMillis) {
+        if (maxWaitMillis <= 0) throw new IllegalArgumentException("maxWaitMillis must be positive");
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    /**
+     * @param key    operation + arguments (must implement equals/hashCode)
+     * @param loader the actual read
+     * @param copier creates an independent copy of a result for a caller
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(Object key, Supplier<V> loader, UnaryOperator<V> copier) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+
+        if (running == null) {
+            executions.increment();
+            try {
+                V v = loader.get();
+                mine.complete(v);
+                return v == null ? null : copier.apply(v);
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+
+        try {
+            V v = (V) running.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            shared.increment();
+            return v == null ? null : copier.apply(v);
+        } catch (TimeoutException e) {
+            waitTimeouts.increment();
+            executions.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for in-flight read", e);
+        }
+    }
+
+    /** Queries actually sent to the database (leaders + timed-out followers). */
+    public long getExecutions() { return executions.sum(); }
+
+    /** Calls answered with another caller's result, i.e. absorbed duplicate queries. */
+    public long getShared() { return shared.sum(); }
+
+    /** Followers that gave up waiting and queried themselves. */
+    public long getWaitTimeouts() { return waitTimeouts.sum(); }
+
+    @Override
+    public String toString() {
+        return "SingleFlight{executions=" + getExecutions()
+                + ", shared=" + getShared()
+                + ", waitTimeouts=" + getWaitTimeouts() + "}";
+    }
+}
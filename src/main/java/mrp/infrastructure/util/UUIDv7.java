@@ -33,6 +33,7 @@ package mrp.infrastructure.util;
 
 import java.nio.ByteBuffer;
 import java.security.SecureRandom;
+import java.time.Instant;
 import java.util.UUID;
 
 public class UUIDv7 {
@@ -48,6 +49,14 @@ public class UUIDv7 {
         return new UUID(high, low);
     }
 
+    /**
+     * Smallest UUIDv7 of the given millisecond (timestamp, all other bits 0);
+     * same value as uuidv7_floor() in 007_ratings_partitioning.sql.
+     */
+    public static UUID lowerBound(Instant time) {
+        return new UUID((time.toEpochMilli() & 0xFFFFFFFFFFFFL) << 16, 0L);
+    }
+
     public static byte[] randomBytes() {
         // random bytes
         byte[] value = new byte[16];
@@ -5,8 +5,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
+import mrp.application.events.MediaEventListener;
 import mrp.dto.MediaRequest;
 import mrp.dto.MediaResponse;
 import mrp.domain.model.MediaEntry;
@@ -412,6 +414,24 @@ class MediaServiceTest {
             Mockito.verify(repo).delete(id);
             Mockito.verifyNoMoreInteractions(repo);
         }
+
+        @Test
+        void delete_notifiesListenersBeforeAndAfterTheDelete() {
+            UUID id = UUID.randomUUID();
+            UUID creatorId = UUID.randomUUID();
+
+            Mockito.when(repo.findById(id)).thenReturn(Optional.of(existingEntry(id, creatorId)));
+            Mockito.when(repo.delete(id)).thenReturn(true);
+            MediaEventListener listener = Mockito.mock(MediaEventListener.class);
+            service.addListener(listener);
+
+            service.delete(id, creatorId);
+
+            InOrder order = Mockito.inOrder(listener, repo);
+            order.verify(listener).beforeMediaDeleted(id);
+            order.verify(repo).delete(id);
+            order.verify(listener).onMediaDeleted(id);
+        }
     }
 
     /**
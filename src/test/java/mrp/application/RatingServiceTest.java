@@ -7,15 +7,25 @@ import org.junit.jupiter.api.Nested;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import mrp.application.concurrent.Deadline;
+import mrp.application.events.RatingEventListener;
 import mrp.domain.model.MediaEntry;
 import mrp.domain.model.Rating;
+import mrp.domain.model.enums.RatingSort;
 import mrp.domain.ports.MediaRepository;
+import mrp.domain.ports.PartialCreateException;
+import mrp.domain.ports.RatingCursor;
+import mrp.domain.ports.RatingPageRequest;
 import mrp.domain.ports.RatingRepository;
 
+import mrp.dto.BatchRatingRequest;
+import mrp.dto.BatchRatingResponse;
+import mrp.dto.RatingPageResponse;
 import mrp.dto.RatingRequest;
 import mrp.dto.RatingResponse;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -49,9 +59,8 @@ class RatingServiceTest {
             MediaEntry media = Mockito.mock(MediaEntry.class);
             Mockito.when(media.getId()).thenReturn(mediaId);
 
-            // findById is called twice:
-            // 1) in create() to ensure media exists
-            // 2) in recalcAverageScore() to update avg
+            // media is needed in create() (existence check) and in recalcAverageScore();
+            // the MediaLoader fetches it only once
             Mockito.when(mediaRepo.findById(mediaId)).thenReturn(Optional.of(media));
 
             // rating create should return saved rating (we return the argument)
@@ -77,6 +86,7 @@ class RatingServiceTest {
             // avg updated
             Mockito.verify(media).setAverageScore(4.0);
             Mockito.verify(mediaRepo).update(media);
+            Mockito.verify(mediaRepo, Mockito.times(1)).findById(mediaId);
 
             // comment visibility: for creator (requester=userId) comment is visible even if not confirmed
             // (Assuming RatingResponse has getComment())
@@ -104,6 +114,249 @@ class RatingServiceTest {
         }
     }
 
+    @Nested
+    class BatchRatingTests {
+        @Test
+        void createBatch_reportsConflictsAndUnknownMedia_andRecalculatesOncePerMedia() {
+            UUID userId = UUID.randomUUID();
+            UUID fresh = UUID.randomUUID();
+            UUID alreadyRated = UUID.randomUUID();
+            UUID unknown = UUID.randomUUID();
+
+            MediaEntry freshMedia = Mockito.mock(MediaEntry.class);
+            Mockito.when(freshMedia.getId()).thenReturn(fresh);
+            MediaEntry ratedMedia = Mockito.mock(MediaEntry.class);
+            Mockito.when(ratedMedia.getId()).thenReturn(alreadyRated);
+            Mockito.when(mediaRepo.findByIds(Mockito.anyCollection())).thenReturn(List.of(freshMedia, ratedMedia));
+
+            // the unique constraint skips the second rating
+            Mockito.when(ratingRepo.createAll(Mockito.anyList()))
+                    .thenAnswer(inv -> List.of(((List<Rating>) inv.getArgument(0)).get(0)));
+            Mockito.when(mediaRepo.updateAverageScores(Mockito.anyCollection())).thenReturn(java.util.Map.of(fresh, 4.0));
+
+            BatchRatingResponse res = service.createBatch(userId, List.of(
+                    new BatchRatingRequest(fresh, 4, "good"),
+                    new BatchRatingRequest(alreadyRated, 5, null),
+                    new BatchRatingRequest(unknown, 3, null),
+                    new BatchRatingRequest(fresh, 1, "again"),
+                    new BatchRatingRequest(fresh, 9, null)
+            ));
+
+            assertEquals(1, res.created.size());
+            assertEquals(fresh, res.created.get(0).getMediaId());
+
+            assertEquals(List.of(1, 2, 3, 4), res.rejected.stream().map(r -> r.index).toList());
+            assertEquals(List.of(409, 404, 400, 400), res.rejected.stream().map(r -> r.status).toList());
+
+            Mockito.verify(ratingRepo, Mockito.times(1)).createAll(Mockito.anyList());
+            Mockito.verify(mediaRepo).updateAverageScores(java.util.Set.of(fresh));
+            Mockito.verify(freshMedia).setAverageScore(4.0);
+            Mockito.verify(ratingRepo, Mockito.never()).listByMedia(Mockito.any(UUID.class));
+        }
+
+        @Test
+        void createBatch_partialStorageFailure_keepsCommittedRatings_andRejectsTheRest() {
+            UUID userId = UUID.randomUUID();
+            UUID stored = UUID.randomUUID();
+            UUID lost = UUID.randomUUID();
+
+            MediaEntry storedMedia = Mockito.mock(MediaEntry.class);
+            Mockito.when(storedMedia.getId()).thenReturn(stored);
+            MediaEntry lostMedia = Mockito.mock(MediaEntry.class);
+            Mockito.when(lostMedia.getId()).thenReturn(lost);
+            Mockito.when(mediaRepo.findByIds(Mockito.anyCollection())).thenReturn(List.of(storedMedia, lostMedia));
+
+            // the shard of the second media is down
+            Mockito.when(ratingRepo.createAll(Mockito.anyList())).thenAnswer(inv -> {
+                List<Rating> all = inv.getArgument(0);
+                throw new PartialCreateException(List.of(all.get(0)), List.of(all.get(1)),
+                        new RuntimeException("connection refused"));
+            });
+            Mockito.when(mediaRepo.updateAverageScores(Mockito.anyCollection())).thenReturn(java.util.Map.of(stored, 5.0));
+
+            BatchRatingResponse res = service.createBatch(userId, List.of(
+                    new BatchRatingRequest(stored, 5, null),
+                    new BatchRatingRequest(lost, 2, null)
+            ));
+
+            assertEquals(List.of(stored), res.created.stream().map(RatingResponse::getMediaId).toList());
+            assertEquals(List.of(1), res.rejected.stream().map(r -> r.index).toList());
+            assertEquals(List.of(503), res.rejected.stream().map(r -> r.status).toList());
+            Mockito.verify(mediaRepo).updateAverageScores(java.util.Set.of(stored));
+        }
+    }
+
+    @Nested
+    class GroupCommitTests {
+        @Test
+        void concurrentCreates_shareOneInsert_andConflictFailsOnlyItsCaller() throws Exception {
+            UUID mediaId = UUID.randomUUID();
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+
+            MediaEntry media = Mockito.mock(MediaEntry.class);
+            Mockito.when(media.getId()).thenReturn(mediaId);
+            Mockito.when(mediaRepo.findById(mediaId)).thenReturn(Optional.of(media));
+
+            // second user already rated this media: the constraint skips that row
+            Mockito.when(ratingRepo.createAll(Mockito.anyList())).thenAnswer(inv -> ((List<Rating>) inv.getArgument(0))
+                    .stream().filter(r -> r.getUserId().equals(first)).toList());
+            Mockito.when(mediaRepo.updateAverageScores(Mockito.anyCollection())).thenReturn(java.util.Map.of(mediaId, 4.5));
+
+            // long linger: both creates end up in the same batch
+            try (GroupCommitRatingWriter writer = new GroupCommitRatingWriter(ratingRepo, mediaRepo, 2, 5_000)) {
+                RatingService grouped = new RatingService(ratingRepo, mediaRepo, writer);
+
+                java.util.concurrent.CompletableFuture<RatingResponse> ok = java.util.concurrent.CompletableFuture.supplyAsync(
+                        () -> grouped.create(first, mediaId, new RatingRequest(5, null)));
+                IllegalStateException conflict = assertThrows(IllegalStateException.class,
+                        () -> grouped.create(second, mediaId, new RatingRequest(4, null)));
+
+                assertEquals("rating already exists", conflict.getMessage());
+                assertEquals(first, ok.get().getUserId());
+            }
+
+            Mockito.verify(ratingRepo, Mockito.times(1)).createAll(Mockito.anyList());
+            Mockito.verify(ratingRepo, Mockito.never()).create(Mockito.any());
+            Mockito.verify(mediaRepo, Mockito.times(1)).updateAverageScores(Mockito.anyCollection());
+        }
+
+        @Test
+        void failingScoreUpdate_stillReportsTheCommittedRating() {
+            UUID mediaId = UUID.randomUUID();
+            UUID userId = UUID.randomUUID();
+
+            MediaEntry media = Mockito.mock(MediaEntry.class);
+            Mockito.when(media.getId()).thenReturn(mediaId);
+            Mockito.when(mediaRepo.findById(mediaId)).thenReturn(Optional.of(media));
+            Mockito.when(ratingRepo.createAll(Mockito.anyList())).thenAnswer(inv -> inv.getArgument(0));
+            Mockito.when(mediaRepo.updateAverageScores(Mockito.anyCollection())).thenThrow(new RuntimeException("lock timeout"));
+
+            try (GroupCommitRatingWriter writer = new GroupCommitRatingWriter(ratingRepo, mediaRepo, 1, 0)) {
+                RatingService grouped = new RatingService(ratingRepo, mediaRepo, writer);
+
+                RatingResponse created = grouped.create(userId, mediaId, new RatingRequest(5, null));
+
+                assertEquals(userId, created.getUserId());
+            }
+
+            Mockito.verify(media, Mockito.never()).setAverageScore(Mockito.anyDouble());
+        }
+
+        @Test
+        void deadlinePassingDuringTheInsert_stillReportsTheStoredRating() {
+            UUID mediaId = UUID.randomUUID();
+            UUID userId = UUID.randomUUID();
+
+            MediaEntry media = Mockito.mock(MediaEntry.class);
+            Mockito.when(media.getId()).thenReturn(mediaId);
+            Mockito.when(mediaRepo.findById(mediaId)).thenReturn(Optional.of(media));
+            // the insert outlasts the request deadline
+            Mockito.when(ratingRepo.createAll(Mockito.anyList())).thenAnswer(inv -> {
+                Thread.sleep(300);
+                return inv.getArgument(0);
+            });
+            Mockito.when(mediaRepo.updateAverageScores(Mockito.anyCollection())).thenReturn(java.util.Map.of(mediaId, 5.0));
+            RatingEventListener listener = Mockito.mock(RatingEventListener.class);
+
+            try (GroupCommitRatingWriter writer = new GroupCommitRatingWriter(ratingRepo, mediaRepo, 1, 0)) {
+                RatingService grouped = new RatingService(ratingRepo, mediaRepo, writer);
+                grouped.addListener(listener);
+
+                Deadline.start(java.time.Duration.ofMillis(100));
+                RatingResponse created;
+                try {
+                    created = grouped.create(userId, mediaId, new RatingRequest(5, null));
+                } finally {
+                    Deadline.clear();
+                }
+
+                assertEquals(userId, created.getUserId());
+            }
+
+            Mockito.verify(listener).onRatingCreated(Mockito.any(Rating.class));
+        }
+
+        @Test
+        void cancelWhileQueued_ratingIsNotWritten() throws Exception {
+            java.util.concurrent.CountDownLatch release = new java.util.concurrent.CountDownLatch(1);
+            java.util.concurrent.CountDownLatch inserting = new java.util.concurrent.CountDownLatch(1);
+            List<UUID> written = java.util.Collections.synchronizedList(new ArrayList<>());
+            Mockito.when(ratingRepo.createAll(Mockito.anyList())).thenAnswer(inv -> {
+                List<Rating> batch = inv.getArgument(0);
+                inserting.countDown();
+                release.await();
+                batch.forEach(r -> written.add(r.getId()));
+                return batch;
+            });
+            Mockito.when(mediaRepo.updateAverageScores(Mockito.anyCollection())).thenReturn(java.util.Map.of());
+
+            Rating first = new Rating(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 4, null, false, null, 0);
+            Rating second = new Rating(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 3, null, false, null, 0);
+
+            try (GroupCommitRatingWriter writer = new GroupCommitRatingWriter(ratingRepo, mediaRepo, 1, 0)) {
+                java.util.concurrent.CompletableFuture<GroupCommitRatingWriter.Written> running = writer.submit(first);
+                inserting.await();
+                java.util.concurrent.CompletableFuture<GroupCommitRatingWriter.Written> queued = writer.submit(second);
+
+                // the first insert already started, the second still waits in the queue
+                assertFalse(running.cancel(false));
+                assertTrue(queued.cancel(false));
+
+                release.countDown();
+                assertEquals(first.getId(), running.get().rating().getId());
+            }
+
+            assertEquals(List.of(first.getId()), written);
+        }
+    }
+
+    @Nested
+    class RatingEventTests {
+        @Test
+        void update_notifiesListener_withPreviousStars() {
+            UUID ratingId = UUID.randomUUID();
+            UUID userId = UUID.randomUUID();
+            UUID mediaId = UUID.randomUUID();
+
+            Rating existing = new Rating(ratingId, mediaId, userId, 2, "meh", true, Instant.now(), 0);
+            Mockito.when(ratingRepo.findById(ratingId)).thenReturn(Optional.of(existing));
+            Mockito.when(ratingRepo.listByMedia(mediaId)).thenReturn(List.of(existing));
+            Mockito.when(mediaRepo.findById(mediaId)).thenReturn(Optional.of(Mockito.mock(MediaEntry.class)));
+
+            RatingRequest req = Mockito.mock(RatingRequest.class);
+            Mockito.when(req.getStars()).thenReturn(5);
+            Mockito.when(req.getComment()).thenReturn("great after all");
+
+            RatingEventListener listener = Mockito.mock(RatingEventListener.class);
+            service.addListener(listener);
+
+            service.update(ratingId, userId, req);
+
+            Mockito.verify(listener).onRatingUpdated(2, existing);
+            assertEquals(5, existing.getStars());
+        }
+
+        @Test
+        void failingListener_doesNotFailTheWrite() {
+            UUID ratingId = UUID.randomUUID();
+            UUID userId = UUID.randomUUID();
+            UUID mediaId = UUID.randomUUID();
+
+            Rating existing = new Rating(ratingId, mediaId, userId, 4, null, false, Instant.now(), 0);
+            Mockito.when(ratingRepo.findById(ratingId)).thenReturn(Optional.of(existing));
+            Mockito.when(ratingRepo.listByMedia(mediaId)).thenReturn(List.of());
+            Mockito.when(mediaRepo.findById(mediaId)).thenReturn(Optional.of(Mockito.mock(MediaEntry.class)));
+
+            RatingEventListener listener = Mockito.mock(RatingEventListener.class);
+            Mockito.doThrow(new RuntimeException("index down")).when(listener).onRatingDeleted(existing);
+            service.addListener(listener);
+
+            assertDoesNotThrow(() -> service.delete(ratingId, userId));
+            Mockito.verify(ratingRepo).delete(ratingId, userId);
+        }
+    }
+
     @Nested
     class Like_Rating {
         @Test
@@ -172,4 +425,88 @@ class RatingServiceTest {
             Mockito.verify(ratingRepo, Mockito.never()).confirmComment(Mockito.any(), Mockito.any());
         }
     }
+
+    @Nested
+    class ListRatingsPagingTests {
+        @Test
+        void listForMedia_moreRowsThanLimit_returnsPageAndNextCursor() {
+            UUID mediaId = UUID.randomUUID();
+            UUID requesterId = UUID.randomUUID();
+
+            MediaEntry media = Mockito.mock(MediaEntry.class);
+            Mockito.when(mediaRepo.findById(mediaId)).thenReturn(Optional.of(media));
+
+            Rating newer = new Rating(UUID.randomUUID(), mediaId, UUID.randomUUID(), 4, "ok", true,
+                    Instant.parse("2025-01-02T10:00:00Z"), 0);
+            Rating older = new Rating(UUID.randomUUID(), mediaId, UUID.randomUUID(), 2, "meh", true,
+                    Instant.parse("2025-01-01T10:00:00Z"), 0);
+
+            // limit 1 -> service probes with limit 2
+            ArgumentCaptor<RatingPageRequest> captor = ArgumentCaptor.forClass(RatingPageRequest.class);
+            Mockito.when(ratingRepo.listByMedia(Mockito.eq(mediaId), captor.capture()))
+                    .thenReturn(List.of(newer, older));
+
+            RatingPageResponse page = service.listForMedia(mediaId, requesterId,
+                    new RatingPageRequest(RatingSort.NEWEST, 1, null));
+
+            assertEquals(2, captor.getValue().getLimit());
+            assertEquals(1, page.items.size());
+            assertEquals(newer.getId(), page.items.get(0).getId());
+            assertNotNull(page.nextCursor);
+
+            RatingCursor cursor = RatingCursor.decode(page.nextCursor, RatingSort.NEWEST);
+            assertEquals(newer.getId(), cursor.getId());
+            assertEquals(newer.getCreatedAt(), cursor.keyAsInstant());
+        }
+
+        @Test
+        void listForUser_fullPageAtMaxLimit_stillHasNextCursor() {
+            UUID userId = UUID.randomUUID();
+            Instant t0 = Instant.parse("2025-01-01T00:00:00Z");
+            List<Rating> rows = new ArrayList<>();
+            for (int i = 0; i <= RatingPageRequest.MAX_LIMIT; i++) {
+                rows.add(new Rating(UUID.randomUUID(), UUID.randomUUID(), userId, 3, null, false,
+                        t0.minusSeconds(i), 0));
+            }
+
+            ArgumentCaptor<RatingPageRequest> captor = ArgumentCaptor.forClass(RatingPageRequest.class);
+            Mockito.when(ratingRepo.listByUser(Mockito.eq(userId), captor.capture())).thenReturn(rows);
+
+            RatingPageResponse page = service.listForUser(userId,
+                    new RatingPageRequest(RatingSort.NEWEST, RatingPageRequest.MAX_LIMIT, null));
+
+            // the look-ahead row is not clamped away
+            assertEquals(RatingPageRequest.MAX_LIMIT + 1, captor.getValue().getLimit());
+            assertEquals(RatingPageRequest.MAX_LIMIT, page.items.size());
+            assertNotNull(page.nextCursor);
+            RatingCursor cursor = RatingCursor.decode(page.nextCursor, RatingSort.NEWEST);
+            assertEquals(rows.get(RatingPageRequest.MAX_LIMIT - 1).getId(), cursor.getId());
+        }
+
+        @Test
+        void listForUser_lastPage_hasNoNextCursor() {
+            UUID userId = UUID.randomUUID();
+            Rating only = new Rating(UUID.randomUUID(), UUID.randomUUID(), userId, 5, null, false,
+                    Instant.now(), 3);
+
+            Mockito.when(ratingRepo.listByUser(Mockito.eq(userId), Mockito.any(RatingPageRequest.class)))
+                    .thenReturn(List.of(only));
+
+            RatingPageResponse page = service.listForUser(userId,
+                    new RatingPageRequest(RatingSort.MOST_LIKED, 10, null));
+
+            assertEquals(1, page.items.size());
+            assertNull(page.nextCursor);
+        }
+
+        @Test
+        void cursor_fromDifferentSort_isRejected() {
+            String cursor = new RatingCursor(RatingSort.MOST_LIKED, 3, UUID.randomUUID()).encode();
+
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                    RatingCursor.decode(cursor, RatingSort.NEWEST)
+            );
+            assertEquals("invalid cursor", ex.getMessage());
+        }
+    }
 }
\ No newline at end of file
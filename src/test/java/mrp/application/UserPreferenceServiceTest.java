@@ -0,0 +1,118 @@
+package mrp.application;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import mrp.domain.model.UserPreferences;
+import mrp.domain.ports.MediaRepository;
+import mrp.domain.ports.RatingRepository;
+import mrp.domain.ports.UserPreferenceRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+class UserPreferenceServiceTest {
+
+    private UserPreferenceRepository profiles;
+    private RatingRepository ratings;
+    private UserPreferenceService service;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        profiles = Mockito.mock(UserPreferenceRepository.class);
+        ratings = Mockito.mock(RatingRepository.class);
+        service = new UserPreferenceService(profiles, ratings, Mockito.mock(MediaRepository.class));
+        Mockito.when(ratings.listByUser(userId)).thenReturn(List.of());
+    }
+
+    private UserPreferences storedAt(long version) {
+        UserPreferences p = new UserPreferences(userId);
+        p.setVersion(version);
+        return p;
+    }
+
+
+    @Nested
+    class RecomputeTests {
+
+        @Test
+        void recompute_replacesConditionallyOnTheVersionReadBeforeTheHistory() {
+            Mockito.when(profiles.find(userId)).thenReturn(Optional.of(storedAt(3)));
+            Mockito.when(profiles.replace(Mockito.any(), Mockito.eq(3L))).thenReturn(true);
+
+            service.recompute(userId);
+
+            Mockito.verify(profiles).replace(Mockito.any(), Mockito.eq(3L));
+            Mockito.verify(profiles, Mockito.never()).delete(userId);
+        }
+
+        @Test
+        void deltaCommittedDuringTheBuild_buildIsRetried() {
+            // a delta bumped the version between the history read and the replace
+            Mockito.when(profiles.find(userId)).thenReturn(Optional.of(storedAt(3)), Optional.of(storedAt(4)));
+            Mockito.when(profiles.replace(Mockito.any(), Mockito.eq(3L))).thenReturn(false);
+            Mockito.when(profiles.replace(Mockito.any(), Mockito.eq(4L))).thenReturn(true);
+
+            service.recompute(userId);
+
+            Mockito.verify(ratings, Mockito.times(2)).listByUser(userId);
+            Mockito.verify(profiles).replace(Mockito.any(), Mockito.eq(4L));
+        }
+
+        @Test
+        void profileThatKeepsChanging_isDropped() {
+            Mockito.when(profiles.find(userId)).thenReturn(Optional.of(storedAt(1)));
+            Mockito.when(profiles.replace(Mockito.any(), Mockito.anyLong())).thenReturn(false);
+
+            assertNotNull(service.recompute(userId));
+
+            Mockito.verify(profiles).delete(userId);
+        }
+    }
+
+
+    @Nested
+    class RebuildTests {
+
+        @Test
+        void rebuild_existingProfile_isKept() {
+            UserPreferences stored = storedAt(7);
+            Mockito.when(profiles.find(userId)).thenReturn(Optional.of(stored));
+
+            assertSame(stored, service.rebuild(userId));
+
+            Mockito.verifyNoInteractions(ratings);
+            Mockito.verify(profiles, Mockito.never()).replace(Mockito.any(), Mockito.anyLong());
+        }
+
+        @Test
+        void rebuild_insertedProfile_isBuiltOnceMore() {
+            // deltas that ran before the insert were skipped: the second round catches them
+            Mockito.when(profiles.find(userId)).thenReturn(Optional.empty(), Optional.of(storedAt(0)));
+            Mockito.when(profiles.insertIfAbsent(Mockito.any())).thenReturn(true);
+            Mockito.when(profiles.replace(Mockito.any(), Mockito.eq(0L))).thenReturn(true);
+
+            service.rebuild(userId);
+
+            Mockito.verify(ratings, Mockito.times(2)).listByUser(userId);
+            Mockito.verify(profiles).replace(Mockito.any(), Mockito.eq(0L));
+        }
+
+        @Test
+        void rebuild_lostToAConcurrentInsert_returnsThatProfile() {
+            UserPreferences theirs = storedAt(0);
+            Mockito.when(profiles.find(userId)).thenReturn(Optional.empty(), Optional.of(theirs));
+            Mockito.when(profiles.insertIfAbsent(Mockito.any())).thenReturn(false);
+
+            assertSame(theirs, service.rebuild(userId));
+
+            Mockito.verify(profiles, Mockito.never()).replace(Mockito.any(), Mockito.anyLong());
+        }
+    }
+}
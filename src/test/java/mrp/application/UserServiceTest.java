@@ -12,9 +12,11 @@ import mrp.domain.model.User;
 import mrp.domain.ports.AuthTokenService;
 import mrp.domain.ports.RatingRepository;
 import mrp.domain.ports.UserRepository;
+import mrp.dto.UserProfileResponse;
 import mrp.dto.UserRatingStats;
 
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -182,6 +184,43 @@ class UserServiceTest {
         }
     }
 
+    /**
+     * PROFILE OVERVIEW
+     */
+    @Nested
+    class ProfileOverviewTests {
+        @Test
+        void getProfileOverview_combinesProfileAndStats() {
+            UUID userId = UUID.randomUUID();
+            User user = new User(userId, "alice", "hash", "a@example.com", "Drama", Instant.now());
+            Mockito.when(users.findById(userId)).thenReturn(Optional.of(user));
+
+            Rating r1 = Mockito.mock(Rating.class);
+            Mockito.when(r1.getStars()).thenReturn(4);
+            Mockito.when(ratings.listByUser(userId)).thenReturn(List.of(r1));
+
+            UserProfileResponse dto = service.getProfileOverview(userId);
+
+            assertEquals(userId, dto.id);
+            assertEquals("alice", dto.username);
+            assertEquals("Drama", dto.favoriteGenre);
+            assertEquals(1, dto.totalRatings);
+            assertEquals(4.0, dto.averageScore, 0.000001);
+        }
+
+        @Test
+        void getProfileOverview_userNotFound_propagatesIllegalArgumentException() {
+            UUID userId = UUID.randomUUID();
+            Mockito.when(users.findById(userId)).thenReturn(Optional.empty());
+            Mockito.when(ratings.listByUser(userId)).thenReturn(List.of());
+
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> service.getProfileOverview(userId));
+
+            assertEquals("user not found", e.getMessage());
+        }
+    }
+
     /**
      * OTHER
      */
@@ -0,0 +1,101 @@
+package mrp.application.loader;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CatalogSnapshotTest {
+
+    // catalog version in the "database"
+    private AtomicLong dbVersion;
+    private AtomicInteger loads;
+    private CatalogSnapshot<List<String>> snapshot;
+
+    @BeforeEach
+    void setUp() {
+        dbVersion = new AtomicLong(10);
+        loads = new AtomicInteger();
+        // long refresh interval: only the first read and invalidate() reload
+        snapshot = new CatalogSnapshot<>(dbVersion::get, () -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(List.of("a"));
+        }, 60_000);
+    }
+
+    // a write on this node: one bump, applied as delta
+    private void localWrite(String item) {
+        dbVersion.incrementAndGet();
+        snapshot.apply(s -> s.add(item));
+    }
+
+
+    @Nested
+    class VersionTests {
+
+        @Test
+        void version_isTheLoadedCatalogVersion() {
+            assertEquals("10", snapshot.version());
+            assertEquals(1, loads.get());
+        }
+
+        @Test
+        void version_lagsTheDatabaseUntilTheNextReload() {
+            snapshot.version();
+            dbVersion.set(15); // written elsewhere, not loaded yet
+
+            assertEquals("10", snapshot.version());
+            assertEquals(List.of("a"), snapshot.read(s -> List.copyOf(s)));
+        }
+
+        @Test
+        void creditedLocalChange_movesToTheNewCatalogVersion() {
+            snapshot.version();
+
+            localWrite("b");
+
+            assertEquals("11", snapshot.version());
+        }
+
+        @Test
+        void uncreditedChange_getsATagOfItsOwn() {
+            snapshot.version();
+            dbVersion.set(12); // another writer was involved
+
+            snapshot.apply(s -> s.add("b"));
+            String first = snapshot.version();
+            snapshot.apply(s -> s.add("c"));
+            String second = snapshot.version();
+
+            assertNotEquals("10", first);
+            assertNotEquals("12", first);
+            assertNotEquals(first, second);
+        }
+
+        @Test
+        void changeThatDidNotBump_stillChangesTheTag() {
+            snapshot.version();
+
+            snapshot.apply(s -> s.add("from another node") && false);
+
+            assertNotEquals("10", snapshot.version());
+        }
+
+        @Test
+        void reload_returnsToThePlainCatalogVersion() {
+            snapshot.version();
+            dbVersion.set(12);
+            snapshot.apply(s -> s.add("b"));
+
+            snapshot.invalidate();
+
+            assertEquals("12", snapshot.version());
+            assertEquals(2, loads.get());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package mrp.application.similarity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+
+import mrp.domain.model.enums.MediaType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+class HnswIndexTest {
+
+    private static final int DIM = 16;
+    private static final int N = 600;
+
+    private HnswIndex index;
+    private List<UUID> ids;
+    private List<float[]> vectors;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        index = new HnswIndex(8, 64, 32);
+        ids = new ArrayList<>();
+        vectors = new ArrayList<>();
+        random = new Random(1234);
+
+        for (int i = 0; i < N; i++) {
+            UUID id = new UUID(0, i);
+            float[] v = randomVector();
+            ids.add(id);
+            vectors.add(v);
+            index.upsert(id, v, ageOf(i), typeOf(i));
+        }
+    }
+
+    private float[] randomVector() {
+        float[] v = new float[DIM];
+        for (int d = 0; d < DIM; d++) v[d] = (float) random.nextGaussian();
+        MediaVectors.normalize(v);
+        return v;
+    }
+
+    private static int ageOf(int i) {
+        return (i % 4) * 6; // 0, 6, 12, 18
+    }
+
+    private static MediaType typeOf(int i) {
+        return MediaType.values()[i % MediaType.values().length];
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float s = 0;
+        for (int d = 0; d < a.length; d++) s += a[d] * b[d];
+        return s;
+    }
+
+    // exact top-k among the entries accepted by the filter
+    private Set<UUID> bruteForce(float[] q, int k, Integer maxAge, MediaType type, Set<UUID> removed) {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < N; i++) {
+            if (removed.contains(ids.get(i))) continue;
+            if (maxAge != null && ageOf(i) > maxAge) continue;
+            if (type != null && typeOf(i) != type) continue;
+            rows.add(i);
+        }
+        rows.sort(Comparator.comparingDouble((Integer i) -> dot(q, vectors.get(i))).reversed());
+        Set<UUID> out = new HashSet<>();
+        for (int i = 0; i < Math.min(k, rows.size()); i++) out.add(ids.get(rows.get(i)));
+        return out;
+    }
+
+    private double recall(int k, Integer maxAge, MediaType type, Set<UUID> removed) {
+        int found = 0, expected = 0;
+        for (int q = 0; q < 30; q++) {
+            float[] query = randomVector();
+            Set<UUID> truth = bruteForce(query, k, maxAge, type, removed);
+            for (HnswIndex.Hit h : index.search(query, k, maxAge, type, null)) {
+                if (truth.contains(h.id())) found++;
+            }
+            expected += truth.size();
+        }
+        return (double) found / expected;
+    }
+
+
+    @Nested
+    class SearchTests {
+
+        @Test
+        void search_findsNearNeighbours() {
+            assertTrue(recall(10, null, null, Set.of()) >= 0.9);
+        }
+
+        @Test
+        void search_returnsHitsBestFirst() {
+            List<HnswIndex.Hit> hits = index.search(randomVector(), 10, null, null, null);
+
+            assertEquals(10, hits.size());
+            for (int i = 1; i < hits.size(); i++) {
+                assertTrue(hits.get(i - 1).similarity() >= hits.get(i).similarity());
+            }
+        }
+
+        @Test
+        void search_excludesTheQueryEntry() {
+            UUID self = ids.get(5);
+
+            List<HnswIndex.Hit> hits = index.search(vectors.get(5), 5, null, null, self);
+
+            assertEquals(5, hits.size());
+            assertTrue(hits.stream().noneMatch(h -> h.id().equals(self)));
+        }
+
+        @Test
+        void search_emptyIndex_returnsNothing() {
+            HnswIndex empty = new HnswIndex(8, 64, 32);
+
+            assertTrue(empty.search(randomVector(), 5, null, null, null).isEmpty());
+        }
+    }
+
+
+    @Nested
+    class FilterTests {
+
+        @Test
+        void search_withFilters_onlyReturnsMatchingEntries() {
+            MediaType type = MediaType.values()[0];
+
+            List<HnswIndex.Hit> hits = index.search(randomVector(), 10, 6, type, null);
+
+            assertEquals(10, hits.size());
+            for (HnswIndex.Hit h : hits) {
+                int row = ids.indexOf(h.id());
+                assertTrue(ageOf(row) <= 6);
+                assertEquals(type, typeOf(row));
+            }
+        }
+
+        @Test
+        void search_selectiveFilter_stillFindsNearNeighbours() {
+            // only ages 0/6 of one type pass, so the beam has to widen
+            assertTrue(recall(10, 6, MediaType.values()[0], Set.of()) >= 0.9);
+        }
+
+        @Test
+        void search_filterMatchesFewerThanK_returnsAllMatches() {
+            HnswIndex small = new HnswIndex(8, 64, 32);
+            for (int i = 0; i < 50; i++) small.upsert(new UUID(1, i), randomVector(), 18, MediaType.values()[0]);
+            small.upsert(new UUID(2, 0), randomVector(), 0, MediaType.values()[0]);
+            small.upsert(new UUID(2, 1), randomVector(), 0, MediaType.values()[0]);
+
+            List<HnswIndex.Hit> hits = small.search(randomVector(), 10, 0, null, null);
+
+            assertEquals(Set.of(new UUID(2, 0), new UUID(2, 1)),
+                    new HashSet<>(hits.stream().map(HnswIndex.Hit::id).toList()));
+        }
+    }
+
+
+    @Nested
+    class TombstoneTests {
+
+        @Test
+        void remove_entryIsNeverReturnedAgain() {
+            Set<UUID> removed = new HashSet<>();
+            for (int i = 0; i < N; i += 3) {
+                assertTrue(index.remove(ids.get(i)));
+                removed.add(ids.get(i));
+            }
+
+            for (int q = 0; q < 30; q++) {
+                for (HnswIndex.Hit h : index.search(randomVector(), 20, null, null, null)) {
+                    assertFalse(removed.contains(h.id()));
+                }
+            }
+            assertEquals(N - removed.size(), index.size());
+            assertEquals(removed.size(), index.tombstones());
+            assertNull(index.vectorOf(ids.get(0)));
+            // deleted nodes still route searches
+            assertTrue(recall(10, null, null, removed) >= 0.9);
+        }
+
+        @Test
+        void remove_unknownEntry_returnsFalse() {
+            assertFalse(index.remove(UUID.randomUUID()));
+            assertEquals(0, index.tombstones());
+        }
+
+        @Test
+        void upsert_existingEntry_replacesItsVector() {
+            UUID id = ids.get(7);
+            float[] moved = randomVector();
+
+            index.upsert(id, moved, 0, MediaType.values()[0]);
+
+            assertArrayEquals(moved, index.vectorOf(id));
+            assertEquals(N, index.size());
+            assertEquals(1, index.tombstones());
+            List<HnswIndex.Hit> hits = index.search(moved, 1, null, null, null);
+            assertEquals(id, hits.get(0).id());
+        }
+    }
+}
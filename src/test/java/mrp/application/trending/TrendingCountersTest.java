@@ -0,0 +1,241 @@
+package mrp.application.trending;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+class TrendingCountersTest {
+
+    private static final double DELTA = 1e-9;
+
+    private MutableClock clock;
+    private TrendingCounters counters;
+    private final UUID a = new UUID(0, 1);
+    private final UUID b = new UUID(0, 2);
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        counters = new TrendingCounters(clock);
+    }
+
+    // Clock the test moves by hand
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private static double decayed(double weight, long ageMinutes, TrendingWindow w) {
+        return weight * Math.exp(-ageMinutes / w.tauMinutes());
+    }
+
+
+    @Nested
+    class DecayTests {
+
+        @Test
+        void score_newEventCountsFully() {
+            counters.record(a, 2.0);
+
+            assertEquals(2.0, counters.score(TrendingWindow.HOUR, a), DELTA);
+            assertEquals(2.0, counters.score(TrendingWindow.WEEK, a), DELTA);
+        }
+
+        @Test
+        void score_decaysWithTheTimeConstantOfTheWindow() {
+            counters.record(a, 1.0);
+            clock.advance(Duration.ofMinutes(20));
+
+            assertEquals(decayed(1.0, 20, TrendingWindow.HOUR), counters.score(TrendingWindow.HOUR, a), DELTA);
+            assertEquals(decayed(1.0, 20, TrendingWindow.DAY), counters.score(TrendingWindow.DAY, a), DELTA);
+        }
+
+        @Test
+        void top_recentActivityOutranksOlderHeavierActivity() {
+            counters.record(a, 3.0);
+            clock.advance(Duration.ofMinutes(40));
+            counters.record(b, 1.0);
+
+            // 3 * e^-2 < 1 within the hour, but 3 * e^(-40/360) > 1 within the day
+            assertEquals(List.of(b, a), counters.top(TrendingWindow.HOUR, 10));
+            assertEquals(List.of(a, b), counters.top(TrendingWindow.DAY, 10));
+        }
+
+        @Test
+        void record_eventsInTheSameMinuteAddUp() {
+            counters.record(a, 1.0);
+            counters.record(a, 1.5);
+
+            assertEquals(2.5, counters.score(TrendingWindow.HOUR, a), DELTA);
+        }
+    }
+
+
+    @Nested
+    class WindowTests {
+
+        @Test
+        void score_eventLeavesTheWindowAfterItsSpan() {
+            counters.record(a, 1.0);
+
+            clock.advance(Duration.ofMinutes(59));
+            assertTrue(counters.score(TrendingWindow.HOUR, a) > 0);
+
+            clock.advance(Duration.ofMinutes(1));
+            assertEquals(0.0, counters.score(TrendingWindow.HOUR, a), DELTA);
+            assertTrue(counters.top(TrendingWindow.HOUR, 10).isEmpty());
+            // still inside the larger windows
+            assertEquals(decayed(1.0, 60, TrendingWindow.DAY), counters.score(TrendingWindow.DAY, a), DELTA);
+        }
+
+        @Test
+        void score_onlyTheExpiredBucketIsSubtracted() {
+            counters.record(a, 1.0);
+            clock.advance(Duration.ofMinutes(30));
+            counters.record(a, 1.0);
+            clock.advance(Duration.ofMinutes(30));
+
+            assertEquals(decayed(1.0, 30, TrendingWindow.HOUR), counters.score(TrendingWindow.HOUR, a), DELTA);
+        }
+
+        @Test
+        void score_idleLongerThanTheWindow_clearsIt() {
+            counters.record(a, 1.0);
+            clock.advance(Duration.ofHours(25));
+
+            assertEquals(0.0, counters.score(TrendingWindow.HOUR, a), DELTA);
+            assertEquals(0.0, counters.score(TrendingWindow.DAY, a), DELTA);
+            assertEquals(decayed(1.0, 25 * 60, TrendingWindow.WEEK), counters.score(TrendingWindow.WEEK, a), DELTA);
+        }
+
+        @Test
+        void forget_dropsTheMediaFromAllWindows() {
+            counters.record(a, 1.0);
+            counters.record(b, 1.0);
+
+            counters.forget(a);
+
+            assertEquals(List.of(b), counters.top(TrendingWindow.WEEK, 10));
+            clock.advance(Duration.ofMinutes(60));
+            // the expired bucket no longer holds a, so nothing goes negative
+            assertEquals(0.0, counters.score(TrendingWindow.HOUR, a), DELTA);
+        }
+    }
+
+
+    @Nested
+    class RecordOnceTests {
+
+        @Test
+        void recordOnce_repeatedKey_countsOnce() {
+            assertTrue(counters.recordOnce(a, "alice-fav-a", 3.0));
+            clock.advance(Duration.ofMinutes(5));
+            // removed and added again
+            assertFalse(counters.recordOnce(a, "alice-fav-a", 3.0));
+
+            assertEquals(decayed(3.0, 5, TrendingWindow.HOUR), counters.score(TrendingWindow.HOUR, a), DELTA);
+        }
+
+        @Test
+        void recordOnce_otherKeys_countSeparately() {
+            counters.recordOnce(a, "alice-fav-a", 3.0);
+            counters.recordOnce(a, "bob-fav-a", 3.0);
+            counters.recordOnce(b, "alice-fav-b", 3.0);
+
+            assertEquals(6.0, counters.score(TrendingWindow.HOUR, a), DELTA);
+            assertEquals(3.0, counters.score(TrendingWindow.HOUR, b), DELTA);
+        }
+
+        @Test
+        void recordOnce_countsAgainOnceTheFirstEventLeftTheLargestWindow() {
+            counters.recordOnce(a, "alice-fav-a", 3.0);
+            clock.advance(Duration.ofDays(7).minusMinutes(1));
+            assertFalse(counters.recordOnce(a, "alice-fav-a", 3.0));
+
+            clock.advance(Duration.ofMinutes(1));
+
+            assertTrue(counters.recordOnce(a, "alice-fav-a", 3.0));
+            assertEquals(3.0, counters.score(TrendingWindow.WEEK, a), DELTA);
+        }
+
+        @Test
+        void recordOnce_keyOfAReusedSlot_isForgotten() {
+            counters.recordOnce(a, "alice-fav-a", 3.0);
+            clock.advance(Duration.ofDays(7));
+            // writes into the slot of the first event, dropping its keys
+            counters.record(b, 1.0);
+            clock.advance(Duration.ofMinutes(1));
+
+            assertTrue(counters.recordOnce(a, "alice-fav-a", 3.0));
+            assertFalse(counters.recordOnce(a, "alice-fav-a", 3.0));
+        }
+    }
+
+
+    @Nested
+    class RenormalizationTests {
+
+        @Test
+        void scores_stayExactAcrossLandmarkMoves() {
+            // the hourly exponent passes MAX_EXPONENT after 1000 minutes; run for three days
+            for (int minute = 0; minute <= 3 * 24 * 60; minute += 10) {
+                if (minute > 0) clock.advance(Duration.ofMinutes(10));
+                counters.record(minute % 20 == 0 ? a : b, 1.0);
+            }
+
+            double expectedA = 0, expectedB = 0;
+            for (int age = 0; age < 60; age += 10) {
+                double w = decayed(1.0, age, TrendingWindow.HOUR);
+                // the last event (age 0) went to a: 4320 is a multiple of 20
+                if (age % 20 == 0) expectedA += w;
+                else expectedB += w;
+            }
+            assertEquals(expectedA, counters.score(TrendingWindow.HOUR, a), 1e-6);
+            assertEquals(expectedB, counters.score(TrendingWindow.HOUR, b), 1e-6);
+            assertEquals(List.of(a, b), counters.top(TrendingWindow.HOUR, 10));
+            assertTrue(Double.isFinite(counters.score(TrendingWindow.WEEK, a)));
+        }
+
+        @Test
+        void scores_surviveALongIdlePeriod() {
+            counters.record(a, 1.0);
+            clock.advance(Duration.ofDays(6));
+            counters.record(b, 1.0);
+
+            assertEquals(1.0, counters.score(TrendingWindow.HOUR, b), DELTA);
+            assertEquals(decayed(1.0, 6 * 24 * 60, TrendingWindow.WEEK), counters.score(TrendingWindow.WEEK, a), 1e-6);
+            assertEquals(List.of(b, a), counters.top(TrendingWindow.WEEK, 10));
+        }
+    }
+}
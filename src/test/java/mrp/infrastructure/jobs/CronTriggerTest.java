@@ -0,0 +1,163 @@
+package mrp.infrastructure.jobs;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Nested;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+class CronTriggerTest {
+
+    // a Wednesday
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    private static Instant at(String utc) {
+        return Instant.parse(utc);
+    }
+
+    private static List<Instant> runs(String expression, Instant from, int count) {
+        CronTrigger t = CronTrigger.parse(expression);
+        List<Instant> out = new ArrayList<>();
+        Instant previous = from;
+        for (int i = 0; i < count; i++) {
+            previous = t.next(previous);
+            out.add(previous);
+        }
+        return out;
+    }
+
+
+    @Nested
+    class ParseTests {
+
+        @Test
+        void parse_invalidExpressions_areRejected() {
+            for (String expr : List.of("* * * *", "* * * * * *", "60 * * * *", "* 24 * * *", "* * 0 * *",
+                    "* * * 13 *", "* * * * 8", "x * * * *", "10-5 * * * *", "*/0 * * * *", "1,,2 * * * *")) {
+                assertThrows(IllegalArgumentException.class, () -> CronTrigger.parse(expr), expr);
+            }
+        }
+
+        @Test
+        void parse_blank_isRejected() {
+            assertThrows(IllegalArgumentException.class, () -> CronTrigger.parse(null));
+            assertThrows(IllegalArgumentException.class, () -> CronTrigger.parse("  "));
+        }
+
+        @Test
+        void parse_expressionThatNeverMatches_isRejected() {
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                    () -> CronTrigger.parse("0 0 31 2 *"));
+
+            assertTrue(ex.getMessage().contains("never matches"));
+        }
+
+        @Test
+        void parse_toleratesExtraWhitespace() {
+            assertEquals(at("2025-01-01T03:30:00Z"), CronTrigger.parse("  30   3 * *  * ").next(START));
+        }
+    }
+
+
+    @Nested
+    class NextTests {
+
+        @Test
+        void next_daily_runsAtTheGivenTime() {
+            assertEquals(List.of(at("2025-01-01T03:30:00Z"), at("2025-01-02T03:30:00Z")),
+                    runs("30 3 * * *", START, 2));
+        }
+
+        @Test
+        void next_isStrictlyAfterThePreviousTime() {
+            CronTrigger t = CronTrigger.parse("30 3 * * *");
+
+            assertEquals(at("2025-01-02T03:30:00Z"), t.next(at("2025-01-01T03:30:00Z")));
+            assertEquals(at("2025-01-02T03:30:00Z"), t.next(at("2025-01-01T03:30:59Z")));
+        }
+
+        @Test
+        void next_lists_andRanges() {
+            assertEquals(List.of(at("2025-01-01T08:00:00Z"), at("2025-01-01T08:30:00Z"),
+                            at("2025-01-01T09:00:00Z"), at("2025-01-01T09:30:00Z"), at("2025-01-02T08:00:00Z")),
+                    runs("0,30 8-9 * * *", START, 5));
+        }
+
+        @Test
+        void next_skipsMonthsThatDoNotMatch() {
+            assertEquals(at("2025-03-01T00:00:00Z"), CronTrigger.parse("0 0 1 3 *").next(at("2025-01-15T12:00:00Z")));
+        }
+
+        @Test
+        void next_leapDay_waitsForTheNextLeapYear() {
+            assertEquals(at("2028-02-29T00:00:00Z"), CronTrigger.parse("0 0 29 2 *").next(START));
+        }
+    }
+
+
+    @Nested
+    class StepTests {
+
+        @Test
+        void step_overTheWholeRange() {
+            assertEquals(List.of(at("2025-01-01T00:15:00Z"), at("2025-01-01T00:30:00Z"),
+                            at("2025-01-01T00:45:00Z"), at("2025-01-01T01:00:00Z")),
+                    runs("*/15 * * * *", at("2025-01-01T00:07:00Z"), 4));
+        }
+
+        @Test
+        void step_fromAStartValue_runsToTheEndOfTheRange() {
+            assertEquals(List.of(at("2025-01-01T00:05:00Z"), at("2025-01-01T00:25:00Z"),
+                            at("2025-01-01T00:45:00Z"), at("2025-01-01T01:05:00Z")),
+                    runs("5/20 * * * *", START, 4));
+        }
+
+        @Test
+        void step_withinARange() {
+            List<Instant> day = runs("0 8-18/4 * * *", START, 4);
+
+            assertEquals(List.of(at("2025-01-01T08:00:00Z"), at("2025-01-01T12:00:00Z"),
+                    at("2025-01-01T16:00:00Z"), at("2025-01-02T08:00:00Z")), day);
+        }
+    }
+
+
+    @Nested
+    class DayTests {
+
+        @Test
+        void dayOfWeek_zeroAndSevenAreSunday() {
+            assertEquals(at("2025-01-05T04:00:00Z"), CronTrigger.parse("0 4 * * 0").next(START));
+            assertEquals(at("2025-01-05T04:00:00Z"), CronTrigger.parse("0 4 * * 7").next(START));
+        }
+
+        @Test
+        void dayOfWeek_range_skipsTheWeekend() {
+            assertEquals(List.of(at("2025-01-02T00:00:00Z"), at("2025-01-03T00:00:00Z"), at("2025-01-06T00:00:00Z")),
+                    runs("0 0 * * 1-5", START, 3));
+        }
+
+        @Test
+        void dayOfMonthOnly_ignoresTheWeekday() {
+            assertEquals(List.of(at("2025-01-13T00:00:00Z"), at("2025-02-13T00:00:00Z")),
+                    runs("0 0 13 * *", START, 2));
+        }
+
+        @Test
+        void bothDayFieldsRestricted_eitherOneMatches() {
+            // Fridays or the 13th: Jan 13 2025 is a Monday
+            assertEquals(List.of(at("2025-01-03T00:00:00Z"), at("2025-01-10T00:00:00Z"),
+                            at("2025-01-13T00:00:00Z"), at("2025-01-17T00:00:00Z")),
+                    runs("0 0 13 * 5", START, 4));
+        }
+
+        @Test
+        void bothDayFieldsRestricted_stillRespectTheMonth() {
+            // the 1st or a Monday, but only in March
+            assertEquals(List.of(at("2025-03-01T00:00:00Z"), at("2025-03-03T00:00:00Z")),
+                    runs("0 0 1 3 1", START, 2));
+        }
+    }
+}
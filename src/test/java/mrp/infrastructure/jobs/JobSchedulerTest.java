@@ -0,0 +1,148 @@
+package mrp.infrastructure.jobs;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+// everyNode jobs only: singleton jobs need the database for their locks
+class JobSchedulerTest {
+
+    private JobScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new JobScheduler();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > until) fail("condition not reached within 5s");
+            Thread.sleep(5);
+        }
+    }
+
+    private JobMetrics metricsOf(String name) {
+        return scheduler.metrics().stream().filter(m -> m.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+
+    @Nested
+    class OverrunTests {
+
+        @Test
+        void busyRun_skipsTheNextRuns_insteadOfQueueingThem() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger started = new AtomicInteger();
+            scheduler.everyNode("slow", Trigger.fixedRate(Duration.ofMillis(10)), Duration.ZERO, () -> {
+                started.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            scheduler.start();
+            awaitTrue(() -> metricsOf("slow").getSkippedOverrun() >= 3);
+
+            assertEquals(1, started.get());
+            assertEquals(0, metricsOf("slow").getRuns());
+
+            release.countDown();
+            awaitTrue(() -> metricsOf("slow").getRuns() >= 2);
+        }
+
+        @Test
+        void failingRun_isCounted_andTheJobRunsAgain() throws Exception {
+            AtomicInteger calls = new AtomicInteger();
+            scheduler.everyNode("broken", Trigger.fixedRate(Duration.ofMillis(10)), Duration.ZERO, () -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("boom");
+            });
+
+            scheduler.start();
+            awaitTrue(() -> metricsOf("broken").getFailures() >= 2);
+
+            JobMetrics m = metricsOf("broken");
+            assertTrue(calls.get() >= 2);
+            assertEquals("java.lang.IllegalStateException: boom", m.getLastError());
+            assertNull(m.getLastSuccess());
+        }
+
+        @Test
+        void fixedRate_firstRunRightAfterStart() throws Exception {
+            CountDownLatch ran = new CountDownLatch(1);
+            scheduler.everyNode("hourly", Trigger.fixedRate(Duration.ofHours(1)), Duration.ZERO, ran::countDown);
+
+            scheduler.start();
+
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+
+    @Nested
+    class JitterTests {
+
+        private final Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        @Test
+        void delay_withoutJitter_isTheTimeUntilTheRun() {
+            assertEquals(100, JobScheduler.delayMillis(now, now.plusMillis(100), 0));
+            assertEquals(0, JobScheduler.delayMillis(now, now.minusMillis(100), 0));
+        }
+
+        @Test
+        void delay_withJitter_staysWithinTheJitter_andVaries() {
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i < 200; i++) {
+                long d = JobScheduler.delayMillis(now, now.plusMillis(100), 50);
+                assertTrue(d >= 100 && d <= 150, "delay " + d);
+                seen.add(d);
+            }
+
+            assertTrue(seen.size() > 1);
+        }
+
+        @Test
+        void negativeJitter_isRejected() {
+            assertThrows(IllegalArgumentException.class, () ->
+                    scheduler.everyNode("x", Trigger.fixedRate(Duration.ofMinutes(1)), Duration.ofMillis(-1), () -> { }));
+        }
+    }
+
+
+    @Nested
+    class RegistrationTests {
+
+        @Test
+        void duplicateName_isRejected() {
+            scheduler.everyNode("a", Trigger.fixedRate(Duration.ofMinutes(1)), Duration.ZERO, () -> { });
+
+            assertThrows(IllegalArgumentException.class, () ->
+                    scheduler.everyNode("a", Trigger.cron("0 * * * *"), Duration.ZERO, () -> { }));
+        }
+
+        @Test
+        void newScheduler_isNotLeader() {
+            assertFalse(scheduler.isLeader());
+        }
+    }
+}
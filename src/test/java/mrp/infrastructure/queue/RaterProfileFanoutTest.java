@@ -0,0 +1,96 @@
+package mrp.infrastructure.queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import mrp.application.UserPreferenceService;
+import mrp.domain.model.MediaEntry;
+import mrp.domain.model.Rating;
+import mrp.domain.ports.RatingRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+class RaterProfileFanoutTest {
+
+    private WorkQueue queue;
+    private RatingRepository ratings;
+    private RaterProfileFanout fanout;
+
+    @BeforeEach
+    void setUp() {
+        queue = Mockito.mock(WorkQueue.class);
+        ratings = Mockito.mock(RatingRepository.class);
+        fanout = new RaterProfileFanout(queue, ratings, Mockito.mock(UserPreferenceService.class));
+    }
+
+    private static Rating ratingBy(UUID userId, UUID mediaId) {
+        return new Rating(UUID.randomUUID(), mediaId, userId, 5, null, false, null, 0);
+    }
+
+
+    @Nested
+    class DeleteTests {
+
+        @Test
+        void delete_queuesRecomputesForTheRatersReadBeforeTheDelete() {
+            UUID mediaId = UUID.randomUUID();
+            UUID alice = UUID.randomUUID();
+            UUID bob = UUID.randomUUID();
+            Mockito.when(ratings.listByMedia(mediaId)).thenReturn(List.of(ratingBy(alice, mediaId), ratingBy(bob, mediaId)));
+
+            fanout.beforeMediaDeleted(mediaId);
+            // the cascade took the ratings with it
+            Mockito.when(ratings.listByMedia(mediaId)).thenReturn(List.of());
+            Mockito.verify(queue, Mockito.never()).enqueueAll(Mockito.anyString(), Mockito.anyCollection());
+
+            fanout.onMediaDeleted(mediaId);
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<Collection<String>> users = ArgumentCaptor.forClass(Collection.class);
+            Mockito.verify(queue).enqueueAll(Mockito.eq(RaterProfileFanout.USER_PREFERENCES), users.capture());
+            assertEquals(Set.of(alice.toString(), bob.toString()), Set.copyOf(users.getValue()));
+        }
+
+        @Test
+        void delete_withoutCapturedRaters_queuesNothing() {
+            fanout.onMediaDeleted(UUID.randomUUID());
+
+            Mockito.verifyNoInteractions(queue);
+        }
+
+        @Test
+        void delete_queuesOnlyOnce() {
+            UUID mediaId = UUID.randomUUID();
+            Mockito.when(ratings.listByMedia(mediaId)).thenReturn(List.of(ratingBy(UUID.randomUUID(), mediaId)));
+
+            fanout.beforeMediaDeleted(mediaId);
+            fanout.onMediaDeleted(mediaId);
+            fanout.onMediaDeleted(mediaId);
+
+            Mockito.verify(queue, Mockito.times(1)).enqueueAll(Mockito.anyString(), Mockito.anyCollection());
+        }
+    }
+
+
+    @Nested
+    class SaveTests {
+
+        @Test
+        void save_queuesTheRaterLookupForTheMedia() {
+            UUID mediaId = UUID.randomUUID();
+            MediaEntry entry = Mockito.mock(MediaEntry.class);
+            Mockito.when(entry.getId()).thenReturn(mediaId);
+
+            fanout.onMediaSaved(entry);
+
+            Mockito.verify(queue).enqueue(RaterProfileFanout.MEDIA_RATERS, mediaId.toString(), mediaId.toString());
+        }
+    }
+}